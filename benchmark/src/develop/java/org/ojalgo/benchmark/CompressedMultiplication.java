@@ -0,0 +1,95 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.RowCompressedStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Uniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same matrices as {@link SparseMultiplication}, but built with {@link SparseStore#builder(SparseStore.Factory, long, long)}
+ * and multiplied as {@link RowCompressedStore}. These APIs don't exist in released versions, so this is
+ * only compiled when benchmarking the current code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CompressedMultiplication {
+
+    @Param({ "1000", "10000", "100000" })
+    public int dim;
+
+    @Param({ "2", "10" })
+    public int nonzeros;
+
+    private RowCompressedStore myLeft;
+    private SparseStore<Double> myRight;
+    private Primitive64Store myVector;
+
+    @Benchmark
+    public MatrixStore<Double> compressedTimesSparse() {
+        return myLeft.multiply(RowCompressedStore.copy(myRight));
+    }
+
+    @Benchmark
+    public MatrixStore<Double> compressedTimesVector() {
+        return myLeft.multiply(myVector);
+    }
+
+    @Setup
+    public void setup() {
+
+        final SparseStore.Builder<Double> left = SparseStore.builder(SparseStore.PRIMITIVE64, dim, dim);
+        final SparseStore.Builder<Double> right = SparseStore.builder(SparseStore.PRIMITIVE64, dim, dim);
+        for (int ij = 0; ij < dim; ij++) {
+            for (int k = 0; k < nonzeros; k++) {
+                left.add(ij, Uniform.randomInteger(dim), Math.random());
+                right.add(Uniform.randomInteger(dim), ij, Math.random());
+            }
+        }
+        myLeft = RowCompressedStore.copy(left.get());
+        myRight = right.get();
+
+        myVector = Primitive64Store.FACTORY.make(dim, 1);
+        myVector.fillAll(PrimitiveMath.ONE);
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.array.operation.MultiplyBoth;
+import org.ojalgo.array.operation.MultiplyNeither;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The dense multiplication kernels. The shape is "rows x complexity x columns" of [left][right]=[product].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MatrixMultiplication {
+
+    @Param({ "10x10x10", "100x100x100", "1000x1000x1000", "1000x1000x1", "1x1000x1000", "1000x10x1000", "10x1000x10" })
+    public String shape;
+
+    private int myComplexity;
+    private Primitive64Store myLeft;
+    private MultiplyBoth.Primitive myMultiplyBoth;
+    private MultiplyNeither.Primitive64 myMultiplyNeither;
+    private Primitive64Store myProduct;
+    private Primitive64Store myRight;
+
+    @Benchmark
+    public Primitive64Store multiplyBoth() {
+        myMultiplyBoth.invoke(myProduct, myLeft, myComplexity, myRight);
+        return myProduct;
+    }
+
+    @Benchmark
+    public Primitive64Store multiplyNeither() {
+        myMultiplyNeither.invoke(myProduct.data, myLeft.data, myComplexity, myRight.data);
+        return myProduct;
+    }
+
+    @Setup
+    public void setup() {
+
+        final String[] dimensions = shape.split("x");
+        final int rows = Integer.parseInt(dimensions[0]);
+        myComplexity = Integer.parseInt(dimensions[1]);
+        final int columns = Integer.parseInt(dimensions[2]);
+
+        myLeft = Primitive64Store.FACTORY.makeFilled(rows, myComplexity, new Uniform());
+        myRight = Primitive64Store.FACTORY.makeFilled(myComplexity, columns, new Uniform());
+        myProduct = Primitive64Store.FACTORY.make(rows, columns);
+
+        myMultiplyBoth = MultiplyBoth.newPrimitive64(rows, columns);
+        myMultiplyNeither = MultiplyNeither.newPrimitive64(rows, columns);
+    }
+
+}
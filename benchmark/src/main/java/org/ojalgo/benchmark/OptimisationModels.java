@@ -0,0 +1,158 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.MathProgSysModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.convex.ConvexSolver;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.CalendarDateUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The optimisation solvers. The LP (simplex tableau pivoting) and MIP models are read from the MPS files in
+ * the project's rsrc/optimisation directory - set the system property "ojalgo.rsrc" if the benchmarks are
+ * not run from the benchmark directory. The convex (QP) problems are random.
+ */
+public abstract class OptimisationModels {
+
+    /**
+     * The default time limits are too short for some of the MIP models
+     */
+    static final long MAX_SOLVE_TIME = CalendarDateUnit.MINUTE.toDurationInMillis();
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public static class Convex {
+
+        @Param({ "10", "50", "100" })
+        public int dim;
+
+        private ConvexSolver mySolver;
+
+        @Setup
+        public void setup() {
+
+            final Primitive64Store Q = Primitive64Store.FACTORY.makeSPD(dim);
+            final Primitive64Store C = Primitive64Store.FACTORY.makeFilled(dim, 1, new Uniform());
+
+            // x >= 0 and sum(x) <= 1
+            final Primitive64Store A = Primitive64Store.FACTORY.make(dim + 1, dim);
+            final Primitive64Store b = Primitive64Store.FACTORY.make(dim + 1, 1);
+            for (int j = 0; j < dim; j++) {
+                A.set(j, j, -1.0);
+                A.set(dim, j, 1.0);
+            }
+            b.set(dim, 0, 1.0);
+
+            mySolver = ConvexSolver.getBuilder(Q, C).inequalities(A, b).build();
+        }
+
+        @Benchmark
+        public Optimisation.Result solve() {
+            return mySolver.solve();
+        }
+
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public static class MixedInteger {
+
+        @Param({ "miplib/flugpl.mps", "miplib/gr4x6.mps" })
+        public String model;
+
+        private ExpressionsBasedModel myModel;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            // The model is modified when solved (bounds, cuts...) so each invocation solves a freshly read model
+            myModel = OptimisationModels.read(model);
+            myModel.options.time_suffice = MAX_SOLVE_TIME;
+            myModel.options.time_abort = MAX_SOLVE_TIME;
+        }
+
+        @Benchmark
+        public Optimisation.Result solve() {
+            return myModel.minimise();
+        }
+
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public static class Linear {
+
+        @Param({ "burkardt/afiro.mps", "burkardt/adlittle.mps", "netlib/SC205.SIF", "netlib/SHARE2B.SIF", "netlib/ISRAEL.SIF", "netlib/BANDM.SIF" })
+        public String model;
+
+        private ExpressionsBasedModel myModel;
+
+        @Setup
+        public void setup() {
+            myModel = OptimisationModels.read(model);
+        }
+
+        @Benchmark
+        public Optimisation.Result solve() {
+            return myModel.minimise();
+        }
+
+    }
+
+    /**
+     * @param model The path, relative to rsrc/optimisation, of an MPS file
+     */
+    static ExpressionsBasedModel read(final String model) {
+        final File directory = new File(System.getProperty("ojalgo.rsrc", "../rsrc"), "optimisation");
+        return MathProgSysModel.make(new File(directory, model)).getExpressionsBasedModel();
+    }
+
+}
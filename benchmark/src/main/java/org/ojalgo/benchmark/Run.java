@@ -0,0 +1,83 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+
+import org.ojalgo.OjAlgoUtils;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, and writes the results as JSON to a file named after the ojAlgo version being
+ * benchmarked - results/ojAlgo-&lt;version&gt;-&lt;timestamp&gt;.json - so that results from different
+ * versions can be compared. Any arguments are passed on to JMH (typically a regular expression selecting
+ * which benchmarks to run).
+ */
+public abstract class Run {
+
+    /**
+     * The version of the ojAlgo artifact actually on the class path. The manifest of the shaded jar is this
+     * module's own, so {@link OjAlgoUtils#getVersion()} can't be used - the Maven descriptor of the ojAlgo
+     * jar is still there.
+     */
+    static String getVersion() {
+
+        final Properties properties = new Properties();
+
+        try (InputStream input = OjAlgoUtils.class.getResourceAsStream("/META-INF/maven/org.ojalgo/ojalgo/pom.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (final IOException cause) {
+            // Fall through to "unknown"
+        }
+
+        return properties.getProperty("version", "unknown");
+    }
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+
+        final String version = Run.getVersion();
+        final String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        final File directory = new File("results");
+        directory.mkdirs();
+        final File file = new File(directory, "ojAlgo-" + version + "-" + timestamp + ".json");
+
+        final ChainedOptionsBuilder builder = new OptionsBuilder().parent(new CommandLineOptions(args));
+        builder.resultFormat(ResultFormatType.JSON).result(file.getPath());
+
+        new Runner(builder.build()).run();
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Uniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Square sparse matrices with (on average) {@link #nonzeros} elements per row/column, multiplied by a
+ * vector and by another sparse matrix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SparseMultiplication {
+
+    @Param({ "1000", "10000", "100000" })
+    public int dim;
+
+    @Param({ "2", "10" })
+    public int nonzeros;
+
+    private SparseStore<Double> myLeft;
+    private SparseStore<Double> myRight;
+    private Primitive64Store myVector;
+
+    @Setup
+    public void setup() {
+
+        myLeft = SparseStore.PRIMITIVE64.make(dim, dim);
+        myRight = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int ij = 0; ij < dim; ij++) {
+            for (int k = 0; k < nonzeros; k++) {
+                myLeft.set(ij, Uniform.randomInteger(dim), Math.random());
+                myRight.set(Uniform.randomInteger(dim), ij, Math.random());
+            }
+        }
+
+        myVector = Primitive64Store.FACTORY.make(dim, 1);
+        myVector.fillAll(PrimitiveMath.ONE);
+    }
+
+    @Benchmark
+    public MatrixStore<Double> sparseTimesSparse() {
+        return myLeft.multiply(myRight);
+    }
+
+    @Benchmark
+    public MatrixStore<Double> sparseTimesVector() {
+        return myLeft.multiply(myVector);
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link PrimitiveKernels} implemented using the (incubating) Vector API. Only unit stride loops are
+ * vectorised, other strides fall back to the scalar implementations. Multiplication and addition are kept as
+ * separate operations (no fused multiply-add) so that elementwise results are identical to the scalar
+ * versions, and so that this never degrades to a software fma on hardware without it.
+ * <p>
+ * Vectorised reductions (dot, asum and nrm2) sum in a different order than the scalar loops. To not change
+ * the results of small (possibly ill-conditioned) problems depending on which JVM they run on, reductions
+ * shorter than {@value #MIN_REDUCTION} elements still use the scalar loops.
+ *
+ * @author apete
+ */
+final class VectorisedKernels extends PrimitiveKernels {
+
+    static final int MIN_REDUCTION = 64;
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    VectorisedKernels() {
+        super();
+    }
+
+    @Override
+    int amax(final double[] data, final int first, final int limit, final int step) {
+
+        if (step != 1) {
+            return super.amax(data, first, limit, step);
+        }
+
+        final int bound = first + SPECIES.loopBound(limit - first);
+
+        DoubleVector largest = DoubleVector.zero(SPECIES);
+        int i = first;
+        for (; i < bound; i += LANES) {
+            largest = largest.max(DoubleVector.fromArray(SPECIES, data, i).abs());
+        }
+        double max = largest.reduceLanes(VectorOperators.MAX);
+        for (; i < limit; i++) {
+            max = Math.max(max, Math.abs(data[i]));
+        }
+
+        if (max > 0D) {
+            for (int j = first; j < limit; j++) {
+                if (Math.abs(data[j]) == max) {
+                    return j;
+                }
+            }
+        }
+
+        // All zero, or there's a NaN somewhere - let the scalar version decide
+        return super.amax(data, first, limit, step);
+    }
+
+    @Override
+    double asum(final double[] data, final int first, final int limit, final int step) {
+
+        if ((step != 1) || ((limit - first) < MIN_REDUCTION)) {
+            return super.asum(data, first, limit, step);
+        }
+
+        final int bound = first + SPECIES.loopBound(limit - first);
+
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = first;
+        for (; i < bound; i += LANES) {
+            sum = sum.add(DoubleVector.fromArray(SPECIES, data, i).abs());
+        }
+        double retVal = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < limit; i++) {
+            retVal += Math.abs(data[i]);
+        }
+
+        return retVal;
+    }
+
+    @Override
+    void axpy(final double[] y, final int basey, final double a, final double[] x, final int basex, final int first, final int limit) {
+
+        final int bound = first + SPECIES.loopBound(limit - first);
+
+        final DoubleVector factor = DoubleVector.broadcast(SPECIES, a);
+        int i = first;
+        for (; i < bound; i += LANES) {
+            final DoubleVector vy = DoubleVector.fromArray(SPECIES, y, basey + i);
+            vy.add(DoubleVector.fromArray(SPECIES, x, basex + i).mul(factor)).intoArray(y, basey + i);
+        }
+        for (; i < limit; i++) {
+            y[basey + i] += a * x[basex + i];
+        }
+    }
+
+    @Override
+    double dot(final double[] array1, final int offset1, final double[] array2, final int offset2, final int first, final int limit) {
+
+        if ((limit - first) < MIN_REDUCTION) {
+            return super.dot(array1, offset1, array2, offset2, first, limit);
+        }
+
+        final int bound = first + SPECIES.loopBound(limit - first);
+
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = first;
+        for (; i < bound; i += LANES) {
+            sum = sum.add(DoubleVector.fromArray(SPECIES, array1, offset1 + i).mul(DoubleVector.fromArray(SPECIES, array2, offset2 + i)));
+        }
+        double retVal = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < limit; i++) {
+            retVal += array1[offset1 + i] * array2[offset2 + i];
+        }
+
+        return retVal;
+    }
+
+    @Override
+    boolean isVectorised() {
+        return true;
+    }
+
+    @Override
+    double nrm2(final double[] data, final int first, final int limit, final int step) {
+
+        if ((step != 1) || ((limit - first) < MIN_REDUCTION)) {
+            return super.nrm2(data, first, limit, step);
+        }
+
+        return Math.sqrt(this.dot(data, 0, data, 0, first, limit));
+    }
+
+    @Override
+    void scal(final double[] data, final int first, final int limit, final int step, final double scalar) {
+
+        if (step != 1) {
+            super.scal(data, first, limit, step, scalar);
+            return;
+        }
+
+        final int bound = first + SPECIES.loopBound(limit - first);
+
+        final DoubleVector factor = DoubleVector.broadcast(SPECIES, scalar);
+        int i = first;
+        for (; i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, data, i).mul(factor).intoArray(data, i);
+        }
+        for (; i < limit; i++) {
+            data[i] *= scalar;
+        }
+    }
+
+}
@@ -21,9 +21,11 @@
  */
 package org.ojalgo;
 
+import java.io.File;
 import java.util.Date;
 
 import org.ojalgo.array.operation.ArrayOperation;
+import org.ojalgo.array.operation.ThresholdProfile;
 import org.ojalgo.machine.Hardware;
 import org.ojalgo.machine.VirtualMachine;
 import org.ojalgo.netio.BasicLogger;
@@ -65,6 +67,17 @@ public abstract class OjAlgoUtils {
             }
             ENVIRONMENT = Hardware.makeSimple(architecture, memory, threads).virtualise();
         }
+
+        String thresholds = System.getProperty(ThresholdProfile.PROPERTY);
+        if (thresholds != null) {
+            ThresholdProfile.load(new File(thresholds)).ifPresent(profile -> {
+                if (profile.isFor(ENVIRONMENT)) {
+                    profile.apply();
+                } else {
+                    BasicLogger.error("Threshold profile {} is for another environment - not applied!", thresholds);
+                }
+            });
+        }
     }
 
     /**
@@ -274,6 +274,12 @@ public abstract class BufferArray extends PlainArray<Double> {
                         return PrimitiveScalar.FACTORY;
                     }
 
+                    @Override
+                    long getCapacityLimit() {
+                        // A single mapping can't exceed Integer.MAX_VALUE bytes
+                        return MAX_ARRAY_SIZE / DOUBLE_ELEMENT_SIZE;
+                    }
+
                     @Override
                     long getElementSize() {
                         return DOUBLE_ELEMENT_SIZE;
@@ -25,6 +25,7 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.util.Arrays;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.operation.*;
 import org.ojalgo.function.BinaryFunction;
 import org.ojalgo.function.FunctionSet;
@@ -110,7 +111,15 @@ public class Primitive32Array extends PrimitiveArray {
 
     @Override
     public void axpy(final double a, final Mutate1D y) {
-        AXPY.invoke(y, a, data);
+        if (y instanceof Primitive32Array) {
+            final float[] yData = ((Primitive32Array) y).data;
+            if (yData.length < data.length) {
+                ProgrammingError.throwWithMessage("Vector y too short: {} < {}!", yData.length, data.length);
+            }
+            AXPY.invoke(yData, 0, a, data, 0, 0, data.length);
+        } else {
+            AXPY.invoke(y, a, data);
+        }
     }
 
     @Override
@@ -118,8 +127,19 @@ public class Primitive32Array extends PrimitiveArray {
 
         double retVal = ZERO;
 
-        for (int i = 0, limit = Math.min(data.length, (int) vector.count()); i < limit; i++) {
-            retVal += data[i] * vector.doubleValue(i);
+        if (vector instanceof Primitive32Array) {
+
+            final float[] other = ((Primitive32Array) vector).data;
+
+            for (int i = 0, limit = Math.min(data.length, other.length); i < limit; i++) {
+                retVal += data[i] * other[i];
+            }
+
+        } else {
+
+            for (int i = 0, limit = Math.min(data.length, (int) vector.count()); i < limit; i++) {
+                retVal += data[i] * vector.doubleValue(i);
+            }
         }
 
         return retVal;
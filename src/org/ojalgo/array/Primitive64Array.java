@@ -29,6 +29,7 @@ import java.util.Spliterators;
 import java.util.stream.DoubleStream;
 import java.util.stream.StreamSupport;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.operation.*;
 import org.ojalgo.function.BinaryFunction;
 import org.ojalgo.function.FunctionSet;
@@ -114,19 +115,36 @@ public class Primitive64Array extends PrimitiveArray {
 
     @Override
     public void axpy(final double a, final Mutate1D y) {
-        AXPY.invoke(y, a, data);
+        if (y instanceof Primitive64Array) {
+            final double[] yData = ((Primitive64Array) y).data;
+            if (yData.length < data.length) {
+                ProgrammingError.throwWithMessage("Vector y too short: {} < {}!", yData.length, data.length);
+            }
+            AXPY.invoke(yData, 0, a, data, 0, 0, data.length);
+        } else {
+            AXPY.invoke(y, a, data);
+        }
     }
 
     @Override
     public double dot(final Access1D<?> vector) {
 
-        double retVal = ZERO;
+        if (vector instanceof Primitive64Array) {
 
-        for (int i = 0, limit = Math.min(data.length, (int) vector.count()); i < limit; i++) {
-            retVal += data[i] * vector.doubleValue(i);
-        }
+            final double[] other = ((Primitive64Array) vector).data;
+
+            return DOT.invoke(data, 0, other, 0, 0, Math.min(data.length, other.length));
+
+        } else {
 
-        return retVal;
+            double retVal = ZERO;
+
+            for (int i = 0, limit = Math.min(data.length, (int) vector.count()); i < limit; i++) {
+                retVal += data[i] * vector.doubleValue(i);
+            }
+
+            return retVal;
+        }
     }
 
     @Override
@@ -491,6 +491,35 @@ public final class SparseArray<N extends Comparable<N>> extends BasicArray<N> {
         myValues.reset();
     }
 
+    /**
+     * Replaces all current elements with the given ones, in one step, without any of the shifting that
+     * individual (out of order) inserts cause. The arrays are copied, not retained.
+     *
+     * @param indices Strictly increasing indices in the range [0, count)
+     * @param values The corresponding values
+     * @param length The number of elements to use from the arrays
+     */
+    public void reset(final long[] indices, final double[] values, final int length) {
+
+        final int capacity = Math.max(length, myStrategy.initial());
+
+        if (myIndices.length < capacity) {
+            myIndices = new long[capacity];
+            myValues = myStrategy.make(capacity);
+        } else {
+            myValues.reset();
+        }
+
+        System.arraycopy(indices, 0, myIndices, 0, length);
+        Arrays.fill(myIndices, length, myIndices.length, Long.MAX_VALUE);
+
+        for (int i = 0; i < length; i++) {
+            myValues.set(i, values[i]);
+        }
+
+        myActualLength = length;
+    }
+
     @Override
     public void set(final long index, final Comparable<?> value) {
 
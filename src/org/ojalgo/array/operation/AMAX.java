@@ -73,19 +73,7 @@ public final class AMAX implements BLAS1 {
     }
 
     public static int invoke(final double[] data, final int first, final int limit, final int step) {
-
-        int retVal = first;
-        double largest = 0D;
-        double candidate;
-
-        for (int i = first; i < limit; i += step) {
-            candidate = PrimitiveMath.ABS.invoke(data[i]);
-            if (candidate > largest) {
-                largest = candidate;
-                retVal = i;
-            }
-        }
-        return retVal;
+        return PrimitiveKernels.INSTANCE.amax(data, first, limit, step);
     }
 
     public static int invoke(final float[] data, final int first, final int limit, final int step) {
@@ -21,8 +21,6 @@
  */
 package org.ojalgo.array.operation;
 
-import org.ojalgo.function.constant.PrimitiveMath;
-
 /**
  * The ?asum routine computes the sum of the magnitudes of elements of a real vector, or the sum of magnitudes
  * of the real and imaginary parts of elements of a complex vector: res = |Re x1| + |Im x1| + |Re x2| + |Im
@@ -35,11 +33,7 @@ public final class ASUM implements BLAS1 {
     public static int THRESHOLD = 128;
 
     public static double invoke(final double[] data, final int first, final int limit, final int step) {
-        double retVal = 0D;
-        for (int i = first; i < limit; i += step) {
-            retVal += PrimitiveMath.ABS.invoke(data[i]);
-        }
-        return retVal;
+        return PrimitiveKernels.INSTANCE.asum(data, first, limit, step);
     }
 
     @Override
@@ -45,8 +45,16 @@ public final class AXPY implements BLAS1 {
     }
 
     public static void invoke(final double[] y, final int basey, final double a, final double[] x, final int basex, final int first, final int limit) {
+        PrimitiveKernels.INSTANCE.axpy(y, basey, a, x, basex, first, limit);
+    }
+
+    /**
+     * The products are calculated in double precision, and then rounded to float, as they would be when
+     * adding to a float[] backed {@link Mutate1D}.
+     */
+    public static void invoke(final float[] y, final int basey, final double a, final float[] x, final int basex, final int first, final int limit) {
         for (int i = first; i < limit; i++) {
-            y[basey + i] += a * x[basex + i];
+            y[basey + i] += (float) (a * x[basex + i]);
         }
     }
 
@@ -64,10 +64,12 @@ public interface ArrayOperation {
         GenerateApplyAndCopyHouseholderRow.THRESHOLD = Math.min(value, GenerateApplyAndCopyHouseholderRow.THRESHOLD);
         HermitianRank2Update.THRESHOLD = Math.min(value, HermitianRank2Update.THRESHOLD);
         // HouseholderHermitian
+        HouseholderBlock.THRESHOLD = Math.min(value, HouseholderBlock.THRESHOLD);
         HouseholderLeft.THRESHOLD = Math.min(value, HouseholderLeft.THRESHOLD);
         HouseholderRight.THRESHOLD = Math.min(value, HouseholderRight.THRESHOLD);
         IndexOf.THRESHOLD = Math.min(value, IndexOf.THRESHOLD);
         ModifyAll.THRESHOLD = Math.min(value, ModifyAll.THRESHOLD);
+        MultiplyBlocked.THRESHOLD = Math.min(value, MultiplyBlocked.THRESHOLD);
         MultiplyBoth.THRESHOLD = Math.min(value, MultiplyBoth.THRESHOLD);
         MultiplyHermitianAndVector.THRESHOLD = Math.min(value, MultiplyHermitianAndVector.THRESHOLD);
         MultiplyLeft.THRESHOLD = Math.min(value, MultiplyLeft.THRESHOLD);
@@ -121,10 +123,12 @@ public interface ArrayOperation {
         GenerateApplyAndCopyHouseholderRow.THRESHOLD = Math.max(value, GenerateApplyAndCopyHouseholderRow.THRESHOLD);
         HermitianRank2Update.THRESHOLD = Math.max(value, HermitianRank2Update.THRESHOLD);
         // HouseholderHermitian
+        HouseholderBlock.THRESHOLD = Math.max(value, HouseholderBlock.THRESHOLD);
         HouseholderLeft.THRESHOLD = Math.max(value, HouseholderLeft.THRESHOLD);
         HouseholderRight.THRESHOLD = Math.max(value, HouseholderRight.THRESHOLD);
         IndexOf.THRESHOLD = Math.max(value, IndexOf.THRESHOLD);
         ModifyAll.THRESHOLD = Math.max(value, ModifyAll.THRESHOLD);
+        MultiplyBlocked.THRESHOLD = Math.max(value, MultiplyBlocked.THRESHOLD);
         MultiplyBoth.THRESHOLD = Math.max(value, MultiplyBoth.THRESHOLD);
         MultiplyHermitianAndVector.THRESHOLD = Math.max(value, MultiplyHermitianAndVector.THRESHOLD);
         MultiplyLeft.THRESHOLD = Math.max(value, MultiplyLeft.THRESHOLD);
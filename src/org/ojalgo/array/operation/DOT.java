@@ -57,11 +57,7 @@ public final class DOT implements BLAS1 {
     }
 
     public static double invoke(final double[] array1, final int offset1, final double[] array2, final int offset2, final int first, final int limit) {
-        double retVal = PrimitiveMath.ZERO;
-        for (int i = first; i < limit; i++) {
-            retVal += array1[offset1 + i] * array2[offset2 + i];
-        }
-        return retVal;
+        return PrimitiveKernels.INSTANCE.dot(array1, offset1, array2, offset2, first, limit);
     }
 
     public static float invoke(final float[] array1, final int offset1, final float[] array2, final int offset2, final int first, final int limit) {
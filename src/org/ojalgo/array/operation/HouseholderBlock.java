@@ -0,0 +1,417 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+/**
+ * A block of Householder reflectors H<sub>0</sub>H<sub>1</sub>...H<sub>nb-1</sub> in the compact WY
+ * representation I - V T V<sup>T</sup>, where V is unit lower trapezoidal and T upper triangular. The
+ * Householder vectors are stored as in a QR decomposition - in the columns [first,limit) of a column-major
+ * matrix, starting below the diagonal, with the implicit unit element on the diagonal. T is stored
+ * column-major nb x nb.
+ * <p>
+ * The row range is processed in blocks of {@value #ROWS} rows, so that the corresponding part of V stays in
+ * cache while it is used for all the columns being transformed.
+ *
+ * @author apete
+ */
+public final class HouseholderBlock implements ArrayOperation {
+
+    public static int THRESHOLD = 32;
+
+    static final int ROWS = 128;
+
+    /**
+     * Transforms the columns [firstColumn,columnLimit) of data by (I - V T V<sup>T</sup>) or, if transposed,
+     * by (I - V T<sup>T</sup> V<sup>T</sup>). The rows above first are not affected. V is in the columns
+     * [first,limit) of householders, that must have the same number of rows (structure) as data. The data
+     * columns must not overlap the V columns if they're in the same array.
+     */
+    public static void invoke(final double[] data, final int structure, final int firstColumn, final int columnLimit, final double[] householders,
+            final int first, final int limit, final double[] triangular, final boolean transposed) {
+
+        final int nb = limit - first;
+
+        if ((nb <= 0) || (columnLimit <= firstColumn)) {
+            return;
+        }
+
+        final double[] packed = new double[(structure - first) * nb];
+        HouseholderBlock.pack(packed, householders, structure, first, limit);
+
+        HouseholderBlock.invoke(data, structure, firstColumn, columnLimit, packed, first, limit, triangular, transposed, new double[nb * columnLimit]);
+    }
+
+    /**
+     * The same as {@link #invoke(double[], int, int, int, double[], int, int, double[], boolean)} but with
+     * V already packed, using {@link #pack(double[], double[], int, int, int)}, and with a work array - nothing
+     * is allocated. The work array must have at least nb * columnLimit elements. Only the elements
+     * corresponding to the columns [firstColumn,columnLimit) are used, so different column ranges may be
+     * transformed concurrently sharing the same packed V and work array.
+     */
+    public static void invoke(final double[] data, final int structure, final int firstColumn, final int columnLimit, final double[] packed,
+            final int first, final int limit, final double[] triangular, final boolean transposed, final double[] work) {
+
+        final int nb = limit - first;
+        final int nc = columnLimit - firstColumn;
+
+        if ((nb <= 0) || (nc <= 0)) {
+            return;
+        }
+
+        final int offset = firstColumn * nb;
+
+        for (int i = offset, lim = offset + (nb * nc); i < lim; i++) {
+            work[i] = 0.0;
+        }
+
+        // W = V^T C
+
+        for (int r0 = first; r0 < structure; r0 += ROWS) {
+            final int rb = Math.min(ROWS, structure - r0);
+
+            HouseholderBlock.multiplyTransposed(work, offset, nb, packed, (r0 - first) * nb, rb, data, structure, r0, firstColumn, nc);
+        }
+
+        // W = T W (or T^T W), in place
+
+        for (int j = 0; j < nc; j++) {
+            final int baseW = offset + (j * nb);
+
+            if (transposed) {
+                for (int k = nb - 1; k >= 0; k--) {
+                    double sum = 0.0;
+                    for (int l = 0; l <= k; l++) {
+                        sum += triangular[l + (k * nb)] * work[baseW + l];
+                    }
+                    work[baseW + k] = sum;
+                }
+            } else {
+                for (int k = 0; k < nb; k++) {
+                    double sum = 0.0;
+                    for (int l = k; l < nb; l++) {
+                        sum += triangular[k + (l * nb)] * work[baseW + l];
+                    }
+                    work[baseW + k] = sum;
+                }
+            }
+        }
+
+        // C = C - V W
+
+        for (int r0 = first; r0 < structure; r0 += ROWS) {
+            final int rb = Math.min(ROWS, structure - r0);
+
+            HouseholderBlock.subtractProduct(data, structure, r0, firstColumn, nc, packed, (r0 - first) * nb, rb, work, offset, nb);
+        }
+    }
+
+    /**
+     * Copies V, the Householder vectors in the columns [first,limit) of householders, to packed - in blocks
+     * of {@value #ROWS} rows, each stored column-major, including the implicit zeros and ones. The packed
+     * array must have at least (structure - first) * (limit - first) elements.
+     */
+    public static void pack(final double[] packed, final double[] householders, final int structure, final int first, final int limit) {
+
+        final int nb = limit - first;
+
+        for (int r0 = first; r0 < structure; r0 += ROWS) {
+            HouseholderBlock.pack(packed, (r0 - first) * nb, householders, structure, first, nb, r0, Math.min(ROWS, structure - r0));
+        }
+    }
+
+    /**
+     * Forms the nb x nb upper triangular T, of the compact WY representation, from the Householder vectors
+     * in the columns [first,limit) of data and their beta values (the scale factors in H = I - beta v
+     * v<sup>T</sup>). A zero beta means there is no transformation for that column.
+     */
+    public static void makeTriangular(final double[] triangular, final double[] data, final int structure, final int first, final int limit,
+            final double[] betas) {
+
+        final int nb = limit - first;
+
+        // The upper part of V^T V, excluding the diagonal, is accumulated in T
+
+        for (int k = 0; k < (nb * nb); k++) {
+            triangular[k] = 0.0;
+        }
+
+        for (int k = 1; k < nb; k++) {
+            final int diagonal = first + k;
+            for (int l = 0; l < k; l++) {
+                triangular[l + (k * nb)] = data[diagonal + ((first + l) * structure)];
+            }
+        }
+
+        for (int r0 = first; r0 < structure; r0 += ROWS) {
+            final int r1 = Math.min(r0 + ROWS, structure);
+
+            for (int k = 1; k < nb; k++) {
+                final int diagonal = first + k;
+                if (diagonal >= r1) {
+                    break;
+                }
+                final int baseK = diagonal * structure;
+                final int from = Math.max(r0, diagonal + 1);
+
+                for (int l = 0; l < k; l++) {
+                    triangular[l + (k * nb)] += DOT.invoke(data, (first + l) * structure, data, baseK, from, r1);
+                }
+            }
+        }
+
+        // T(k,k) = beta(k), T(0:k,k) = -beta(k) T(0:k,0:k) V(:,0:k)^T v(k)
+
+        // In place, as element l is no longer needed once T(l,k) is calculated
+        for (int k = 0; k < nb; k++) {
+            final double beta = betas[k];
+            final int baseK = k * nb;
+
+            for (int l = 0; l < k; l++) {
+                double sum = 0.0;
+                for (int p = l; p < k; p++) {
+                    sum += triangular[l + (p * nb)] * triangular[p + baseK];
+                }
+                triangular[l + baseK] = -beta * sum;
+            }
+
+            triangular[k + baseK] = beta;
+        }
+    }
+
+    /**
+     * work(nb x nc) += packed(rb x nb)<sup>T</sup> * data(rb x nc), where the data block starts at (firstRow,
+     * firstColumn), and work and packed at the offsets. Tiles of 4x4 are accumulated in registers.
+     */
+    static void multiplyTransposed(final double[] work, final int offsetW, final int nb, final double[] packed, final int offsetP, final int rb,
+            final double[] data, final int structure, final int firstRow, final int firstColumn, final int nc) {
+
+        for (int j = 0; j < nc; j += 4) {
+            final int nj = Math.min(4, nc - j);
+            final int baseC = firstRow + ((firstColumn + j) * structure);
+
+            for (int k = 0; k < nb; k += 4) {
+                final int nk = Math.min(4, nb - k);
+                final int baseV = offsetP + (k * rb);
+
+                if ((nj == 4) && (nk == 4)) {
+
+                    double w00 = 0.0, w10 = 0.0, w20 = 0.0, w30 = 0.0;
+                    double w01 = 0.0, w11 = 0.0, w21 = 0.0, w31 = 0.0;
+                    double w02 = 0.0, w12 = 0.0, w22 = 0.0, w32 = 0.0;
+                    double w03 = 0.0, w13 = 0.0, w23 = 0.0, w33 = 0.0;
+
+                    for (int i = 0; i < rb; i++) {
+
+                        final double v0 = packed[baseV + i];
+                        final double v1 = packed[baseV + rb + i];
+                        final double v2 = packed[baseV + rb + rb + i];
+                        final double v3 = packed[baseV + rb + rb + rb + i];
+
+                        double c = data[baseC + i];
+                        w00 += v0 * c;
+                        w10 += v1 * c;
+                        w20 += v2 * c;
+                        w30 += v3 * c;
+
+                        c = data[baseC + structure + i];
+                        w01 += v0 * c;
+                        w11 += v1 * c;
+                        w21 += v2 * c;
+                        w31 += v3 * c;
+
+                        c = data[baseC + structure + structure + i];
+                        w02 += v0 * c;
+                        w12 += v1 * c;
+                        w22 += v2 * c;
+                        w32 += v3 * c;
+
+                        c = data[baseC + structure + structure + structure + i];
+                        w03 += v0 * c;
+                        w13 += v1 * c;
+                        w23 += v2 * c;
+                        w33 += v3 * c;
+                    }
+
+                    int index = offsetW + k + (j * nb);
+                    work[index] += w00;
+                    work[index + 1] += w10;
+                    work[index + 2] += w20;
+                    work[index + 3] += w30;
+
+                    index += nb;
+                    work[index] += w01;
+                    work[index + 1] += w11;
+                    work[index + 2] += w21;
+                    work[index + 3] += w31;
+
+                    index += nb;
+                    work[index] += w02;
+                    work[index + 1] += w12;
+                    work[index + 2] += w22;
+                    work[index + 3] += w32;
+
+                    index += nb;
+                    work[index] += w03;
+                    work[index + 1] += w13;
+                    work[index + 2] += w23;
+                    work[index + 3] += w33;
+
+                } else {
+
+                    for (int jj = 0; jj < nj; jj++) {
+                        for (int kk = 0; kk < nk; kk++) {
+                            work[offsetW + k + kk + ((j + jj) * nb)] += DOT.invoke(packed, baseV + (kk * rb), data, baseC + (jj * structure), 0, rb);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the rb x nb block, starting at row firstRow, of V to packed (column-major, starting at offset),
+     * including the implicit zeros and ones.
+     */
+    static void pack(final double[] packed, final int offset, final double[] householders, final int structure, final int first, final int nb,
+            final int firstRow, final int rb) {
+
+        for (int k = 0; k < nb; k++) {
+
+            final int diagonal = first + k;
+            final int baseP = (offset + (k * rb)) - firstRow;
+            final int baseV = diagonal * structure;
+            final int rowLimit = firstRow + rb;
+
+            int i = firstRow;
+            for (; (i < diagonal) && (i < rowLimit); i++) {
+                packed[baseP + i] = 0.0;
+            }
+            if ((i == diagonal) && (i < rowLimit)) {
+                packed[baseP + i] = 1.0;
+                i++;
+            }
+            for (; i < rowLimit; i++) {
+                packed[baseP + i] = householders[baseV + i];
+            }
+        }
+    }
+
+    /**
+     * data(rb x nc) -= packed(rb x nb) * work(nb x nc), where the data block starts at (firstRow,
+     * firstColumn), and packed and work at the offsets. Tiles of 4x4 are accumulated in registers.
+     */
+    static void subtractProduct(final double[] data, final int structure, final int firstRow, final int firstColumn, final int nc, final double[] packed,
+            final int offsetP, final int rb, final double[] work, final int offsetW, final int nb) {
+
+        for (int j = 0; j < nc; j += 4) {
+            final int nj = Math.min(4, nc - j);
+            final int baseC = firstRow + ((firstColumn + j) * structure);
+            final int baseW = offsetW + (j * nb);
+
+            for (int i = 0; i < rb; i += 4) {
+                final int ni = Math.min(4, rb - i);
+
+                if ((nj == 4) && (ni == 4)) {
+
+                    double c00 = 0.0, c10 = 0.0, c20 = 0.0, c30 = 0.0;
+                    double c01 = 0.0, c11 = 0.0, c21 = 0.0, c31 = 0.0;
+                    double c02 = 0.0, c12 = 0.0, c22 = 0.0, c32 = 0.0;
+                    double c03 = 0.0, c13 = 0.0, c23 = 0.0, c33 = 0.0;
+
+                    for (int k = 0, p = offsetP + i; k < nb; k++, p += rb) {
+
+                        final double v0 = packed[p];
+                        final double v1 = packed[p + 1];
+                        final double v2 = packed[p + 2];
+                        final double v3 = packed[p + 3];
+
+                        double w = work[baseW + k];
+                        c00 += v0 * w;
+                        c10 += v1 * w;
+                        c20 += v2 * w;
+                        c30 += v3 * w;
+
+                        w = work[baseW + nb + k];
+                        c01 += v0 * w;
+                        c11 += v1 * w;
+                        c21 += v2 * w;
+                        c31 += v3 * w;
+
+                        w = work[baseW + nb + nb + k];
+                        c02 += v0 * w;
+                        c12 += v1 * w;
+                        c22 += v2 * w;
+                        c32 += v3 * w;
+
+                        w = work[baseW + nb + nb + nb + k];
+                        c03 += v0 * w;
+                        c13 += v1 * w;
+                        c23 += v2 * w;
+                        c33 += v3 * w;
+                    }
+
+                    int index = baseC + i;
+                    data[index] -= c00;
+                    data[index + 1] -= c10;
+                    data[index + 2] -= c20;
+                    data[index + 3] -= c30;
+
+                    index += structure;
+                    data[index] -= c01;
+                    data[index + 1] -= c11;
+                    data[index + 2] -= c21;
+                    data[index + 3] -= c31;
+
+                    index += structure;
+                    data[index] -= c02;
+                    data[index + 1] -= c12;
+                    data[index + 2] -= c22;
+                    data[index + 3] -= c32;
+
+                    index += structure;
+                    data[index] -= c03;
+                    data[index + 1] -= c13;
+                    data[index + 2] -= c23;
+                    data[index + 3] -= c33;
+
+                } else {
+
+                    for (int jj = 0; jj < nj; jj++) {
+                        for (int ii = 0; ii < ni; ii++) {
+                            double sum = 0.0;
+                            for (int k = 0; k < nb; k++) {
+                                sum += packed[offsetP + i + ii + (k * rb)] * work[baseW + (jj * nb) + k];
+                            }
+                            data[baseC + (jj * structure) + i + ii] -= sum;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
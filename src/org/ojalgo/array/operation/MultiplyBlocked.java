@@ -0,0 +1,627 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.machine.VirtualMachine;
+
+/**
+ * Cache-blocked matrix multiplication of dense, column-major, double[] or float[] matrices: product = left * right.
+ * Panels of the left and right matrices are packed into contiguous buffers sized to fit in the L2 and L1
+ * caches respectively, and an {@value #MR}x{@value #NR} register tile micro-kernel does the actual
+ * multiply-accumulate. The block sizes are derived from {@link OjAlgoUtils#ENVIRONMENT}.
+ * <p>
+ * This is only used for larger matrices - all dimensions must be at least {@link #THRESHOLD}.
+ *
+ * @author apete
+ */
+public final class MultiplyBlocked implements ArrayOperation {
+
+    public static int THRESHOLD = 64;
+
+    /**
+     * Depth (common dimension) of the packed panels. A {@value #MR}xKC panel of the left, and a KCx{@value #NR}
+     * panel of the right, should fit in (half) the L1 cache.
+     */
+    static final int KC;
+    /**
+     * The number of rows in a packed block of the left matrix. An MCxKC block should fit in (half) the L2
+     * cache.
+     */
+    static final int MC;
+    /**
+     * Micro-kernel rows
+     */
+    static final int MR = 4;
+    /**
+     * The number of columns in a packed block of the right matrix. A KCxNC block should fit in (half) the
+     * share of the top level cache available to one thread.
+     */
+    static final int NC;
+    /**
+     * Micro-kernel columns
+     */
+    static final int NR = 4;
+
+    static {
+
+        VirtualMachine environment = OjAlgoUtils.ENVIRONMENT;
+
+        long l1 = Math.max(16L * 1024L, environment.getL1Cache());
+        long l2 = Math.max(l1, environment.getL2Cache());
+        long l3 = Math.max(l2, environment.cache / Math.max(1, environment.threads / Math.max(1, environment.units)));
+
+        KC = MultiplyBlocked.round(l1 / (2L * 8L * (MR + NR)), 16, 512, 16);
+        MC = MultiplyBlocked.round(l2 / (2L * 8L * KC), 2 * MR, 512, MR);
+        NC = MultiplyBlocked.round(l3 / (2L * 8L * KC), 4 * NR, 4096, NR);
+    }
+
+    /**
+     * Adds the product of left and right, for the columns in the range [firstColumn, columnLimit), to
+     * whatever is already in product.
+     */
+    public static void invoke(final double[] product, final int firstColumn, final int columnLimit, final double[] left, final int complexity,
+            final double[] right) {
+
+        final int structure = left.length / complexity;
+
+        final int maxKC = Math.min(KC, complexity);
+        final int maxMC = MultiplyBlocked.roundUp(Math.min(MC, structure), MR);
+        final int maxNC = MultiplyBlocked.roundUp(Math.min(NC, columnLimit - firstColumn), NR);
+
+        final double[] packedLeft = new double[maxMC * maxKC];
+        final double[] packedRight = new double[maxKC * maxNC];
+
+        for (int jc = firstColumn; jc < columnLimit; jc += NC) {
+            final int nc = Math.min(NC, columnLimit - jc);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                final int kc = Math.min(KC, complexity - pc);
+
+                MultiplyBlocked.packRight(packedRight, right, complexity, pc, kc, jc, nc);
+
+                for (int ic = 0; ic < structure; ic += MC) {
+                    final int mc = Math.min(MC, structure - ic);
+
+                    MultiplyBlocked.packLeft(packedLeft, left, structure, ic, mc, pc, kc);
+
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        final int nr = Math.min(NR, nc - jr);
+                        final int offsetRight = jr * kc;
+
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            final int mr = Math.min(MR, mc - ir);
+                            final int offsetLeft = ir * kc;
+
+                            MultiplyBlocked.kernel(kc, packedLeft, offsetLeft, packedRight, offsetRight, product, (ic + ir) + ((jc + jr) * structure),
+                                    structure, mr, nr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @see #invoke(double[], int, int, double[], int, double[])
+     */
+    public static void invoke(final float[] product, final int firstColumn, final int columnLimit, final float[] left, final int complexity,
+            final float[] right) {
+
+        final int structure = left.length / complexity;
+
+        final int maxKC = Math.min(KC, complexity);
+        final int maxMC = MultiplyBlocked.roundUp(Math.min(MC, structure), MR);
+        final int maxNC = MultiplyBlocked.roundUp(Math.min(NC, columnLimit - firstColumn), NR);
+
+        final float[] packedLeft = new float[maxMC * maxKC];
+        final float[] packedRight = new float[maxKC * maxNC];
+
+        for (int jc = firstColumn; jc < columnLimit; jc += NC) {
+            final int nc = Math.min(NC, columnLimit - jc);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                final int kc = Math.min(KC, complexity - pc);
+
+                MultiplyBlocked.packRight(packedRight, right, complexity, pc, kc, jc, nc);
+
+                for (int ic = 0; ic < structure; ic += MC) {
+                    final int mc = Math.min(MC, structure - ic);
+
+                    MultiplyBlocked.packLeft(packedLeft, left, structure, ic, mc, pc, kc);
+
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        final int nr = Math.min(NR, nc - jr);
+                        final int offsetRight = jr * kc;
+
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            final int mr = Math.min(MR, mc - ir);
+                            final int offsetLeft = ir * kc;
+
+                            MultiplyBlocked.kernel(kc, packedLeft, offsetLeft, packedRight, offsetRight, product, (ic + ir) + ((jc + jr) * structure),
+                                    structure, mr, nr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * In-place update of a sub-matrix of a single column-major matrix:
+     * data[rows,columns] -= data[rows,inner] * data[inner,columns], or if transposed
+     * data[rows,columns] -= data[rows,inner] * data[columns,inner]<sup>T</sup>. The inner range must not
+     * overlap the row or column ranges. This is the trailing matrix update of blocked LU and Cholesky
+     * decompositions.
+     */
+    public static void subtract(final double[] data, final int structure, final int firstRow, final int rowLimit, final int firstColumn,
+            final int columnLimit, final int firstInner, final int innerLimit, final boolean transposed) {
+
+        final int numberOfRows = rowLimit - firstRow;
+        final int numberOfColumns = columnLimit - firstColumn;
+        final int complexity = innerLimit - firstInner;
+
+        if ((numberOfRows <= 0) || (numberOfColumns <= 0) || (complexity <= 0)) {
+            return;
+        }
+
+        final int maxKC = Math.min(KC, complexity);
+        final int maxMC = MultiplyBlocked.roundUp(Math.min(MC, numberOfRows), MR);
+        final int maxNC = MultiplyBlocked.roundUp(Math.min(NC, numberOfColumns), NR);
+
+        final double[] packedLeft = new double[maxMC * maxKC];
+        final double[] packedRight = new double[maxKC * maxNC];
+
+        for (int jc = 0; jc < numberOfColumns; jc += NC) {
+            final int nc = Math.min(NC, numberOfColumns - jc);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                final int kc = Math.min(KC, complexity - pc);
+
+                if (transposed) {
+                    MultiplyBlocked.packRightTransposed(packedRight, data, structure, firstInner + pc, kc, firstColumn + jc, nc);
+                } else {
+                    MultiplyBlocked.packRight(packedRight, data, structure, firstInner + pc, kc, firstColumn + jc, nc);
+                }
+
+                for (int ic = 0; ic < numberOfRows; ic += MC) {
+                    final int mc = Math.min(MC, numberOfRows - ic);
+
+                    MultiplyBlocked.packLeft(packedLeft, data, structure, firstRow + ic, mc, firstInner + pc, kc);
+                    for (int i = 0, limit = MultiplyBlocked.roundUp(mc, MR) * kc; i < limit; i++) {
+                        packedLeft[i] = -packedLeft[i];
+                    }
+
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        final int nr = Math.min(NR, nc - jr);
+                        final int offsetRight = jr * kc;
+
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            final int mr = Math.min(MR, mc - ir);
+                            final int offsetLeft = ir * kc;
+
+                            MultiplyBlocked.kernel(kc, packedLeft, offsetLeft, packedRight, offsetRight, data,
+                                    (firstRow + ic + ir) + ((firstColumn + jc + jr) * structure), structure, mr, nr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @see #subtract(double[], int, int, int, int, int, int, int, boolean)
+     */
+    public static void subtract(final float[] data, final int structure, final int firstRow, final int rowLimit, final int firstColumn,
+            final int columnLimit, final int firstInner, final int innerLimit, final boolean transposed) {
+
+        final int numberOfRows = rowLimit - firstRow;
+        final int numberOfColumns = columnLimit - firstColumn;
+        final int complexity = innerLimit - firstInner;
+
+        if ((numberOfRows <= 0) || (numberOfColumns <= 0) || (complexity <= 0)) {
+            return;
+        }
+
+        final int maxKC = Math.min(KC, complexity);
+        final int maxMC = MultiplyBlocked.roundUp(Math.min(MC, numberOfRows), MR);
+        final int maxNC = MultiplyBlocked.roundUp(Math.min(NC, numberOfColumns), NR);
+
+        final float[] packedLeft = new float[maxMC * maxKC];
+        final float[] packedRight = new float[maxKC * maxNC];
+
+        for (int jc = 0; jc < numberOfColumns; jc += NC) {
+            final int nc = Math.min(NC, numberOfColumns - jc);
+
+            for (int pc = 0; pc < complexity; pc += KC) {
+                final int kc = Math.min(KC, complexity - pc);
+
+                if (transposed) {
+                    MultiplyBlocked.packRightTransposed(packedRight, data, structure, firstInner + pc, kc, firstColumn + jc, nc);
+                } else {
+                    MultiplyBlocked.packRight(packedRight, data, structure, firstInner + pc, kc, firstColumn + jc, nc);
+                }
+
+                for (int ic = 0; ic < numberOfRows; ic += MC) {
+                    final int mc = Math.min(MC, numberOfRows - ic);
+
+                    MultiplyBlocked.packLeft(packedLeft, data, structure, firstRow + ic, mc, firstInner + pc, kc);
+                    for (int i = 0, limit = MultiplyBlocked.roundUp(mc, MR) * kc; i < limit; i++) {
+                        packedLeft[i] = -packedLeft[i];
+                    }
+
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        final int nr = Math.min(NR, nc - jr);
+                        final int offsetRight = jr * kc;
+
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            final int mr = Math.min(MR, mc - ir);
+                            final int offsetLeft = ir * kc;
+
+                            MultiplyBlocked.kernel(kc, packedLeft, offsetLeft, packedRight, offsetRight, data,
+                                    (firstRow + ic + ir) + ((firstColumn + jc + jr) * structure), structure, mr, nr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if all dimensions are large enough for blocking to be worthwhile
+     */
+    public static boolean isBlockable(final long rows, final long complexity, final long columns) {
+        return (rows >= THRESHOLD) && (complexity >= THRESHOLD) && (columns >= THRESHOLD);
+    }
+
+    /**
+     * {@value #MR}x{@value #NR} block of product += {@value #MR}xkc panel of left * kcx{@value #NR} panel of
+     * right. The (packed) panels are padded with zeros, so the full tile is always calculated, but only the
+     * mr x nr part of it is added to the product.
+     */
+    static void kernel(final int kc, final double[] left, final int offsetLeft, final double[] right, final int offsetRight, final double[] product,
+            final int offsetProduct, final int structure, final int mr, final int nr) {
+
+        double c00 = 0.0, c10 = 0.0, c20 = 0.0, c30 = 0.0;
+        double c01 = 0.0, c11 = 0.0, c21 = 0.0, c31 = 0.0;
+        double c02 = 0.0, c12 = 0.0, c22 = 0.0, c32 = 0.0;
+        double c03 = 0.0, c13 = 0.0, c23 = 0.0, c33 = 0.0;
+
+        int l = offsetLeft;
+        int r = offsetRight;
+        for (int p = 0; p < kc; p++, l += MR, r += NR) {
+
+            final double a0 = left[l];
+            final double a1 = left[l + 1];
+            final double a2 = left[l + 2];
+            final double a3 = left[l + 3];
+
+            double b = right[r];
+            c00 += a0 * b;
+            c10 += a1 * b;
+            c20 += a2 * b;
+            c30 += a3 * b;
+
+            b = right[r + 1];
+            c01 += a0 * b;
+            c11 += a1 * b;
+            c21 += a2 * b;
+            c31 += a3 * b;
+
+            b = right[r + 2];
+            c02 += a0 * b;
+            c12 += a1 * b;
+            c22 += a2 * b;
+            c32 += a3 * b;
+
+            b = right[r + 3];
+            c03 += a0 * b;
+            c13 += a1 * b;
+            c23 += a2 * b;
+            c33 += a3 * b;
+        }
+
+        if ((mr == MR) && (nr == NR)) {
+
+            int index = offsetProduct;
+            product[index] += c00;
+            product[index + 1] += c10;
+            product[index + 2] += c20;
+            product[index + 3] += c30;
+
+            index += structure;
+            product[index] += c01;
+            product[index + 1] += c11;
+            product[index + 2] += c21;
+            product[index + 3] += c31;
+
+            index += structure;
+            product[index] += c02;
+            product[index + 1] += c12;
+            product[index + 2] += c22;
+            product[index + 3] += c32;
+
+            index += structure;
+            product[index] += c03;
+            product[index + 1] += c13;
+            product[index + 2] += c23;
+            product[index + 3] += c33;
+
+        } else {
+
+            final double[] tile = { c00, c10, c20, c30, c01, c11, c21, c31, c02, c12, c22, c32, c03, c13, c23, c33 };
+
+            for (int j = 0; j < nr; j++) {
+                final int index = offsetProduct + (j * structure);
+                for (int i = 0; i < mr; i++) {
+                    product[index + i] += tile[i + (j * MR)];
+                }
+            }
+        }
+    }
+
+    /**
+     * @see #kernel(int, double[], int, double[], int, double[], int, int, int, int)
+     */
+    static void kernel(final int kc, final float[] left, final int offsetLeft, final float[] right, final int offsetRight, final float[] product,
+            final int offsetProduct, final int structure, final int mr, final int nr) {
+
+        float c00 = 0F, c10 = 0F, c20 = 0F, c30 = 0F;
+        float c01 = 0F, c11 = 0F, c21 = 0F, c31 = 0F;
+        float c02 = 0F, c12 = 0F, c22 = 0F, c32 = 0F;
+        float c03 = 0F, c13 = 0F, c23 = 0F, c33 = 0F;
+
+        int l = offsetLeft;
+        int r = offsetRight;
+        for (int p = 0; p < kc; p++, l += MR, r += NR) {
+
+            final float a0 = left[l];
+            final float a1 = left[l + 1];
+            final float a2 = left[l + 2];
+            final float a3 = left[l + 3];
+
+            float b = right[r];
+            c00 += a0 * b;
+            c10 += a1 * b;
+            c20 += a2 * b;
+            c30 += a3 * b;
+
+            b = right[r + 1];
+            c01 += a0 * b;
+            c11 += a1 * b;
+            c21 += a2 * b;
+            c31 += a3 * b;
+
+            b = right[r + 2];
+            c02 += a0 * b;
+            c12 += a1 * b;
+            c22 += a2 * b;
+            c32 += a3 * b;
+
+            b = right[r + 3];
+            c03 += a0 * b;
+            c13 += a1 * b;
+            c23 += a2 * b;
+            c33 += a3 * b;
+        }
+
+        if ((mr == MR) && (nr == NR)) {
+
+            int index = offsetProduct;
+            product[index] += c00;
+            product[index + 1] += c10;
+            product[index + 2] += c20;
+            product[index + 3] += c30;
+
+            index += structure;
+            product[index] += c01;
+            product[index + 1] += c11;
+            product[index + 2] += c21;
+            product[index + 3] += c31;
+
+            index += structure;
+            product[index] += c02;
+            product[index + 1] += c12;
+            product[index + 2] += c22;
+            product[index + 3] += c32;
+
+            index += structure;
+            product[index] += c03;
+            product[index + 1] += c13;
+            product[index + 2] += c23;
+            product[index + 3] += c33;
+
+        } else {
+
+            final float[] tile = { c00, c10, c20, c30, c01, c11, c21, c31, c02, c12, c22, c32, c03, c13, c23, c33 };
+
+            for (int j = 0; j < nr; j++) {
+                final int index = offsetProduct + (j * structure);
+                for (int i = 0; i < mr; i++) {
+                    product[index + i] += tile[i + (j * MR)];
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs the mc x kc block, starting at (firstRow, firstColumn), of the left matrix in to consecutive
+     * {@value #MR} row panels. Within each panel the elements are ordered column by column.
+     */
+    static void packLeft(final double[] packed, final double[] left, final int structure, final int firstRow, final int mc, final int firstColumn,
+            final int kc) {
+
+        int index = 0;
+
+        for (int ir = 0; ir < mc; ir += MR) {
+            final int mr = Math.min(MR, mc - ir);
+
+            for (int p = 0; p < kc; p++) {
+                final int base = firstRow + ir + ((firstColumn + p) * structure);
+                int i = 0;
+                for (; i < mr; i++) {
+                    packed[index++] = left[base + i];
+                }
+                for (; i < MR; i++) {
+                    packed[index++] = 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * @see #packLeft(double[], double[], int, int, int, int, int)
+     */
+    static void packLeft(final float[] packed, final float[] left, final int structure, final int firstRow, final int mc, final int firstColumn,
+            final int kc) {
+
+        int index = 0;
+
+        for (int ir = 0; ir < mc; ir += MR) {
+            final int mr = Math.min(MR, mc - ir);
+
+            for (int p = 0; p < kc; p++) {
+                final int base = firstRow + ir + ((firstColumn + p) * structure);
+                int i = 0;
+                for (; i < mr; i++) {
+                    packed[index++] = left[base + i];
+                }
+                for (; i < MR; i++) {
+                    packed[index++] = 0F;
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs the kc x nc block, starting at (firstRow, firstColumn), of the right matrix in to consecutive
+     * {@value #NR} column panels. Within each panel the elements are ordered row by row.
+     */
+    static void packRight(final double[] packed, final double[] right, final int complexity, final int firstRow, final int kc, final int firstColumn,
+            final int nc) {
+
+        int index = 0;
+
+        for (int jr = 0; jr < nc; jr += NR) {
+            final int nr = Math.min(NR, nc - jr);
+
+            for (int p = 0; p < kc; p++) {
+                final int base = firstRow + p + ((firstColumn + jr) * complexity);
+                int j = 0;
+                for (; j < nr; j++) {
+                    packed[index++] = right[base + (j * complexity)];
+                }
+                for (; j < NR; j++) {
+                    packed[index++] = 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * @see #packRight(double[], double[], int, int, int, int, int)
+     */
+    static void packRight(final float[] packed, final float[] right, final int complexity, final int firstRow, final int kc, final int firstColumn,
+            final int nc) {
+
+        int index = 0;
+
+        for (int jr = 0; jr < nc; jr += NR) {
+            final int nr = Math.min(NR, nc - jr);
+
+            for (int p = 0; p < kc; p++) {
+                final int base = firstRow + p + ((firstColumn + jr) * complexity);
+                int j = 0;
+                for (; j < nr; j++) {
+                    packed[index++] = right[base + (j * complexity)];
+                }
+                for (; j < NR; j++) {
+                    packed[index++] = 0F;
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #packRight(double[], double[], int, int, int, int, int)} but with the right matrix
+     * stored transposed - element (p,j) of the kc x nc block is found at (firstColumn + j, firstRow + p).
+     */
+    static void packRightTransposed(final double[] packed, final double[] right, final int structure, final int firstRow, final int kc,
+            final int firstColumn, final int nc) {
+
+        int index = 0;
+
+        for (int jr = 0; jr < nc; jr += NR) {
+            final int nr = Math.min(NR, nc - jr);
+
+            for (int p = 0; p < kc; p++) {
+                final int base = firstColumn + jr + ((firstRow + p) * structure);
+                int j = 0;
+                for (; j < nr; j++) {
+                    packed[index++] = right[base + j];
+                }
+                for (; j < NR; j++) {
+                    packed[index++] = 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * @see #packRightTransposed(double[], double[], int, int, int, int, int)
+     */
+    static void packRightTransposed(final float[] packed, final float[] right, final int structure, final int firstRow, final int kc,
+            final int firstColumn, final int nc) {
+
+        int index = 0;
+
+        for (int jr = 0; jr < nc; jr += NR) {
+            final int nr = Math.min(NR, nc - jr);
+
+            for (int p = 0; p < kc; p++) {
+                final int base = firstColumn + jr + ((firstRow + p) * structure);
+                int j = 0;
+                for (; j < nr; j++) {
+                    packed[index++] = right[base + j];
+                }
+                for (; j < NR; j++) {
+                    packed[index++] = 0F;
+                }
+            }
+        }
+    }
+
+    static int round(final long value, final int min, final int max, final int multiple) {
+        long retVal = Math.max(min, Math.min(value, max));
+        return (int) ((retVal / multiple) * multiple);
+    }
+
+    static int roundUp(final int value, final int multiple) {
+        return ((value + multiple - 1) / multiple) * multiple;
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
@@ -46,9 +46,7 @@ public final class MultiplyHermitianAndVector implements ArrayOperation {
             for (int c = firstColumn; c < i; c++) {
                 tmpVal += hermitianMatrix[i + (c * structure)] * rightVector[c];
             }
-            for (int c = i; c < structure; c++) {
-                tmpVal += hermitianMatrix[c + (i * structure)] * rightVector[c];
-            }
+            tmpVal += PrimitiveKernels.INSTANCE.dot(hermitianMatrix, i * structure, rightVector, 0, i, structure);
             productMatrix[i] = tmpVal;
         }
     }
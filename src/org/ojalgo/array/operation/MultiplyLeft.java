@@ -571,6 +571,21 @@ public final class MultiplyLeft implements ArrayOperation {
         tmpConquerer.invoke(0, right.length / complexity, THRESHOLD);
     };
 
+    static final MultiplyLeft.Primitive32 PRIMITIVE32_MT = (product, left, complexity, right) -> {
+
+        Arrays.fill(product, 0F);
+
+        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                MultiplyLeft.invoke(product, first, limit, left, complexity, right);
+            }
+        };
+
+        tmpConquerer.invoke(0, right.length / complexity, THRESHOLD);
+    };
+
     public static <N extends Scalar<N>> MultiplyLeft.Generic<N> newGeneric(final long rows, final long columns) {
 
         if (rows > THRESHOLD) {
@@ -602,7 +617,11 @@ public final class MultiplyLeft implements ArrayOperation {
     }
 
     public static MultiplyLeft.Primitive32 newPrimitive32(final long rows, final long columns) {
-        return PRIMITIVE32;
+        if (rows > THRESHOLD) {
+            return PRIMITIVE32_MT;
+        } else {
+            return PRIMITIVE32;
+        }
     }
 
     public static MultiplyLeft.Primitive64 newPrimitive64(final long rows, final long columns) {
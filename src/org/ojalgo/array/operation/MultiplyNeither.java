@@ -559,15 +559,66 @@ public final class MultiplyNeither implements ArrayOperation {
 
         Arrays.fill(product, 0.0);
 
-        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+        final int structure = left.length / complexity;
+        final int numberOfColumns = right.length / complexity;
 
-            @Override
-            public void conquer(final int first, final int limit) {
-                MultiplyNeither.invoke(product, first, limit, left, complexity, right);
-            }
-        };
+        final DivideAndConquer tmpConquerer;
+
+        if (MultiplyBlocked.isBlockable(structure, complexity, numberOfColumns)) {
+
+            tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    MultiplyBlocked.invoke(product, first, limit, left, complexity, right);
+                }
+            };
+
+        } else {
+
+            tmpConquerer = new DivideAndConquer() {
 
-        tmpConquerer.invoke(0, right.length / complexity, THRESHOLD);
+                @Override
+                public void conquer(final int first, final int limit) {
+                    MultiplyNeither.invoke(product, first, limit, left, complexity, right);
+                }
+            };
+        }
+
+        tmpConquerer.invoke(0, numberOfColumns, THRESHOLD);
+    };
+
+    static final MultiplyNeither.Primitive32 PRIMITIVE32_MT = (product, left, complexity, right) -> {
+
+        Arrays.fill(product, 0F);
+
+        final int structure = left.length / complexity;
+        final int numberOfColumns = right.length / complexity;
+
+        final DivideAndConquer tmpConquerer;
+
+        if (MultiplyBlocked.isBlockable(structure, complexity, numberOfColumns)) {
+
+            tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    MultiplyBlocked.invoke(product, first, limit, left, complexity, right);
+                }
+            };
+
+        } else {
+
+            tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    MultiplyNeither.invoke(product, first, limit, left, complexity, right);
+                }
+            };
+        }
+
+        tmpConquerer.invoke(0, numberOfColumns, THRESHOLD);
     };
 
     public static <N extends Scalar<N>> MultiplyNeither.Generic<N> newGeneric(final long rows, final long columns) {
@@ -601,7 +652,11 @@ public final class MultiplyNeither implements ArrayOperation {
     }
 
     public static MultiplyNeither.Primitive32 newPrimitive32(final long rows, final long columns) {
-        return PRIMITIVE32;
+        if (rows > THRESHOLD) {
+            return PRIMITIVE32_MT;
+        } else {
+            return PRIMITIVE32;
+        }
     }
 
     public static MultiplyNeither.Primitive64 newPrimitive64(final long rows, final long columns) {
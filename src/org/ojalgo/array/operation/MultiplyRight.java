@@ -573,6 +573,21 @@ public final class MultiplyRight implements ArrayOperation {
         tmpConquerer.invoke(0, (int) (right.count() / complexity), THRESHOLD);
     };
 
+    static final MultiplyRight.Primitive32 PRIMITIVE32_MT = (product, left, complexity, right) -> {
+
+        Arrays.fill(product, 0F);
+
+        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                MultiplyRight.invoke(product, first, limit, left, complexity, right);
+            }
+        };
+
+        tmpConquerer.invoke(0, (int) (right.count() / complexity), THRESHOLD);
+    };
+
     public static <N extends Scalar<N>> MultiplyRight.Generic<N> newGeneric(final long rows, final long columns) {
 
         if (columns > THRESHOLD) {
@@ -604,7 +619,11 @@ public final class MultiplyRight implements ArrayOperation {
     }
 
     public static MultiplyRight.Primitive32 newPrimitive32(final long rows, final long columns) {
-        return PRIMITIVE32;
+        if (columns > THRESHOLD) {
+            return PRIMITIVE32_MT;
+        } else {
+            return PRIMITIVE32;
+        }
     }
 
     public static MultiplyRight.Primitive64 newPrimitive64(final long rows, final long columns) {
@@ -31,6 +31,10 @@ public final class NRM2 implements BLAS1 {
 
     public static int THRESHOLD = 128;
 
+    public static double invoke(final double[] data, final int first, final int limit, final int step) {
+        return PrimitiveKernels.INSTANCE.nrm2(data, first, limit, step);
+    }
+
     @Override
     public int threshold() {
         return THRESHOLD;
@@ -70,6 +70,8 @@ public final class OperationBinary implements ArrayOperation {
             CorePrimitiveOperation.add(data, first, limit, step, left, right);
         } else if (function == PrimitiveMath.DIVIDE) {
             CorePrimitiveOperation.divide(data, first, limit, step, left, right);
+        } else if ((function == PrimitiveMath.MULTIPLY) && (data == right)) {
+            SCAL.invoke(data, first, limit, step, left);
         } else if (function == PrimitiveMath.MULTIPLY) {
             CorePrimitiveOperation.multiply(data, first, limit, step, left, right);
         } else if (function == PrimitiveMath.SUBTRACT) {
@@ -87,6 +89,8 @@ public final class OperationBinary implements ArrayOperation {
             CorePrimitiveOperation.add(data, first, limit, step, left, right);
         } else if (function == PrimitiveMath.DIVIDE) {
             CorePrimitiveOperation.divide(data, first, limit, step, left, right);
+        } else if ((function == PrimitiveMath.MULTIPLY) && (data == left)) {
+            SCAL.invoke(data, first, limit, step, right);
         } else if (function == PrimitiveMath.MULTIPLY) {
             CorePrimitiveOperation.multiply(data, first, limit, step, left, right);
         } else if (function == PrimitiveMath.SUBTRACT) {
@@ -0,0 +1,132 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.ojalgo.function.constant.PrimitiveMath;
+
+/**
+ * The double[] kernels behind {@link DOT}, {@link AXPY}, {@link SCAL}, {@link NRM2}, {@link ASUM},
+ * {@link AMAX} and {@link MultiplyHermitianAndVector}. This class contains plain loops that work on any JVM.
+ * On Java 17+, when the jdk.incubator.vector module is available (--add-modules jdk.incubator.vector) and
+ * the ojAlgo jar is used as a multi-release jar, a subclass using the Vector API is selected instead. The
+ * choice is made once, when this class is initialised, and can be overridden by setting the system property
+ * {@value #PROPERTY} to false.
+ *
+ * @author apete
+ */
+class PrimitiveKernels {
+
+    static final PrimitiveKernels INSTANCE;
+
+    static final String PROPERTY = "org.ojalgo.vectorise";
+
+    private static final String VECTORISED = "org.ojalgo.array.operation.VectorisedKernels";
+
+    static {
+        INSTANCE = PrimitiveKernels.select();
+    }
+
+    static PrimitiveKernels select() {
+
+        if (!Boolean.parseBoolean(System.getProperty(PROPERTY, Boolean.TRUE.toString()))) {
+            return new PrimitiveKernels();
+        }
+
+        try {
+
+            final PrimitiveKernels candidate = (PrimitiveKernels) Class.forName(VECTORISED).getDeclaredConstructor().newInstance();
+
+            // Touch the Vector API to make sure it links, and that the results match
+            final double[] probe = new double[100];
+            for (int i = 0; i < probe.length; i++) {
+                probe[i] = (i % 2) == 0 ? i + 1 : -(i + 1);
+            }
+            if (candidate.dot(probe, 0, probe, 0, 0, probe.length) == 338350.0) {
+                return candidate;
+            }
+
+        } catch (final Throwable cause) {
+            // Not Java 17+, not a multi-release jar or the incubator module is not present
+        }
+
+        return new PrimitiveKernels();
+    }
+
+    PrimitiveKernels() {
+        super();
+    }
+
+    int amax(final double[] data, final int first, final int limit, final int step) {
+        int retVal = first;
+        double largest = 0D;
+        double candidate;
+        for (int i = first; i < limit; i += step) {
+            candidate = PrimitiveMath.ABS.invoke(data[i]);
+            if (candidate > largest) {
+                largest = candidate;
+                retVal = i;
+            }
+        }
+        return retVal;
+    }
+
+    double asum(final double[] data, final int first, final int limit, final int step) {
+        double retVal = 0D;
+        for (int i = first; i < limit; i += step) {
+            retVal += PrimitiveMath.ABS.invoke(data[i]);
+        }
+        return retVal;
+    }
+
+    void axpy(final double[] y, final int basey, final double a, final double[] x, final int basex, final int first, final int limit) {
+        for (int i = first; i < limit; i++) {
+            y[basey + i] += a * x[basex + i];
+        }
+    }
+
+    double dot(final double[] array1, final int offset1, final double[] array2, final int offset2, final int first, final int limit) {
+        double retVal = PrimitiveMath.ZERO;
+        for (int i = first; i < limit; i++) {
+            retVal += array1[offset1 + i] * array2[offset2 + i];
+        }
+        return retVal;
+    }
+
+    boolean isVectorised() {
+        return false;
+    }
+
+    double nrm2(final double[] data, final int first, final int limit, final int step) {
+        double retVal = PrimitiveMath.ZERO;
+        for (int i = first; i < limit; i += step) {
+            retVal += data[i] * data[i];
+        }
+        return PrimitiveMath.SQRT.invoke(retVal);
+    }
+
+    void scal(final double[] data, final int first, final int limit, final int step, final double scalar) {
+        for (int i = first; i < limit; i += step) {
+            data[i] *= scalar;
+        }
+    }
+
+}
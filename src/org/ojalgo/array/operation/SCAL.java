@@ -31,6 +31,10 @@ public final class SCAL implements BLAS1 {
 
     public static int THRESHOLD = 128;
 
+    public static void invoke(final double[] data, final int first, final int limit, final int step, final double scalar) {
+        PrimitiveKernels.INSTANCE.scal(data, first, limit, step, scalar);
+    }
+
     @Override
     public int threshold() {
         return THRESHOLD;
@@ -45,6 +45,13 @@ public final class SubstituteBackwards implements ArrayOperation {
             final boolean conjugated, final boolean hermitian) {
 
         int diagDim = MissingMath.toMinIntExact(body.countRows(), body.countColumns());
+
+        if ((limit - first) == 1) {
+            // A single column - nothing to gain from caching the body rows
+            SubstituteBackwards.invoke(data, first * structure, hermitian ? first : 0, diagDim, body, unitDiagonal, conjugated);
+            return;
+        }
+
         double[] bodyRow = new double[diagDim];
         double tmpVal;
         int colBaseIndex;
@@ -178,6 +185,31 @@ public final class SubstituteBackwards implements ArrayOperation {
         }
     }
 
+    private static void invoke(final double[] data, final int base, final int firstRow, final int diagDim, final Access2D<?> body,
+            final boolean unitDiagonal, final boolean conjugated) {
+
+        for (int i = diagDim - 1; i >= firstRow; i--) {
+
+            double tmpVal = PrimitiveMath.ZERO;
+            if (conjugated) {
+                for (int j = i + 1; j < diagDim; j++) {
+                    tmpVal += body.doubleValue(j, i) * data[base + j];
+                }
+            } else {
+                for (int j = i + 1; j < diagDim; j++) {
+                    tmpVal += body.doubleValue(i, j) * data[base + j];
+                }
+            }
+            tmpVal = data[base + i] - tmpVal;
+
+            if (!unitDiagonal) {
+                tmpVal /= body.doubleValue(i, i);
+            }
+
+            data[base + i] = tmpVal;
+        }
+    }
+
     @Override
     public int threshold() {
         return THRESHOLD;
@@ -45,6 +45,13 @@ public final class SubstituteForwards implements ArrayOperation {
             final boolean conjugated, final boolean identity) {
 
         int diagDim = MissingMath.toMinIntExact(body.countRows(), body.countColumns());
+
+        if (((limit - first) == 1) && !identity) {
+            // A single column - nothing to gain from caching the body rows
+            SubstituteForwards.invoke(data, first * structure, diagDim, body, unitDiagonal, conjugated);
+            return;
+        }
+
         double[] bodyRow = new double[diagDim];
         double tmpVal;
         int colBaseIndex;
@@ -190,6 +197,31 @@ public final class SubstituteForwards implements ArrayOperation {
         }
     }
 
+    private static void invoke(final double[] data, final int base, final int diagDim, final Access2D<?> body, final boolean unitDiagonal,
+            final boolean conjugated) {
+
+        for (int i = 0; i < diagDim; i++) {
+
+            double tmpVal = PrimitiveMath.ZERO;
+            if (conjugated) {
+                for (int j = 0; j < i; j++) {
+                    tmpVal += body.doubleValue(j, i) * data[base + j];
+                }
+            } else {
+                for (int j = 0; j < i; j++) {
+                    tmpVal += body.doubleValue(i, j) * data[base + j];
+                }
+            }
+            tmpVal = data[base + i] - tmpVal;
+
+            if (!unitDiagonal) {
+                tmpVal /= body.doubleValue(i, i);
+            }
+
+            data[base + i] = tmpVal;
+        }
+    }
+
     @Override
     public int threshold() {
         return THRESHOLD;
@@ -0,0 +1,589 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.function.IntToDoubleFunction;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.concurrent.ExecutionContext;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.machine.CommonMachine;
+import org.ojalgo.netio.BasicLogger;
+
+/**
+ * A complete set of the (public static) THRESHOLD values of the {@link ArrayOperation} implementations. Those
+ * thresholds determine when an operation is large enough to be split and executed in parallel. The default
+ * values are reasonable for typical desktop/laptop hardware, but may be way off for other machines.
+ * <ul>
+ * <li>{@link #current()} captures the values currently in use, and {@link #apply()} sets them.</li>
+ * <li>{@link #estimate(CommonMachine)} derives (cheaply) a profile from a machine description - a coarse
+ * prior.</li>
+ * <li>{@link #calibrate()} measures, using micro-benchmarks, at which sizes parallel execution starts to pay
+ * off on the current machine. This takes a few seconds.</li>
+ * <li>A profile can be saved to, and loaded from, a file. If the system property {@value #PROPERTY} is set
+ * to the path of such a file, it is loaded and applied when ojAlgo is initialised.</li>
+ * </ul>
+ *
+ * @author apete
+ */
+public final class ThresholdProfile {
+
+    /**
+     * The operations are calibrated in groups - the operations in a group do similar amounts of work per
+     * {@link Unit}.
+     */
+    enum Group {
+
+        /**
+         * Determines when to switch to cache-blocked matrix multiplication - not about parallelism
+         */
+        BLOCKING,
+        /**
+         * The decomposition/substitution building blocks - a BLAS2 amount of work per iteration
+         */
+        DECOMPOSITION,
+        /**
+         * Element-wise (BLAS1 like) operations
+         */
+        ELEMENTWISE,
+        /**
+         * Matrix multiplication - a BLAS3 amount of work
+         */
+        MULTIPLY;
+
+    }
+
+    /**
+     * A range of work, the way it is handed to {@link DivideAndConquer#conquer(int, int)}
+     */
+    @FunctionalInterface
+    interface Kernel {
+
+        void invoke(int first, int limit);
+
+    }
+
+    static final class Threshold {
+
+        final IntSupplier getter;
+        final Group group;
+        final IntConsumer setter;
+        final Unit unit;
+
+        Threshold(final Group group, final Unit unit, final IntSupplier getter, final IntConsumer setter) {
+            super();
+            this.group = group;
+            this.unit = unit;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+    }
+
+    /**
+     * What the THRESHOLD value of an operation is compared to.
+     */
+    enum Unit {
+
+        /**
+         * A matrix dimension - the number of rows or columns
+         */
+        DIMENSION,
+        /**
+         * The number of elements in a (1D) array
+         */
+        ELEMENTS;
+
+    }
+
+    /**
+     * No threshold will be set larger than this. Some operations use the square of the threshold.
+     */
+    public static final int MAX_THRESHOLD = 1 << 15;
+    /**
+     * The name of the system property that, optionally, points to a threshold profile file to load when
+     * ojAlgo is initialised.
+     */
+    public static final String PROPERTY = "org.ojalgo.thresholds";
+
+    /**
+     * The defaults are reasonable for machines with (at least) this much top level cache per thread.
+     */
+    static final long CACHE_PER_THREAD = 1L << 20;
+    static final int MIN_THRESHOLD = 8;
+
+    private static final String ARCHITECTURE = "machine.architecture";
+    private static final String CACHE = "machine.cache";
+    private static final String CORES = "machine.cores";
+    /**
+     * Parallel execution must be at least this much faster, to be considered worthwhile.
+     */
+    private static final double MARGIN = 1.25;
+    private static final Map<String, Threshold> REGISTRY = new TreeMap<>();
+    private static final long TARGET_NANOS = 20_000_000L;
+    private static final String THREADS = "machine.threads";
+    private static final String UNITS = "machine.units";
+
+    static {
+        ThresholdProfile.register(AggregateAll.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> AggregateAll.THRESHOLD, value -> AggregateAll.THRESHOLD = value);
+        ThresholdProfile.register(AMAX.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> AMAX.THRESHOLD, value -> AMAX.THRESHOLD = value);
+        ThresholdProfile.register(AMIN.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> AMIN.THRESHOLD, value -> AMIN.THRESHOLD = value);
+        ThresholdProfile.register(ApplyCholesky.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> ApplyCholesky.THRESHOLD, value -> ApplyCholesky.THRESHOLD = value);
+        ThresholdProfile.register(ApplyLDL.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> ApplyLDL.THRESHOLD, value -> ApplyLDL.THRESHOLD = value);
+        ThresholdProfile.register(ApplyLU.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> ApplyLU.THRESHOLD, value -> ApplyLU.THRESHOLD = value);
+        ThresholdProfile.register(ASUM.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> ASUM.THRESHOLD, value -> ASUM.THRESHOLD = value);
+        ThresholdProfile.register(AXPY.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> AXPY.THRESHOLD, value -> AXPY.THRESHOLD = value);
+        ThresholdProfile.register(CABS1.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> CABS1.THRESHOLD, value -> CABS1.THRESHOLD = value);
+        ThresholdProfile.register(COPY.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> COPY.THRESHOLD, value -> COPY.THRESHOLD = value);
+        ThresholdProfile.register(CorePrimitiveOperation.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> CorePrimitiveOperation.THRESHOLD, value -> CorePrimitiveOperation.THRESHOLD = value);
+        ThresholdProfile.register(DOT.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> DOT.THRESHOLD, value -> DOT.THRESHOLD = value);
+        ThresholdProfile.register(DOTC.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> DOTC.THRESHOLD, value -> DOTC.THRESHOLD = value);
+        ThresholdProfile.register(DOTU.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> DOTU.THRESHOLD, value -> DOTU.THRESHOLD = value);
+        ThresholdProfile.register(Exchange.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> Exchange.THRESHOLD, value -> Exchange.THRESHOLD = value);
+        ThresholdProfile.register(FillAll.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> FillAll.THRESHOLD, value -> FillAll.THRESHOLD = value);
+        ThresholdProfile.register(FillMatchingDual.class, Group.ELEMENTWISE, Unit.DIMENSION, () -> FillMatchingDual.THRESHOLD, value -> FillMatchingDual.THRESHOLD = value);
+        ThresholdProfile.register(FillMatchingSingle.class, Group.ELEMENTWISE, Unit.DIMENSION, () -> FillMatchingSingle.THRESHOLD, value -> FillMatchingSingle.THRESHOLD = value);
+        ThresholdProfile.register(GenerateApplyAndCopyHouseholderColumn.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> GenerateApplyAndCopyHouseholderColumn.THRESHOLD, value -> GenerateApplyAndCopyHouseholderColumn.THRESHOLD = value);
+        ThresholdProfile.register(GenerateApplyAndCopyHouseholderRow.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> GenerateApplyAndCopyHouseholderRow.THRESHOLD, value -> GenerateApplyAndCopyHouseholderRow.THRESHOLD = value);
+        ThresholdProfile.register(HermitianRank2Update.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> HermitianRank2Update.THRESHOLD, value -> HermitianRank2Update.THRESHOLD = value);
+        ThresholdProfile.register(HouseholderBlock.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> HouseholderBlock.THRESHOLD, value -> HouseholderBlock.THRESHOLD = value);
+        ThresholdProfile.register(HouseholderLeft.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> HouseholderLeft.THRESHOLD, value -> HouseholderLeft.THRESHOLD = value);
+        ThresholdProfile.register(HouseholderRight.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> HouseholderRight.THRESHOLD, value -> HouseholderRight.THRESHOLD = value);
+        ThresholdProfile.register(IndexOf.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> IndexOf.THRESHOLD, value -> IndexOf.THRESHOLD = value);
+        ThresholdProfile.register(ModifyAll.class, Group.ELEMENTWISE, Unit.DIMENSION, () -> ModifyAll.THRESHOLD, value -> ModifyAll.THRESHOLD = value);
+        ThresholdProfile.register(MultiplyBlocked.class, Group.BLOCKING, Unit.DIMENSION, () -> MultiplyBlocked.THRESHOLD, value -> MultiplyBlocked.THRESHOLD = value);
+        ThresholdProfile.register(MultiplyBoth.class, Group.MULTIPLY, Unit.DIMENSION, () -> MultiplyBoth.THRESHOLD, value -> MultiplyBoth.THRESHOLD = value);
+        ThresholdProfile.register(MultiplyHermitianAndVector.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> MultiplyHermitianAndVector.THRESHOLD, value -> MultiplyHermitianAndVector.THRESHOLD = value);
+        ThresholdProfile.register(MultiplyLeft.class, Group.MULTIPLY, Unit.DIMENSION, () -> MultiplyLeft.THRESHOLD, value -> MultiplyLeft.THRESHOLD = value);
+        ThresholdProfile.register(MultiplyNeither.class, Group.MULTIPLY, Unit.DIMENSION, () -> MultiplyNeither.THRESHOLD, value -> MultiplyNeither.THRESHOLD = value);
+        ThresholdProfile.register(MultiplyRight.class, Group.MULTIPLY, Unit.DIMENSION, () -> MultiplyRight.THRESHOLD, value -> MultiplyRight.THRESHOLD = value);
+        ThresholdProfile.register(NRM2.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> NRM2.THRESHOLD, value -> NRM2.THRESHOLD = value);
+        ThresholdProfile.register(OperationBinary.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> OperationBinary.THRESHOLD, value -> OperationBinary.THRESHOLD = value);
+        ThresholdProfile.register(OperationParameter.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> OperationParameter.THRESHOLD, value -> OperationParameter.THRESHOLD = value);
+        ThresholdProfile.register(OperationUnary.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> OperationUnary.THRESHOLD, value -> OperationUnary.THRESHOLD = value);
+        ThresholdProfile.register(OperationVoid.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> OperationVoid.THRESHOLD, value -> OperationVoid.THRESHOLD = value);
+        ThresholdProfile.register(ROT.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> ROT.THRESHOLD, value -> ROT.THRESHOLD = value);
+        ThresholdProfile.register(RotateLeft.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> RotateLeft.THRESHOLD, value -> RotateLeft.THRESHOLD = value);
+        ThresholdProfile.register(RotateRight.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> RotateRight.THRESHOLD, value -> RotateRight.THRESHOLD = value);
+        ThresholdProfile.register(ROTG.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> ROTG.THRESHOLD, value -> ROTG.THRESHOLD = value);
+        ThresholdProfile.register(ROTM.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> ROTM.THRESHOLD, value -> ROTM.THRESHOLD = value);
+        ThresholdProfile.register(ROTMG.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> ROTMG.THRESHOLD, value -> ROTMG.THRESHOLD = value);
+        ThresholdProfile.register(SCAL.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> SCAL.THRESHOLD, value -> SCAL.THRESHOLD = value);
+        ThresholdProfile.register(SDOT.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> SDOT.THRESHOLD, value -> SDOT.THRESHOLD = value);
+        ThresholdProfile.register(SortAll.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> SortAll.THRESHOLD, value -> SortAll.THRESHOLD = value);
+        ThresholdProfile.register(SubstituteBackwards.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> SubstituteBackwards.THRESHOLD, value -> SubstituteBackwards.THRESHOLD = value);
+        ThresholdProfile.register(SubstituteForwards.class, Group.DECOMPOSITION, Unit.DIMENSION, () -> SubstituteForwards.THRESHOLD, value -> SubstituteForwards.THRESHOLD = value);
+        ThresholdProfile.register(SWAP.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> SWAP.THRESHOLD, value -> SWAP.THRESHOLD = value);
+        ThresholdProfile.register(VisitAll.class, Group.ELEMENTWISE, Unit.ELEMENTS, () -> VisitAll.THRESHOLD, value -> VisitAll.THRESHOLD = value);
+    }
+
+    private static final ThresholdProfile INITIAL = ThresholdProfile.current();
+
+    /**
+     * Measures at what sizes parallel execution starts to pay off, on the machine currently running, and
+     * derives a profile from that. The returned profile is not applied.
+     * <p>
+     * The benchmarks call the operations' kernels directly, with explicit thresholds, and never touch the
+     * (global) THRESHOLD values - other threads using ojAlgo meanwhile are not affected. Each operation gets
+     * a value in its own {@link Unit}: the matrix benchmarks give a dimension and the array benchmark a
+     * number of elements.
+     */
+    public static ThresholdProfile calibrate() {
+
+        Map<Group, Integer> dimensions = new EnumMap<>(Group.class);
+        Map<Group, Integer> elements = new EnumMap<>(Group.class);
+
+        if (ExecutionContext.DEFAULT.getParallelism() <= 1) {
+            // Parallel execution will never pay off
+            for (Group group : Group.values()) {
+                dimensions.put(group, MAX_THRESHOLD);
+                elements.put(group, MAX_THRESHOLD);
+            }
+        } else {
+
+            dimensions.put(Group.MULTIPLY, ThresholdProfile.crossover(dim -> {
+                double[] left = new double[dim * dim];
+                double[] right = new double[dim * dim];
+                double[] product = new double[dim * dim];
+                Arrays.fill(left, PrimitiveMath.HALF);
+                Arrays.fill(right, PrimitiveMath.HALF);
+                return ThresholdProfile.parallelSpeedup(dim, (first, limit) -> MultiplyNeither.invoke(product, first, limit, left, dim, right));
+            }, 512));
+
+            dimensions.put(Group.ELEMENTWISE, ThresholdProfile.crossover(dim -> {
+                double[] data = new double[dim * dim];
+                return ThresholdProfile.parallelSpeedup(dim,
+                        (first, limit) -> OperationUnary.invoke(data, dim * first, dim * limit, 1, data, PrimitiveMath.NEGATE));
+            }, 2048));
+
+            elements.put(Group.ELEMENTWISE, ThresholdProfile.crossover(count -> {
+                double[] data = new double[count];
+                return ThresholdProfile.parallelSpeedup(count, (first, limit) -> OperationUnary.invoke(data, first, limit, 1, data, PrimitiveMath.NEGATE));
+            }, MAX_THRESHOLD));
+
+            dimensions.put(Group.DECOMPOSITION, ThresholdProfile.crossover(dim -> {
+                double[] data = new double[dim * dim];
+                double[] multipliers = new double[dim];
+                Arrays.fill(data, PrimitiveMath.ONE);
+                Arrays.fill(multipliers, PrimitiveMath.HALF);
+                // The columns to the right of the (first) pivot column
+                return ThresholdProfile.parallelSpeedup(dim - 1, (first, limit) -> ApplyLU.invoke(data, dim, first + 1, limit + 1, multipliers, 0));
+            }, 1024));
+        }
+
+        // Not about parallelism - compares two sequential alternatives
+        dimensions.put(Group.BLOCKING, ThresholdProfile.crossover(dim -> {
+            double[] left = new double[dim * dim];
+            double[] right = new double[dim * dim];
+            double[] product = new double[dim * dim];
+            Arrays.fill(left, PrimitiveMath.HALF);
+            Arrays.fill(right, PrimitiveMath.HALF);
+            return ThresholdProfile.speedup(() -> MultiplyNeither.invoke(product, 0, dim, left, dim, right),
+                    () -> MultiplyBlocked.invoke(product, 0, dim, left, dim, right));
+        }, 512));
+
+        ThresholdProfile retVal = new ThresholdProfile(OjAlgoUtils.ENVIRONMENT);
+        for (Map.Entry<String, Threshold> entry : REGISTRY.entrySet()) {
+            Threshold threshold = entry.getValue();
+            Map<Group, Integer> measured = threshold.unit == Unit.ELEMENTS ? elements : dimensions;
+            retVal.set(entry.getKey(), measured.get(threshold.group));
+        }
+        return retVal;
+    }
+
+    /**
+     * If there is a profile, for the current {@link OjAlgoUtils#ENVIRONMENT}, stored in the file - load and
+     * apply that. Otherwise {@link #calibrate()}, apply and save.
+     */
+    public static ThresholdProfile calibrateOrLoad(final File file) {
+
+        Optional<ThresholdProfile> loaded = ThresholdProfile.load(file);
+
+        ThresholdProfile retVal;
+        if (loaded.isPresent() && loaded.get().isFor(OjAlgoUtils.ENVIRONMENT)) {
+            retVal = loaded.get();
+        } else {
+            retVal = ThresholdProfile.calibrate();
+            retVal.save(file);
+        }
+
+        retVal.apply();
+        return retVal;
+    }
+
+    /**
+     * @return The threshold values currently in use
+     */
+    public static ThresholdProfile current() {
+        ThresholdProfile retVal = new ThresholdProfile(OjAlgoUtils.ENVIRONMENT);
+        for (Map.Entry<String, Threshold> entry : REGISTRY.entrySet()) {
+            retVal.set(entry.getKey(), entry.getValue().getter.getAsInt());
+        }
+        return retVal;
+    }
+
+    /**
+     * A coarse prior, derived from the machine description, without running any benchmarks.
+     * <ul>
+     * <li>With only 1 thread nothing is ever parallelised.</li>
+     * <li>All thresholds grow with the number of threads beyond 16 (synchronisation gets more expensive) and
+     * with the number of units (sockets).</li>
+     * <li>The element-wise thresholds also grow when there is less than {@value #CACHE_PER_THREAD} bytes of
+     * top level cache per thread - those operations are memory bound.</li>
+     * <li>The blocking threshold is not about parallelism and is left as is.</li>
+     * </ul>
+     * No threshold grows by more than a factor 8.
+     */
+    public static ThresholdProfile estimate(final CommonMachine machine) {
+
+        ThresholdProfile retVal = new ThresholdProfile(machine);
+
+        double factor = Math.max(1, machine.units) * Math.max(1.0, Math.sqrt(machine.threads / 16.0));
+
+        double cacheFactor = 1.0;
+        if (machine.cache > 0L) {
+            double cachePerThread = (double) machine.cache / Math.max(1, machine.threads / Math.max(1, machine.units));
+            cacheFactor = Math.max(1.0, Math.sqrt(CACHE_PER_THREAD / cachePerThread));
+        }
+
+        for (Map.Entry<String, Integer> entry : INITIAL.myThresholds.entrySet()) {
+
+            Group group = REGISTRY.get(entry.getKey()).group;
+
+            if (group == Group.BLOCKING) {
+                retVal.set(entry.getKey(), entry.getValue());
+            } else if (machine.threads <= 1) {
+                retVal.set(entry.getKey(), MAX_THRESHOLD);
+            } else {
+                double scale = group == Group.ELEMENTWISE ? factor * cacheFactor : factor;
+                retVal.set(entry.getKey(), ThresholdProfile.powerOf2(entry.getValue() * Math.min(scale, 8.0)));
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return The profile stored in the file, or empty if the file doesn't exist, can't be read or contains
+     *         malformed values
+     */
+    public static Optional<ThresholdProfile> load(final File file) {
+
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+        } catch (IOException | IllegalArgumentException exception) {
+            BasicLogger.error("Failed to load threshold profile: {}", exception.getMessage());
+            return Optional.empty();
+        }
+
+        try {
+
+            ThresholdProfile retVal = new ThresholdProfile(properties.getProperty(ARCHITECTURE, ""),
+                    Long.parseLong(properties.getProperty(CACHE, "0").trim()), Integer.parseInt(properties.getProperty(CORES, "0").trim()),
+                    Integer.parseInt(properties.getProperty(THREADS, "0").trim()), Integer.parseInt(properties.getProperty(UNITS, "0").trim()));
+
+            for (String key : REGISTRY.keySet()) {
+                String value = properties.getProperty(key);
+                if (value != null) {
+                    retVal.set(key, Integer.parseInt(value.trim()));
+                }
+            }
+
+            return Optional.of(retVal);
+
+        } catch (NumberFormatException exception) {
+            BasicLogger.error("Malformed threshold profile {}: {}", file, exception.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public static void main(final String[] args) {
+
+        BasicLogger.debug("Environment: {}", OjAlgoUtils.ENVIRONMENT);
+        BasicLogger.debug("Estimated: {}", ThresholdProfile.estimate(OjAlgoUtils.ENVIRONMENT));
+
+        if (args.length > 0) {
+            BasicLogger.debug("Calibrated: {}", ThresholdProfile.calibrateOrLoad(new File(args[0])));
+        } else {
+            BasicLogger.debug("Calibrated: {}", ThresholdProfile.calibrate());
+        }
+    }
+
+    /**
+     * @return The smallest size, between {@link #MIN_THRESHOLD} and maxSize, at which the speedup exceeds
+     *         {@link #MARGIN}, or 2 * maxSize if it never does
+     */
+    static int crossover(final IntToDoubleFunction speedup, final int maxSize) {
+
+        for (int size = MIN_THRESHOLD; size <= maxSize; size *= 2) {
+            if (speedup.applyAsDouble(size) > MARGIN) {
+                return size;
+            }
+        }
+
+        return 2 * maxSize;
+    }
+
+    /**
+     * Compares executing the kernel over the whole range, in the calling thread, with splitting the range
+     * between all the threads of {@link ExecutionContext#DEFAULT}.
+     */
+    static double parallelSpeedup(final int count, final Kernel kernel) {
+
+        DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                kernel.invoke(first, limit);
+            }
+
+        };
+
+        return ThresholdProfile.speedup(() -> kernel.invoke(0, count), () -> ExecutionContext.DEFAULT.run(() -> conquerer.invoke(0, count, 1)));
+    }
+
+    static int powerOf2(final double value) {
+        int retVal = MIN_THRESHOLD;
+        while ((retVal < value) && (retVal < MAX_THRESHOLD)) {
+            retVal *= 2;
+        }
+        return retVal;
+    }
+
+    static void register(final Class<? extends ArrayOperation> operation, final Group group, final Unit unit, final IntSupplier getter,
+            final IntConsumer setter) {
+        REGISTRY.put(operation.getSimpleName(), new Threshold(group, unit, getter, setter));
+    }
+
+    /**
+     * The baseline and candidate executions are interleaved (to not favour whichever runs last, after more
+     * JIT compilation) and the best (minimum) times compared.
+     *
+     * @return The baseline time divided by the candidate time
+     */
+    static double speedup(final Runnable baseline, final Runnable candidate) {
+
+        baseline.run(); // warm-up
+        candidate.run();
+
+        long bestBaseline = Long.MAX_VALUE;
+        long bestCandidate = Long.MAX_VALUE;
+        long total = 0L;
+        int count = 0;
+
+        while ((count < 3) || ((total < TARGET_NANOS) && (count < 1_000))) {
+
+            long start = System.nanoTime();
+            baseline.run();
+            long middle = System.nanoTime();
+            candidate.run();
+            long end = System.nanoTime();
+
+            bestBaseline = Math.min(bestBaseline, middle - start);
+            bestCandidate = Math.min(bestCandidate, end - middle);
+            total += end - start;
+            count++;
+        }
+
+        return (double) bestBaseline / Math.max(1L, bestCandidate);
+    }
+
+    private final String myArchitecture;
+    private final long myCache;
+    private final int myCores;
+    private final int myThreads;
+    private final Map<String, Integer> myThresholds = new TreeMap<>();
+    private final int myUnits;
+
+    ThresholdProfile(final CommonMachine machine) {
+        this(machine.architecture, machine.cache, machine.cores, machine.threads, machine.units);
+    }
+
+    ThresholdProfile(final String architecture, final long cache, final int cores, final int threads, final int units) {
+        super();
+        myArchitecture = architecture;
+        myCache = cache;
+        myCores = cores;
+        myThreads = threads;
+        myUnits = units;
+    }
+
+    /**
+     * Set the (public static) THRESHOLD values of all {@link ArrayOperation} implementations to what's in this
+     * profile.
+     */
+    public void apply() {
+        for (Map.Entry<String, Integer> entry : myThresholds.entrySet()) {
+            Threshold threshold = REGISTRY.get(entry.getKey());
+            if (threshold != null) {
+                threshold.setter.accept(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @param operation The simple class name of an {@link ArrayOperation} implementation, e.g.
+     *        "MultiplyBoth".
+     * @return The threshold for that operation, or 0 if unknown
+     */
+    public int get(final String operation) {
+        return myThresholds.getOrDefault(operation, 0);
+    }
+
+    /**
+     * @return All thresholds keyed by operation (simple class name)
+     */
+    public Map<String, Integer> getThresholds() {
+        return Collections.unmodifiableMap(myThresholds);
+    }
+
+    /**
+     * @return true if this profile was created for a machine with the same architecture, cache, cores,
+     *         threads and units as the one supplied.
+     */
+    public boolean isFor(final CommonMachine machine) {
+        return myArchitecture.equals(machine.architecture) && (myCache == machine.cache) && (myCores == machine.cores)
+                && (myThreads == machine.threads) && (myUnits == machine.units);
+    }
+
+    /**
+     * @return true if the profile was successfully written to the file
+     */
+    public boolean save(final File file) {
+
+        Properties properties = new Properties();
+
+        properties.setProperty(ARCHITECTURE, myArchitecture);
+        properties.setProperty(CACHE, Long.toString(myCache));
+        properties.setProperty(CORES, Integer.toString(myCores));
+        properties.setProperty(THREADS, Integer.toString(myThreads));
+        properties.setProperty(UNITS, Integer.toString(myUnits));
+
+        for (Map.Entry<String, Integer> entry : myThresholds.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if ((parent != null) && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        try (OutputStream output = new FileOutputStream(file)) {
+            properties.store(output, "ojAlgo ArrayOperation thresholds");
+            return true;
+        } catch (IOException exception) {
+            BasicLogger.error("Failed to save threshold profile: {}", exception.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return myThresholds.toString();
+    }
+
+    void set(final String operation, final int threshold) {
+        myThresholds.put(operation, Math.max(1, Math.min(threshold, MAX_THRESHOLD)));
+    }
+
+}
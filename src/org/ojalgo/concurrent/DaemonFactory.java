@@ -21,10 +21,13 @@
  */
 package org.ojalgo.concurrent;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
-final class DaemonFactory implements ThreadFactory {
+final class DaemonFactory implements ThreadFactory, ForkJoinWorkerThreadFactory {
 
     static final DaemonFactory INSTANCE = new DaemonFactory();
 
@@ -38,6 +41,17 @@ final class DaemonFactory implements ThreadFactory {
         myThreadGroup = new ThreadGroup("ojAlgo-daemon-group");
     }
 
+    public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+
+        ForkJoinWorkerThread retVal = new ForkJoinWorkerThread(pool) {
+        };
+
+        retVal.setName("ojAlgo-worker-" + myLastThreadID.incrementAndGet());
+        retVal.setDaemon(true);
+
+        return retVal;
+    }
+
     public Thread newThread(final Runnable runnable) {
 
         Thread retVal = new Thread(myThreadGroup, runnable, "ojAlgo-daemon-" + myLastThreadID.incrementAndGet());
@@ -21,60 +21,123 @@
  */
 package org.ojalgo.concurrent;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.ojalgo.OjAlgoUtils;
-import org.ojalgo.ProgrammingError;
 
 /**
+ * Executes {@link #conquer(int, int)} on a range of indices, splitting the range in halves and processing
+ * them in parallel when large enough. The work is done in a (shared) work-stealing {@link ForkJoinPool}. One
+ * half of each split is forked, the other is computed inline by the current thread. When invoked from a
+ * thread that already is a worker in that pool (nested parallelism) the work is simply pushed on to that
+ * worker's own queue - no additional threads are blocked waiting. The total parallelism is capped by the pool
+ * that is sized to {@link OjAlgoUtils#ENVIRONMENT} when first used, and by the number of threads of the
+ * current {@link OjAlgoUtils#ENVIRONMENT} - changing it later, e.g. using
+ * {@link OjAlgoUtils#limitCoresTo(int)}, limits the number of threads used (but can't increase it).
+ * <p>
+ * Which pool, and how many of its threads, to use is determined by the {@link ExecutionContext} bound to the
+ * invoking thread.
+ *
  * @author apete
  */
 public abstract class DivideAndConquer {
 
-    public DivideAndConquer() {
-        super();
-    }
+    static final class Divider extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DivideAndConquer myConquerer;
+        private final ExecutionContext myContext;
+        private final int myFirst;
+        private final int myLimit;
+        private final int myThreshold;
+        private final int myWorkers;
+
+        Divider(final ExecutionContext context, final DivideAndConquer conquerer, final int first, final int limit, final int threshold,
+                final int workers) {
+            super();
+            myContext = context;
+            myConquerer = conquerer;
+            myFirst = first;
+            myLimit = limit;
+            myThreshold = threshold;
+            myWorkers = workers;
+        }
 
-    /**
-     * Synchronous execution - wait until it's finished.
-     *
-     * @param first The first index, in a range, to include.
-     * @param limit The first index NOT to include - last (excl.) index in a range.
-     */
-    public final void invoke(final int first, final int limit, final int threshold) {
+        @Override
+        protected void compute() {
 
-        final int availableWorkers = OjAlgoUtils.ENVIRONMENT.threads - (DaemonPoolExecutor.INSTANCE.getActiveCount() / 2);
+            final int count = myLimit - myFirst;
 
-        this.divide(first, limit, threshold, availableWorkers);
-    }
+            if ((count > myThreshold) && (myWorkers > 1) && (ForkJoinTask.getSurplusQueuedTaskCount() <= SURPLUS)) {
 
-    protected abstract void conquer(final int first, final int limit);
+                final int split = myFirst + (count / 2);
+                final int nextWorkers = myWorkers / 2;
 
-    final void divide(final int first, final int limit, final int threshold, final int workers) {
+                final Divider firstPart = new Divider(myContext, myConquerer, myFirst, split, myThreshold, nextWorkers);
+                final Divider secondPart = new Divider(myContext, myConquerer, split, myLimit, myThreshold, myWorkers - nextWorkers);
 
-        final int count = limit - first;
+                secondPart.fork();
+                firstPart.compute();
+                secondPart.join();
 
-        if ((count > threshold) && (workers > 1)) {
+            } else {
 
-            final int split = first + (count / 2);
-            final int nextWorkers = workers / 2;
+                // The context must be visible to any nested operations, regardless of which thread this runs on
+                final ExecutionContext previous = ExecutionContext.bind(myContext);
+                try {
+                    myConquerer.conquer(myFirst, myLimit);
+                } finally {
+                    ExecutionContext.bind(previous);
+                }
+            }
+        }
 
-            final Future<?> firstPart = DaemonPoolExecutor.INSTANCE.submit(() -> this.divide(first, split, threshold, nextWorkers));
-            final Future<?> secondPart = DaemonPoolExecutor.INSTANCE.submit(() -> this.divide(split, limit, threshold, nextWorkers));
+    }
 
-            try {
-                firstPart.get();
-                secondPart.get();
-            } catch (final InterruptedException | ExecutionException exception) {
-                exception.printStackTrace();
-                throw new ProgrammingError(exception);
-            }
+    /**
+     * If the current worker thread already has more than this number of queued tasks, that no-one has
+     * stolen, there is no point in splitting any further.
+     */
+    static final int SURPLUS = 2;
 
-        } else {
+    private static volatile ForkJoinPool POOL = null;
 
-            this.conquer(first, limit);
+    static ForkJoinPool pool() {
+        if (POOL == null) {
+            synchronized (DivideAndConquer.class) {
+                if (POOL == null) {
+                    POOL = new ForkJoinPool(Math.max(1, OjAlgoUtils.ENVIRONMENT.threads), DaemonFactory.INSTANCE, null, false);
+                }
+            }
         }
+        return POOL;
+    }
+
+    /**
+     * The number of threads, of the shared pool, that may be used. The pool is only created once, but
+     * {@link OjAlgoUtils#ENVIRONMENT} may have been limited since then.
+     */
+    static int parallelism() {
+        return Math.max(1, Math.min(DivideAndConquer.pool().getParallelism(), OjAlgoUtils.ENVIRONMENT.threads));
+    }
+
+    public DivideAndConquer() {
+        super();
+    }
+
+    /**
+     * Synchronous execution - wait until it's finished.
+     *
+     * @param first The first index, in a range, to include.
+     * @param limit The first index NOT to include - last (excl.) index in a range.
+     */
+    public final void invoke(final int first, final int limit, final int threshold) {
+        ExecutionContext.current().divide(this, first, limit, threshold);
     }
 
+    protected abstract void conquer(final int first, final int limit);
+
 }
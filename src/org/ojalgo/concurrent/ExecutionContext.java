@@ -0,0 +1,179 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.ProgrammingError;
+
+/**
+ * Controls where, and with how many threads, the parallel parts of ojAlgo's array/matrix operations (anything
+ * implemented using {@link DivideAndConquer}) execute. A context is bound to the current thread using
+ * {@link #run(Runnable)} or {@link #call(Supplier)} and is then honoured by all operations executed within
+ * that call - including those that are forked to other threads.
+ * <p>
+ * If no context is bound {@link #DEFAULT} is used.
+ * <p>
+ * Contexts with a dedicated pool, {@link #newDedicated(int)}, should be created once and reused.
+ *
+ * @author apete
+ */
+public final class ExecutionContext {
+
+    /**
+     * The shared pool, sized to {@link OjAlgoUtils#ENVIRONMENT}, with no additional restrictions.
+     */
+    public static final ExecutionContext DEFAULT = new ExecutionContext(null, Integer.MAX_VALUE);
+    /**
+     * Everything executes in the calling thread.
+     */
+    public static final ExecutionContext SEQUENTIAL = new ExecutionContext(null, 1);
+
+    private static final ThreadLocal<ExecutionContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return The context bound to the current thread, or {@link #DEFAULT} if none is.
+     */
+    public static ExecutionContext current() {
+        ExecutionContext retVal = CURRENT.get();
+        return retVal != null ? retVal : DEFAULT;
+    }
+
+    /**
+     * @param pool An existing pool to execute in
+     */
+    public static ExecutionContext newDedicated(final ForkJoinPool pool) {
+        ProgrammingError.throwIfNull(pool);
+        return new ExecutionContext(pool, pool.getParallelism());
+    }
+
+    /**
+     * @param threads The number of threads in a new pool dedicated to this context
+     */
+    public static ExecutionContext newDedicated(final int threads) {
+        if (threads <= 1) {
+            return SEQUENTIAL;
+        } else {
+            return new ExecutionContext(new ForkJoinPool(threads, DaemonFactory.INSTANCE, null, false), threads);
+        }
+    }
+
+    static ExecutionContext bind(final ExecutionContext context) {
+        ExecutionContext previous = CURRENT.get();
+        if (context != null) {
+            CURRENT.set(context);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    private final ForkJoinPool myPool;
+    private final int myWorkers;
+
+    private ExecutionContext(final ForkJoinPool pool, final int workers) {
+        super();
+        myPool = pool;
+        myWorkers = workers;
+    }
+
+    /**
+     * Execute the task with this context bound to the current thread, and return its result.
+     */
+    public <T> T call(final Supplier<T> task) {
+        ExecutionContext previous = ExecutionContext.bind(this);
+        try {
+            return task.get();
+        } finally {
+            ExecutionContext.bind(previous);
+        }
+    }
+
+    /**
+     * The maximum number of threads, from this context's pool, any single operation will use.
+     */
+    public int getParallelism() {
+        final int available = myPool != null ? myPool.getParallelism() : DivideAndConquer.parallelism();
+        return Math.max(1, Math.min(myWorkers, available));
+    }
+
+    public boolean isSequential() {
+        return myWorkers <= 1;
+    }
+
+    /**
+     * @param workers The maximum number of threads any single operation may use
+     * @return A context using the same pool, but (possibly) fewer of its threads
+     */
+    public ExecutionContext limitTo(final int workers) {
+        if (workers <= 1) {
+            return SEQUENTIAL;
+        } else {
+            return new ExecutionContext(myPool, Math.min(myWorkers, workers));
+        }
+    }
+
+    /**
+     * Execute the task with this context bound to the current thread.
+     */
+    public void run(final Runnable task) {
+        ExecutionContext previous = ExecutionContext.bind(this);
+        try {
+            task.run();
+        } finally {
+            ExecutionContext.bind(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionContext [pool=" + (myPool != null ? myPool : "shared") + ", workers=" + myWorkers + "]";
+    }
+
+    void divide(final DivideAndConquer conquerer, final int first, final int limit, final int threshold) {
+
+        final int workers = this.getParallelism();
+
+        if ((workers <= 1) || ((limit - first) <= threshold)) {
+            conquerer.conquer(first, limit);
+            return;
+        }
+
+        final ForkJoinPool pool = this.pool();
+        final DivideAndConquer.Divider divider = new DivideAndConquer.Divider(this, conquerer, first, limit, threshold, workers);
+
+        if (ForkJoinTask.getPool() == pool) {
+            // Already executing in the pool - run inline and let the forked parts be stolen
+            divider.invoke();
+        } else {
+            pool.invoke(divider);
+        }
+    }
+
+    ForkJoinPool pool() {
+        return myPool != null ? myPool : DivideAndConquer.pool();
+    }
+
+}
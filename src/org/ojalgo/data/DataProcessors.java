@@ -110,6 +110,24 @@ public class DataProcessors {
         return DataProcessors.covariances(factory, RawStore.wrap(data).transpose());
     }
 
+    /**
+     * Covariances calculated from the complexity largest singular values (and corresponding vectors) of the
+     * data matrix. The truncated SVD is calculated using {@link SingularValue#randomised(int)}, which is much
+     * faster than a full decomposition when complexity is small compared to the number of variables.
+     *
+     * @param factory A factory that will produce the returned covariance matrix
+     * @param data Centered data - variables in columns and samples in rows (may be sparse)
+     * @param complexity The number of singular values that should be considered
+     * @see #covariances(Factory2D, SingularValue, int)
+     */
+    public static <M extends PhysicalStore<Double>> M covariances(final Factory2D<M> factory, final MatrixStore<Double> data, final int complexity) {
+
+        SingularValue<Double> svd = SingularValue.randomised(complexity).make(data);
+        svd.decompose(data);
+
+        return DataProcessors.covariances(factory, svd, complexity);
+    }
+
     /**
      * @see #covariances(Factory2D, SingularValue, int)
      */
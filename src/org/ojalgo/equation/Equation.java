@@ -25,6 +25,7 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.array.SparseArray;
+import org.ojalgo.array.SparseArray.NonzeroView;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Mutate1D;
@@ -143,6 +144,13 @@ public final class Equation implements Comparable<Equation>, Access1D<Double>, M
         this.calculate(x, ZERO, ONE);
     }
 
+    /**
+     * The nonzero elements of this equation/row, in increasing index order
+     */
+    public NonzeroView<Double> nonzeros() {
+        return myElements.nonzeros();
+    }
+
     public void set(final long index, final Comparable<?> value) {
         this.set(index, NumberDefinition.doubleValue(value));
     }
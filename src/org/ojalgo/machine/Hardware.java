@@ -536,6 +536,20 @@ public final class Hardware extends CommonMachine implements Comparable<Hardware
         return true;
     }
 
+    /**
+     * @return The size, in bytes, of the L1 cache (one unit)
+     */
+    public long getL1Cache() {
+        return myLevels[myLevels.length - 1].memory;
+    }
+
+    /**
+     * @return The size, in bytes, of the L2 cache (one unit), or the L1 cache size if L2 is not specified
+     */
+    public long getL2Cache() {
+        return myLevels[this.isL2Specified() ? myLevels.length - 2 : myLevels.length - 1].memory;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -135,6 +135,20 @@ public final class VirtualMachine extends CommonMachine {
         return tmpAvailable;
     }
 
+    /**
+     * @see Hardware#getL1Cache()
+     */
+    public long getL1Cache() {
+        return myHardware.getL1Cache();
+    }
+
+    /**
+     * @see Hardware#getL2Cache()
+     */
+    public long getL2Cache() {
+        return myHardware.getL2Cache();
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
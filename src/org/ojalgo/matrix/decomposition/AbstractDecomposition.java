@@ -90,7 +90,15 @@ abstract class AbstractDecomposition<N extends Comparable<N>> implements MatrixD
 
     protected abstract Scalar.Factory<N> scalar();
 
-    boolean isSolvable() {
+    /**
+     * The decomposition was modified rather than recomputed - any cached solvability is no longer valid.
+     */
+    protected final boolean updated(final boolean updated) {
+        mySolvable = null;
+        return this.computed(updated);
+    }
+
+    public boolean isSolvable() {
         if (myComputed && (mySolvable == null)) {
             if (this instanceof MatrixDecomposition.Solver) {
                 mySolvable = Boolean.valueOf(this.checkSolvability());
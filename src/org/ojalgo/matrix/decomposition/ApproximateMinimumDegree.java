@@ -0,0 +1,320 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Arrays;
+
+/**
+ * Approximate minimum degree (Amestoy, Davis &amp; Duff) fill reducing ordering of a symmetric sparsity
+ * pattern.
+ * <p>
+ * The elimination is simulated on a quotient graph - an eliminated node becomes an "element" that
+ * represents the clique it created, and elements adjacent to the pivot are absorbed into the new element.
+ * That way the graph never takes more memory than the original pattern plus the current elements. The
+ * (external) degrees are not calculated exactly, but bounded from above using the sizes of the elements
+ * which is much cheaper. Supervariable detection and aggressive absorption are not implemented. Nodes with
+ * (very) many neighbours are removed before the ordering and placed last.
+ *
+ * @author apete
+ */
+final class ApproximateMinimumDegree {
+
+    private static final int DENSE = -2;
+    private static final int ELEMENT = -1;
+    private static final int VARIABLE = 0;
+
+    /**
+     * @param dim The number of rows/columns
+     * @param pointers Column pointers of the (symmetric) pattern, both triangles
+     * @param indices Row indices of the pattern. The diagonal may or may not be included.
+     * @return The order - order[k] is the (original) index of the k:th node to eliminate
+     */
+    static int[] order(final int dim, final int[] pointers, final int[] indices) {
+        return new ApproximateMinimumDegree(dim, pointers, indices).order();
+    }
+
+    private static int[] append(final int[] list, final int size, final int value) {
+        final int[] retVal = size < list.length ? list : Arrays.copyOf(list, Math.max(4, 2 * size));
+        retVal[size] = value;
+        return retVal;
+    }
+
+    /**
+     * Variable neighbours (not yet covered by any element)
+     */
+    private final int[][] myAdjacent;
+    private final int[] myAdjacentCount;
+    private final int[] myDegree;
+    private final int myDim;
+    /**
+     * Elements adjacent to each variable
+     */
+    private final int[][] myElements;
+    private final int[] myElementsCount;
+    /**
+     * Bucket lists of variables with the same (approximate) degree
+     */
+    private final int[] myHead;
+    /**
+     * The variables of each element
+     */
+    private final int[][] myMembers;
+    private final int[] myMembersCount;
+    private final int[] myNext;
+    private final int[] myPrevious;
+    private final int[] myStamp;
+    private int myStampValue = 0;
+    /**
+     * VARIABLE, ELEMENT or DENSE (absorbed elements have null members)
+     */
+    private final int[] myStatus;
+    private final int[] myWeight;
+    private final int[] myWeightStamp;
+
+    private ApproximateMinimumDegree(final int dim, final int[] pointers, final int[] indices) {
+
+        super();
+
+        myDim = dim;
+
+        myStatus = new int[dim];
+        myDegree = new int[dim];
+        myAdjacent = new int[dim][];
+        myAdjacentCount = new int[dim];
+        myElements = new int[dim][];
+        myElementsCount = new int[dim];
+        myMembers = new int[dim][];
+        myMembersCount = new int[dim];
+
+        myHead = new int[dim + 1];
+        myNext = new int[dim];
+        myPrevious = new int[dim];
+        myStamp = new int[dim];
+        myWeight = new int[dim];
+        myWeightStamp = new int[dim];
+
+        final int limit = Math.max(16, (int) (10.0 * Math.sqrt(dim)));
+
+        for (int j = 0; j < dim; j++) {
+            int count = 0;
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                if (indices[p] != j) {
+                    count++;
+                }
+            }
+            if (count > limit) {
+                myStatus[j] = DENSE;
+            }
+        }
+
+        Arrays.fill(myHead, -1);
+
+        for (int j = 0; j < dim; j++) {
+            if (myStatus[j] == VARIABLE) {
+                int[] adjacent = new int[pointers[j + 1] - pointers[j]];
+                int count = 0;
+                for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                    final int i = indices[p];
+                    if ((i != j) && (myStatus[i] == VARIABLE)) {
+                        adjacent[count++] = i;
+                    }
+                }
+                myAdjacent[j] = adjacent;
+                myAdjacentCount[j] = count;
+                myElements[j] = new int[4];
+                myDegree[j] = count;
+                this.insert(j);
+            }
+        }
+    }
+
+    private void insert(final int variable) {
+        final int degree = myDegree[variable];
+        final int first = myHead[degree];
+        myNext[variable] = first;
+        myPrevious[variable] = -1;
+        if (first >= 0) {
+            myPrevious[first] = variable;
+        }
+        myHead[degree] = variable;
+    }
+
+    private int nextStamp() {
+        if (++myStampValue == Integer.MAX_VALUE) {
+            Arrays.fill(myStamp, 0);
+            Arrays.fill(myWeightStamp, 0);
+            myStampValue = 1;
+        }
+        return myStampValue;
+    }
+
+    private int[] order() {
+
+        final int dim = myDim;
+        final int[] retVal = new int[dim];
+
+        int numberOfDense = 0;
+        for (int j = 0; j < dim; j++) {
+            if (myStatus[j] == DENSE) {
+                numberOfDense++;
+            }
+        }
+
+        int minimum = 0;
+
+        for (int k = 0, last = dim - numberOfDense; k < last; k++) {
+
+            while (myHead[minimum] < 0) {
+                minimum++;
+            }
+            final int pivot = myHead[minimum];
+            this.remove(pivot);
+
+            retVal[k] = pivot;
+
+            // Form the new element, the union of the pivot's variable neighbours and the variables of its elements
+
+            final int stamp = this.nextStamp();
+            myStamp[pivot] = stamp;
+
+            int[] members = new int[Math.max(4, myAdjacentCount[pivot])];
+            int size = 0;
+
+            final int[] pivotElements = myElements[pivot];
+            for (int q = 0, count = myElementsCount[pivot]; q < count; q++) {
+                final int element = pivotElements[q];
+                if (myMembers[element] != null) {
+                    final int[] elementMembers = myMembers[element];
+                    for (int r = 0, limit = myMembersCount[element]; r < limit; r++) {
+                        final int i = elementMembers[r];
+                        if ((myStatus[i] == VARIABLE) && (myStamp[i] != stamp)) {
+                            myStamp[i] = stamp;
+                            members = ApproximateMinimumDegree.append(members, size++, i);
+                        }
+                    }
+                    // Absorbed
+                    myMembers[element] = null;
+                }
+            }
+
+            final int[] pivotAdjacent = myAdjacent[pivot];
+            for (int q = 0, count = myAdjacentCount[pivot]; q < count; q++) {
+                final int i = pivotAdjacent[q];
+                if ((myStatus[i] == VARIABLE) && (myStamp[i] != stamp)) {
+                    myStamp[i] = stamp;
+                    members = ApproximateMinimumDegree.append(members, size++, i);
+                }
+            }
+
+            myStatus[pivot] = ELEMENT;
+            myMembers[pivot] = members;
+            myMembersCount[pivot] = size;
+            myAdjacent[pivot] = null;
+            myElements[pivot] = null;
+
+            // |Le \ Lp| for all other elements adjacent to the new element's variables
+
+            final int weightStamp = this.nextStamp();
+            for (int q = 0; q < size; q++) {
+                final int i = members[q];
+                final int[] elements = myElements[i];
+                for (int r = 0, count = myElementsCount[i]; r < count; r++) {
+                    final int element = elements[r];
+                    if (myMembers[element] != null) {
+                        if (myWeightStamp[element] != weightStamp) {
+                            myWeightStamp[element] = weightStamp;
+                            myWeight[element] = myMembersCount[element];
+                        }
+                        myWeight[element]--;
+                    }
+                }
+            }
+
+            // Update the variables of the new element - their element lists, adjacency and degrees
+
+            final int remaining = last - k - 1;
+
+            for (int q = 0; q < size; q++) {
+
+                final int i = members[q];
+
+                int[] elements = myElements[i];
+                int countElements = 0;
+                int degree = 0;
+                for (int r = 0, count = myElementsCount[i]; r < count; r++) {
+                    final int element = elements[r];
+                    if (myMembers[element] != null) {
+                        elements[countElements++] = element;
+                        degree += myWeight[element];
+                    }
+                }
+                elements = ApproximateMinimumDegree.append(elements, countElements++, pivot);
+                myElements[i] = elements;
+                myElementsCount[i] = countElements;
+
+                final int[] adjacent = myAdjacent[i];
+                int countAdjacent = 0;
+                for (int r = 0, count = myAdjacentCount[i]; r < count; r++) {
+                    final int j = adjacent[r];
+                    if ((myStatus[j] == VARIABLE) && (myStamp[j] != stamp)) {
+                        adjacent[countAdjacent++] = j;
+                    }
+                }
+                myAdjacentCount[i] = countAdjacent;
+
+                degree += countAdjacent + size - 1;
+                degree = Math.min(degree, myDegree[i] + size - 1);
+                degree = Math.max(0, Math.min(degree, remaining - 1));
+
+                this.remove(i);
+                myDegree[i] = degree;
+                this.insert(i);
+
+                if (degree < minimum) {
+                    minimum = degree;
+                }
+            }
+        }
+
+        for (int j = 0, k = dim - numberOfDense; j < dim; j++) {
+            if (myStatus[j] == DENSE) {
+                retVal[k++] = j;
+            }
+        }
+
+        return retVal;
+    }
+
+    private void remove(final int variable) {
+        final int next = myNext[variable];
+        final int previous = myPrevious[variable];
+        if (next >= 0) {
+            myPrevious[next] = previous;
+        }
+        if (previous >= 0) {
+            myNext[previous] = next;
+        } else {
+            myHead[myDegree[variable]] = next;
+        }
+    }
+
+}
@@ -0,0 +1,732 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * Decomposes, and solves with, many small same-shape matrices in one call - LU (with partial pivoting),
+ * Cholesky or Householder QR (least squares).
+ * <p>
+ * The matrices are stored in one array, interleaved in groups of {@link #WIDTH} problems: within a group
+ * element (i,j) of all the group's matrices are next to each other, and each group's matrices are stored
+ * contiguously. The last group is padded, so the arrays have {@link #size(int, int, int)} elements. All the
+ * inner loops run across the (fixed number of) problems in a group, with unit stride, so they vectorise, and
+ * the groups are processed in parallel. Use {@link #index(int, int, int, int, int)} to locate an element, or
+ * {@link #pack(Access2D[])} and {@link #unpack(double[], int, int, int)} to convert to/from that layout. The
+ * right hand sides, and solutions, use the same layout.
+ * <p>
+ * An instance keeps the factors of the latest call to {@link #decompose(double[])}, and reuses its internal
+ * arrays. It is not thread safe.
+ *
+ * @author apete
+ */
+public abstract class BatchedDecomposition {
+
+    static final class CholeskyBatch extends BatchedDecomposition {
+
+        CholeskyBatch(final int dim, final int count) {
+            super(dim, dim, count);
+        }
+
+        @Override
+        void decompose(final double[] a, final int first, final double[] scratch) {
+
+            final int dim = this.getRowDim();
+            final int base = first * dim * dim;
+
+            for (int j = 0; j < dim; j++) {
+
+                final int jj = base + ((j + (j * dim)) * WIDTH);
+
+                for (int k = 0; k < j; k++) {
+                    final int jk = base + ((j + (k * dim)) * WIDTH);
+                    for (int i = j; i < dim; i++) {
+                        final int ij = base + ((i + (j * dim)) * WIDTH);
+                        final int ik = base + ((i + (k * dim)) * WIDTH);
+                        for (int p = 0; p < WIDTH; p++) {
+                            a[ij + p] -= a[ik + p] * a[jk + p];
+                        }
+                    }
+                }
+
+                for (int p = 0; p < WIDTH; p++) {
+                    final double diagonal = a[jj + p];
+                    if (diagonal > ZERO) {
+                        a[jj + p] = SQRT.invoke(diagonal);
+                    } else {
+                        this.fail(first + p);
+                        a[jj + p] = ONE;
+                    }
+                }
+
+                for (int i = j + 1; i < dim; i++) {
+                    final int ij = base + ((i + (j * dim)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        a[ij + p] /= a[jj + p];
+                    }
+                }
+            }
+        }
+
+        @Override
+        void solve(final double[] a, final double[] y, final double[] x, final int nbRHS, final int first, final double[] scratch) {
+
+            final int dim = this.getRowDim();
+            final int base = first * dim * dim;
+
+            for (int c = 0; c < nbRHS; c++) {
+                final int col = (first * dim * nbRHS) + (c * dim * WIDTH);
+
+                // L y = b
+                for (int i = 0; i < dim; i++) {
+                    final int xi = col + (i * WIDTH);
+                    for (int k = 0; k < i; k++) {
+                        final int ik = base + ((i + (k * dim)) * WIDTH);
+                        final int xk = col + (k * WIDTH);
+                        for (int p = 0; p < WIDTH; p++) {
+                            x[xi + p] -= a[ik + p] * x[xk + p];
+                        }
+                    }
+                    final int ii = base + ((i + (i * dim)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        x[xi + p] /= a[ii + p];
+                    }
+                }
+
+                // L<sup>T</sup> x = y
+                for (int i = dim - 1; i >= 0; i--) {
+                    final int xi = col + (i * WIDTH);
+                    for (int k = i + 1; k < dim; k++) {
+                        final int ki = base + ((k + (i * dim)) * WIDTH);
+                        final int xk = col + (k * WIDTH);
+                        for (int p = 0; p < WIDTH; p++) {
+                            x[xi + p] -= a[ki + p] * x[xk + p];
+                        }
+                    }
+                    final int ii = base + ((i + (i * dim)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        x[xi + p] /= a[ii + p];
+                    }
+                }
+            }
+        }
+
+    }
+
+    static final class LUBatch extends BatchedDecomposition {
+
+        /**
+         * A copy of the current column of multipliers, for each group, in the same (grouped) layout as a dim x
+         * 1 vector. The groups are decomposed in parallel, but each only touches its own part.
+         */
+        private final double[] myColumns;
+        /**
+         * The pivot row of each step, in the same (grouped) layout as a dim x 1 vector
+         */
+        private final int[] myPivots;
+
+        LUBatch(final int dim, final int count) {
+            super(dim, dim, count);
+            myColumns = new double[dim * BatchedDecomposition.pad(count)];
+            myPivots = new int[dim * BatchedDecomposition.pad(count)];
+        }
+
+        @Override
+        void decompose(final double[] a, final int first, final double[] scratch) {
+
+            final int dim = this.getRowDim();
+            final int base = first * dim * dim;
+            final int[] pivots = myPivots;
+            final double[] columns = myColumns;
+            final int column = first * dim;
+
+            for (int k = 0; k < dim; k++) {
+
+                final int kk = base + ((k + (k * dim)) * WIDTH);
+                final int pk = (first * dim) + (k * WIDTH);
+
+                // Find the pivot rows
+
+                for (int p = 0; p < WIDTH; p++) {
+                    scratch[p] = Math.abs(a[kk + p]);
+                    pivots[pk + p] = k;
+                }
+                for (int i = k + 1; i < dim; i++) {
+                    final int ik = base + ((i + (k * dim)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        final double value = Math.abs(a[ik + p]);
+                        if (value > scratch[p]) {
+                            scratch[p] = value;
+                            pivots[pk + p] = i;
+                        }
+                    }
+                }
+
+                // Exchange rows - per problem
+
+                for (int p = 0; p < WIDTH; p++) {
+                    final int r = pivots[pk + p];
+                    if (r != k) {
+                        for (int j = 0; j < dim; j++) {
+                            final int kj = base + ((k + (j * dim)) * WIDTH) + p;
+                            final int rj = base + ((r + (j * dim)) * WIDTH) + p;
+                            final double tmp = a[kj];
+                            a[kj] = a[rj];
+                            a[rj] = tmp;
+                        }
+                    }
+                    if (a[kk + p] == ZERO) {
+                        this.fail(first + p);
+                        a[kk + p] = ONE;
+                    }
+                }
+
+                // Multipliers
+
+                for (int i = k + 1; i < dim; i++) {
+                    final int ik = base + ((i + (k * dim)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        a[ik + p] /= a[kk + p];
+                    }
+                }
+
+                // Update the trailing submatrix
+
+                final int offset = base + ((k * dim) * WIDTH);
+                final int length = (dim - k - 1) * WIDTH;
+                System.arraycopy(a, offset + ((k + 1) * WIDTH), columns, column, length);
+
+                for (int j = k + 1; j < dim; j++) {
+                    final int kj = base + ((k + (j * dim)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        scratch[p] = a[kj + p];
+                    }
+                    final int start = base + (((k + 1) + (j * dim)) * WIDTH);
+                    for (int t = 0; t < length; t += WIDTH) {
+                        for (int p = 0; p < WIDTH; p++) {
+                            a[start + t + p] -= columns[column + t + p] * scratch[p];
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        void solve(final double[] a, final double[] y, final double[] x, final int nbRHS, final int first, final double[] scratch) {
+
+            final int dim = this.getRowDim();
+            final int base = first * dim * dim;
+            final int[] pivots = myPivots;
+
+            for (int c = 0; c < nbRHS; c++) {
+                final int col = (first * dim * nbRHS) + (c * dim * WIDTH);
+
+                // P b
+                for (int k = 0; k < dim; k++) {
+                    final int pk = (first * dim) + (k * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        final int r = pivots[pk + p];
+                        if (r != k) {
+                            final int xk = col + (k * WIDTH) + p;
+                            final int xr = col + (r * WIDTH) + p;
+                            final double tmp = x[xk];
+                            x[xk] = x[xr];
+                            x[xr] = tmp;
+                        }
+                    }
+                }
+
+                // L y = P b
+                for (int i = 1; i < dim; i++) {
+                    final int xi = col + (i * WIDTH);
+                    for (int k = 0; k < i; k++) {
+                        final int ik = base + ((i + (k * dim)) * WIDTH);
+                        final int xk = col + (k * WIDTH);
+                        for (int p = 0; p < WIDTH; p++) {
+                            x[xi + p] -= a[ik + p] * x[xk + p];
+                        }
+                    }
+                }
+
+                // U x = y
+                for (int i = dim - 1; i >= 0; i--) {
+                    final int xi = col + (i * WIDTH);
+                    for (int k = i + 1; k < dim; k++) {
+                        final int ik = base + ((i + (k * dim)) * WIDTH);
+                        final int xk = col + (k * WIDTH);
+                        for (int p = 0; p < WIDTH; p++) {
+                            x[xi + p] -= a[ik + p] * x[xk + p];
+                        }
+                    }
+                    final int ii = base + ((i + (i * dim)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        x[xi + p] /= a[ii + p];
+                    }
+                }
+            }
+        }
+
+    }
+
+    static final class QRBatch extends BatchedDecomposition {
+
+        /**
+         * The diagonal of R, in the same (grouped) layout as a columns x 1 vector
+         */
+        private final double[] myDiagonal;
+        /**
+         * The Householder scalars, 2 / v<sup>T</sup>v, in the same (grouped) layout as a columns x 1 vector
+         */
+        private final double[] myScalars;
+        private double[] myWork = null;
+
+        QRBatch(final int rows, final int columns, final int count) {
+            super(rows, columns, count);
+            myDiagonal = new double[columns * BatchedDecomposition.pad(count)];
+            myScalars = new double[columns * BatchedDecomposition.pad(count)];
+        }
+
+        @Override
+        void decompose(final double[] a, final int first, final double[] scratch) {
+
+            final int rows = this.getRowDim();
+            final int cols = this.getColDim();
+            final int base = first * rows * cols;
+            final double[] diagonal = myDiagonal;
+            final double[] scalars = myScalars;
+
+            for (int k = 0; k < cols; k++) {
+
+                final int kk = base + ((k + (k * rows)) * WIDTH);
+                final int dk = (first * cols) + (k * WIDTH);
+
+                // Norm of the column, from the diagonal down
+
+                for (int p = 0; p < WIDTH; p++) {
+                    scratch[p] = ZERO;
+                }
+                for (int i = k; i < rows; i++) {
+                    final int ik = base + ((i + (k * rows)) * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        scratch[p] += a[ik + p] * a[ik + p];
+                    }
+                }
+
+                // The Householder vector, v = x - alpha e1, overwrites the column
+
+                for (int p = 0; p < WIDTH; p++) {
+                    final double norm = SQRT.invoke(scratch[p]);
+                    final double head = a[kk + p];
+                    final double alpha = head > ZERO ? -norm : norm;
+                    final double squared = TWO * (scratch[p] - (head * alpha));
+                    diagonal[dk + p] = alpha;
+                    a[kk + p] = head - alpha;
+                    if (squared > ZERO) {
+                        scalars[dk + p] = TWO / squared;
+                    } else {
+                        scalars[dk + p] = ZERO;
+                    }
+                    if (alpha == ZERO) {
+                        this.fail(first + p);
+                    }
+                }
+
+                // Apply to the remaining columns
+
+                for (int j = k + 1; j < cols; j++) {
+                    this.reflect(a, k, first, a, base + (j * rows * WIDTH), scratch);
+                }
+            }
+        }
+
+        @Override
+        double[] prepare(final double[] rhs, final double[] solution) {
+            // Q<sup>T</sup> is applied to a copy of the right hand side, that is larger than the solution
+            if ((myWork == null) || (myWork.length != rhs.length)) {
+                myWork = new double[rhs.length];
+            }
+            System.arraycopy(rhs, 0, myWork, 0, rhs.length);
+            return myWork;
+        }
+
+        @Override
+        void solve(final double[] a, final double[] y, final double[] x, final int nbRHS, final int first, final double[] scratch) {
+
+            final int rows = this.getRowDim();
+            final int cols = this.getColDim();
+            final int base = first * rows * cols;
+            final double[] diagonal = myDiagonal;
+
+            for (int c = 0; c < nbRHS; c++) {
+                final int colY = (first * rows * nbRHS) + (c * rows * WIDTH);
+                final int colX = (first * cols * nbRHS) + (c * cols * WIDTH);
+
+                // Q<sup>T</sup> b
+                for (int k = 0; k < cols; k++) {
+                    this.reflect(a, k, first, y, colY, scratch);
+                }
+
+                // R x = (Q<sup>T</sup> b)
+                for (int i = cols - 1; i >= 0; i--) {
+                    final int yi = colY + (i * WIDTH);
+                    for (int k = i + 1; k < cols; k++) {
+                        final int ik = base + ((i + (k * rows)) * WIDTH);
+                        final int yk = colY + (k * WIDTH);
+                        for (int p = 0; p < WIDTH; p++) {
+                            y[yi + p] -= a[ik + p] * y[yk + p];
+                        }
+                    }
+                    final int di = (first * cols) + (i * WIDTH);
+                    for (int p = 0; p < WIDTH; p++) {
+                        y[yi + p] /= diagonal[di + p];
+                    }
+                }
+
+                System.arraycopy(y, colY, x, colX, cols * WIDTH);
+            }
+        }
+
+        /**
+         * Applies the k:th Householder reflection to a column (of rows elements, starting at offset) in
+         * target
+         */
+        private void reflect(final double[] a, final int k, final int first, final double[] target, final int offset,
+                final double[] scratch) {
+
+            final int rows = this.getRowDim();
+            final int base = (first * rows * this.getColDim()) + (k * rows * WIDTH);
+            final double[] scalars = myScalars;
+            final int dk = (first * this.getColDim()) + (k * WIDTH);
+
+            for (int p = 0; p < WIDTH; p++) {
+                scratch[p] = ZERO;
+            }
+            for (int i = k; i < rows; i++) {
+                final int ik = base + (i * WIDTH);
+                final int ti = offset + (i * WIDTH);
+                for (int p = 0; p < WIDTH; p++) {
+                    scratch[p] += a[ik + p] * target[ti + p];
+                }
+            }
+            for (int p = 0; p < WIDTH; p++) {
+                scratch[p] *= scalars[dk + p];
+            }
+            for (int i = k; i < rows; i++) {
+                final int ik = base + (i * WIDTH);
+                final int ti = offset + (i * WIDTH);
+                for (int p = 0; p < WIDTH; p++) {
+                    target[ti + p] -= scratch[p] * a[ik + p];
+                }
+            }
+        }
+
+    }
+
+    /**
+     * The number of problems interleaved in each group
+     */
+    public static final int WIDTH = 8;
+
+    /**
+     * Roughly the number of flops each (sequential) partition should do
+     */
+    private static final int GRANULARITY = 1 << 16;
+
+    /**
+     * @param dim The size of the (square, symmetric positive definite) matrices
+     * @param count The number of matrices
+     */
+    public static BatchedDecomposition cholesky(final int dim, final int count) {
+        return new CholeskyBatch(dim, count);
+    }
+
+    /**
+     * @param rows The number of rows in each matrix
+     * @param columns The number of columns in each matrix
+     * @param row The row index
+     * @param column The column index
+     * @param problem The problem (matrix) index
+     * @return The index of that element in the grouped layout
+     */
+    public static int index(final int rows, final int columns, final int row, final int column, final int problem) {
+        final int first = problem - (problem % WIDTH);
+        return (first * rows * columns) + ((row + (column * rows)) * WIDTH) + (problem - first);
+    }
+
+    /**
+     * @param dim The size of the (square) matrices
+     * @param count The number of matrices
+     */
+    public static BatchedDecomposition lu(final int dim, final int count) {
+        return new LUBatch(dim, count);
+    }
+
+    /**
+     * Copies the matrices, that must all have the same shape, to the grouped layout.
+     */
+    public static double[] pack(final Access2D<?>... matrices) {
+
+        final int count = matrices.length;
+        final int rows = count > 0 ? Math.toIntExact(matrices[0].countRows()) : 0;
+        final int cols = count > 0 ? Math.toIntExact(matrices[0].countColumns()) : 0;
+
+        final double[] retVal = new double[BatchedDecomposition.size(rows, cols, count)];
+
+        for (int p = 0; p < count; p++) {
+            final Access2D<?> matrix = matrices[p];
+            if ((matrix.countRows() != rows) || (matrix.countColumns() != cols)) {
+                throw new ProgrammingError("All matrices must have the same shape!");
+            }
+            for (int j = 0; j < cols; j++) {
+                for (int i = 0; i < rows; i++) {
+                    retVal[BatchedDecomposition.index(rows, cols, i, j, p)] = matrix.doubleValue(i, j);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @param rows The number of rows in each of the (tall or square) matrices
+     * @param columns The number of columns in each of the matrices
+     * @param count The number of matrices
+     */
+    public static BatchedDecomposition qr(final int rows, final int columns, final int count) {
+        if (rows < columns) {
+            throw new ProgrammingError("Only tall (or square) matrices!");
+        }
+        return new QRBatch(rows, columns, count);
+    }
+
+    /**
+     * @return The length of an array holding count rows x columns matrices in the grouped layout - the last
+     *         group is padded to {@link #WIDTH} problems.
+     */
+    public static int size(final int rows, final int columns, final int count) {
+        return rows * columns * BatchedDecomposition.pad(count);
+    }
+
+    /**
+     * The inverse of {@link #pack(Access2D[])}
+     */
+    public static Primitive64Store[] unpack(final double[] data, final int rows, final int columns, final int count) {
+
+        final Primitive64Store[] retVal = new Primitive64Store[count];
+
+        for (int p = 0; p < count; p++) {
+            final Primitive64Store matrix = Primitive64Store.FACTORY.make(rows, columns);
+            for (int j = 0; j < columns; j++) {
+                for (int i = 0; i < rows; i++) {
+                    matrix.set(i, j, data[BatchedDecomposition.index(rows, columns, i, j, p)]);
+                }
+            }
+            retVal[p] = matrix;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The number of problems rounded up to a multiple of {@link #WIDTH}
+     */
+    static int pad(final int count) {
+        return ((count + WIDTH - 1) / WIDTH) * WIDTH;
+    }
+
+    private final int myColDim;
+    private final int myCount;
+    private final double[] myFactors;
+    private final boolean[] myFailed;
+    private final int myRowDim;
+
+    BatchedDecomposition(final int rows, final int columns, final int count) {
+
+        super();
+
+        myRowDim = rows;
+        myColDim = columns;
+        myCount = count;
+
+        myFactors = new double[BatchedDecomposition.size(rows, columns, count)];
+        myFailed = new boolean[BatchedDecomposition.pad(count)];
+    }
+
+    public final int countColumns() {
+        return myColDim;
+    }
+
+    public final int countProblems() {
+        return myCount;
+    }
+
+    public final int countRows() {
+        return myRowDim;
+    }
+
+    /**
+     * Decomposes all the matrices. The input is copied, not modified.
+     *
+     * @param bodies The matrices in the grouped layout
+     * @return true if all the decompositions succeeded, and the matrices are solvable; false if at least one
+     *         of them is not - then check {@link #isSolvable(int)}
+     */
+    public final boolean decompose(final double[] bodies) {
+
+        if (bodies.length != myFactors.length) {
+            throw new ProgrammingError("Wrong number of elements!");
+        }
+
+        System.arraycopy(bodies, 0, myFactors, 0, myFactors.length);
+
+        for (int p = 0; p < myFailed.length; p++) {
+            myFailed[p] = false;
+        }
+
+        final double[] factors = myFactors;
+
+        this.execute(myColDim, (first, scratch) -> this.decompose(factors, first, scratch));
+
+        for (int p = 0; p < myCount; p++) {
+            if (myFailed[p]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the p:th matrix was successfully decomposed, and is solvable (nonsingular, positive
+     *         definite or of full column rank - depending on the decomposition)
+     */
+    public final boolean isSolvable(final int problem) {
+        return !myFailed[problem];
+    }
+
+    /**
+     * Solves [A][X]=[B] (in the least squares sense with QR) for all the problems. The results for problems
+     * that are not solvable are undefined.
+     *
+     * @param rhs The right hand sides, rows x k for each problem, in the grouped layout. Not modified.
+     * @param solution Where to write the solutions, columns x k for each problem, in the grouped layout. With
+     *        LU or Cholesky this may be the same array as rhs.
+     */
+    public final void solve(final double[] rhs, final double[] solution) {
+
+        final int sizeRHS = BatchedDecomposition.size(myRowDim, 1, myCount);
+
+        if (sizeRHS == 0) {
+            // No problems (or empty ones) - nothing to solve, and no way to tell the number of right hand sides
+            if ((rhs.length != 0) || (solution.length != 0)) {
+                throw new ProgrammingError("Wrong number of elements!");
+            }
+            return;
+        }
+
+        final int nbRHS = rhs.length / sizeRHS;
+
+        if ((rhs.length != BatchedDecomposition.size(myRowDim, nbRHS, myCount)) || (solution.length != BatchedDecomposition.size(myColDim, nbRHS, myCount))) {
+            throw new ProgrammingError("Wrong number of elements!");
+        }
+
+        final double[] work = this.prepare(rhs, solution);
+        final double[] factors = myFactors;
+
+        this.execute(nbRHS, (first, scratch) -> this.solve(factors, work, solution, nbRHS, first, scratch));
+    }
+
+    /**
+     * Decomposes, in place, the group of problems starting with problem first
+     */
+    abstract void decompose(double[] a, int first, double[] scratch);
+
+    final void fail(final int problem) {
+        myFailed[problem] = true;
+    }
+
+    final int getColDim() {
+        return myColDim;
+    }
+
+    final int getRowDim() {
+        return myRowDim;
+    }
+
+    /**
+     * Copies the right hand side to where the solve kernel will read it from (and returns that array). By
+     * default that's the solution array - the solution is calculated in place.
+     */
+    double[] prepare(final double[] rhs, final double[] solution) {
+        if (solution != rhs) {
+            System.arraycopy(rhs, 0, solution, 0, rhs.length);
+        }
+        return solution;
+    }
+
+    /**
+     * Solves, for the group of problems starting with problem first, reading the right hand side from y and
+     * writing the solution to x (that may be the same array).
+     */
+    abstract void solve(double[] a, double[] y, double[] x, int nbRHS, int first, double[] scratch);
+
+    private void execute(final int columns, final Conquer conquer) {
+
+        final int groups = BatchedDecomposition.pad(myCount) / WIDTH;
+
+        final long work = Math.max(1L, (long) WIDTH * myRowDim * myColDim * Math.max(1, columns));
+        final int threshold = (int) Math.max(1L, GRANULARITY / work);
+
+        if (groups > threshold) {
+            new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    BatchedDecomposition.execute(conquer, first, limit);
+                }
+
+            }.invoke(0, groups, threshold);
+        } else {
+            BatchedDecomposition.execute(conquer, 0, groups);
+        }
+    }
+
+    private static void execute(final Conquer conquer, final int firstGroup, final int limitGroup) {
+        final double[] scratch = new double[WIDTH];
+        for (int g = firstGroup; g < limitGroup; g++) {
+            conquer.conquer(g * WIDTH, scratch);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conquer {
+
+        void conquer(int first, double[] scratch);
+
+    }
+
+}
@@ -56,7 +56,9 @@ public interface Cholesky<N extends Comparable<N>> extends LDU<N>, MatrixDecompo
     Factory<ComplexNumber> COMPLEX = typical -> new CholeskyDecomposition.Complex();
 
     Factory<Double> PRIMITIVE = typical -> {
-        if ((32L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)) {
+        if ((512L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)) {
+            return new CholeskyDecomposition.Blocked();
+        } else if ((32L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)) {
             return new CholeskyDecomposition.Primitive();
         } else {
             return new RawCholesky();
@@ -25,6 +25,10 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.array.BasicArray;
+import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.array.operation.DOT;
+import org.ojalgo.array.operation.MultiplyBlocked;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.function.constant.PrimitiveMath;
@@ -36,12 +40,94 @@ import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
 import org.ojalgo.scalar.RationalNumber;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Access2D.Collectable;
 import org.ojalgo.structure.Structure2D;
 
 abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDecomposition<N> implements Cholesky<N> {
 
+    /**
+     * Right-looking blocked Cholesky decomposition. Panels of {@value #BLOCK} columns are decomposed column
+     * by column, and then the (lower part of the) trailing sub-matrix is updated with a matrix
+     * multiplication. That multiplication is where (almost) all the work is done, and it is cache-blocked and
+     * done in parallel.
+     */
+    static final class Blocked extends CholeskyDecomposition<Double> implements MatrixDecomposition.Updatable<Double> {
+
+        static final int BLOCK = 64;
+
+        Blocked() {
+            super(Primitive64Store.FACTORY);
+        }
+
+        @Override
+        boolean factorise(final DecompositionStore<Double> inPlace) {
+
+            final double[] data = ((Primitive64Store) inPlace).data;
+            final int structure = this.getRowDim();
+
+            for (int first = 0; first < structure; first += BLOCK) {
+                final int limit = Math.min(first + BLOCK, structure);
+
+                // The panel - column by column, but only updating the panel itself
+
+                for (int ij = first; ij < limit; ij++) {
+
+                    final int diagonal = ij + (ij * structure);
+
+                    if (!this.isPositive(data[diagonal])) {
+                        return false;
+                    }
+
+                    final double pivotValue = data[diagonal] = SQRT.invoke(data[diagonal]);
+
+                    for (int i = diagonal + 1, columnLimit = (ij + 1) * structure; i < columnLimit; i++) {
+                        data[i] /= pivotValue;
+                    }
+
+                    for (int j = ij + 1; j < limit; j++) {
+                        AXPY.invoke(data, j * structure, -data[j + (ij * structure)], data, ij * structure, j, structure);
+                    }
+                }
+
+                // The trailing sub-matrix - only the lower part
+
+                if (limit < structure) {
+
+                    final int panelFirst = first;
+                    final int panelLimit = limit;
+
+                    new DivideAndConquer() {
+
+                        @Override
+                        protected void conquer(final int firstColumn, final int columnLimit) {
+                            for (int blockFirst = firstColumn; blockFirst < columnLimit; blockFirst += BLOCK) {
+                                final int blockLimit = Math.min(blockFirst + BLOCK, columnLimit);
+
+                                for (int j = blockFirst; j < blockLimit; j++) {
+                                    for (int i = j; i < blockLimit; i++) {
+                                        double sum = ZERO;
+                                        for (int p = panelFirst; p < panelLimit; p++) {
+                                            sum += data[i + (p * structure)] * data[j + (p * structure)];
+                                        }
+                                        data[i + (j * structure)] -= sum;
+                                    }
+                                }
+
+                                MultiplyBlocked.subtract(data, structure, blockLimit, structure, blockFirst, blockLimit, panelFirst, panelLimit, true);
+                            }
+                        }
+
+                    }.invoke(limit, structure, BLOCK);
+                }
+            }
+
+            return true;
+        }
+
+    }
+
     static final class Complex extends CholeskyDecomposition<ComplexNumber> {
 
         Complex() {
@@ -50,7 +136,7 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
 
     }
 
-    static final class Primitive extends CholeskyDecomposition<Double> {
+    static final class Primitive extends CholeskyDecomposition<Double> implements MatrixDecomposition.Updatable<Double> {
 
         Primitive() {
             super(Primitive64Store.FACTORY);
@@ -74,8 +160,26 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
 
     }
 
+    /**
+     * Solves [A][x]=[b], in place, using the Cholesky decomposition [A]=[L][L]<sup>T</sup> stored column major
+     * in data.
+     */
+    static void solve(final double[] data, final int dim, final double[] vector) {
+
+        for (int j = 0; j < dim; j++) {
+            vector[j] /= data[j + (j * dim)];
+            AXPY.invoke(vector, 0, -vector[j], data, j * dim, j + 1, dim);
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            vector[j] = (vector[j] - DOT.invoke(data, j * dim, vector, 0, j + 1, dim)) / data[j + (j * dim)];
+        }
+    }
+
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
     private double myMaxDiag = ONE;
     private double myMinDiag = ZERO;
+    private double myNorm = NaN;
     private boolean mySPD = false;
 
     protected CholeskyDecomposition(final DecompositionStore.Factory<N, ? extends DecompositionStore<N>> aFactory) {
@@ -111,6 +215,31 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
         return this.compute(aStore, false);
     }
 
+    /**
+     * Rank-1 downdates of [L], one column of [V] at the time.
+     */
+    public boolean downdate(final Access2D<?> vectors) {
+        if (!mySPD) {
+            return this.updated(false);
+        }
+        return this.modified(CholeskyUpdate.modify(this.getInPlace(), vectors, NEG));
+    }
+
+    @Override
+    public double estimateCondition() {
+
+        if (!this.isComputed() || !mySPD || Double.isNaN(myNorm)) {
+            return NaN;
+        }
+
+        final double[] data = ((Primitive64Store) this.getInPlace()).data;
+        final int dim = this.getRowDim();
+
+        final ConditionEstimator.Substitution solve = (vector, work) -> CholeskyDecomposition.solve(data, dim, vector);
+
+        return myNorm * myEstimator.estimate(dim, solve, solve);
+    }
+
     public N getDeterminant() {
 
         final AggregatorFunction<N> tmpAggrFunc = this.aggregator().product2();
@@ -226,6 +355,26 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
         mySPD = false;
     }
 
+    /**
+     * Rank-1 updates of [L], one column of [V] at the time.
+     */
+    public boolean update(final Access2D<?> vectors) {
+        if (!mySPD) {
+            return this.updated(false);
+        }
+        return this.modified(CholeskyUpdate.modify(this.getInPlace(), vectors, ONE));
+    }
+
+    /**
+     * Replaces both row and column index.
+     */
+    public boolean updateColumn(final int index, final Access1D<?> column) {
+        if (!mySPD) {
+            return this.updated(false);
+        }
+        return this.modified(CholeskyUpdate.replace(this.getInPlace(), index, column));
+    }
+
     public MatrixStore<N> solve(final Access2D<?> body, final Access2D<?> rhs) throws RecoverableCondition {
 
         this.decompose(this.wrap(body));
@@ -250,7 +399,7 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
 
     @Override
     protected boolean checkSolvability() {
-        return mySPD && (myMinDiag > this.getRankThreshold());
+        return mySPD && (myMinDiag > this.getRankThreshold()) && ConditionEstimator.isAcceptable(this.estimateCondition());
     }
 
     final boolean compute(final Access2D.Collectable<N, ? super PhysicalStore<N>> matrix, final boolean checkHermitian) {
@@ -259,41 +408,54 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
 
         final DecompositionStore<N> tmpInPlace = this.setInPlace(matrix);
 
-        final int tmpRowDim = this.getRowDim();
-        final int tmpColDim = this.getColDim();
-        final int tmpMinDim = Math.min(tmpRowDim, tmpColDim);
-
         // true if (Hermitian) Positive Definite
-        boolean tmpPositiveDefinite = tmpRowDim == tmpColDim;
+        boolean tmpPositiveDefinite = this.getRowDim() == this.getColDim();
+        myNorm = tmpPositiveDefinite && (tmpInPlace instanceof Primitive64Store) ? ConditionEstimator.norm1Lower(tmpInPlace) : NaN;
         myMaxDiag = MACHINE_SMALLEST;
         myMinDiag = MACHINE_LARGEST;
 
-        final BasicArray<N> tmpMultipliers = this.makeArray(tmpRowDim);
-
         // Check if hermitian, maybe
         if (tmpPositiveDefinite && checkHermitian) {
             tmpPositiveDefinite &= MatrixUtils.isHermitian(tmpInPlace);
         }
 
+        if (tmpPositiveDefinite) {
+            tmpPositiveDefinite = this.factorise(tmpInPlace);
+        }
+
+        return this.computed(mySPD = tmpPositiveDefinite);
+    }
+
+    /**
+     * Column by column, rank-1 updates of the remaining sub-matrix.
+     *
+     * @return true if the matrix was found to be positive definite
+     */
+    boolean factorise(final DecompositionStore<N> inPlace) {
+
+        final int tmpMinDim = this.getMinDim();
+
+        // true if (Hermitian) Positive Definite
+        boolean tmpPositiveDefinite = true;
+
+        final BasicArray<N> tmpMultipliers = this.getWorkArray(this.getRowDim());
+
         final UnaryFunction<N> tmpSqrtFunc = this.function().sqrt();
 
         // Main loop - along the diagonal
         for (int ij = 0; tmpPositiveDefinite && (ij < tmpMinDim); ij++) {
 
             // Do the calculations...
-            final double tmpVal = tmpInPlace.doubleValue(ij, ij);
-            myMaxDiag = PrimitiveMath.MAX.invoke(myMaxDiag, tmpVal);
-            myMinDiag = PrimitiveMath.MIN.invoke(myMinDiag, tmpVal);
-            if (tmpVal > PrimitiveMath.ZERO) {
+            if (this.isPositive(inPlace.doubleValue(ij, ij))) {
 
-                tmpInPlace.modifyOne(ij, ij, tmpSqrtFunc);
+                inPlace.modifyOne(ij, ij, tmpSqrtFunc);
 
                 // Calculate multipliers and copy to local column
                 // Current column, below the diagonal
-                tmpInPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
+                inPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
 
                 // Remaining columns, below the diagonal
-                tmpInPlace.applyCholesky(ij, tmpMultipliers);
+                inPlace.applyCholesky(ij, tmpMultipliers);
 
             } else {
 
@@ -301,7 +463,39 @@ abstract class CholeskyDecomposition<N extends Comparable<N>> extends InPlaceDec
             }
         }
 
-        return this.computed(mySPD = tmpPositiveDefinite);
+        return tmpPositiveDefinite;
+    }
+
+    /**
+     * Recalculates the largest and smallest diagonal elements after [L] has been modified.
+     */
+    private boolean modified(final boolean positiveDefinite) {
+
+        final DecompositionStore<N> inPlace = this.getInPlace();
+
+        myNorm = NaN;
+        myMaxDiag = MACHINE_SMALLEST;
+        myMinDiag = MACHINE_LARGEST;
+
+        if (positiveDefinite) {
+            for (int ij = 0, limit = this.getMinDim(); ij < limit; ij++) {
+                final double value = inPlace.doubleValue(ij, ij);
+                this.isPositive(value * value);
+            }
+        }
+
+        return this.updated(mySPD = positiveDefinite);
+    }
+
+    /**
+     * Keeps track of the largest and smallest diagonal elements, and checks that they are positive.
+     *
+     * @param diagonal The next diagonal element, before taking the square root
+     */
+    final boolean isPositive(final double diagonal) {
+        myMaxDiag = PrimitiveMath.MAX.invoke(myMaxDiag, diagonal);
+        myMinDiag = PrimitiveMath.MIN.invoke(myMinDiag, diagonal);
+        return diagonal > PrimitiveMath.ZERO;
     }
 
 }
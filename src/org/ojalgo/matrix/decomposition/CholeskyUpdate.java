@@ -0,0 +1,141 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * Modifies the [L] of an (in-place) Cholesky decomposition, [A] = [L][L]<sup>T</sup>, in O(n<sup>2</sup>)
+ * operations. Only the lower triangular part, including the diagonal, is read or written.
+ *
+ * @author apete
+ */
+abstract class CholeskyUpdate {
+
+    /**
+     * @param sign +1 to update, -1 to downdate
+     * @return false if the modified matrix is not positive definite
+     */
+    static boolean modify(final PhysicalStore<?> decomposition, final Access2D<?> vectors, final double sign) {
+
+        final int dim = (int) decomposition.countRows();
+        final double[] vector = new double[dim];
+
+        boolean retVal = true;
+
+        for (long j = 0L, limit = vectors.countColumns(); retVal && (j < limit); j++) {
+            for (int i = 0; i < dim; i++) {
+                vector[i] = vectors.doubleValue(i, j);
+            }
+            retVal = CholeskyUpdate.modify(decomposition, 0, vector, sign);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Replace row and column index of [A]. The part of [L] before index is left as is. Row index of [L] is
+     * recalculated using forward substitution, column index (below the diagonal) from the new column, and the
+     * trailing part of [L] then needs a rank-1 update with the old column and a rank-1 downdate with the new.
+     *
+     * @return false if the modified matrix is not positive definite
+     */
+    static boolean replace(final PhysicalStore<?> decomposition, final int index, final Access1D<?> column) {
+
+        final int dim = (int) decomposition.countRows();
+
+        final double[] row = new double[index];
+        double diagonal = column.doubleValue(index);
+        for (int k = 0; k < index; k++) {
+            double value = column.doubleValue(k);
+            for (int p = 0; p < k; p++) {
+                value -= decomposition.doubleValue(k, p) * row[p];
+            }
+            row[k] = value /= decomposition.doubleValue(k, k);
+            diagonal -= value * value;
+        }
+
+        if (!(diagonal > ZERO)) {
+            return false;
+        }
+        diagonal = SQRT.invoke(diagonal);
+
+        final double[] oldColumn = new double[dim];
+        final double[] newColumn = new double[dim];
+        for (int i = index + 1; i < dim; i++) {
+            double value = column.doubleValue(i);
+            for (int p = 0; p < index; p++) {
+                value -= decomposition.doubleValue(i, p) * row[p];
+            }
+            newColumn[i] = value / diagonal;
+            oldColumn[i] = decomposition.doubleValue(i, index);
+        }
+
+        for (int k = 0; k < index; k++) {
+            decomposition.set(index, k, row[k]);
+        }
+        decomposition.set(index, index, diagonal);
+        for (int i = index + 1; i < dim; i++) {
+            decomposition.set(i, index, newColumn[i]);
+        }
+
+        return CholeskyUpdate.modify(decomposition, index + 1, oldColumn, ONE) && CholeskyUpdate.modify(decomposition, index + 1, newColumn, NEG);
+    }
+
+    /**
+     * Rank-1 modification of the trailing part, from first, of [L]. The vector is used as work space.
+     */
+    private static boolean modify(final PhysicalStore<?> decomposition, final int first, final double[] vector, final double sign) {
+
+        final int dim = vector.length;
+
+        for (int k = first; k < dim; k++) {
+
+            final double current = decomposition.doubleValue(k, k);
+            final double element = vector[k];
+
+            final double squared = (current * current) + (sign * element * element);
+            if (!(squared > ZERO)) {
+                return false;
+            }
+
+            final double updated = SQRT.invoke(squared);
+            final double cos = updated / current;
+            final double sin = element / current;
+
+            decomposition.set(k, k, updated);
+
+            for (int i = k + 1; i < dim; i++) {
+                final double value = (decomposition.doubleValue(i, k) + (sign * sin * vector[i])) / cos;
+                decomposition.set(i, k, value);
+                vector[i] = (cos * vector[i]) - (sin * value);
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.structure.Access2D;
+
+/**
+ * Estimates the 1-norm of the inverse of a square matrix, using Hager's algorithm as refined by Higham (the
+ * same as LAPACK's xLACN2), given only the ability to solve equation systems with the matrix and its
+ * transpose. The inverse is never formed. Each estimate typically requires 4 or 5 solves - O(n<sup>2</sup>)
+ * when the matrix is already decomposed.
+ * <p>
+ * The estimate is a lower bound, and is very rarely more than a factor 3 too small. Multiplied by the 1-norm
+ * of the matrix itself it is an estimate of the (1-norm) condition number.
+ * <p>
+ * The work arrays are kept and re-used, and {@link #estimate(int, Substitution, Substitution)} is synchronized,
+ * so an instance may be shared - concurrent estimates are done one at a time.
+ *
+ * @author apete
+ */
+public final class ConditionEstimator {
+
+    /**
+     * Solves, in place, an equation system with the (decomposed) matrix, or its transpose, as the body
+     */
+    @FunctionalInterface
+    public interface Substitution {
+
+        /**
+         * @param vector The right hand side, overwritten with the solution
+         * @param work An array, of the same length, that may be used for intermediate results
+         */
+        void solve(double[] vector, double[] work);
+
+    }
+
+    /**
+     * Hager/Higham gives up after this many iterations (pairs of solves)
+     */
+    private static final int ITERATIONS = 5;
+
+    /**
+     * A condition number estimate larger than this means the matrix is singular to working precision - a
+     * solution would have no correct digits at all. The same as LAPACK's xGESVX test, RCOND &lt; xLAMCH('E'),
+     * where the epsilon is the unit roundoff (half of {@link org.ojalgo.function.constant.PrimitiveMath#MACHINE_EPSILON}).
+     * The primitive LU, Cholesky and QR decompositions do not report isSolvable() above this limit.
+     */
+    public static final double LIMIT = TWO / MACHINE_EPSILON;
+
+    /**
+     * @return true unless the condition is known to be larger than {@link #LIMIT} (NaN, unknown, is acceptable)
+     */
+    public static boolean isAcceptable(final double condition) {
+        return !(condition > LIMIT);
+    }
+
+    /**
+     * @return The 1-norm (largest absolute column sum) of a column major matrix
+     */
+    static double norm1(final double[] data, final int structure, final int numberOfColumns) {
+        double retVal = ZERO;
+        for (int j = 0; j < numberOfColumns; j++) {
+            double sum = ZERO;
+            for (int i = 0, base = j * structure; i < structure; i++) {
+                sum += Math.abs(data[base + i]);
+            }
+            retVal = Math.max(retVal, sum);
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The 1-norm (largest absolute column sum) of any matrix
+     */
+    public static double norm1(final Access2D<?> matrix) {
+        double retVal = ZERO;
+        for (long j = 0L, nbCols = matrix.countColumns(), nbRows = matrix.countRows(); j < nbCols; j++) {
+            double sum = ZERO;
+            for (long i = 0L; i < nbRows; i++) {
+                sum += Math.abs(matrix.doubleValue(i, j));
+            }
+            retVal = Math.max(retVal, sum);
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The 1-norm of a symmetric matrix, only reading its lower triangular part
+     */
+    static double norm1Lower(final Access2D<?> matrix) {
+        double retVal = ZERO;
+        for (long j = 0L, dim = matrix.countRows(); j < dim; j++) {
+            double sum = ZERO;
+            for (long i = 0L; i < j; i++) {
+                sum += Math.abs(matrix.doubleValue(j, i));
+            }
+            for (long i = j; i < dim; i++) {
+                sum += Math.abs(matrix.doubleValue(i, j));
+            }
+            retVal = Math.max(retVal, sum);
+        }
+        return retVal;
+    }
+
+    private static int indexOfLargest(final double[] vector, final int dim) {
+        int retVal = 0;
+        double largest = Math.abs(vector[0]);
+        for (int i = 1; i < dim; i++) {
+            final double value = Math.abs(vector[i]);
+            if (value > largest) {
+                largest = value;
+                retVal = i;
+            }
+        }
+        return retVal;
+    }
+
+    private static double sum(final double[] vector, final int dim) {
+        double retVal = ZERO;
+        for (int i = 0; i < dim; i++) {
+            retVal += Math.abs(vector[i]);
+        }
+        return retVal;
+    }
+
+    private double[] mySigns = null;
+    private double[] myVector = null;
+    private double[] myWork = null;
+
+    public ConditionEstimator() {
+        super();
+    }
+
+    /**
+     * @param dim The number of rows/columns of the (square) matrix
+     * @param solve Solves [A][x]=[b]
+     * @param solveTransposed Solves [A]<sup>T</sup>[x]=[b] (the same as solve if [A] is symmetric)
+     * @return An estimate of the 1-norm of [A]<sup>-1</sup>
+     */
+    public synchronized double estimate(final int dim, final Substitution solve, final Substitution solveTransposed) {
+
+        if (dim == 0) {
+            return ZERO;
+        }
+
+        if ((myVector == null) || (myVector.length != dim)) {
+            mySigns = new double[dim];
+            myVector = new double[dim];
+            myWork = new double[dim];
+        }
+
+        final double[] signs = mySigns;
+        final double[] vector = myVector;
+        final double[] work = myWork;
+
+        for (int i = 0; i < dim; i++) {
+            vector[i] = ONE / dim;
+        }
+        solve.solve(vector, work);
+
+        if (dim == 1) {
+            return Double.isNaN(vector[0]) ? POSITIVE_INFINITY : Math.abs(vector[0]);
+        }
+
+        double estimate = ConditionEstimator.sum(vector, dim);
+
+        for (int i = 0; i < dim; i++) {
+            signs[i] = vector[i] >= ZERO ? ONE : NEG;
+            vector[i] = signs[i];
+        }
+        solveTransposed.solve(vector, work);
+        int index = ConditionEstimator.indexOfLargest(vector, dim);
+
+        for (int iteration = 2; iteration <= ITERATIONS; iteration++) {
+
+            for (int i = 0; i < dim; i++) {
+                vector[i] = ZERO;
+            }
+            vector[index] = ONE;
+            solve.solve(vector, work);
+
+            final double previous = estimate;
+            estimate = ConditionEstimator.sum(vector, dim);
+
+            boolean repeated = true;
+            for (int i = 0; i < dim; i++) {
+                final double sign = vector[i] >= ZERO ? ONE : NEG;
+                repeated &= sign == signs[i];
+                signs[i] = sign;
+            }
+
+            if (repeated || (estimate <= previous)) {
+                estimate = Math.max(estimate, previous);
+                break;
+            }
+
+            System.arraycopy(signs, 0, vector, 0, dim);
+            solveTransposed.solve(vector, work);
+
+            final int previousIndex = index;
+            index = ConditionEstimator.indexOfLargest(vector, dim);
+            if (Math.abs(vector[previousIndex]) == Math.abs(vector[index])) {
+                break;
+            }
+        }
+
+        // Higham's alternative, alternating sign, vector - guards against the special cases where the above fails badly
+
+        for (int i = 0; i < dim; i++) {
+            final double value = ONE + ((double) i / (dim - 1));
+            vector[i] = (i % 2) == 0 ? value : -value;
+        }
+        solve.solve(vector, work);
+
+        final double alternative = (TWO * ConditionEstimator.sum(vector, dim)) / (THREE * dim);
+
+        // NaN means there was a division by zero - the matrix is singular
+        return Double.isNaN(estimate) || Double.isNaN(alternative) ? POSITIVE_INFINITY : Math.max(estimate, alternative);
+    }
+
+}
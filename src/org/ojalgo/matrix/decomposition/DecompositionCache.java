@@ -0,0 +1,319 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.ojalgo.machine.JavaType;
+import org.ojalgo.machine.MemoryEstimator;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * A bounded cache of computed decompositions, keyed by the content of the decomposed matrices. Decomposing a
+ * matrix that is equal, element by element, to one decomposed earlier returns the already computed
+ * decomposition.
+ * <p>
+ * The lookup key is the dimensions and a 64-bit fingerprint of all elements. A copy of each decomposed
+ * matrix is kept with its decomposition, and on a fingerprint match the elements are compared exactly before
+ * the cached decomposition is returned - a fingerprint collision is a miss. Both are O(m*n), compared to the
+ * O(m*n*n) of (re)calculating the decomposition.
+ * <p>
+ * The size of each cached decomposition is estimated, using {@link MemoryEstimator}, as that of two copies of
+ * the matrix (the decomposition and the copy kept for comparison). When the total exceeds the capacity the
+ * least recently used decompositions are evicted. Decompositions larger than the capacity are never cached.
+ * <p>
+ * The cached decompositions are shared - use them read only (get solutions, but don't decompose other
+ * matrices with them). The cache itself is thread safe, but the decompositions are not: the same instance may
+ * be returned to several threads, and solving with it (or getting its factors, that may be calculated lazily)
+ * concurrently is not safe. Use a cache per thread, or synchronise on the returned decomposition.
+ *
+ * @author apete
+ */
+public final class DecompositionCache<N extends Comparable<N>, D extends MatrixDecomposition<N>> {
+
+    static final class Key {
+
+        private final long myColumns;
+        private final long myFingerprint;
+        private final long myRows;
+
+        Key(final Access2D<?> matrix) {
+            super();
+            myRows = matrix.countRows();
+            myColumns = matrix.countColumns();
+            myFingerprint = DecompositionCache.fingerprint(matrix);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return (myRows == other.myRows) && (myColumns == other.myColumns) && (myFingerprint == other.myFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(myFingerprint);
+        }
+
+    }
+
+    private static final class Entry<N extends Comparable<N>, D> {
+
+        final long bytes;
+        final D decomposition;
+        final MatrixStore<N> matrix;
+
+        Entry(final MatrixStore<N> matrix, final D decomposition, final long bytes) {
+            super();
+            this.matrix = matrix;
+            this.decomposition = decomposition;
+            this.bytes = bytes;
+        }
+
+    }
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The estimated size of one copy of the matrix
+     */
+    static long estimate(final Access2D<?> matrix) {
+
+        final long count = matrix.count();
+
+        if ((count == 0L) || (matrix.get(0L) instanceof Double)) {
+            return MemoryEstimator.estimateArray(double.class, 0) + (count * JavaType.DOUBLE.memory());
+        } else {
+            final long element = JavaType.REFERENCE.memory() + MemoryEstimator.estimateObject(matrix.get(0L).getClass());
+            return MemoryEstimator.estimateArray(Object.class, 0) + (count * element);
+        }
+    }
+
+    /**
+     * Exact, element by element, comparison. Primitive elements are compared using their bit patterns, other
+     * number types using equals().
+     */
+    static boolean isSame(final Access2D<?> cached, final Access2D<?> matrix) {
+
+        final long nbRows = matrix.countRows();
+        final long nbCols = matrix.countColumns();
+
+        if ((cached.countRows() != nbRows) || (cached.countColumns() != nbCols)) {
+            return false;
+        }
+
+        final boolean primitive = (matrix.count() == 0L) || (matrix.get(0L) instanceof Double);
+
+        for (long j = 0L; j < nbCols; j++) {
+            for (long i = 0L; i < nbRows; i++) {
+                if (primitive) {
+                    if (Double.doubleToLongBits(cached.doubleValue(i, j)) != Double.doubleToLongBits(matrix.doubleValue(i, j))) {
+                        return false;
+                    }
+                } else if (!cached.get(i, j).equals(matrix.get(i, j))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * A 64-bit hash of all the elements (and their positions). Primitive elements are hashed using their
+     * bit patterns, other number types using their hashCode().
+     */
+    static long fingerprint(final Access2D<?> matrix) {
+
+        final long nbRows = matrix.countRows();
+        final long nbCols = matrix.countColumns();
+
+        final boolean primitive = (matrix.count() == 0L) || (matrix.get(0L) instanceof Double);
+
+        long retVal = DecompositionCache.mix((nbRows * GOLDEN) + nbCols);
+
+        for (long j = 0L; j < nbCols; j++) {
+            for (long i = 0L; i < nbRows; i++) {
+                final long bits = primitive ? Double.doubleToLongBits(matrix.doubleValue(i, j)) : matrix.get(i, j).hashCode();
+                retVal = (retVal * GOLDEN) + DecompositionCache.mix(bits + i + (j * nbRows));
+            }
+        }
+
+        return DecompositionCache.mix(retVal);
+    }
+
+    /**
+     * The SplitMix64 finaliser
+     */
+    private static long mix(final long value) {
+        long retVal = value;
+        retVal = (retVal ^ (retVal >>> 30)) * 0xBF58476D1CE4E5B9L;
+        retVal = (retVal ^ (retVal >>> 27)) * 0x94D049BB133111EBL;
+        return retVal ^ (retVal >>> 31);
+    }
+
+    private long myBytes = 0L;
+    private final long myCapacity;
+    private final LinkedHashMap<Key, Entry<N, D>> myEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long myEvictions = 0L;
+    private final MatrixDecomposition.Factory<D> myFactory;
+    private long myHits = 0L;
+    private long myMisses = 0L;
+
+    /**
+     * @param factory Creates the decompositions
+     * @param capacity The (estimated) maximum number of bytes of all cached decompositions
+     */
+    public DecompositionCache(final MatrixDecomposition.Factory<D> factory, final long capacity) {
+        super();
+        myFactory = factory;
+        myCapacity = capacity;
+    }
+
+    /**
+     * Removes all cached decompositions. The hit/miss/eviction counters are not reset.
+     */
+    public synchronized void clear() {
+        myEntries.clear();
+        myBytes = 0L;
+    }
+
+    /**
+     * @return The estimated number of bytes of all cached decompositions
+     */
+    public synchronized long countBytes() {
+        return myBytes;
+    }
+
+    /**
+     * @return The number of cached decompositions
+     */
+    public synchronized int countEntries() {
+        return myEntries.size();
+    }
+
+    /**
+     * @return The number of decompositions evicted to make room for others
+     */
+    public synchronized long countEvictions() {
+        return myEvictions;
+    }
+
+    /**
+     * @return The number of times an already computed decomposition was returned
+     */
+    public synchronized long countHits() {
+        return myHits;
+    }
+
+    /**
+     * @return The number of times a decomposition had to be computed
+     */
+    public synchronized long countMisses() {
+        return myMisses;
+    }
+
+    /**
+     * @return A decomposition of the matrix - a cached one, or a new one (that is then cached)
+     */
+    public D decompose(final MatrixStore<N> matrix) {
+
+        final Key key = new Key(matrix);
+
+        final Entry<N, D> entry;
+        synchronized (this) {
+            entry = myEntries.get(key);
+        }
+
+        // The cached matrix copy is never modified, so it can be compared without holding the lock
+        final boolean hit = (entry != null) && DecompositionCache.isSame(entry.matrix, matrix);
+
+        synchronized (this) {
+            if (hit) {
+                myHits++;
+                return entry.decomposition;
+            }
+            myMisses++;
+        }
+
+        // Decompose without holding the lock - some other thread may do the same matrix simultaneously
+        final D retVal = myFactory.make(matrix);
+        retVal.decompose(matrix);
+
+        this.put(key, matrix.copy(), retVal, 2L * DecompositionCache.estimate(matrix));
+
+        return retVal;
+    }
+
+    /**
+     * @return The hit ratio, or 0.0 if nothing has been looked up yet
+     */
+    public synchronized double getHitRatio() {
+        final long total = myHits + myMisses;
+        return total > 0L ? (double) myHits / (double) total : 0.0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DecompositionCache [entries=" + myEntries.size() + ", bytes=" + myBytes + "/" + myCapacity + ", hits=" + myHits + ", misses=" + myMisses
+                + ", evictions=" + myEvictions + "]";
+    }
+
+    private synchronized void put(final Key key, final MatrixStore<N> matrix, final D decomposition, final long bytes) {
+
+        if (bytes > myCapacity) {
+            return;
+        }
+
+        final Entry<N, D> existing = myEntries.get(key);
+        if (existing != null) {
+            if (DecompositionCache.isSame(existing.matrix, matrix)) {
+                // Some other thread did the same matrix simultaneously
+                return;
+            }
+            // A fingerprint collision - the most recent matrix replaces the other
+            myEntries.remove(key);
+            myBytes -= existing.bytes;
+        }
+
+        myEntries.put(key, new Entry<>(matrix, decomposition, bytes));
+        myBytes += bytes;
+
+        final Iterator<Map.Entry<Key, Entry<N, D>>> iterator = myEntries.entrySet().iterator();
+        while ((myBytes > myCapacity) && iterator.hasNext()) {
+            final Entry<N, D> eldest = iterator.next().getValue();
+            iterator.remove();
+            myBytes -= eldest.bytes;
+            myEvictions++;
+        }
+    }
+
+}
@@ -26,6 +26,7 @@ import java.util.Optional;
 import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.DenseArray;
+import org.ojalgo.concurrent.ExecutionContext;
 import org.ojalgo.matrix.MatrixUtils;
 import org.ojalgo.matrix.store.GenericStore;
 import org.ojalgo.matrix.store.MatrixStore;
@@ -255,7 +256,8 @@ public interface Eigenvalue<N extends Comparable<N>>
                 if ((8192L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)) {
                     return new HermitianEvD.Primitive();
                 } else {
-                    return new RawEigenvalue.Symmetric();
+                    // Divide-and-conquer only pays off when the merges can be done in parallel
+                    return new RawEigenvalue.Symmetric((256L < typical.countColumns()) && (ExecutionContext.current().getParallelism() > 1));
                 }
             } else {
                 if ((8192L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)) {
@@ -328,6 +330,34 @@ public interface Eigenvalue<N extends Comparable<N>>
         return Access2D.equals(tmpStore1, tmpStore2, context);
     }
 
+    /**
+     * Lanczos iteration for the numberOfEigenvalues largest (in magnitude) eigenvalues, and corresponding
+     * eigenvectors, of symmetric matrices. The matrix only needs to support multiplication, so it may be
+     * sparse. Non-symmetric matrices are fully decomposed using {@link #PRIMITIVE}.
+     *
+     * @param numberOfEigenvalues The number of eigenvalues/vectors to calculate
+     */
+    static Eigenvalue.Factory<Double> lanczos(final int numberOfEigenvalues) {
+        return new Factory<Double>() {
+
+            @Override
+            public Eigenvalue<Double> make(final Structure2D typical, final boolean hermitian) {
+                return hermitian ? new LanczosEvD(numberOfEigenvalues) : PRIMITIVE.make(typical, hermitian);
+            }
+
+            @Override
+            public Eigenvalue.Generalised<Double> makeGeneralised(final Structure2D typical, final Eigenvalue.Generalisation type) {
+
+                PhysicalStore.Factory<Double, Primitive64Store> factory = Primitive64Store.FACTORY;
+                Cholesky<Double> cholesky = Cholesky.PRIMITIVE.make(typical);
+                Eigenvalue<Double> eigenvalue = this.make(typical, true);
+
+                return new GeneralisedEvD<>(factory, cholesky, eigenvalue, type);
+            }
+
+        };
+    }
+
     /**
      * @deprecated v48 Use {link #COMPLEX}, {@link #PRIMITIVE}. {@link #QUATERNION} or {@link #RATIONAL}
      *             innstead.
@@ -47,10 +47,11 @@ abstract class EigenvalueDecomposition<N extends Comparable<N>> extends GenericD
             for (int j = i + 1; j < size; j++) {
                 if (Math.abs(d[j]) > p) {
                     k = j;
-                    p = d[j];
+                    p = Math.abs(d[j]);
                 }
             }
             if (k != i) {
+                p = d[k];
                 d[k] = d[i];
                 d[i] = p;
                 mtrxV.exchangeColumns(i, k);
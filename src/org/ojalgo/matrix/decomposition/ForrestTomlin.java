@@ -0,0 +1,272 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * Forrest-Tomlin column replacement of an LU decomposition, [P][A] = [L][U].
+ * <p>
+ * [L] is never modified. Replacing column j of [A] replaces column j of [U] by a "spike" - the new column
+ * transformed by [L]<sup>-1</sup> and all previous updates. Moving row and column j last in the (symmetric)
+ * triangular ordering of [U] leaves only row j out of place. Its entries are eliminated using the rows
+ * above, and the multipliers are stored as a row eta transformation [E] that is applied to any right hand
+ * side after [L]. After k updates [P][A] = [L][E<sub>1</sub>]<sup>-1</sup>...[E<sub>k</sub>]<sup>-1</sup>[U]
+ * where [U] is triangular in the maintained order.
+ *
+ * @author apete
+ */
+final class ForrestTomlin {
+
+    static final class Eta {
+
+        final double[] multipliers;
+        final int row;
+
+        Eta(final int row, final double[] multipliers) {
+            super();
+            this.row = row;
+            this.multipliers = multipliers;
+        }
+
+        void apply(final double[] vector) {
+            final double[] tmpMultipliers = multipliers;
+            double sum = ZERO;
+            for (int k = 0; k < tmpMultipliers.length; k++) {
+                sum += tmpMultipliers[k] * vector[k];
+            }
+            vector[row] -= sum;
+        }
+
+    }
+
+    private final int myDim;
+    private final List<Eta> myEtas = new ArrayList<>();
+    private final Access2D<?> myLower;
+    private final int[] myPivotOrder;
+    private final int[] myPositions;
+    private final int[] mySequence;
+    private final Primitive64Store myUpper;
+
+    /**
+     * @param decomposition The in-place (square) LU decomposition - L below and U on/above the diagonal
+     * @param pivotOrder The row pivot order
+     */
+    ForrestTomlin(final Access2D<?> decomposition, final int[] pivotOrder) {
+
+        super();
+
+        myDim = (int) decomposition.countRows();
+        myLower = decomposition;
+        myPivotOrder = pivotOrder.clone();
+
+        myUpper = Primitive64Store.FACTORY.make(myDim, myDim);
+        for (int j = 0; j < myDim; j++) {
+            for (int i = 0; i <= j; i++) {
+                myUpper.set(i, j, decomposition.doubleValue(i, j));
+            }
+        }
+
+        mySequence = new int[myDim];
+        myPositions = new int[myDim];
+        for (int i = 0; i < myDim; i++) {
+            mySequence[i] = i;
+            myPositions[i] = i;
+        }
+    }
+
+    int countSignificant(final double threshold) {
+        int significant = 0;
+        for (int ij = 0; ij < myDim; ij++) {
+            if (Math.abs(myUpper.doubleValue(ij, ij)) > threshold) {
+                significant++;
+            }
+        }
+        return significant;
+    }
+
+    /**
+     * @return The product of the diagonal elements of [U]. The row etas all have unit determinant, and the
+     *         symmetric reordering does not change the sign.
+     */
+    double getDiagonalProduct() {
+        double retVal = ONE;
+        for (int ij = 0; ij < myDim; ij++) {
+            retVal *= myUpper.doubleValue(ij, ij);
+        }
+        return retVal;
+    }
+
+    /**
+     * @return [L][E<sub>1</sub>]<sup>-1</sup>...[E<sub>k</sub>]<sup>-1</sup> - only triangular in the
+     *         maintained order.
+     */
+    MatrixStore<Double> getL() {
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(myDim, myDim);
+        for (int j = 0; j < myDim; j++) {
+            retVal.set(j, j, ONE);
+            for (int i = j + 1; i < myDim; i++) {
+                retVal.set(i, j, myLower.doubleValue(i, j));
+            }
+        }
+
+        // [E]<sup>-1</sup> = [I] + [e<sub>r</sub>][m]<sup>T</sup>
+        for (final Eta eta : myEtas) {
+            for (int k = 0; k < myDim; k++) {
+                final double multiplier = eta.multipliers[k];
+                if (multiplier != ZERO) {
+                    for (int i = 0; i < myDim; i++) {
+                        retVal.add(i, k, multiplier * retVal.doubleValue(i, eta.row));
+                    }
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    double getLargestDiagonal() {
+        double retVal = ZERO;
+        for (int ij = 0; ij < myDim; ij++) {
+            retVal = Math.max(retVal, Math.abs(myUpper.doubleValue(ij, ij)));
+        }
+        return retVal;
+    }
+
+    /**
+     * @return [U] - only triangular in the maintained order.
+     */
+    MatrixStore<Double> getU() {
+        return myUpper;
+    }
+
+    /**
+     * @param index The column to replace
+     * @param column The new column of [A]
+     * @return false if the new [U] is singular
+     */
+    boolean replace(final int index, final Access1D<?> column) {
+
+        final int dim = myDim;
+
+        // The spike: [E]...[L]<sup>-1</sup>[P][column]
+
+        final double[] spike = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            double value = column.doubleValue(myPivotOrder[i]);
+            for (int k = 0; k < i; k++) {
+                value -= myLower.doubleValue(i, k) * spike[k];
+            }
+            spike[i] = value;
+        }
+        for (final Eta eta : myEtas) {
+            eta.apply(spike);
+        }
+
+        for (int i = 0; i < dim; i++) {
+            myUpper.set(i, index, spike[i]);
+        }
+
+        // Move row/column index last in the triangular order
+
+        final int position = myPositions[index];
+        for (int p = position; p < (dim - 1); p++) {
+            mySequence[p] = mySequence[p + 1];
+            myPositions[mySequence[p]] = p;
+        }
+        mySequence[dim - 1] = index;
+        myPositions[index] = dim - 1;
+
+        // Eliminate the (now) out of place part of row index
+
+        final double[] multipliers = new double[dim];
+        boolean eliminated = false;
+
+        for (int p = position; p < (dim - 1); p++) {
+            final int k = mySequence[p];
+            final double value = myUpper.doubleValue(index, k);
+            if (value != ZERO) {
+                final double multiplier = value / myUpper.doubleValue(k, k);
+                multipliers[k] = multiplier;
+                myUpper.set(index, k, ZERO);
+                for (int q = p + 1; q < dim; q++) {
+                    final int c = mySequence[q];
+                    myUpper.add(index, c, -multiplier * myUpper.doubleValue(k, c));
+                }
+                eliminated = true;
+            }
+        }
+
+        if (eliminated) {
+            myEtas.add(new Eta(index, multipliers));
+        }
+
+        final double diagonal = myUpper.doubleValue(index, index);
+        return Double.isFinite(diagonal) && (diagonal != ZERO);
+    }
+
+    /**
+     * Everything that comes after [L]<sup>-1</sup>[P] when solving - the row etas and then back substitution
+     * with [U] in the maintained order.
+     */
+    void solve(final PhysicalStore<?> preallocated) {
+
+        final int dim = myDim;
+        final double[] vector = new double[dim];
+
+        for (long s = 0L, limit = preallocated.countColumns(); s < limit; s++) {
+
+            for (int i = 0; i < dim; i++) {
+                vector[i] = preallocated.doubleValue(i, s);
+            }
+
+            for (final Eta eta : myEtas) {
+                eta.apply(vector);
+            }
+
+            for (int p = dim - 1; p >= 0; p--) {
+                final int i = mySequence[p];
+                double value = vector[i];
+                for (int q = p + 1; q < dim; q++) {
+                    final int c = mySequence[q];
+                    value -= myUpper.doubleValue(i, c) * vector[c];
+                }
+                vector[i] = value / myUpper.doubleValue(i, i);
+            }
+
+            for (int i = 0; i < dim; i++) {
+                preallocated.set(i, s, vector[i]);
+            }
+        }
+    }
+
+}
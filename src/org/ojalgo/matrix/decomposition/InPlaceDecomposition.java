@@ -22,6 +22,7 @@
 package org.ojalgo.matrix.decomposition;
 
 import org.ojalgo.ProgrammingError;
+import org.ojalgo.array.BasicArray;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access2D;
@@ -31,6 +32,7 @@ abstract class InPlaceDecomposition<N extends Comparable<N>> extends GenericDeco
     private int myColDim;
     private DecompositionStore<N> myInPlace;
     private int myRowDim;
+    private BasicArray<N> myWorkArray;
 
     protected InPlaceDecomposition(final DecompositionStore.Factory<N, ? extends DecompositionStore<N>> factory) {
         super(factory);
@@ -59,6 +61,18 @@ abstract class InPlaceDecomposition<N extends Comparable<N>> extends GenericDeco
         return myRowDim;
     }
 
+    /**
+     * Like the in-place store, the work array is kept and reused when decomposing other matrices of the same
+     * size. Only to be used when decomposing - never when solving, as that must not modify any instance state
+     * (several threads may solve with the same decomposition).
+     */
+    BasicArray<N> getWorkArray(final int length) {
+        if ((myWorkArray == null) || (myWorkArray.count() != length)) {
+            myWorkArray = this.makeArray(length);
+        }
+        return myWorkArray;
+    }
+
     DecompositionStore<N> setInPlace(final Access2D.Collectable<N, ? super DecompositionStore<N>> matrix) {
 
         int tmpRowDim = (int) matrix.countRows();
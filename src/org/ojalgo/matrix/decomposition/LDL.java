@@ -60,6 +60,14 @@ public interface LDL<N extends Comparable<N>> extends LDU<N>, MatrixDecompositio
 
     Factory<Quaternion> QUATERNION = typical -> new LDLDecomposition.Quat();
 
+    /**
+     * Sparse LDL<sup>T</sup> for large sparse symmetric matrices - positive definite or quasi-definite (no
+     * numerical pivoting). Uses a fill reducing (approximate minimum degree) ordering, and the symbolic
+     * analysis is re-used when decomposing matrices with the same sparsity pattern. The matrix is never
+     * copied to a dense matrix, and only its lower triangular part is read.
+     */
+    Factory<Double> SPARSE = typical -> new SparseLDL();
+
     Factory<RationalNumber> RATIONAL = typical -> new LDLDecomposition.Rational();
 
     static <N extends Comparable<N>> boolean equals(final MatrixStore<N> matrix, final LDL<N> decomposition, final NumberContext context) {
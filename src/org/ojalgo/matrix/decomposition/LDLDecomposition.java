@@ -270,7 +270,7 @@ abstract class LDLDecomposition<N extends Comparable<N>> extends InPlaceDecompos
 
         myPivot.reset(dim);
 
-        BasicArray<N> multipliers = this.makeArray(dim);
+        BasicArray<N> multipliers = this.getWorkArray(dim);
 
         // Main loop - along the diagonal
         for (int ij = 0; ij < dim; ij++) {
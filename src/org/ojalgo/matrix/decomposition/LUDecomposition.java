@@ -23,8 +23,15 @@ package org.ojalgo.matrix.decomposition;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.Arrays;
+
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.array.BasicArray;
+import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.array.operation.DOT;
+import org.ojalgo.array.operation.MultiplyBlocked;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.function.constant.PrimitiveMath;
@@ -35,6 +42,7 @@ import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
 import org.ojalgo.scalar.RationalNumber;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Access2D.Collectable;
 import org.ojalgo.structure.Structure2D;
@@ -43,6 +51,119 @@ import org.ojalgo.type.context.NumberContext;
 
 abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposition<N> implements LU<N> {
 
+    /**
+     * Right-looking blocked LU decomposition. Panels of {@value #BLOCK} columns are decomposed column by
+     * column, then the corresponding block row of U is solved for, and finally the trailing sub-matrix is
+     * updated with a single matrix multiplication. That multiplication is where (almost) all the work is
+     * done, and it is cache-blocked and done in parallel.
+     */
+    static final class Blocked extends LUDecomposition<Double> implements MatrixDecomposition.Updatable<Double> {
+
+        static final int BLOCK = 64;
+
+        Blocked() {
+            super(Primitive64Store.FACTORY);
+        }
+
+        @Override
+        void factorise(final DecompositionStore<Double> inPlace, final Pivot pivot, final boolean pivoting) {
+
+            final double[] data = ((Primitive64Store) inPlace).data;
+            final int structure = this.getRowDim();
+            final int numberOfColumns = this.getColDim();
+            final int minDim = this.getMinDim();
+
+            // Panel columns with a zero pivot - nothing is eliminated using those columns
+            final boolean[] skip = new boolean[BLOCK];
+
+            for (int first = 0; first < minDim; first += BLOCK) {
+                final int limit = Math.min(first + BLOCK, minDim);
+
+                Arrays.fill(skip, false);
+
+                // The panel - column by column, but only updating the panel itself
+
+                for (int ij = first; ij < limit; ij++) {
+
+                    if (pivoting) {
+                        final int pivotRow = (int) inPlace.indexOfLargestInColumn(ij, ij);
+                        if (pivotRow != ij) {
+                            inPlace.exchangeRows(pivotRow, ij);
+                            pivot.change(pivotRow, ij);
+                        }
+                    }
+
+                    final int diagonal = ij + (ij * structure);
+                    final double pivotValue = data[diagonal];
+
+                    if (NumberContext.compare(pivotValue, ZERO) != 0) {
+
+                        for (int i = diagonal + 1, columnLimit = (ij + 1) * structure; i < columnLimit; i++) {
+                            data[i] /= pivotValue;
+                        }
+
+                        for (int j = ij + 1; j < limit; j++) {
+                            AXPY.invoke(data, j * structure, -data[ij + (j * structure)], data, ij * structure, ij + 1, structure);
+                        }
+
+                    } else {
+
+                        data[diagonal] = ZERO;
+                        skip[ij - first] = true;
+                    }
+                }
+
+                if (limit < numberOfColumns) {
+
+                    final int panelFirst = first;
+                    final int panelLimit = limit;
+
+                    // The block row of U - forward substitution with the unit lower triangular panel diagonal block
+
+                    new DivideAndConquer() {
+
+                        @Override
+                        protected void conquer(final int firstColumn, final int columnLimit) {
+                            for (int j = firstColumn; j < columnLimit; j++) {
+                                for (int i = panelFirst; i < panelLimit; i++) {
+                                    if (!skip[i - panelFirst]) {
+                                        AXPY.invoke(data, j * structure, -data[i + (j * structure)], data, i * structure, i + 1, panelLimit);
+                                    }
+                                }
+                            }
+                        }
+
+                    }.invoke(limit, numberOfColumns, BLOCK);
+
+                    // The trailing sub-matrix
+
+                    if (limit < structure) {
+
+                        new DivideAndConquer() {
+
+                            @Override
+                            protected void conquer(final int firstColumn, final int columnLimit) {
+                                // One update per run of consecutive (not skipped) panel columns
+                                for (int runFirst = panelFirst; runFirst < panelLimit; runFirst++) {
+                                    if (!skip[runFirst - panelFirst]) {
+                                        int runLimit = runFirst + 1;
+                                        while ((runLimit < panelLimit) && !skip[runLimit - panelFirst]) {
+                                            runLimit++;
+                                        }
+                                        MultiplyBlocked.subtract(data, structure, panelLimit, structure, firstColumn, columnLimit, runFirst, runLimit, false);
+                                        runFirst = runLimit;
+                                    }
+                                }
+                            }
+
+                        }.invoke(limit, numberOfColumns, BLOCK);
+                    }
+                }
+            }
+        }
+
+    }
+
     static final class Complex extends LUDecomposition<ComplexNumber> {
 
         Complex() {
@@ -51,7 +172,7 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
     }
 
-    static final class Primitive extends LUDecomposition<Double> {
+    static final class Primitive extends LUDecomposition<Double> implements MatrixDecomposition.Updatable<Double> {
 
         Primitive() {
             super(Primitive64Store.FACTORY);
@@ -75,7 +196,52 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
     }
 
+    /**
+     * Solves [A][x]=[b], in place, using the LU decomposition [P][A]=[L][U] stored column major in data.
+     */
+    static void solve(final double[] data, final int dim, final int[] order, final double[] vector, final double[] work) {
+
+        for (int i = 0; i < dim; i++) {
+            work[i] = vector[order[i]];
+        }
+
+        for (int j = 0; j < dim; j++) {
+            AXPY.invoke(work, 0, -work[j], data, j * dim, j + 1, dim);
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            work[j] /= data[j + (j * dim)];
+            AXPY.invoke(work, 0, -work[j], data, j * dim, 0, j);
+        }
+
+        System.arraycopy(work, 0, vector, 0, dim);
+    }
+
+    /**
+     * Solves [A]<sup>T</sup>[x]=[b], in place, using the LU decomposition [P][A]=[L][U] stored column major
+     * in data.
+     */
+    static void solveTransposed(final double[] data, final int dim, final int[] order, final double[] vector, final double[] work) {
+
+        for (int j = 0; j < dim; j++) {
+            vector[j] = (vector[j] - DOT.invoke(data, j * dim, vector, 0, 0, j)) / data[j + (j * dim)];
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            vector[j] -= DOT.invoke(data, j * dim, vector, 0, j + 1, dim);
+        }
+
+        for (int i = 0; i < dim; i++) {
+            work[order[i]] = vector[i];
+        }
+
+        System.arraycopy(work, 0, vector, 0, dim);
+    }
+
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
+    private double myNorm = NaN;
     private final Pivot myPivot = new Pivot();
+    private ForrestTomlin myUpdates = null;
 
     protected LUDecomposition(final DecompositionStore.Factory<N, ? extends DecompositionStore<N>> aFactory) {
         super(aFactory);
@@ -88,6 +254,10 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
     public int countSignificant(final double threshold) {
 
+        if (myUpdates != null) {
+            return myUpdates.countSignificant(threshold);
+        }
+
         DecompositionStore<N> internal = this.getInPlace();
 
         int significant = 0;
@@ -108,8 +278,27 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
         return this.doDecompose(matrix, false);
     }
 
+    @Override
+    public double estimateCondition() {
+
+        if (!this.isComputed() || !this.isSquare() || (myUpdates != null) || Double.isNaN(myNorm)) {
+            return NaN;
+        }
+
+        final double[] data = ((Primitive64Store) this.getInPlace()).data;
+        final int dim = this.getRowDim();
+        final int[] order = myPivot.getOrder();
+
+        return myNorm * myEstimator.estimate(dim, (vector, work) -> LUDecomposition.solve(data, dim, order, vector, work),
+                (vector, work) -> LUDecomposition.solveTransposed(data, dim, order, vector, work));
+    }
+
     public N getDeterminant() {
 
+        if (myUpdates != null) {
+            return this.scalar().cast(myPivot.signum() * myUpdates.getDiagonalProduct());
+        }
+
         final AggregatorFunction<N> tmpAggrFunc = this.aggregator().product();
 
         this.getInPlace().visitDiagonal(0, 0, tmpAggrFunc);
@@ -137,12 +326,20 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
         preallocated.substituteForwards(body, true, false, !myPivot.isModified());
 
-        preallocated.substituteBackwards(body, false, false, false);
+        if (myUpdates != null) {
+            myUpdates.solve(preallocated);
+        } else {
+            preallocated.substituteBackwards(body, false, false, false);
+        }
 
         return preallocated;
     }
 
+    @SuppressWarnings("unchecked")
     public MatrixStore<N> getL() {
+        if (myUpdates != null) {
+            return (MatrixStore<N>) myUpdates.getL();
+        }
         return this.getInPlace().logical().triangular(false, true).get();
     }
 
@@ -152,6 +349,10 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
     public double getRankThreshold() {
 
+        if (myUpdates != null) {
+            return this.getDimensionalEpsilon() * Math.max(MACHINE_SMALLEST, myUpdates.getLargestDiagonal());
+        }
+
         N largest = this.getInPlace().aggregateDiagonal(Aggregator.LARGEST);
         double epsilon = this.getDimensionalEpsilon();
 
@@ -187,12 +388,20 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
         preallocated.substituteForwards(body, true, false, false);
 
-        preallocated.substituteBackwards(body, false, false, false);
+        if (myUpdates != null) {
+            myUpdates.solve(preallocated);
+        } else {
+            preallocated.substituteBackwards(body, false, false, false);
+        }
 
         return preallocated;
     }
 
+    @SuppressWarnings("unchecked")
     public MatrixStore<N> getU() {
+        if (myUpdates != null) {
+            return (MatrixStore<N>) myUpdates.getU();
+        }
         return this.getInPlace().logical().triangular(true, false).get();
     }
 
@@ -236,6 +445,39 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
         return this.allocate(templateRHS.countRows(), templateRHS.countColumns());
     }
 
+    /**
+     * Not supported - LU decompositions can only have columns replaced.
+     */
+    public boolean downdate(final Access2D<?> vectors) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
+    /**
+     * Not supported - LU decompositions can only have columns replaced.
+     */
+    public boolean update(final Access2D<?> vectors) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
+    /**
+     * Forrest-Tomlin update. [L] is kept as is, while [U] is copied (the first time) and then modified. After
+     * an update [L] and [U] are only triangular in a permuted order, but still [P][A] = [L][U].
+     */
+    public boolean updateColumn(final int index, final Access1D<?> column) {
+
+        if (!this.isComputed() || !this.isSquare()) {
+            return this.updated(false);
+        }
+
+        if (myUpdates == null) {
+            myUpdates = new ForrestTomlin(this.getInPlace(), myPivot.getOrder());
+        }
+
+        return this.updated(myUpdates.replace(index, column));
+    }
+
     public MatrixStore<N> solve(final Access2D<?> body, final Access2D<?> rhs) throws RecoverableCondition {
 
         this.decompose(this.wrap(body));
@@ -262,55 +504,70 @@ abstract class LUDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
         this.reset();
 
+        myUpdates = null;
+
         final DecompositionStore<N> tmpInPlace = this.setInPlace(matrix);
 
+        if (tmpInPlace instanceof Primitive64Store) {
+            myNorm = ConditionEstimator.norm1(((Primitive64Store) tmpInPlace).data, this.getRowDim(), this.getColDim());
+        } else {
+            myNorm = NaN;
+        }
+
+        myPivot.reset(this.getRowDim());
+
+        this.factorise(tmpInPlace, myPivot, pivoting);
+
+        return this.computed(true);
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return this.isSquare() && this.isFullRank() && ConditionEstimator.isAcceptable(this.estimateCondition());
+    }
+
+    /**
+     * Column by column, rank-1 updates of the remaining sub-matrix.
+     */
+    void factorise(final DecompositionStore<N> inPlace, final Pivot pivot, final boolean pivoting) {
+
         final int tmpRowDim = this.getRowDim();
-        this.getColDim();
         final int tmpMinDim = this.getMinDim();
 
-        myPivot.reset(tmpRowDim);
-
-        final BasicArray<N> tmpMultipliers = this.makeArray(tmpRowDim);
+        final BasicArray<N> tmpMultipliers = this.getWorkArray(tmpRowDim);
 
         // Main loop - along the diagonal
         for (int ij = 0; ij < tmpMinDim; ij++) {
 
             if (pivoting) {
                 // Find next pivot row
-                final int tmpPivotRow = (int) tmpInPlace.indexOfLargestInColumn(ij, ij);
+                final int tmpPivotRow = (int) inPlace.indexOfLargestInColumn(ij, ij);
 
                 // Pivot?
                 if (tmpPivotRow != ij) {
-                    tmpInPlace.exchangeRows(tmpPivotRow, ij);
-                    myPivot.change(tmpPivotRow, ij);
+                    inPlace.exchangeRows(tmpPivotRow, ij);
+                    pivot.change(tmpPivotRow, ij);
                 }
             }
 
             // Do the calculations...
-            // if (!tmpInPlace.isZero(ij, ij)) {
-            // if (tmpInPlace.doubleValue(ij, ij) != PrimitiveMath.ZERO) {
-            if (NumberContext.compare(tmpInPlace.doubleValue(ij, ij), PrimitiveMath.ZERO) != 0) {
+            // if (!inPlace.isZero(ij, ij)) {
+            // if (inPlace.doubleValue(ij, ij) != PrimitiveMath.ZERO) {
+            if (NumberContext.compare(inPlace.doubleValue(ij, ij), PrimitiveMath.ZERO) != 0) {
 
                 // Calculate multipliers and copy to local column
                 // Current column, below the diagonal
-                tmpInPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
+                inPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
 
                 // Apply transformations to everything below and to the right of the pivot element
-                tmpInPlace.applyLU(ij, tmpMultipliers);
+                inPlace.applyLU(ij, tmpMultipliers);
 
             } else {
 
-                tmpInPlace.set(ij, ij, ZERO);
+                inPlace.set(ij, ij, ZERO);
             }
 
         }
-
-        return this.computed(true);
-    }
-
-    @Override
-    protected boolean checkSolvability() {
-        return this.isSquare() && this.isFullRank();
     }
 
     int[] getReducedPivots() {
@@ -0,0 +1,298 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.function.aggregator.AggregatorFunction;
+import org.ojalgo.function.aggregator.ComplexAggregator;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.scalar.ComplexNumber;
+import org.ojalgo.structure.Access2D.Collectable;
+
+/**
+ * Lanczos iteration for the largest (in magnitude) eigenvalues, and corresponding eigenvectors, of a
+ * symmetric matrix. The matrix is only used to multiply vectors, so it may very well be a
+ * {@link SparseStore}.
+ * <p>
+ * The Krylov basis is fully reorthogonalised (classical Gram-Schmidt, twice) at each step, and grows until
+ * the requested Ritz pairs have converged - their residuals, estimated from the tridiagonal matrix, are small
+ * relative to the largest eigenvalue. If an invariant subspace is found the iteration always continues with a
+ * new random vector, orthogonal to the basis - otherwise repeated eigenvalues would be missed. At most the
+ * full dimension is reached, and then the result is exact.
+ * <p>
+ * [D] and [V] only contain the requested number of eigenvalues/vectors, ordered by descending magnitude, and
+ * the determinant and trace are those of [D].
+ *
+ * @author apete
+ */
+final class LanczosEvD extends EigenvalueDecomposition<Double> {
+
+    private static final double TOLERANCE = 1E-12;
+
+    private static double dot(final double[] vector1, final double[] vector2) {
+        double retVal = ZERO;
+        for (int i = 0; i < vector1.length; i++) {
+            retVal += vector1[i] * vector2[i];
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The coefficient for the last basis vector
+     */
+    private static double orthogonalise(final double[] vector, final List<double[]> basis) {
+        double retVal = ZERO;
+        for (final double[] other : basis) {
+            final double coefficient = LanczosEvD.dot(vector, other);
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] -= coefficient * other[i];
+            }
+            retVal = coefficient;
+        }
+        return retVal;
+    }
+
+    private double[] d;
+    private final int myNumberOfEigenvalues;
+
+    LanczosEvD(final int numberOfEigenvalues) {
+        super(Primitive64Store.FACTORY);
+        myNumberOfEigenvalues = numberOfEigenvalues;
+    }
+
+    public boolean checkAndDecompose(final MatrixStore<Double> matrix) {
+        if (matrix.isHermitian()) {
+            return this.decompose(matrix);
+        } else {
+            ProgrammingError.throwForUnsupportedOptionalOperation();
+            return false;
+        }
+    }
+
+    public Double getDeterminant() {
+
+        final AggregatorFunction<ComplexNumber> tmpVisitor = ComplexAggregator.getSet().product();
+
+        this.getEigenvalues().visitAll(tmpVisitor);
+
+        return tmpVisitor.get().doubleValue();
+    }
+
+    public ComplexNumber getTrace() {
+
+        final AggregatorFunction<ComplexNumber> tmpVisitor = ComplexAggregator.getSet().sum();
+
+        this.getEigenvalues().visitAll(tmpVisitor);
+
+        return tmpVisitor.get();
+    }
+
+    public boolean isHermitian() {
+        return true;
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    protected boolean doDecompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix, final boolean valuesOnly) {
+
+        @SuppressWarnings("unchecked")
+        final MatrixStore<Double> mtrxA = matrix instanceof MatrixStore ? (MatrixStore<Double>) matrix : this.collect(matrix);
+
+        final int dim = Math.toIntExact(mtrxA.countRows());
+        final int count = Math.min(myNumberOfEigenvalues, dim);
+        final int interval = Math.max(1, count / 2);
+
+        if (count == 0) {
+            d = new double[0];
+            this.setV(Primitive64Store.FACTORY.make(dim, 0));
+            return this.computed(true);
+        }
+
+        final List<double[]> basis = new ArrayList<>();
+        final double[] alphas = new double[dim];
+        final double[] betas = new double[dim];
+
+        final Primitive64Store vector = Primitive64Store.FACTORY.make(dim, 1);
+
+        basis.add(this.random(dim, basis));
+
+        double scale = MACHINE_SMALLEST;
+        Primitive64Store ritz = null;
+
+        for (int j = 0; (ritz == null) && (j < dim); j++) {
+
+            final double[] current = basis.get(j);
+            for (int i = 0; i < dim; i++) {
+                vector.set(i, current[i]);
+            }
+
+            final MatrixStore<Double> product = mtrxA.multiply(vector);
+            final double[] next = new double[dim];
+            for (int i = 0; i < dim; i++) {
+                next[i] = product.doubleValue(i);
+            }
+
+            // Twice is enough, and it also takes care of the three-term recurrence
+            alphas[j] = LanczosEvD.orthogonalise(next, basis) + LanczosEvD.orthogonalise(next, basis);
+
+            final double beta = SQRT.invoke(LanczosEvD.dot(next, next));
+            scale = Math.max(scale, Math.abs(alphas[j]) + beta);
+            final boolean invariant = beta <= (dim * MACHINE_EPSILON * scale);
+
+            final int size = j + 1;
+
+            if (invariant && (size < dim)) {
+                // All Ritz values would pass the residual test here, but repeated eigenvalues are only found once
+                // per Krylov subspace - always restart
+                betas[j] = ZERO;
+                basis.add(this.random(dim, basis));
+                continue;
+            }
+
+            if ((size >= count) && ((size == dim) || (((size - count) % interval) == 0))) {
+                ritz = this.solveTridiagonal(alphas, betas, size, invariant ? ZERO : beta, count);
+            }
+
+            if (ritz == null) {
+                betas[j] = beta;
+                for (int i = 0; i < dim; i++) {
+                    next[i] /= beta;
+                }
+                basis.add(next);
+            }
+        }
+
+        if (!valuesOnly) {
+
+            final int size = (int) ritz.countRows();
+
+            final Primitive64Store mtrxV = Primitive64Store.FACTORY.make(dim, count);
+            for (int c = 0; c < count; c++) {
+                for (int k = 0; k < size; k++) {
+                    final double coefficient = ritz.doubleValue(k, c);
+                    final double[] basisVector = basis.get(k);
+                    for (int i = 0; i < dim; i++) {
+                        mtrxV.add(i, c, coefficient * basisVector[i]);
+                    }
+                }
+            }
+
+            this.setV(mtrxV);
+        }
+
+        return this.computed(true);
+    }
+
+    @Override
+    protected MatrixStore<Double> makeD() {
+        return this.makeDiagonal(Primitive64Array.wrap(d)).get();
+    }
+
+    @Override
+    protected Array1D<ComplexNumber> makeEigenvalues() {
+
+        final int length = d.length;
+
+        final Array1D<ComplexNumber> retVal = Array1D.COMPLEX.makeZero(length);
+
+        for (int ij = 0; ij < length; ij++) {
+            retVal.set(ij, ComplexNumber.valueOf(d[ij]));
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected MatrixStore<Double> makeV() {
+        return null;
+    }
+
+    /**
+     * A random unit vector orthogonal to the current basis
+     */
+    private double[] random(final int dim, final List<double[]> basis) {
+
+        final Normal generator = new Normal();
+
+        final double[] retVal = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            retVal[i] = generator.doubleValue();
+        }
+
+        LanczosEvD.orthogonalise(retVal, basis);
+        LanczosEvD.orthogonalise(retVal, basis);
+
+        final double norm = SQRT.invoke(LanczosEvD.dot(retVal, retVal));
+        for (int i = 0; i < dim; i++) {
+            retVal[i] /= norm;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Solves the tridiagonal eigenvalue problem, and checks if the (count) largest Ritz pairs have converged.
+     *
+     * @return The Ritz vectors, in the Krylov basis, or null if not yet converged
+     */
+    private Primitive64Store solveTridiagonal(final double[] alphas, final double[] betas, final int size, final double beta, final int count) {
+
+        final double[] values = new double[size];
+        final double[] offDiagonal = new double[size];
+        System.arraycopy(alphas, 0, values, 0, size);
+        System.arraycopy(betas, 0, offDiagonal, 0, size - 1);
+
+        final Primitive64Store mtrxS = Primitive64Store.FACTORY.makeEye(size, size);
+
+        HermitianEvD.tql2(values, offDiagonal, mtrxS);
+        EigenvalueDecomposition.sort(values, mtrxS);
+
+        final double tolerance = TOLERANCE * Math.max(Math.abs(values[0]), MACHINE_SMALLEST);
+        final boolean exhausted = size == alphas.length;
+
+        for (int c = 0; !exhausted && (c < count); c++) {
+            if (Math.abs(beta * mtrxS.doubleValue(size - 1, c)) > tolerance) {
+                return null;
+            }
+        }
+
+        d = new double[count];
+        System.arraycopy(values, 0, d, 0, count);
+
+        return mtrxS;
+    }
+
+}
@@ -27,6 +27,7 @@ import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.task.DeterminantTask;
 import org.ojalgo.matrix.task.InverterTask;
 import org.ojalgo.matrix.task.SolverTask;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Access2D.Collectable;
 import org.ojalgo.structure.Structure2D;
@@ -269,6 +270,22 @@ public interface MatrixDecomposition<N extends Comparable<N>> extends Structure2
             return this.decompose(matrix) && this.isSolvable();
         }
 
+        /**
+         * An estimate of the condition number of the decomposed matrix, calculated from the already computed
+         * decomposition in O(n<sup>2</sup>) operations - without forming the inverse. The primitive LU and
+         * Cholesky decompositions estimate the 1-norm condition number of the matrix, and QR that of [R].
+         * Those estimates are lower bounds, very rarely more than a factor 3 too small.
+         * <p>
+         * Implementing this method is optional. The default implementation returns NaN (unknown), and so do
+         * the implementations when the decomposition has been updated rather than recomputed.
+         * </p>
+         *
+         * @return The estimated condition number, or NaN if not known
+         */
+        default double estimateCondition() {
+            return Double.NaN;
+        }
+
         /**
          * The output must be a "right inverse" and a "generalised inverse".
          */
@@ -335,6 +352,63 @@ public interface MatrixDecomposition<N extends Comparable<N>> extends Structure2
 
     }
 
+    /**
+     * A decomposition that can be modified to reflect a low rank change of the decomposed matrix, in
+     * O(n<sup>2</sup>) rather than O(n<sup>3</sup>) operations for a full re-decomposition.
+     * <p>
+     * Which modifications are supported depends on the decomposition. Cholesky supports all of them (column
+     * replacement replaces both row and column, keeping the matrix symmetric). LU only supports column
+     * replacement - the basis change of the simplex method.
+     * </p>
+     * <p>
+     * There is no row replacement for LU. The Forrest-Tomlin scheme never modifies [L], and only works when
+     * a single column of [U] changes. Changing a row of [A] is a rank one change [L]<sup>-1</sup>[e][d]
+     * <sup>T</sup> that affects all columns of [U]. To replace a row, decompose again.
+     * </p>
+     * <p>
+     * If a modification fails (returns false) the decomposition is no longer valid and has to be
+     * recomputed. Each update adds a little to the numerical error, and for some implementations to the
+     * cost of solving, so it is a good idea to recompute now and then anyway.
+     * </p>
+     */
+    interface Updatable<N extends Comparable<N>> extends MatrixDecomposition<N> {
+
+        /**
+         * [A] = [A] - [V][V]<sup>T</sup>, one column of [V] at the time.
+         * <p>
+         * Implementing this method is optional.
+         * </p>
+         *
+         * @param vectors The columns of [V]
+         * @return true if the modified decomposition is valid; false if not
+         * @throws UnsupportedOperationException When/if this feature is not implemented
+         */
+        boolean downdate(Access2D<?> vectors);
+
+        /**
+         * [A] = [A] + [V][V]<sup>T</sup>, one column of [V] at the time.
+         * <p>
+         * Implementing this method is optional.
+         * </p>
+         *
+         * @param vectors The columns of [V]
+         * @return true if the modified decomposition is valid; false if not
+         * @throws UnsupportedOperationException When/if this feature is not implemented
+         */
+        boolean update(Access2D<?> vectors);
+
+        /**
+         * Replace a column of [A]. With symmetric decompositions the corresponding row is replaced as well.
+         * With LU only the column is replaced, and there is no way to replace just a row.
+         *
+         * @param index The column index
+         * @param column The new column
+         * @return true if the modified decomposition is valid; false if not
+         */
+        boolean updateColumn(int index, Access1D<?> column);
+
+    }
+
     /**
      * Eigenvalue and Singular Value decompositions can calculate the "values" only.
      *
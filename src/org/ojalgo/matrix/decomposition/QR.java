@@ -54,6 +54,38 @@ import org.ojalgo.type.context.NumberContext;
 public interface QR<N extends Comparable<N>> extends MatrixDecomposition<N>, MatrixDecomposition.Solver<N>, MatrixDecomposition.EconomySize<N>,
         MatrixDecomposition.Determinant<N>, MatrixDecomposition.RankRevealing<N> {
 
+    /**
+     * Least squares for systems too tall to be kept in memory. Blocks of rows (equations) are added one at
+     * the time, and only the R factor of the augmented matrix [A|B] is retained. Blocks may be added
+     * concurrently from different threads.
+     *
+     * @see QR#newAccumulator(int, int)
+     */
+    interface Accumulator {
+
+        /**
+         * @param body A block of rows of [A]
+         * @param rhs The corresponding rows of [B] (may be null if there are no right hand side columns)
+         */
+        void add(Access2D<?> body, Access2D<?> rhs);
+
+        /**
+         * @return The total number of rows added so far
+         */
+        long countRows();
+
+        /**
+         * @return The R factor of [A], based on the rows added so far
+         */
+        MatrixStore<Double> getR();
+
+        /**
+         * @return The least squares solution [X] of [A][X]=[B], based on the rows added so far
+         */
+        MatrixStore<Double> getSolution();
+
+    }
+
     interface Factory<N extends Comparable<N>> extends MatrixDecomposition.Factory<QR<N>> {
 
         default QR<N> make(final boolean fullSize) {
@@ -71,13 +103,21 @@ public interface QR<N extends Comparable<N>> extends MatrixDecomposition<N>, Mat
     Factory<ComplexNumber> COMPLEX = (typical, fullSize) -> new QRDecomposition.Complex(fullSize);
 
     Factory<Double> PRIMITIVE = (typical, fullSize) -> {
-        if (fullSize || (typical.isFat() || ((256L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)))) {
+        if ((64L <= typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)) {
+            return new QRDecomposition.Blocked(fullSize);
+        } else if (fullSize || (typical.isFat() || ((256L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE)))) {
             return new QRDecomposition.Primitive(fullSize);
         } else {
             return new RawQR();
         }
     };
 
+    /**
+     * Tall-skinny QR, for matrices with (very) many more rows than columns. The rows are split in blocks that
+     * are decomposed in parallel, and the R factors are then combined in a tree.
+     */
+    Factory<Double> TALL_SKINNY = (typical, fullSize) -> fullSize ? PRIMITIVE.make(typical, fullSize) : new TallSkinnyQR();
+
     Factory<Quaternion> QUATERNION = (typical, fullSize) -> new QRDecomposition.Quat(fullSize);
 
     Factory<RationalNumber> RATIONAL = (typical, fullSize) -> new QRDecomposition.Rational(fullSize);
@@ -115,6 +155,15 @@ public interface QR<N extends Comparable<N>> extends MatrixDecomposition<N>, Mat
         }
     }
 
+    /**
+     * @param numberOfColumns The number of columns of [A] (variables)
+     * @param numberOfRHS The number of columns of [B] (right hand sides, may be 0)
+     * @return An {@link Accumulator} to which blocks of rows can be added
+     */
+    static Accumulator newAccumulator(final int numberOfColumns, final int numberOfRHS) {
+        return new TallSkinnyQR.Streamed(numberOfColumns, numberOfRHS);
+    }
+
     /**
      * @deprecated v48 Use {@link #reconstruct()} instead
      */
@@ -23,7 +23,16 @@ package org.ojalgo.matrix.decomposition;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.array.operation.DOT;
+import org.ojalgo.array.operation.GenerateApplyAndCopyHouseholderColumn;
+import org.ojalgo.array.operation.HouseholderBlock;
+import org.ojalgo.array.operation.HouseholderLeft;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.aggregator.AggregatorFunction;
 import org.ojalgo.matrix.store.GenericStore;
@@ -42,6 +51,221 @@ import org.ojalgo.type.NumberDefinition;
 
 abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposition<N> implements QR<N> {
 
+    /**
+     * Blocked Householder QR decomposition. Panels of {@value #BLOCK} columns are decomposed one reflector at
+     * the time, updating only the panel itself. The panel's reflectors are then accumulated in the compact WY
+     * representation, I - V T V<sup>T</sup>, and applied to the remaining columns (in parallel) with matrix
+     * multiplications. Q (or Q<sup>T</sup>) is applied to other matrices the same way - when assembling Q
+     * explicitly and when solving.
+     */
+    static final class Blocked extends QRDecomposition<Double> {
+
+        static final int BLOCK = 32;
+
+        private final double[] myBetas = new double[BLOCK];
+        private Householder.Primitive64 myHouseholder = null;
+        private int myNumberOfBlocks = 0;
+        private double[] myPacked = null;
+        private final List<double[]> myTriangulars = new ArrayList<>();
+        private double[] myWork = null;
+
+        Blocked() {
+            this(false);
+        }
+
+        Blocked(final boolean fullSize) {
+            super(Primitive64Store.FACTORY, fullSize);
+        }
+
+        @Override
+        public MatrixStore<Double> getQ() {
+
+            final int structure = this.getRowDim();
+            final int minDim = this.getMinDim();
+            final int width = Math.min(BLOCK, minDim);
+
+            final Primitive64Store retVal = (Primitive64Store) this.makeEye(structure, this.isFullSize() ? structure : minDim);
+            final int numberOfColumns = (int) retVal.countColumns();
+
+            final double[] householders = ((Primitive64Store) this.getInPlace()).data;
+
+            // Not the instance's work arrays - this may be called concurrently
+            final double[] packed = new double[structure * width];
+            final double[] work = new double[width * numberOfColumns];
+
+            for (int b = myNumberOfBlocks - 1; b >= 0; b--) {
+                final int first = b * BLOCK;
+                final int limit = Math.min(first + BLOCK, minDim);
+
+                Blocked.transform(retVal.data, structure, first, numberOfColumns, householders, first, limit, myTriangulars.get(b), false, packed, work);
+            }
+
+            return retVal;
+        }
+
+        @Override
+        void applyTransposedQ(final PhysicalStore<Double> matrix) {
+
+            if (matrix instanceof Primitive64Store) {
+
+                final Primitive64Store target = (Primitive64Store) matrix;
+
+                final int structure = this.getRowDim();
+                final int minDim = this.getMinDim();
+                final int width = Math.min(BLOCK, minDim);
+
+                final double[] householders = ((Primitive64Store) this.getInPlace()).data;
+                final int numberOfColumns = (int) target.countColumns();
+
+                if (numberOfColumns <= 4) {
+
+                    // A few columns, typically when solving, one reflector at the time - nothing to allocate
+
+                    for (int b = 0; b < myNumberOfBlocks; b++) {
+                        final int first = b * BLOCK;
+                        final int limit = Math.min(first + BLOCK, minDim);
+                        final int nb = limit - first;
+                        final double[] triangular = myTriangulars.get(b);
+
+                        for (int k = first; k < limit; k++) {
+                            final double beta = triangular[(k - first) * (nb + 1)];
+                            if (beta != ZERO) {
+                                final int baseV = k * structure;
+                                for (int j = 0; j < numberOfColumns; j++) {
+                                    final int baseC = j * structure;
+                                    final double scale = beta * (target.data[baseC + k] + DOT.invoke(householders, baseV, target.data, baseC, k + 1, structure));
+                                    target.data[baseC + k] -= scale;
+                                    AXPY.invoke(target.data, baseC, -scale, householders, baseV, k + 1, structure);
+                                }
+                            }
+                        }
+                    }
+
+                } else {
+
+                    // Not the instance's work arrays - solving may be done concurrently
+                    final double[] packed = new double[structure * width];
+                    final double[] work = new double[width * numberOfColumns];
+
+                    for (int b = 0; b < myNumberOfBlocks; b++) {
+                        final int first = b * BLOCK;
+                        final int limit = Math.min(first + BLOCK, minDim);
+
+                        Blocked.transform(target.data, structure, 0, numberOfColumns, householders, first, limit, myTriangulars.get(b), true, packed,
+                                work);
+                    }
+                }
+
+            } else {
+
+                super.applyTransposedQ(matrix);
+            }
+        }
+
+        @Override
+        int factorise(final DecompositionStore<Double> inPlace) {
+
+            final double[] data = ((Primitive64Store) inPlace).data;
+            final int structure = this.getRowDim();
+            final int numberOfColumns = this.getColDim();
+            final int minDim = this.getMinDim();
+            final int width = Math.min(BLOCK, minDim);
+
+            if ((myHouseholder == null) || (myHouseholder.count() != structure)) {
+                myHouseholder = (Householder.Primitive64) this.makeHouseholder(structure);
+            }
+            final Householder.Primitive64 householder = myHouseholder;
+            final double[] betas = myBetas;
+
+            // The work arrays are kept, and are large enough from the first block on
+            if ((myPacked == null) || (myPacked.length < (structure * width))) {
+                myPacked = new double[structure * width];
+            }
+            if ((myWork == null) || (myWork.length < (width * numberOfColumns))) {
+                myWork = new double[width * numberOfColumns];
+            }
+            final double[] packed = myPacked;
+            final double[] work = myWork;
+
+            myNumberOfBlocks = 0;
+
+            int retVal = 0;
+
+            for (int first = 0; first < minDim; first += BLOCK) {
+                final int limit = Math.min(first + BLOCK, minDim);
+                final int nb = limit - first;
+
+                // The panel - one reflector at the time, but only updating the panel itself
+
+                for (int ij = first; ij < limit; ij++) {
+                    betas[ij - first] = ZERO;
+                    if (((ij + 1) < structure) && GenerateApplyAndCopyHouseholderColumn.invoke(data, structure, ij, ij, householder)) {
+                        HouseholderLeft.invoke(data, structure, ij + 1, limit, householder);
+                        betas[ij - first] = householder.beta;
+                        retVal++;
+                    }
+                }
+
+                final double[] triangular = this.getTriangular(myNumberOfBlocks++, nb * nb);
+                HouseholderBlock.makeTriangular(triangular, data, structure, first, limit, betas);
+
+                // The trailing columns
+
+                Blocked.transform(data, structure, limit, numberOfColumns, data, first, limit, triangular, true, packed, work);
+            }
+
+            return retVal;
+        }
+
+        /**
+         * The T matrices are kept, and reused when decomposing other matrices of the same shape.
+         */
+        private double[] getTriangular(final int block, final int size) {
+            if (block < myTriangulars.size()) {
+                if (myTriangulars.get(block).length != size) {
+                    myTriangulars.set(block, new double[size]);
+                }
+            } else {
+                myTriangulars.add(new double[size]);
+            }
+            return myTriangulars.get(block);
+        }
+
+        /**
+         * The packed and work arrays must have room for at least (structure - first) * (limit - first) and
+         * (limit - first) * columnLimit elements respectively. They are supplied by the caller - decomposing
+         * uses (reuses) the instance's arrays, but solving must not touch any instance state.
+         */
+        private static void transform(final double[] data, final int structure, final int firstColumn, final int columnLimit, final double[] householders,
+                final int first, final int limit, final double[] triangular, final boolean transposed, final double[] packed, final double[] work) {
+
+            final int nb = limit - first;
+
+            if ((nb <= 0) || (columnLimit <= firstColumn)) {
+                return;
+            }
+
+            HouseholderBlock.pack(packed, householders, structure, first, limit);
+
+            if ((columnLimit - firstColumn) > HouseholderBlock.THRESHOLD) {
+
+                new DivideAndConquer() {
+
+                    @Override
+                    protected void conquer(final int firstInPartition, final int limitInPartition) {
+                        HouseholderBlock.invoke(data, structure, firstInPartition, limitInPartition, packed, first, limit, triangular, transposed, work);
+                    }
+
+                }.invoke(firstColumn, columnLimit, HouseholderBlock.THRESHOLD);
+
+            } else {
+
+                HouseholderBlock.invoke(data, structure, firstColumn, columnLimit, packed, first, limit, triangular, transposed, work);
+            }
+        }
+
+    }
+
     static final class Complex extends QRDecomposition<ComplexNumber> {
 
         Complex() {
@@ -90,6 +314,41 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
     }
 
+    /**
+     * @return The 1-norm of the (upper triangular) [R] stored column major in data
+     */
+    static double norm1R(final double[] data, final int structure, final int dim) {
+        double retVal = ZERO;
+        for (int j = 0; j < dim; j++) {
+            double sum = ZERO;
+            for (int i = 0, base = j * structure; i <= j; i++) {
+                sum += Math.abs(data[base + i]);
+            }
+            retVal = Math.max(retVal, sum);
+        }
+        return retVal;
+    }
+
+    /**
+     * Solves [R][x]=[b], in place, with [R] stored column major in data.
+     */
+    static void solveR(final double[] data, final int structure, final int dim, final double[] vector) {
+        for (int j = dim - 1; j >= 0; j--) {
+            vector[j] /= data[j + (j * structure)];
+            AXPY.invoke(vector, 0, -vector[j], data, j * structure, 0, j);
+        }
+    }
+
+    /**
+     * Solves [R]<sup>T</sup>[x]=[b], in place, with [R] stored column major in data.
+     */
+    static void solveTransposedR(final double[] data, final int structure, final int dim, final double[] vector) {
+        for (int j = 0; j < dim; j++) {
+            vector[j] = (vector[j] - DOT.invoke(data, j * structure, vector, 0, 0, j)) / data[j + (j * structure)];
+        }
+    }
+
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
     private final boolean myFullSize;
     private int myNumberOfHouseholderTransformations = 0;
 
@@ -123,21 +382,27 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
         final DecompositionStore<N> tmpStore = this.setInPlace(matrix);
 
-        final int tmpRowDim = this.getRowDim();
-        final int tmpColDim = this.getColDim();
+        myNumberOfHouseholderTransformations = this.factorise(tmpStore);
 
-        final Householder<N> tmpHouseholder = this.makeHouseholder(tmpRowDim);
+        return this.computed(true);
+    }
 
-        final int tmpLimit = Math.min(tmpRowDim, tmpColDim);
+    /**
+     * Estimates the condition number of [R] - the 1-norm condition of [A] is within a factor n of that.
+     */
+    @Override
+    public double estimateCondition() {
 
-        for (int ij = 0; ij < tmpLimit; ij++) {
-            if (((ij + 1) < tmpRowDim) && tmpStore.generateApplyAndCopyHouseholderColumn(ij, ij, tmpHouseholder)) {
-                tmpStore.transformLeft(tmpHouseholder, ij + 1);
-                myNumberOfHouseholderTransformations++;
-            }
+        if (!this.isComputed() || !this.isAspectRatioNormal() || !(this.getInPlace() instanceof Primitive64Store)) {
+            return NaN;
         }
 
-        return this.computed(true);
+        final double[] data = ((Primitive64Store) this.getInPlace()).data;
+        final int structure = this.getRowDim();
+        final int dim = this.getColDim();
+
+        return QRDecomposition.norm1R(data, structure, dim) * myEstimator.estimate(dim, (vector, work) -> QRDecomposition.solveR(data, structure, dim, vector),
+                (vector, work) -> QRDecomposition.solveTransposedR(data, structure, dim, vector));
     }
 
     public N getDeterminant() {
@@ -217,17 +482,7 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
         final int tmpRowDim = this.getRowDim();
         final int tmpColDim = this.getColDim();
 
-        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(tmpStore);
-
-        final int tmpLimit = this.getMinDim();
-        for (int j = 0; j < tmpLimit; j++) {
-
-            tmpReference.point(j, j);
-
-            if (!tmpReference.isZero()) {
-                preallocated.transformLeft(tmpReference, 0);
-            }
-        }
+        this.applyTransposedQ(preallocated);
 
         preallocated.substituteBackwards(tmpStore, false, false, false);
 
@@ -312,7 +567,51 @@ abstract class QRDecomposition<N extends Comparable<N>> extends InPlaceDecomposi
 
     @Override
     protected boolean checkSolvability() {
-        return this.isAspectRatioNormal() && this.isFullRank();
+        return this.isAspectRatioNormal() && this.isFullRank() && ConditionEstimator.isAcceptable(this.estimateCondition());
+    }
+
+    /**
+     * Transforms the matrix by Q<sup>T</sup>, one Householder reflector at the time.
+     */
+    void applyTransposedQ(final PhysicalStore<N> matrix) {
+
+        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(this.getInPlace());
+
+        final int tmpLimit = this.getMinDim();
+        for (int j = 0; j < tmpLimit; j++) {
+
+            tmpReference.point(j, j);
+
+            if (!tmpReference.isZero()) {
+                matrix.transformLeft(tmpReference, 0);
+            }
+        }
+    }
+
+    /**
+     * Column by column, one Householder reflector at the time.
+     *
+     * @return The number of Householder transformations
+     */
+    int factorise(final DecompositionStore<N> inPlace) {
+
+        final int tmpRowDim = this.getRowDim();
+        final int tmpColDim = this.getColDim();
+
+        final Householder<N> tmpHouseholder = this.makeHouseholder(tmpRowDim);
+
+        final int tmpLimit = Math.min(tmpRowDim, tmpColDim);
+
+        int retVal = 0;
+
+        for (int ij = 0; ij < tmpLimit; ij++) {
+            if (((ij + 1) < tmpRowDim) && inPlace.generateApplyAndCopyHouseholderColumn(ij, ij, tmpHouseholder)) {
+                inPlace.transformLeft(tmpHouseholder, ij + 1);
+                retVal++;
+            }
+        }
+
+        return retVal;
     }
 
     /**
@@ -0,0 +1,334 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Randomised, truncated, singular value decomposition (Halko, Martinsson &amp; Tropp). Only the rank largest
+ * singular values, and corresponding vectors, are calculated.
+ * <ol>
+ * <li>[Y] = [A][&Omega;] where [&Omega;] is a random n-by-(rank+oversampling) matrix.</li>
+ * <li>[Q] = an orthonormal basis for the range of [Y], refined by a number of power iterations with
+ * [A][A]<sup>T</sup> (re-orthonormalising in between).</li>
+ * <li>[B] = [Q]<sup>T</sup>[A] is small and can be decomposed using an ordinary SVD.</li>
+ * <li>[U] = [Q][U<sub>B</sub>], [D] and [V] are then truncated to rank.</li>
+ * </ol>
+ * The matrix is only accessed through products with [A] and [A]<sup>T</sup>, so it may very well be a
+ * {@link SparseStore}. All norms, the condition number and solutions are those of the rank-truncated
+ * matrix.
+ *
+ * @author apete
+ */
+final class RandomisedSingularValue extends GenericDecomposition<Double> implements SingularValue<Double> {
+
+    static final int OVERSAMPLING = 10;
+    static final int POWER_ITERATIONS = 2;
+
+    /**
+     * [A]<sup>T</sup>[Q] without transposing [A] (sparse matrices are iterated over their nonzeros).
+     */
+    static Primitive64Store multiplyTransposed(final MatrixStore<Double> matrix, final Primitive64Store right) {
+
+        final long numberOfRows = matrix.countColumns();
+        final long numberOfColumns = right.countColumns();
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+
+        if (matrix instanceof SparseStore) {
+            ((SparseStore<Double>) matrix).nonzeros().forEach(nonzero -> {
+                final long row = nonzero.row();
+                final long col = nonzero.column();
+                final double value = nonzero.doubleValue();
+                for (long j = 0L; j < numberOfColumns; j++) {
+                    retVal.add(col, j, value * right.doubleValue(row, j));
+                }
+            });
+        } else {
+            retVal.fillByMultiplying(matrix.transpose(), right);
+        }
+
+        return retVal;
+    }
+
+    static Primitive64Store orthonormalise(final MatrixStore<Double> vectors) {
+        final QR<Double> decomposition = QR.PRIMITIVE.make(vectors);
+        decomposition.decompose(vectors);
+        return Primitive64Store.FACTORY.copy(decomposition.getQ());
+    }
+
+    private int myColDim = 0;
+    private final int myOversampling;
+    private final int myPowerIterations;
+    private final int myRank;
+    private int myRowDim = 0;
+    private double[] mySingularValues = null;
+    private MatrixStore<Double> myU = null;
+    private MatrixStore<Double> myV = null;
+
+    RandomisedSingularValue(final int rank) {
+        this(rank, OVERSAMPLING, POWER_ITERATIONS);
+    }
+
+    RandomisedSingularValue(final int rank, final int oversampling, final int powerIterations) {
+
+        super(Primitive64Store.FACTORY);
+
+        myRank = rank;
+        myOversampling = oversampling;
+        myPowerIterations = powerIterations;
+    }
+
+    public boolean computeValuesOnly(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.compute(matrix, true);
+    }
+
+    public int countSignificant(final double threshold) {
+        int significant = 0;
+        for (int i = 0; i < mySingularValues.length; i++) {
+            if (mySingularValues[i] > threshold) {
+                significant++;
+            }
+        }
+        return significant;
+    }
+
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.compute(matrix, false);
+    }
+
+    public double getCondition() {
+        return mySingularValues[0] / mySingularValues[mySingularValues.length - 1];
+    }
+
+    public MatrixStore<Double> getCovariance() {
+
+        final int rank = this.getRank();
+
+        final MatrixStore<Double> tmp = myV.logical().limits(-1, rank).operateOnColumns(DIVIDE, this.getSingularValues()).get();
+
+        return tmp.multiply(tmp.transpose());
+    }
+
+    public MatrixStore<Double> getD() {
+        return this.makeDiagonal(this.getSingularValues()).get();
+    }
+
+    public double getFrobeniusNorm() {
+        double retVal = ZERO;
+        for (int i = mySingularValues.length - 1; i >= 0; i--) {
+            retVal += mySingularValues[i] * mySingularValues[i];
+        }
+        return SQRT.invoke(retVal);
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myColDim, myRowDim));
+    }
+
+    /**
+     * The pseudoinverse of the rank-truncated matrix, [V][D]<sup>-1</sup>[U]<sup>T</sup>.
+     */
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+
+        final int rank = this.getRank();
+
+        final MatrixStore<Double> scaled = myV.logical().limits(-1, rank).operateOnColumns(DIVIDE, this.getSingularValues()).get();
+
+        preallocated.fillByMultiplying(scaled, myU.logical().limits(-1, rank).transpose().get());
+
+        return preallocated;
+    }
+
+    public double getKyFanNorm(final int k) {
+        double retVal = ZERO;
+        for (int i = Math.min(mySingularValues.length, k) - 1; i >= 0; i--) {
+            retVal += mySingularValues[i];
+        }
+        return retVal;
+    }
+
+    public double getOperatorNorm() {
+        return mySingularValues[0];
+    }
+
+    public double getRankThreshold() {
+        return Math.max(MACHINE_SMALLEST, mySingularValues[0]) * this.getDimensionalEpsilon();
+    }
+
+    public Array1D<Double> getSingularValues() {
+        return Array1D.PRIMITIVE64.copy(mySingularValues);
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.allocate(myColDim, rhs.countColumns()));
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+
+        final int rank = this.getRank();
+
+        final MatrixStore<Double> projected = myU.logical().limits(-1, rank).transpose().get().multiply(this.collect(rhs));
+        final MatrixStore<Double> scaled = myV.logical().limits(-1, rank).operateOnColumns(DIVIDE, this.getSingularValues()).get();
+
+        preallocated.fillByMultiplying(scaled, projected);
+
+        return preallocated;
+    }
+
+    public double getTraceNorm() {
+        return this.getKyFanNorm(mySingularValues.length);
+    }
+
+    public MatrixStore<Double> getU() {
+        return myU;
+    }
+
+    public MatrixStore<Double> getV() {
+        return myV;
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public boolean isFullSize() {
+        return false;
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countColumns(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        mySingularValues = null;
+        myU = null;
+        myV = null;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            return this.getSolution(this.wrap(rhs), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    /**
+     * Only solvable if the truncation did not remove anything - the rank of the matrix is less than the
+     * requested number of singular values.
+     */
+    @Override
+    protected boolean checkSolvability() {
+        final int rank = this.getRank();
+        return (rank > 0) && ((rank < mySingularValues.length) || (mySingularValues.length == this.getMinDim()));
+    }
+
+    @Override
+    protected int getColDim() {
+        return myColDim;
+    }
+
+    @Override
+    protected int getRowDim() {
+        return myRowDim;
+    }
+
+    private boolean compute(final Collectable<Double, ? super PhysicalStore<Double>> matrix, final boolean valuesOnly) {
+
+        this.reset();
+
+        @SuppressWarnings("unchecked")
+        final MatrixStore<Double> mtrxA = matrix instanceof MatrixStore ? (MatrixStore<Double>) matrix : this.collect(matrix);
+
+        myRowDim = Math.toIntExact(mtrxA.countRows());
+        myColDim = Math.toIntExact(mtrxA.countColumns());
+
+        final int minDim = this.getMinDim();
+        final int rank = Math.min(myRank, minDim);
+        final int samples = Math.min(rank + myOversampling, minDim);
+
+        final Primitive64Store omega = Primitive64Store.FACTORY.makeFilled(myColDim, samples, new Normal());
+
+        Primitive64Store mtrxQ = RandomisedSingularValue.orthonormalise(mtrxA.multiply(omega));
+
+        for (int p = 0; p < myPowerIterations; p++) {
+            final Primitive64Store mtrxZ = RandomisedSingularValue.orthonormalise(RandomisedSingularValue.multiplyTransposed(mtrxA, mtrxQ));
+            mtrxQ = RandomisedSingularValue.orthonormalise(mtrxA.multiply(mtrxZ));
+        }
+
+        // [B]<sup>T</sup> = [A]<sup>T</sup>[Q] is tall, and [B] = [U<sub>B</sub>][D][V<sub>B</sub>]<sup>T</sup>
+        final Primitive64Store transposedB = RandomisedSingularValue.multiplyTransposed(mtrxA, mtrxQ);
+
+        final SingularValue<Double> small = SingularValue.PRIMITIVE.make(transposedB);
+        if (valuesOnly ? !small.computeValuesOnly(transposedB) : !small.decompose(transposedB)) {
+            return this.computed(false);
+        }
+
+        final Array1D<Double> values = small.getSingularValues();
+        mySingularValues = new double[rank];
+        for (int i = 0; i < rank; i++) {
+            mySingularValues[i] = values.doubleValue(i);
+        }
+
+        if (!valuesOnly) {
+            myU = mtrxQ.multiply(small.getV().logical().limits(-1, rank).get());
+            myV = Primitive64Store.FACTORY.copy(small.getU().logical().limits(-1, rank).get());
+        }
+
+        return this.computed(true);
+    }
+
+}
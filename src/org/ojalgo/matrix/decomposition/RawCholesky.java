@@ -24,18 +24,38 @@ package org.ojalgo.matrix.decomposition;
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.operation.AXPY;
 import org.ojalgo.array.operation.DOT;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.RawStore;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Access2D.Collectable;
 import org.ojalgo.structure.Structure2D;
 
-final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
+final class RawCholesky extends RawDecomposition implements Cholesky<Double>, MatrixDecomposition.Updatable<Double> {
 
+    /**
+     * Solves [A][x]=[b], in place, using the Cholesky decomposition [A]=[L][L]<sup>T</sup> stored row by row
+     * in data.
+     */
+    static void solve(final double[][] data, final int dim, final double[] vector) {
+
+        for (int i = 0; i < dim; i++) {
+            vector[i] = (vector[i] - DOT.invoke(data[i], 0, vector, 0, 0, i)) / data[i][i];
+        }
+
+        for (int i = dim - 1; i >= 0; i--) {
+            vector[i] /= data[i][i];
+            AXPY.invoke(vector, 0, -vector[i], data[i], 0, 0, i);
+        }
+    }
+
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
     private double myMaxDiag = ONE;
     private double myMinDiag = ZERO;
+    private double myNorm = NaN;
     private boolean mySPD = false;
 
     /**
@@ -98,6 +118,31 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         return this.doDecompose(retVal, tmpRawInPlaceStore);
     }
 
+    /**
+     * Rank-1 downdates of [L], one column of [V] at the time.
+     */
+    public boolean downdate(final Access2D<?> vectors) {
+        if (!mySPD) {
+            return this.updated(false);
+        }
+        return this.modified(CholeskyUpdate.modify(this.getInternalStore(), vectors, NEG));
+    }
+
+    @Override
+    public double estimateCondition() {
+
+        if (!this.isComputed() || !mySPD || Double.isNaN(myNorm)) {
+            return NaN;
+        }
+
+        final double[][] data = this.getInternalData();
+        final int dim = this.getRowDim();
+
+        final ConditionEstimator.Substitution solve = (vector, work) -> RawCholesky.solve(data, dim, vector);
+
+        return myNorm * myEstimator.estimate(dim, solve, solve);
+    }
+
     public Double getDeterminant() {
 
         final double[][] tmpData = this.getInternalData();
@@ -193,10 +238,31 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         }
     }
 
+    /**
+     * Rank-1 updates of [L], one column of [V] at the time.
+     */
+    public boolean update(final Access2D<?> vectors) {
+        if (!mySPD) {
+            return this.updated(false);
+        }
+        return this.modified(CholeskyUpdate.modify(this.getInternalStore(), vectors, ONE));
+    }
+
+    /**
+     * Replaces both row and column index.
+     */
+    public boolean updateColumn(final int index, final Access1D<?> column) {
+        if (!mySPD) {
+            return this.updated(false);
+        }
+        return this.modified(CholeskyUpdate.replace(this.getInternalStore(), index, column));
+    }
+
     private boolean doDecompose(final double[][] data, final Access2D<?> input) {
 
         final int tmpDiagDim = this.getRowDim();
         mySPD = (this.getColDim() == tmpDiagDim);
+        myNorm = mySPD ? ConditionEstimator.norm1Lower(input) : NaN;
         myMaxDiag = MACHINE_SMALLEST;
         myMinDiag = MACHINE_LARGEST;
 
@@ -244,9 +310,31 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         return preallocated;
     }
 
+    /**
+     * Recalculates the largest and smallest diagonal elements after [L] has been modified.
+     */
+    private boolean modified(final boolean positiveDefinite) {
+
+        final double[][] data = this.getInternalData();
+
+        myNorm = NaN;
+        myMaxDiag = MACHINE_SMALLEST;
+        myMinDiag = MACHINE_LARGEST;
+
+        if (positiveDefinite) {
+            for (int ij = 0, limit = this.getMinDim(); ij < limit; ij++) {
+                final double value = data[ij][ij] * data[ij][ij];
+                myMaxDiag = MAX.invoke(myMaxDiag, value);
+                myMinDiag = MIN.invoke(myMinDiag, value);
+            }
+        }
+
+        return this.updated(mySPD = positiveDefinite);
+    }
+
     @Override
     protected boolean checkSolvability() {
-        return mySPD && (myMinDiag > this.getRankThreshold());
+        return mySPD && (myMinDiag > this.getRankThreshold()) && ConditionEstimator.isAcceptable(this.estimateCondition());
     }
 
 }
@@ -38,6 +38,7 @@ import org.ojalgo.matrix.decomposition.function.ExchangeColumns;
 import org.ojalgo.matrix.decomposition.function.RotateRight;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.matrix.store.RawStore;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.PrimitiveScalar;
@@ -85,7 +86,7 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
         protected boolean doDecompose(final double[][] data, final boolean valuesOnly) {
 
             if (this.isHermitian()) {
-                this.doSymmetric(data, valuesOnly);
+                this.doSymmetric(data, valuesOnly, false);
             } else {
                 this.doGeneral(data, valuesOnly);
             }
@@ -121,8 +122,19 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
 
     static final class Symmetric extends RawEigenvalue implements MatrixDecomposition.Solver<Double> {
 
+        private final boolean myDivideAndConquer;
+
         Symmetric() {
+            this(false);
+        }
+
+        /**
+         * @param divideAndConquer Calculate the eigenvectors using {@link TridiagonalDivideAndConquer} rather
+         *        than the implicit QL algorithm
+         */
+        Symmetric(final boolean divideAndConquer) {
             super();
+            myDivideAndConquer = divideAndConquer;
         }
 
         public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
@@ -156,7 +168,7 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
         @Override
         protected boolean doDecompose(final double[][] data, final boolean valuesOnly) {
 
-            this.doSymmetric(data, valuesOnly);
+            this.doSymmetric(data, valuesOnly, myDivideAndConquer);
 
             return this.computed(true);
         }
@@ -407,7 +419,7 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
 
     }
 
-    final void doSymmetric(final double[][] data, final boolean valuesOnly) {
+    final void doSymmetric(final double[][] data, final boolean valuesOnly, final boolean divideAndConquer) {
 
         final int size = data.length;
         final int last = size - 1;
@@ -544,23 +556,45 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
 
         // Tridiagonalize > Diagonalize
 
-        final RotateRight tmpRotateRight = valuesOnly ? RotateRight.NULL : (low, high, cos, sin) -> {
-            final double[] tmpVi0 = data[low];
-            double tmpVi0k;
-            final double[] tmpVi1 = data[high];
-            double tmpVi1k;
+        if (divideAndConquer && !valuesOnly && (size > TridiagonalDivideAndConquer.LEAF)) {
 
-            for (int k = 0; k < size; k++) {
+            final Primitive64Store mtrxZ = Primitive64Store.FACTORY.make(size, size);
+            TridiagonalDivideAndConquer.solve(d, e, mtrxZ);
 
-                tmpVi0k = tmpVi0[k];
-                tmpVi1k = tmpVi1[k];
+            final Primitive64Store mtrxQ = Primitive64Store.FACTORY.make(size, size);
+            for (int j = 0; j < size; j++) {
+                System.arraycopy(data[j], 0, mtrxQ.data, j * size, size);
+            }
 
-                tmpVi0[k] = (cos * tmpVi0k) - (sin * tmpVi1k);
-                tmpVi1[k] = (sin * tmpVi0k) + (cos * tmpVi1k);
+            final MatrixStore<Double> mtrxV = mtrxQ.multiply(mtrxZ);
+            for (int j = 0; j < size; j++) {
+                final double[] colVj = data[j];
+                for (int i = 0; i < size; i++) {
+                    colVj[i] = mtrxV.doubleValue(i, j);
+                }
             }
 
-        };
-        HermitianEvD.tql2(d, e, tmpRotateRight);
+        } else {
+
+            final RotateRight tmpRotateRight = valuesOnly ? RotateRight.NULL : (low, high, cos, sin) -> {
+                final double[] tmpVi0 = data[low];
+                double tmpVi0k;
+                final double[] tmpVi1 = data[high];
+                double tmpVi1k;
+
+                for (int k = 0; k < size; k++) {
+
+                    tmpVi0k = tmpVi0[k];
+                    tmpVi1k = tmpVi1[k];
+
+                    tmpVi0[k] = (cos * tmpVi0k) - (sin * tmpVi1k);
+                    tmpVi1[k] = (sin * tmpVi0k) + (cos * tmpVi1k);
+                }
+
+            };
+
+            HermitianEvD.tql2(d, e, tmpRotateRight);
+        }
 
         // Diagonalize > Sort
 
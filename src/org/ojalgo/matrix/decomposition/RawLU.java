@@ -23,21 +23,69 @@ package org.ojalgo.matrix.decomposition;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.array.operation.DOT;
 import org.ojalgo.array.operation.SWAP;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.RawStore;
+import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.structure.Access2D.Collectable;
 import org.ojalgo.structure.Structure2D;
 import org.ojalgo.type.context.NumberContext;
 
-final class RawLU extends RawDecomposition implements LU<Double> {
+final class RawLU extends RawDecomposition implements LU<Double>, MatrixDecomposition.Updatable<Double> {
 
+    /**
+     * Solves [A][x]=[b], in place, using the LU decomposition [P][A]=[L][U] stored row by row in data.
+     */
+    static void solve(final double[][] data, final int dim, final int[] order, final double[] vector, final double[] work) {
+
+        for (int i = 0; i < dim; i++) {
+            work[i] = vector[order[i]];
+        }
+
+        for (int i = 0; i < dim; i++) {
+            work[i] -= DOT.invoke(data[i], 0, work, 0, 0, i);
+        }
+
+        for (int i = dim - 1; i >= 0; i--) {
+            work[i] = (work[i] - DOT.invoke(data[i], 0, work, 0, i + 1, dim)) / data[i][i];
+        }
+
+        System.arraycopy(work, 0, vector, 0, dim);
+    }
+
+    /**
+     * Solves [A]<sup>T</sup>[x]=[b], in place, using the LU decomposition [P][A]=[L][U] stored row by row in
+     * data.
+     */
+    static void solveTransposed(final double[][] data, final int dim, final int[] order, final double[] vector, final double[] work) {
+
+        for (int i = 0; i < dim; i++) {
+            vector[i] /= data[i][i];
+            AXPY.invoke(vector, 0, -vector[i], data[i], 0, i + 1, dim);
+        }
+
+        for (int i = dim - 1; i >= 0; i--) {
+            AXPY.invoke(vector, 0, -vector[i], data[i], 0, 0, i);
+        }
+
+        for (int i = 0; i < dim; i++) {
+            work[order[i]] = vector[i];
+        }
+
+        System.arraycopy(work, 0, vector, 0, dim);
+    }
+
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
+    private double myNorm = NaN;
     private final Pivot myPivot = new Pivot();
+    private ForrestTomlin myUpdates = null;
 
     /**
      * Not recommended to use this constructor directly. Consider using the static factory method
@@ -60,6 +108,10 @@ final class RawLU extends RawDecomposition implements LU<Double> {
 
     public int countSignificant(final double threshold) {
 
+        if (myUpdates != null) {
+            return myUpdates.countSignificant(threshold);
+        }
+
         RawStore internal = this.getInternalStore();
 
         int significant = 0;
@@ -90,12 +142,30 @@ final class RawLU extends RawDecomposition implements LU<Double> {
         return this.doDecompose(data, false);
     }
 
+    @Override
+    public double estimateCondition() {
+
+        if (!this.isComputed() || !this.isSquare() || (myUpdates != null)) {
+            return NaN;
+        }
+
+        final double[][] data = this.getInternalData();
+        final int dim = this.getRowDim();
+        final int[] order = myPivot.getOrder();
+
+        return myNorm * myEstimator.estimate(dim, (vector, work) -> RawLU.solve(data, dim, order, vector, work),
+                (vector, work) -> RawLU.solveTransposed(data, dim, order, vector, work));
+    }
+
     public Double getDeterminant() {
         final int m = this.getRowDim();
         final int n = this.getColDim();
         if (m != n) {
             throw new IllegalArgumentException("RawStore must be square.");
         }
+        if (myUpdates != null) {
+            return myPivot.signum() * myUpdates.getDiagonalProduct();
+        }
         final double[][] LU = this.getInternalData();
         double d = myPivot.signum();
         for (int j = 0; j < n; j++) {
@@ -114,6 +184,9 @@ final class RawLU extends RawDecomposition implements LU<Double> {
     }
 
     public MatrixStore<Double> getL() {
+        if (myUpdates != null) {
+            return myUpdates.getL();
+        }
         return this.getInternalStore().logical().triangular(false, true).get();
     }
 
@@ -123,7 +196,7 @@ final class RawLU extends RawDecomposition implements LU<Double> {
 
     public double getRankThreshold() {
 
-        double largest = this.getInternalStore().aggregateDiagonal(Aggregator.LARGEST);
+        double largest = myUpdates != null ? myUpdates.getLargestDiagonal() : this.getInternalStore().aggregateDiagonal(Aggregator.LARGEST);
         double epsilon = this.getDimensionalEpsilon();
 
         return epsilon * Math.max(MACHINE_SMALLEST, largest);
@@ -143,6 +216,9 @@ final class RawLU extends RawDecomposition implements LU<Double> {
     }
 
     public MatrixStore<Double> getU() {
+        if (myUpdates != null) {
+            return myUpdates.getU();
+        }
         return this.getInternalStore().logical().triangular(true, false).get();
     }
 
@@ -162,6 +238,14 @@ final class RawLU extends RawDecomposition implements LU<Double> {
         }
     }
 
+    /**
+     * Not supported - LU decompositions can only have columns replaced.
+     */
+    public boolean downdate(final Access2D<?> vectors) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
     public boolean isPivoted() {
         return myPivot.isModified();
     }
@@ -199,12 +283,39 @@ final class RawLU extends RawDecomposition implements LU<Double> {
         }
     }
 
+    /**
+     * Not supported - LU decompositions can only have columns replaced.
+     */
+    public boolean update(final Access2D<?> vectors) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
+    /**
+     * Forrest-Tomlin update. [L] is kept as is, while [U] is copied (the first time) and then modified. After
+     * an update [L] and [U] are only triangular in a permuted order, but still [P][A] = [L][U].
+     */
+    public boolean updateColumn(final int index, final Access1D<?> column) {
+
+        if (!this.isComputed() || !this.isSquare()) {
+            return this.updated(false);
+        }
+
+        if (myUpdates == null) {
+            myUpdates = new ForrestTomlin(this.getInternalStore(), myPivot.getOrder());
+        }
+
+        return this.updated(myUpdates.replace(index, column));
+    }
+
     private boolean doDecompose(final double[][] data, final boolean pivoting) {
 
         final int m = this.getRowDim();
         final int n = this.getColDim();
 
         myPivot.reset(m);
+        myUpdates = null;
+        myNorm = ConditionEstimator.norm1(this.getInternalStore());
 
         double[] rowP;
         double[] rowI;
@@ -263,7 +374,11 @@ final class RawLU extends RawDecomposition implements LU<Double> {
 
         preallocated.substituteForwards(body, true, false, !myPivot.isModified());
 
-        preallocated.substituteBackwards(body, false, false, false);
+        if (myUpdates != null) {
+            myUpdates.solve(preallocated);
+        } else {
+            preallocated.substituteBackwards(body, false, false, false);
+        }
 
         return preallocated;
     }
@@ -274,14 +389,18 @@ final class RawLU extends RawDecomposition implements LU<Double> {
 
         preallocated.substituteForwards(body, true, false, false);
 
-        preallocated.substituteBackwards(body, false, false, false);
+        if (myUpdates != null) {
+            myUpdates.solve(preallocated);
+        } else {
+            preallocated.substituteBackwards(body, false, false, false);
+        }
 
         return preallocated;
     }
 
     @Override
     protected boolean checkSolvability() {
-        return this.isSquare() && this.isFullRank();
+        return this.isSquare() && this.isFullRank() && ConditionEstimator.isAcceptable(this.estimateCondition());
     }
 
 }
@@ -49,12 +49,34 @@ import org.ojalgo.structure.Structure2D;
  */
 final class RawQR extends RawDecomposition implements QR<Double> {
 
+    /**
+     * Solves [R][x]=[b], in place, with the diagonal of [R] in diagonal and the rest stored column by column
+     * in data.
+     */
+    static void solveR(final double[][] data, final double[] diagonal, final int dim, final double[] vector) {
+        for (int j = dim - 1; j >= 0; j--) {
+            vector[j] /= diagonal[j];
+            AXPY.invoke(vector, 0, -vector[j], data[j], 0, 0, j);
+        }
+    }
+
+    /**
+     * Solves [R]<sup>T</sup>[x]=[b], in place, with the diagonal of [R] in diagonal and the rest stored column
+     * by column in data.
+     */
+    static void solveTransposedR(final double[][] data, final double[] diagonal, final int dim, final double[] vector) {
+        for (int j = 0; j < dim; j++) {
+            vector[j] = (vector[j] - DOT.invoke(data[j], 0, vector, 0, 0, j)) / diagonal[j];
+        }
+    }
+
     /**
      * Array for internal storage of diagonal of R.
      *
      * @serial diagonal of R.
      */
     private double[] myDiagonalR;
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
     private int myNumberOfHouseholderTransformations = 0;
 
     /**
@@ -105,6 +127,33 @@ final class RawQR extends RawDecomposition implements QR<Double> {
         return this.doDecompose(retVal);
     }
 
+    /**
+     * Estimates the condition number of [R] - the 1-norm condition of [A] is within a factor n of that.
+     */
+    @Override
+    public double estimateCondition() {
+
+        if (!this.isComputed() || !this.isAspectRatioNormal()) {
+            return NaN;
+        }
+
+        final double[][] data = this.getInternalData();
+        final double[] diagonal = myDiagonalR;
+        final int dim = this.getColDim();
+
+        double norm = ZERO;
+        for (int j = 0; j < dim; j++) {
+            double sum = Math.abs(diagonal[j]);
+            for (int i = 0; i < j; i++) {
+                sum += Math.abs(data[j][i]);
+            }
+            norm = Math.max(norm, sum);
+        }
+
+        return norm * myEstimator.estimate(dim, (vector, work) -> RawQR.solveR(data, diagonal, dim, vector),
+                (vector, work) -> RawQR.solveTransposedR(data, diagonal, dim, vector));
+    }
+
     public Double getDeterminant() {
 
         final AggregatorFunction<Double> aggregator = PrimitiveAggregator.getSet().product();
@@ -285,7 +334,9 @@ final class RawQR extends RawDecomposition implements QR<Double> {
         final int m = this.getRowDim();
         final int n = this.getColDim();
 
-        myDiagonalR = new double[n];
+        if ((myDiagonalR == null) || (myDiagonalR.length != n)) {
+            myDiagonalR = new double[n];
+        }
 
         double[] tmpColK;
         double nrm;
@@ -382,7 +433,7 @@ final class RawQR extends RawDecomposition implements QR<Double> {
 
     @Override
     protected boolean checkSolvability() {
-        return this.isAspectRatioNormal() && this.isFullRank();
+        return this.isAspectRatioNormal() && this.isFullRank() && ConditionEstimator.isAcceptable(this.estimateCondition());
     }
 
 }
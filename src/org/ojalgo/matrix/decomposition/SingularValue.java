@@ -168,6 +168,28 @@ public interface SingularValue<N extends Comparable<N>> extends MatrixDecomposit
         }
     }
 
+    /**
+     * Randomised (Halko, Martinsson &amp; Tropp) truncated SVD - only the rank largest singular values and
+     * vectors are calculated. Much faster than a full SVD when rank is small relative to the matrix
+     * dimensions, and the matrix only needs to support multiplication, so it may be sparse.
+     *
+     * @param rank The number of singular values/vectors to calculate
+     */
+    static Factory<Double> randomised(final int rank) {
+        return SingularValue.randomised(rank, RandomisedSingularValue.OVERSAMPLING, RandomisedSingularValue.POWER_ITERATIONS);
+    }
+
+    /**
+     * @param rank The number of singular values/vectors to calculate
+     * @param oversampling The number of extra random samples (10 is usually enough)
+     * @param powerIterations The number of power iterations - improves the accuracy when the singular values
+     *        decay slowly
+     * @see #randomised(int)
+     */
+    static Factory<Double> randomised(final int rank, final int oversampling, final int powerIterations) {
+        return (typical, fullSize) -> fullSize ? PRIMITIVE.make(typical, fullSize) : new RandomisedSingularValue(rank, oversampling, powerIterations);
+    }
+
     /**
      * @deprecated v48 Use {@link #reconstruct()} instead
      */
@@ -176,6 +198,15 @@ public interface SingularValue<N extends Comparable<N>> extends MatrixDecomposit
         return decomposition.reconstruct();
     }
 
+    /**
+     * With the singular values already calculated the (2-norm) condition number is known exactly.
+     *
+     * @see #getCondition()
+     */
+    default double estimateCondition() {
+        return this.getCondition();
+    }
+
     /**
      * The condition number.
      *
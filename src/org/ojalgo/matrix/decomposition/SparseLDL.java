@@ -0,0 +1,649 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.ElementView2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Sparse LDL<sup>T</sup> decomposition of symmetric matrices: [P][A][P]<sup>T</sup> = [L][D][L]<sup>T</sup>
+ * where [P] is a fill reducing (approximate minimum degree) permutation.
+ * <p>
+ * Only the lower triangular part of the matrix is read, and it is never copied to a dense matrix - if it's a
+ * {@link SparseStore} only the nonzero elements are visited. The decomposition is done in two phases:
+ * <ol>
+ * <li>Symbolic analysis - the ordering, the elimination tree and the number of nonzeros in each column of
+ * [L]. This is done once for each sparsity pattern. Decomposing another matrix with the same pattern (the
+ * same nonzero positions) re-uses it.</li>
+ * <li>Numeric factorisation - row by row ("up-looking"), where the nonzero pattern of each row of [L] is found
+ * by traversing the elimination tree.</li>
+ * </ol>
+ * There is no numerical pivoting. Any symmetric permutation of a positive definite, or quasi-definite
+ * ([H, A<sup>T</sup>; A, -G] with H and G positive definite), matrix can be factorised this way. Other
+ * indefinite matrices may break down with a zero pivot, in which case the decomposition fails.
+ * {@link #decomposeWithoutPivoting(Collectable)} skips the fill reducing ordering.
+ *
+ * @author apete
+ */
+final class SparseLDL extends GenericDecomposition<Double> implements LDL<Double> {
+
+    /**
+     * The lower triangular part of a symmetric matrix in compressed column format, with the row indices of
+     * each column in increasing order.
+     */
+    static final class Pattern {
+
+        final int dim;
+        final int[] indices;
+        final int[] pointers;
+
+        Pattern(final int dim, final int[] pointers, final int[] indices) {
+            super();
+            this.dim = dim;
+            this.pointers = pointers;
+            this.indices = indices;
+        }
+
+        boolean isSame(final Pattern other) {
+            return (other != null) && (dim == other.dim) && Arrays.equals(pointers, other.pointers) && Arrays.equals(indices, other.indices);
+        }
+
+    }
+
+    /**
+     * Solves [A][x] = [b] in place, given the permuted factors.
+     */
+    static void solve(final int[] pointers, final int[] indices, final double[] values, final double[] diagonal, final int[] order, final double[] vector,
+            final double[] work) {
+
+        final int dim = diagonal.length;
+
+        for (int k = 0; k < dim; k++) {
+            work[k] = vector[order[k]];
+        }
+
+        for (int j = 0; j < dim; j++) {
+            final double value = work[j];
+            if (value != ZERO) {
+                for (int p = pointers[j], limit = pointers[j + 1]; p < limit; p++) {
+                    work[indices[p]] -= values[p] * value;
+                }
+            }
+        }
+
+        for (int j = 0; j < dim; j++) {
+            work[j] /= diagonal[j];
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            double value = work[j];
+            for (int p = pointers[j], limit = pointers[j + 1]; p < limit; p++) {
+                value -= values[p] * work[indices[p]];
+            }
+            work[j] = value;
+        }
+
+        for (int k = 0; k < dim; k++) {
+            vector[order[k]] = work[k];
+        }
+    }
+
+    /**
+     * Extracts the nonzero elements of the lower triangular part, column by column.
+     *
+     * @return The values, and the pattern via the receiver array
+     */
+    private static double[] extract(final MatrixStore<Double> matrix, final Pattern[] receiver) {
+
+        final int dim = Math.toIntExact(matrix.countRows());
+
+        final int[] pointers = new int[dim + 1];
+        int capacity = Math.max(16, 2 * dim);
+        int[] indices = new int[capacity];
+        double[] values = new double[capacity];
+        int count = 0;
+
+        if (matrix instanceof SparseStore<?>) {
+
+            // The nonzeros are visited in column-major order
+            for (final ElementView2D<Double, ?> element : ((SparseStore<Double>) matrix).nonzeros()) {
+                final int row = (int) element.row();
+                final int col = (int) element.column();
+                final double value = element.doubleValue();
+                if ((row >= col) && (value != ZERO)) {
+                    if (count == capacity) {
+                        capacity += capacity / 2;
+                        indices = Arrays.copyOf(indices, capacity);
+                        values = Arrays.copyOf(values, capacity);
+                    }
+                    indices[count] = row;
+                    values[count] = value;
+                    count++;
+                    pointers[col + 1]++;
+                }
+            }
+            for (int j = 0; j < dim; j++) {
+                pointers[j + 1] += pointers[j];
+            }
+
+        } else {
+
+            for (int j = 0; j < dim; j++) {
+                for (int i = Math.max(j, matrix.firstInColumn(j)), limit = matrix.limitOfColumn(j); i < limit; i++) {
+                    final double value = matrix.doubleValue(i, j);
+                    if (value != ZERO) {
+                        if (count == capacity) {
+                            capacity += capacity / 2;
+                            indices = Arrays.copyOf(indices, capacity);
+                            values = Arrays.copyOf(values, capacity);
+                        }
+                        indices[count] = i;
+                        values[count] = value;
+                        count++;
+                    }
+                }
+                pointers[j + 1] = count;
+            }
+        }
+
+        receiver[0] = new Pattern(dim, pointers, Arrays.copyOf(indices, count));
+
+        return values;
+    }
+
+    /**
+     * Column counts of the full (both triangles) pattern
+     */
+    private static int[] symmetric(final Pattern lower) {
+
+        final int dim = lower.dim;
+        final int[] retVal = new int[dim + 1];
+
+        for (int j = 0; j < dim; j++) {
+            for (int p = lower.pointers[j]; p < lower.pointers[j + 1]; p++) {
+                final int i = lower.indices[p];
+                retVal[j + 1]++;
+                if (i != j) {
+                    retVal[i + 1]++;
+                }
+            }
+        }
+        for (int j = 0; j < dim; j++) {
+            retVal[j + 1] += retVal[j];
+        }
+
+        return retVal;
+    }
+
+    private double[] myD = null;
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
+    private boolean myFillReducing = true;
+    /**
+     * The (strictly lower) elements of [L] by column. myLowerCounts are the number of elements currently in
+     * each column, and the final counts when the numeric factorisation is complete.
+     */
+    private int[] myLowerCounts = null;
+    private int[] myLowerIndices = null;
+    private int[] myLowerPointers = null;
+    private double[] myLowerValues = null;
+    private double myNorm = NaN;
+    private int[] myOrder = null;
+    private int[] myOrderInverse = null;
+    private int[] myParent = null;
+    private Pattern myPattern = null;
+    /**
+     * The full (both triangles) matrix in compressed column format
+     */
+    private int[] mySymmetricIndices = null;
+    private int[] mySymmetricPointers = null;
+    private double[] mySymmetricValues = null;
+    private int[] myWorkFlags = null;
+    private int[] myWorkPattern = null;
+    private double[] myWorkValues = null;
+
+    SparseLDL() {
+        super(Primitive64Store.FACTORY);
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.decompose(this.wrap(matrix));
+        return this.getDeterminant();
+    }
+
+    public int countSignificant(final double threshold) {
+        int significant = 0;
+        for (int ij = 0; ij < myD.length; ij++) {
+            if (Math.abs(myD[ij]) > threshold) {
+                significant++;
+            }
+        }
+        return significant;
+    }
+
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.doDecompose(matrix, true);
+    }
+
+    @Override
+    public boolean decomposeWithoutPivoting(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.doDecompose(matrix, false);
+    }
+
+    /**
+     * The 1-norm condition number estimated using {@link ConditionEstimator}.
+     */
+    public double estimateCondition() {
+
+        if (!this.isComputed()) {
+            return NaN;
+        }
+
+        final ConditionEstimator.Substitution substitution = (vector, work) -> SparseLDL.solve(myLowerPointers, myLowerIndices, myLowerValues, myD, myOrder,
+                vector, work);
+
+        return myNorm * myEstimator.estimate(myD.length, substitution, substitution);
+    }
+
+    public MatrixStore<Double> getD() {
+        return this.makeDiagonal(Primitive64Array.wrap(myD)).get();
+    }
+
+    public Double getDeterminant() {
+        double retVal = ONE;
+        for (int ij = 0; ij < myD.length; ij++) {
+            retVal *= myD[ij];
+        }
+        return retVal;
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myD.length, myD.length));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+        return this.getSolution(this.makeIdentity(myD.length), preallocated);
+    }
+
+    /**
+     * A {@link SparseStore} with the (unit) diagonal and the strictly lower elements.
+     */
+    @Override
+    public MatrixStore<Double> getL() {
+
+        final int dim = myD.length;
+
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int j = 0; j < dim; j++) {
+            retVal.set(j, j, ONE);
+            for (int p = myLowerPointers[j], limit = myLowerPointers[j + 1]; p < limit; p++) {
+                retVal.set(myLowerIndices[p], j, myLowerValues[p]);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The fill reducing ordering - row/column k of [L][D][L]<sup>T</sup> corresponds to row/column order[k]
+     * of [A].
+     */
+    public int[] getPivotOrder() {
+        return myOrder;
+    }
+
+    public double getRankThreshold() {
+
+        double largest = ZERO;
+        for (int ij = 0; ij < myD.length; ij++) {
+            largest = Math.max(largest, Math.abs(myD[ij]));
+        }
+
+        return this.getDimensionalEpsilon() * Math.max(MACHINE_SMALLEST, largest);
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.preallocate(this, rhs));
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+
+        final MatrixStore<Double> body = this.collect(rhs);
+
+        final int dim = myD.length;
+        final int numberOfColumns = (int) body.countColumns();
+
+        // Allocated per call, never the kept work array, so several threads can solve at the same time
+        final double[] vector = new double[dim];
+        final double[] work = new double[dim];
+
+        for (int j = 0; j < numberOfColumns; j++) {
+
+            for (int i = 0; i < dim; i++) {
+                vector[i] = body.doubleValue(i, j);
+            }
+
+            SparseLDL.solve(myLowerPointers, myLowerIndices, myLowerValues, myD, myOrder, vector, work);
+
+            for (int i = 0; i < dim; i++) {
+                preallocated.set(i, j, vector[i]);
+            }
+        }
+
+        return preallocated;
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public boolean isPivoted() {
+        if (myOrder != null) {
+            for (int i = 0; i < myOrder.length; i++) {
+                if (myOrder[i] != i) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        final long tmpCountRows = template.countRows();
+        return this.allocate(tmpCountRows, tmpCountRows);
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateRHS.countRows(), templateRHS.countColumns());
+    }
+
+    /**
+     * The default implementation applies the pivot order the wrong way around for general permutations.
+     */
+    @Override
+    public MatrixStore<Double> reconstruct() {
+        final MatrixStore<Double> mtrxL = this.getL();
+        return mtrxL.multiply(this.getD()).multiply(mtrxL.transpose()).logical().row(myOrderInverse).column(myOrderInverse).get();
+    }
+
+    /**
+     * Forgets the numeric factorisation, but keeps the symbolic analysis of the latest sparsity pattern.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        myNorm = NaN;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            return this.getSolution(this.wrap(rhs), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    /**
+     * The ordering, the elimination tree and the column counts of [L] (Liu's algorithm, as in Davis' LDL
+     * package).
+     */
+    private void analyse(final Pattern lower, final boolean fillReducing) {
+
+        final int dim = lower.dim;
+
+        final int[] pointers = SparseLDL.symmetric(lower);
+        final int[] indices = new int[pointers[dim]];
+        final int[] next = Arrays.copyOf(pointers, dim);
+        for (int j = 0; j < dim; j++) {
+            for (int p = lower.pointers[j]; p < lower.pointers[j + 1]; p++) {
+                final int i = lower.indices[p];
+                indices[next[j]++] = i;
+                if (i != j) {
+                    indices[next[i]++] = j;
+                }
+            }
+        }
+
+        final int[] order = fillReducing ? ApproximateMinimumDegree.order(dim, pointers, indices) : new int[dim];
+        final int[] inverse = new int[dim];
+        for (int k = 0; k < dim; k++) {
+            if (!fillReducing) {
+                order[k] = k;
+            }
+            inverse[order[k]] = k;
+        }
+
+        final int[] parent = new int[dim];
+        final int[] counts = new int[dim];
+        final int[] flags = new int[dim];
+
+        for (int k = 0; k < dim; k++) {
+            parent[k] = -1;
+            flags[k] = k;
+            final int column = order[k];
+            for (int p = pointers[column]; p < pointers[column + 1]; p++) {
+                int i = inverse[indices[p]];
+                if (i < k) {
+                    // Follow the path from i to the root of the etree, stopping at a flagged node
+                    for (; flags[i] != k; i = parent[i]) {
+                        if (parent[i] == -1) {
+                            parent[i] = k;
+                        }
+                        counts[i]++;
+                        flags[i] = k;
+                    }
+                }
+            }
+        }
+
+        final int[] lowerPointers = new int[dim + 1];
+        for (int k = 0; k < dim; k++) {
+            lowerPointers[k + 1] = lowerPointers[k] + counts[k];
+        }
+
+        myPattern = lower;
+        myFillReducing = fillReducing;
+        mySymmetricPointers = pointers;
+        mySymmetricIndices = indices;
+        mySymmetricValues = new double[indices.length];
+        myOrder = order;
+        myOrderInverse = inverse;
+        myParent = parent;
+        myLowerPointers = lowerPointers;
+        myLowerCounts = counts;
+        myLowerIndices = new int[lowerPointers[dim]];
+        myLowerValues = new double[lowerPointers[dim]];
+        myD = new double[dim];
+        myWorkFlags = new int[dim];
+        myWorkPattern = new int[dim];
+        myWorkValues = new double[dim];
+    }
+
+    private boolean doDecompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix, final boolean fillReducing) {
+
+        this.reset();
+
+        final Pattern[] pattern = new Pattern[1];
+        final double[] values = SparseLDL.extract(this.collect(matrix), pattern);
+
+        if (!pattern[0].isSame(myPattern) || (fillReducing != myFillReducing)) {
+            this.analyse(pattern[0], fillReducing);
+        }
+
+        final int dim = myPattern.dim;
+
+        // Scatter the lower triangle values to the full (both triangles) matrix
+        final int[] next = Arrays.copyOf(mySymmetricPointers, dim);
+        for (int j = 0; j < dim; j++) {
+            for (int p = myPattern.pointers[j]; p < myPattern.pointers[j + 1]; p++) {
+                final int i = myPattern.indices[p];
+                mySymmetricValues[next[j]++] = values[p];
+                if (i != j) {
+                    mySymmetricValues[next[i]++] = values[p];
+                }
+            }
+        }
+
+        myNorm = ZERO;
+        for (int j = 0; j < dim; j++) {
+            double sum = ZERO;
+            for (int p = mySymmetricPointers[j]; p < mySymmetricPointers[j + 1]; p++) {
+                sum += Math.abs(mySymmetricValues[p]);
+            }
+            myNorm = Math.max(myNorm, sum);
+        }
+
+        return this.computed(this.factorise());
+    }
+
+    /**
+     * Up-looking numeric factorisation (Davis' LDL package). Row k of [L] is the solution to a triangular
+     * system with the rows above, and its nonzero pattern is the set of nodes reached from the nonzeros in
+     * column k of [A] (above the diagonal) when walking up the elimination tree.
+     *
+     * @return false if a zero pivot was encountered
+     */
+    private boolean factorise() {
+
+        final int dim = myPattern.dim;
+
+        final int[] pointers = mySymmetricPointers;
+        final int[] indices = mySymmetricIndices;
+        final double[] values = mySymmetricValues;
+
+        final int[] order = myOrder;
+        final int[] inverse = myOrderInverse;
+        final int[] parent = myParent;
+
+        final int[] lowerPointers = myLowerPointers;
+        final int[] lowerCounts = myLowerCounts;
+        final int[] lowerIndices = myLowerIndices;
+        final double[] lowerValues = myLowerValues;
+        final double[] diagonal = myD;
+
+        final int[] flags = myWorkFlags;
+        final int[] rowPattern = myWorkPattern;
+        final double[] accumulator = myWorkValues;
+
+        for (int k = 0; k < dim; k++) {
+
+            accumulator[k] = ZERO;
+            int top = dim;
+            flags[k] = k;
+            lowerCounts[k] = 0;
+
+            final int column = order[k];
+            for (int p = pointers[column]; p < pointers[column + 1]; p++) {
+                int i = inverse[indices[p]];
+                if (i <= k) {
+                    accumulator[i] += values[p];
+                    int length = 0;
+                    for (; flags[i] != k; i = parent[i]) {
+                        rowPattern[length++] = i;
+                        flags[i] = k;
+                    }
+                    while (length > 0) {
+                        rowPattern[--top] = rowPattern[--length];
+                    }
+                }
+            }
+
+            double pivot = accumulator[k];
+            accumulator[k] = ZERO;
+
+            for (; top < dim; top++) {
+
+                final int i = rowPattern[top];
+                final double value = accumulator[i];
+                accumulator[i] = ZERO;
+
+                final int limit = lowerPointers[i] + lowerCounts[i];
+                for (int p = lowerPointers[i]; p < limit; p++) {
+                    accumulator[lowerIndices[p]] -= lowerValues[p] * value;
+                }
+
+                final double multiplier = value / diagonal[i];
+                pivot -= multiplier * value;
+
+                lowerIndices[limit] = k;
+                lowerValues[limit] = multiplier;
+                lowerCounts[i]++;
+            }
+
+            if (pivot == ZERO) {
+                return false;
+            }
+
+            diagonal[k] = pivot;
+        }
+
+        return true;
+    }
+
+    /**
+     * Without pivoting small elements in [D] do not necessarily mean the matrix is (nearly) singular - with
+     * quasi-definite matrices they're expected. Solvable if the factorisation completed with finite pivots and
+     * the condition number estimate is acceptable.
+     */
+    @Override
+    protected boolean checkSolvability() {
+        for (int ij = 0; ij < myD.length; ij++) {
+            if (!Double.isFinite(myD[ij])) {
+                return false;
+            }
+        }
+        return ConditionEstimator.isAcceptable(this.estimateCondition());
+    }
+
+    @Override
+    protected int getColDim() {
+        return myPattern != null ? myPattern.dim : 0;
+    }
+
+    @Override
+    protected int getRowDim() {
+        return myPattern != null ? myPattern.dim : 0;
+    }
+
+}
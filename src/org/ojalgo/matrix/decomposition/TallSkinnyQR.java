@@ -0,0 +1,519 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.concurrent.ExecutionContext;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Tall-skinny (communication avoiding) QR decomposition. The rows are split in a number of blocks that are
+ * decomposed independently (in parallel), and then the resulting R factors are pairwise stacked and
+ * decomposed again, in a binary tree, until a single R remains. Q is never formed unless explicitly asked
+ * for - it is the product of the (block diagonal) factors at each level of the tree.
+ * <p>
+ * The number of leaf blocks is limited by the available parallelism, and each block has at least
+ * {@value #MINIMUM_BLOCK_ROWS} rows (or 4 times the number of columns if that is larger). With a single
+ * block this is the same as {@link QRDecomposition.Blocked}.
+ *
+ * @author apete
+ */
+final class TallSkinnyQR extends GenericDecomposition<Double> implements QR<Double> {
+
+    /**
+     * Accumulates the R factor of the augmented matrix [A|B] from row blocks added one at the time (possibly
+     * concurrently from several threads). Only an R of size (n+k)x(n+k) is retained between calls.
+     */
+    static final class Streamed implements QR.Accumulator {
+
+        private long myCountRows = 0L;
+        private final int myNumberOfColumns;
+        private final int myNumberOfRHS;
+        private Primitive64Store myR = null;
+
+        Streamed(final int numberOfColumns, final int numberOfRHS) {
+            super();
+            myNumberOfColumns = numberOfColumns;
+            myNumberOfRHS = numberOfRHS;
+        }
+
+        public void add(final Access2D<?> body, final Access2D<?> rhs) {
+
+            final int numberOfRows = (int) body.countRows();
+            final int width = myNumberOfColumns + myNumberOfRHS;
+
+            if ((body.countColumns() != myNumberOfColumns) || ((myNumberOfRHS > 0) && ((rhs == null) || (rhs.countColumns() != myNumberOfRHS)))) {
+                throw new ProgrammingError("Wrong number of columns!");
+            }
+
+            if (numberOfRows == 0) {
+                return;
+            }
+
+            Primitive64Store block = Primitive64Store.FACTORY.make(numberOfRows, width);
+            for (int j = 0; j < myNumberOfColumns; j++) {
+                for (int i = 0; i < numberOfRows; i++) {
+                    block.set(i, j, body.doubleValue(i, j));
+                }
+            }
+            for (int j = 0; j < myNumberOfRHS; j++) {
+                for (int i = 0; i < numberOfRows; i++) {
+                    block.set(i, myNumberOfColumns + j, rhs.doubleValue(i, j));
+                }
+            }
+
+            // Reduce the block to a triangle before entering the synchronised part - also when it's short, as it
+            // may be the first block and then it's used as R directly
+            QRDecomposition.Blocked reduction = new QRDecomposition.Blocked();
+            reduction.decompose(block);
+            block = TallSkinnyQR.triangle(reduction.getInPlace(), Math.min(numberOfRows, width), width);
+
+            synchronized (this) {
+
+                if (myR != null) {
+                    QRDecomposition.Blocked decomposition = new QRDecomposition.Blocked();
+                    decomposition.decompose(TallSkinnyQR.stack(myR, block));
+                    myR = TallSkinnyQR.triangle(decomposition.getInPlace(), Math.min(decomposition.getRowDim(), width), width);
+                } else {
+                    myR = block;
+                }
+
+                myCountRows += numberOfRows;
+            }
+        }
+
+        public synchronized long countRows() {
+            return myCountRows;
+        }
+
+        public synchronized MatrixStore<Double> getR() {
+            if (myR == null) {
+                return Primitive64Store.FACTORY.make(0, myNumberOfColumns);
+            } else {
+                return myR.logical().limits(Math.min(myR.countRows(), myNumberOfColumns), myNumberOfColumns).get();
+            }
+        }
+
+        public synchronized MatrixStore<Double> getSolution() {
+
+            if ((myR == null) || (myR.countRows() < myNumberOfColumns)) {
+                throw new ProgrammingError("Not enough rows added!");
+            }
+
+            final Primitive64Store retVal = Primitive64Store.FACTORY.make(myNumberOfColumns, myNumberOfRHS);
+            for (int j = 0; j < myNumberOfRHS; j++) {
+                for (int i = 0; i < myNumberOfColumns; i++) {
+                    retVal.set(i, j, myR.doubleValue(i, myNumberOfColumns + j));
+                }
+            }
+
+            retVal.substituteBackwards(myR.logical().limits(myNumberOfColumns, myNumberOfColumns).get(), false, false, false);
+
+            return retVal;
+        }
+
+    }
+
+    static final int MINIMUM_BLOCK_ROWS = 256;
+
+    /**
+     * Rows [first, first+numberOfRows) of a column-major array with the given structure
+     */
+    static Primitive64Store rows(final Primitive64Store source, final int first, final int numberOfRows) {
+
+        final int structure = (int) source.countRows();
+        final int numberOfColumns = (int) source.countColumns();
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+
+        for (int j = 0; j < numberOfColumns; j++) {
+            System.arraycopy(source.data, first + (j * structure), retVal.data, j * numberOfRows, numberOfRows);
+        }
+
+        return retVal;
+    }
+
+    static Primitive64Store stack(final Primitive64Store upper, final Primitive64Store lower) {
+
+        final int upperRows = (int) upper.countRows();
+        final int lowerRows = (int) lower.countRows();
+        final int numberOfColumns = (int) upper.countColumns();
+        final int structure = upperRows + lowerRows;
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(structure, numberOfColumns);
+
+        for (int j = 0; j < numberOfColumns; j++) {
+            System.arraycopy(upper.data, j * upperRows, retVal.data, j * structure, upperRows);
+            System.arraycopy(lower.data, j * lowerRows, retVal.data, upperRows + (j * structure), lowerRows);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The upper triangular part of the top rows of an in-place QR decomposition
+     */
+    static Primitive64Store triangle(final Access2D<?> inPlace, final int numberOfRows, final int numberOfColumns) {
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+
+        for (int j = 0; j < numberOfColumns; j++) {
+            for (int i = 0, limit = Math.min(j + 1, numberOfRows); i < limit; i++) {
+                retVal.set(i, j, inPlace.doubleValue(i, j));
+            }
+        }
+
+        return retVal;
+    }
+
+    private int myColDim;
+    private int[] myFirstRows = null;
+    private QRDecomposition.Blocked[] myLeaves = null;
+    private final int myNumberOfLeaves;
+    private int myRowDim;
+    /**
+     * One array per tree level. Node j combines nodes 2j and 2j+1 of the level below. A null node means there
+     * was no 2j+1 node, and node 2j is passed through unchanged.
+     */
+    private final List<QRDecomposition.Blocked[]> myTree = new ArrayList<>();
+
+    TallSkinnyQR() {
+        this(0);
+    }
+
+    /**
+     * @param numberOfLeaves The (maximum) number of leaf blocks. Zero means automatic - determined by the
+     *        available parallelism.
+     */
+    TallSkinnyQR(final int numberOfLeaves) {
+        super(Primitive64Store.FACTORY);
+        myNumberOfLeaves = numberOfLeaves;
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.decompose(this.wrap(matrix));
+        return this.getDeterminant();
+    }
+
+    public int countSignificant(final double threshold) {
+        return this.getRoot().countSignificant(threshold);
+    }
+
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+
+        this.reset();
+
+        final MatrixStore<Double> store = this.collect(matrix);
+
+        myRowDim = (int) store.countRows();
+        myColDim = (int) store.countColumns();
+
+        final int numberOfLeaves = this.countLeaves();
+        myLeaves = new QRDecomposition.Blocked[numberOfLeaves];
+        myFirstRows = new int[numberOfLeaves + 1];
+        for (int b = 0; b <= numberOfLeaves; b++) {
+            myFirstRows[b] = (int) (((long) b * myRowDim) / numberOfLeaves);
+        }
+
+        if (numberOfLeaves == 1) {
+
+            myLeaves[0] = new QRDecomposition.Blocked();
+            myLeaves[0].decompose(store);
+
+        } else {
+
+            new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    for (int b = first; b < limit; b++) {
+                        final int firstRow = myFirstRows[b];
+                        final int numberOfRows = myFirstRows[b + 1] - firstRow;
+                        myLeaves[b] = new QRDecomposition.Blocked();
+                        myLeaves[b].decompose(store.logical().offsets(firstRow, 0).limits(numberOfRows, myColDim).get());
+                    }
+                }
+
+            }.invoke(0, numberOfLeaves, 1);
+
+            QRDecomposition.Blocked[] children = myLeaves;
+            while (children.length > 1) {
+
+                final QRDecomposition.Blocked[] level = new QRDecomposition.Blocked[(children.length + 1) / 2];
+                final Primitive64Store[] triangles = new Primitive64Store[children.length];
+                for (int c = 0; c < children.length; c++) {
+                    // The children of pass-through nodes are found further down the tree
+                    triangles[c] = TallSkinnyQR.triangle(this.getNode(myTree.size() - 1, c).getInPlace(), myColDim, myColDim);
+                }
+
+                for (int j = 0; (2 * j + 1) < children.length; j++) {
+                    level[j] = new QRDecomposition.Blocked();
+                    level[j].decompose(TallSkinnyQR.stack(triangles[2 * j], triangles[2 * j + 1]));
+                }
+
+                myTree.add(level);
+                children = level;
+            }
+        }
+
+        return this.computed(true);
+    }
+
+    public Double getDeterminant() {
+        return this.getRoot().getDeterminant();
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myRowDim, myRowDim));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+        return this.getSolution(this.makeIdentity(myRowDim), preallocated);
+    }
+
+    /**
+     * The economy sized Q, formed top-down through the tree.
+     */
+    public MatrixStore<Double> getQ() {
+
+        if (myLeaves.length == 1) {
+            return myLeaves[0].getQ();
+        }
+
+        MatrixStore<Double>[] factors = this.split(myTree.size() - 1, new MatrixStore[] { this.makeIdentity(myColDim).get() });
+
+        for (int l = myTree.size() - 2; l >= 0; l--) {
+            factors = this.split(l, factors);
+        }
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(myRowDim, myColDim);
+
+        for (int b = 0; b < myLeaves.length; b++) {
+            final int firstRow = myFirstRows[b];
+            final int numberOfRows = myFirstRows[b + 1] - firstRow;
+            final MatrixStore<Double> block = myLeaves[b].getQ().multiply(factors[b]);
+            for (int j = 0; j < myColDim; j++) {
+                for (int i = 0; i < numberOfRows; i++) {
+                    retVal.set(firstRow + i, j, block.doubleValue(i, j));
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    public MatrixStore<Double> getR() {
+        return TallSkinnyQR.triangle(this.getRoot().getInPlace(), Math.min(myRowDim, myColDim), myColDim);
+    }
+
+    public double getRankThreshold() {
+
+        double largest = this.getRoot().getInPlace().aggregateDiagonal(Aggregator.LARGEST);
+        double epsilon = this.getDimensionalEpsilon();
+
+        return epsilon * Math.max(MACHINE_SMALLEST, largest);
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.preallocate(this, rhs));
+    }
+
+    /**
+     * Q<sup>T</sup> is applied to [B] leaf by leaf (in parallel), keeping only the top rows of each result,
+     * and then up the tree. [X] is finally found by back substitution with the R at the root.
+     */
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+
+        if (myLeaves.length == 1) {
+            return myLeaves[0].getSolution(rhs, preallocated);
+        }
+
+        final Primitive64Store body = Primitive64Store.FACTORY.make(myRowDim, rhs.countColumns());
+        rhs.supplyTo(body);
+
+        final int numberOfRHS = (int) body.countColumns();
+
+        final Primitive64Store[] pieces = new Primitive64Store[myLeaves.length];
+
+        new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int b = first; b < limit; b++) {
+                    final Primitive64Store piece = TallSkinnyQR.rows(body, myFirstRows[b], myFirstRows[b + 1] - myFirstRows[b]);
+                    myLeaves[b].applyTransposedQ(piece);
+                    pieces[b] = TallSkinnyQR.rows(piece, 0, myColDim);
+                }
+            }
+
+        }.invoke(0, myLeaves.length, 1);
+
+        Primitive64Store[] children = pieces;
+        for (QRDecomposition.Blocked[] level : myTree) {
+            final Primitive64Store[] parents = new Primitive64Store[level.length];
+            for (int j = 0; j < level.length; j++) {
+                if (level[j] != null) {
+                    final Primitive64Store stacked = TallSkinnyQR.stack(children[2 * j], children[2 * j + 1]);
+                    level[j].applyTransposedQ(stacked);
+                    parents[j] = TallSkinnyQR.rows(stacked, 0, myColDim);
+                } else {
+                    parents[j] = children[2 * j];
+                }
+            }
+            children = parents;
+        }
+
+        final Primitive64Store solution = children[0];
+        solution.substituteBackwards(this.getRoot().getInPlace(), false, false, false);
+
+        for (int j = 0; j < numberOfRHS; j++) {
+            for (int i = 0; i < myColDim; i++) {
+                preallocated.set(i, j, solution.doubleValue(i, j));
+            }
+        }
+
+        return preallocated.logical().limits(myColDim, numberOfRHS).get();
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public boolean isFullSize() {
+        return false;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        final long tmpCountRows = template.countRows();
+        return this.allocate(tmpCountRows, tmpCountRows);
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateBody.countRows(), templateRHS.countColumns());
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        myLeaves = null;
+        myFirstRows = null;
+        myTree.clear();
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            return this.getSolution(this.wrap(rhs), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    private int countLeaves() {
+
+        final int parallelism = myNumberOfLeaves > 0 ? myNumberOfLeaves : ExecutionContext.current().getParallelism();
+        final int minimumRows = Math.max(4 * myColDim, MINIMUM_BLOCK_ROWS);
+
+        return Math.max(1, Math.min(parallelism, myRowDim / minimumRows));
+    }
+
+    /**
+     * The node, at the given level, that holds the (latest) R of the given position. Level -1 are the leaves.
+     */
+    private QRDecomposition.Blocked getNode(final int level, final int index) {
+        if (level < 0) {
+            return myLeaves[index];
+        } else {
+            final QRDecomposition.Blocked node = myTree.get(level)[index];
+            return node != null ? node : this.getNode(level - 1, 2 * index);
+        }
+    }
+
+    private QRDecomposition.Blocked getRoot() {
+        return myTree.isEmpty() ? myLeaves[0] : myTree.get(myTree.size() - 1)[0];
+    }
+
+    /**
+     * Multiplies the Q of each node at the given level with the factor passed down from its parent, and splits
+     * the results in factors for the level below.
+     */
+    @SuppressWarnings("unchecked")
+    private MatrixStore<Double>[] split(final int level, final MatrixStore<Double>[] factors) {
+
+        final QRDecomposition.Blocked[] nodes = myTree.get(level);
+        final int numberOfChildren = level > 0 ? myTree.get(level - 1).length : myLeaves.length;
+
+        final MatrixStore<Double>[] retVal = new MatrixStore[numberOfChildren];
+
+        for (int j = 0; j < nodes.length; j++) {
+            if (nodes[j] != null) {
+                final MatrixStore<Double> product = nodes[j].getQ().multiply(factors[j]);
+                retVal[2 * j] = product.logical().limits(myColDim, myColDim).get();
+                retVal[2 * j + 1] = product.logical().offsets(myColDim, 0).get();
+            } else {
+                retVal[2 * j] = factors[j];
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return this.isAspectRatioNormal() && this.isFullRank();
+    }
+
+    @Override
+    protected int getColDim() {
+        return myColDim;
+    }
+
+    @Override
+    protected int getRowDim() {
+        return myRowDim;
+    }
+
+}
@@ -0,0 +1,475 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.decomposition.function.RotateRight;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+
+/**
+ * Cuppen's divide-and-conquer algorithm for the eigenvalues and eigenvectors of a symmetric tridiagonal
+ * matrix.
+ * <p>
+ * The tridiagonal matrix is split in two halves by a rank-one modification, the halves are solved
+ * (recursively, and in parallel) and then merged by solving the secular equation of the rank-one modified
+ * diagonal matrix. Deflation, of small components and of (nearly) equal eigenvalues, follows LAPACK's
+ * xLAED2, and the eigenvectors are calculated from a recomputed rank-one vector (Gu and Eisenstat) so that
+ * they are numerically orthogonal. Small subproblems are solved using {@link HermitianEvD#tql2(double[],
+ * double[], RotateRight)}.
+ * <p>
+ * The root finding and the eigenvector update of each merge are parallelised using {@link DivideAndConquer}.
+ *
+ * @author apete
+ */
+abstract class TridiagonalDivideAndConquer {
+
+    /**
+     * Subproblems this small are solved with the implicit QL algorithm.
+     */
+    static final int LEAF = 32;
+
+    private static final int MAX_ITERATIONS = 128;
+    /**
+     * Subproblems larger than this are solved in parallel.
+     */
+    private static final int PARALLEL = 256;
+    private static final int THRESHOLD = 16;
+
+    /**
+     * @param d On input the diagonal, on output the (unordered) eigenvalues
+     * @param e The off-diagonal; e[i] couples i and i+1. Destroyed.
+     * @param mtrxZ Square, zero filled, on output the eigenvectors - the columns match the eigenvalues in d
+     */
+    static void solve(final double[] d, final double[] e, final Primitive64Store mtrxZ) {
+        TridiagonalDivideAndConquer.solve(d, e, mtrxZ.data, d.length, 0, d.length);
+    }
+
+    private static void leaf(final double[] d, final double[] e, final double[] z, final int structure, final int first, final int limit) {
+
+        final int size = limit - first;
+
+        for (int i = first; i < limit; i++) {
+            z[i + (i * structure)] = ONE;
+        }
+
+        final double[] localD = Arrays.copyOfRange(d, first, limit);
+        final double[] localE = new double[size];
+        System.arraycopy(e, first, localE, 0, size - 1);
+
+        HermitianEvD.tql2(localD, localE, (low, high, cos, sin) -> {
+            int indexA = first + ((first + low) * structure);
+            int indexB = first + ((first + high) * structure);
+            for (int i = 0; i < size; i++, indexA++, indexB++) {
+                final double oldA = z[indexA];
+                final double oldB = z[indexB];
+                z[indexA] = (cos * oldA) - (sin * oldB);
+                z[indexB] = (cos * oldB) + (sin * oldA);
+            }
+        });
+
+        System.arraycopy(localD, 0, d, first, size);
+    }
+
+    /**
+     * Merges the two (solved) halves [first,split) and [split,limit) coupled by rho * v * v<sup>T</sup>,
+     * where v has 1 at split-1 and sign at split.
+     */
+    private static void merge(final double[] d, final double[] z, final int structure, final int first, final int split, final int limit,
+            final double coupling) {
+
+        final int size = limit - first;
+
+        // The rank-one vector, in the basis of the eigenvectors of the two halves
+
+        double rho = Math.abs(coupling);
+        final double sign = coupling < ZERO ? NEG : ONE;
+
+        final double[] vector = new double[size];
+        for (int j = 0; j < size; j++) {
+            final int col = (first + j) * structure;
+            vector[j] = j < (split - first) ? z[col + split - 1] : sign * z[col + split];
+        }
+
+        final double[] values = Arrays.copyOfRange(d, first, limit);
+
+        double norm = ZERO;
+        double largest = ZERO;
+        for (int j = 0; j < size; j++) {
+            norm += vector[j] * vector[j];
+            largest = Math.max(largest, Math.abs(values[j]));
+        }
+        rho *= norm;
+        norm = SQRT.invoke(norm);
+        double largestComponent = ZERO;
+        for (int j = 0; j < size; j++) {
+            vector[j] /= norm;
+            largestComponent = Math.max(largestComponent, Math.abs(vector[j]));
+        }
+
+        final double tolerance = EIGHT * MACHINE_EPSILON * Math.max(largest, rho * largestComponent);
+
+        // Deflation
+
+        final Integer[] order = new Integer[size];
+        for (int j = 0; j < size; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (j1, j2) -> Double.compare(values[j1], values[j2]));
+
+        // Which columns have non-zeros in the upper, and lower, rows of the block
+        final int half = split - first;
+        final boolean[] upper = new boolean[size];
+        final boolean[] lower = new boolean[size];
+        for (int j = 0; j < size; j++) {
+            upper[j] = j < half;
+            lower[j] = j >= half;
+        }
+
+        final int[] kept = new int[size];
+        int count = 0;
+        int previous = -1;
+
+        for (int o = 0; o < size; o++) {
+
+            final int j = order[o];
+
+            if ((rho * Math.abs(vector[j])) <= tolerance) {
+                // Negligible component - values[j] is an eigenvalue
+                continue;
+            }
+
+            if (previous >= 0) {
+
+                final double tau = HYPOT.invoke(vector[previous], vector[j]);
+                final double cos = vector[j] / tau;
+                final double sin = -vector[previous] / tau;
+
+                if (Math.abs((values[j] - values[previous]) * cos * sin) <= tolerance) {
+                    // (Nearly) equal values - rotate to zero the component of previous
+                    TridiagonalDivideAndConquer.rotate(z, structure, first, size, first + previous, first + j, cos, sin);
+                    upper[previous] = upper[j] = upper[previous] || upper[j];
+                    lower[previous] = lower[j] = lower[previous] || lower[j];
+
+                    vector[j] = tau;
+                    vector[previous] = ZERO;
+
+                    final double tmpValue = (values[previous] * cos * cos) + (values[j] * sin * sin);
+                    values[j] = (values[previous] * sin * sin) + (values[j] * cos * cos);
+                    values[previous] = tmpValue;
+
+                } else {
+                    kept[count++] = previous;
+                }
+            }
+
+            previous = j;
+        }
+        if (previous >= 0) {
+            kept[count++] = previous;
+        }
+
+        // The secular equation
+
+        final int nbRoots = count;
+
+        final double[] poles = new double[nbRoots];
+        final double[] weights = new double[nbRoots];
+        for (int k = 0; k < nbRoots; k++) {
+            poles[k] = values[kept[k]];
+            weights[k] = vector[kept[k]];
+        }
+
+        final int[] origins = new int[nbRoots];
+        final double[] shifts = new double[nbRoots];
+        final double rhoFinal = rho;
+
+        TridiagonalDivideAndConquer.execute(nbRoots, size, THRESHOLD, (f, l) -> {
+            for (int k = f; k < l; k++) {
+                TridiagonalDivideAndConquer.root(poles, weights, rhoFinal, k, origins, shifts);
+            }
+        });
+
+        // The eigenvectors, of the rank-one modified diagonal matrix
+
+        final double[] modified = new double[nbRoots];
+        for (int k = 0; k < nbRoots; k++) {
+            double product = TridiagonalDivideAndConquer.difference(poles, origins, shifts, nbRoots - 1, k) / rhoFinal;
+            for (int j = 0; j < k; j++) {
+                product *= TridiagonalDivideAndConquer.difference(poles, origins, shifts, j, k) / (poles[j] - poles[k]);
+            }
+            for (int j = k; j < (nbRoots - 1); j++) {
+                product *= TridiagonalDivideAndConquer.difference(poles, origins, shifts, j, k) / (poles[j + 1] - poles[k]);
+            }
+            modified[k] = Math.copySign(SQRT.invoke(Math.abs(product)), weights[k]);
+        }
+
+        final double[][] vectors = new double[nbRoots][nbRoots];
+
+        TridiagonalDivideAndConquer.execute(nbRoots, size, THRESHOLD, (f, l) -> {
+            for (int j = f; j < l; j++) {
+                final double[] u = vectors[j];
+                double sum = ZERO;
+                for (int k = 0; k < nbRoots; k++) {
+                    u[k] = modified[k] / TridiagonalDivideAndConquer.difference(poles, origins, shifts, j, k);
+                    sum += u[k] * u[k];
+                }
+                final double scale = ONE / SQRT.invoke(sum);
+                for (int k = 0; k < nbRoots; k++) {
+                    u[k] *= scale;
+                }
+            }
+        });
+
+        // Update the eigenvectors of the block - the roots first, then the deflated columns
+
+        final boolean[] isKept = new boolean[size];
+        for (int k = 0; k < nbRoots; k++) {
+            isKept[kept[k]] = true;
+        }
+        final int[] deflated = new int[size - nbRoots];
+        for (int j = 0, i = 0; j < size; j++) {
+            if (!isKept[j]) {
+                deflated[i++] = j;
+            }
+        }
+
+        final double[] updated = new double[size * size];
+
+        TridiagonalDivideAndConquer.multiply(z, structure, first, first, half, kept, upper, vectors, updated);
+        TridiagonalDivideAndConquer.multiply(z, structure, first, split, size - half, kept, lower, vectors, updated);
+
+        for (int j = 0; j < deflated.length; j++) {
+            System.arraycopy(z, first + ((first + deflated[j]) * structure), updated, (nbRoots + j) * size, size);
+        }
+
+        for (int j = 0; j < size; j++) {
+            System.arraycopy(updated, j * size, z, first + ((first + j) * structure), size);
+        }
+
+        for (int j = 0; j < nbRoots; j++) {
+            d[first + j] = poles[origins[j]] + shifts[j];
+        }
+        for (int j = 0; j < deflated.length; j++) {
+            d[first + nbRoots + j] = values[deflated[j]];
+        }
+    }
+
+    /**
+     * @return root[j] - poles[k] calculated relative to the pole closest to the root
+     */
+    private static double difference(final double[] poles, final int[] origins, final double[] shifts, final int j, final int k) {
+        return (poles[origins[j]] - poles[k]) + shifts[j];
+    }
+
+    private static void execute(final int count, final int work, final int threshold, final Conquer conquer) {
+        if (work > PARALLEL) {
+            new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    conquer.conquer(first, limit);
+                }
+
+            }.invoke(0, count, threshold);
+        } else {
+            conquer.conquer(0, count);
+        }
+    }
+
+    /**
+     * Finds the k:th root of 1 + rho * sum(weights^2 / (poles - x)), bracketed by poles[k] and poles[k+1]
+     * (or poles[k] + rho for the last), using Newton's method safeguarded by bisection. To retain the
+     * accuracy of the differences to the poles the root is calculated as a shift from the closest pole.
+     */
+    private static void root(final double[] poles, final double[] weights, final double rho, final int k, final int[] origins, final double[] shifts) {
+
+        final int nbRoots = poles.length;
+        final double[] relative = new double[nbRoots];
+
+        int origin = k;
+        double lower = ZERO;
+        double upper;
+
+        if (k == (nbRoots - 1)) {
+            double sum = ZERO;
+            for (int j = 0; j < nbRoots; j++) {
+                sum += weights[j] * weights[j];
+            }
+            upper = rho * sum;
+        } else {
+            final double gap = poles[k + 1] - poles[k];
+            if (TridiagonalDivideAndConquer.secular(poles, weights, rho, poles[k] + (gap / TWO)) >= ZERO) {
+                upper = gap / TWO;
+            } else {
+                origin = k + 1;
+                lower = -gap / TWO;
+                upper = ZERO;
+            }
+        }
+
+        for (int j = 0; j < nbRoots; j++) {
+            relative[j] = poles[j] - poles[origin];
+        }
+
+        double shift = (lower + upper) / TWO;
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+
+            double value = ONE;
+            double derivative = ZERO;
+            for (int j = 0; j < nbRoots; j++) {
+                final double quotient = weights[j] / (relative[j] - shift);
+                value += rho * weights[j] * quotient;
+                derivative += rho * quotient * quotient;
+            }
+
+            if (value == ZERO) {
+                break;
+            } else if (value < ZERO) {
+                lower = shift;
+            } else {
+                upper = shift;
+            }
+
+            double next = shift - (value / derivative);
+            if ((next <= lower) || (next >= upper)) {
+                next = (lower + upper) / TWO;
+            }
+
+            final double margin = TWO * MACHINE_EPSILON * Math.max(Math.abs(lower), Math.abs(upper));
+            if ((Math.abs(next - shift) <= margin) || ((upper - lower) <= margin)) {
+                shift = next;
+                break;
+            }
+
+            shift = next;
+        }
+
+        origins[k] = origin;
+        shifts[k] = shift;
+    }
+
+    /**
+     * Multiplies the rows [row,row+nbRows) of the kept columns, those that have non-zeros in those rows, with
+     * the corresponding rows of the (rank-one modified) eigenvectors.
+     */
+    private static void multiply(final double[] z, final int structure, final int first, final int row, final int nbRows, final int[] kept,
+            final boolean[] nonZero, final double[][] vectors, final double[] updated) {
+
+        final int nbRoots = vectors.length;
+        final int size = kept.length;
+        final int offset = row - first;
+
+        int nbColumns = 0;
+        final int[] columns = new int[nbRoots];
+        for (int k = 0; k < nbRoots; k++) {
+            if (nonZero[kept[k]]) {
+                columns[nbColumns++] = k;
+            }
+        }
+
+        if (nbColumns == 0) {
+            return;
+        }
+
+        final Primitive64Store left = Primitive64Store.FACTORY.make(nbRows, nbColumns);
+        final Primitive64Store right = Primitive64Store.FACTORY.make(nbColumns, nbRoots);
+
+        for (int c = 0; c < nbColumns; c++) {
+            System.arraycopy(z, row + ((first + kept[columns[c]]) * structure), left.data, c * nbRows, nbRows);
+            for (int j = 0; j < nbRoots; j++) {
+                right.data[c + (j * nbColumns)] = vectors[j][columns[c]];
+            }
+        }
+
+        final MatrixStore<Double> product = left.multiply(right);
+
+        for (int j = 0; j < nbRoots; j++) {
+            for (int i = 0; i < nbRows; i++) {
+                updated[offset + i + (j * size)] = product.doubleValue(i, j);
+            }
+        }
+    }
+
+    private static void rotate(final double[] z, final int structure, final int first, final int size, final int colA, final int colB, final double cos,
+            final double sin) {
+        int indexA = first + (colA * structure);
+        int indexB = first + (colB * structure);
+        for (int i = 0; i < size; i++, indexA++, indexB++) {
+            final double oldA = z[indexA];
+            final double oldB = z[indexB];
+            z[indexA] = (cos * oldA) + (sin * oldB);
+            z[indexB] = (cos * oldB) - (sin * oldA);
+        }
+    }
+
+    private static double secular(final double[] poles, final double[] weights, final double rho, final double x) {
+        double retVal = ONE;
+        for (int j = 0; j < poles.length; j++) {
+            retVal += (rho * weights[j] * weights[j]) / (poles[j] - x);
+        }
+        return retVal;
+    }
+
+    private static void solve(final double[] d, final double[] e, final double[] z, final int structure, final int first, final int limit) {
+
+        final int size = limit - first;
+
+        if (size <= LEAF) {
+
+            TridiagonalDivideAndConquer.leaf(d, e, z, structure, first, limit);
+
+        } else {
+
+            final int split = first + (size / 2);
+            final double coupling = e[split - 1];
+
+            d[split - 1] -= Math.abs(coupling);
+            d[split] -= Math.abs(coupling);
+
+            TridiagonalDivideAndConquer.execute(2, size, 1, (f, l) -> {
+                for (int h = f; h < l; h++) {
+                    if (h == 0) {
+                        TridiagonalDivideAndConquer.solve(d, e, z, structure, first, split);
+                    } else {
+                        TridiagonalDivideAndConquer.solve(d, e, z, structure, split, limit);
+                    }
+                }
+            });
+
+            TridiagonalDivideAndConquer.merge(d, z, structure, first, split, limit, coupling);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conquer {
+
+        void conquer(int first, int limit);
+
+    }
+
+}
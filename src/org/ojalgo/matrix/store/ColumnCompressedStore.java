@@ -0,0 +1,223 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Arrays;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * Compressed Sparse Column (CSC) format, immutable, double valued, sparse matrix. All elements of a column
+ * are stored consecutively. Multiplication with a dense matrix is done in parallel, partitioned by the
+ * columns of the product, and {@link #premultiply(Access1D)} is done without transposing anything.
+ * <p>
+ * Create instances using {@link #copy(Access2D)} - typically from a {@link SparseStore} that was used to
+ * build the matrix. The transpose of a {@link ColumnCompressedStore} is a {@link RowCompressedStore} sharing
+ * the same arrays (and vice versa).
+ *
+ * @author apete
+ */
+public final class ColumnCompressedStore extends CompressedStore {
+
+    public static ColumnCompressedStore copy(final Access2D<?> matrix) {
+        if (matrix instanceof ColumnCompressedStore) {
+            // Immutable - no need to copy
+            return (ColumnCompressedStore) matrix;
+        } else if (matrix instanceof RowCompressedStore) {
+            return ((RowCompressedStore) matrix).toColumnCompressed();
+        } else {
+            return new ColumnCompressedStore((int) matrix.countRows(), (int) matrix.countColumns(), CompressedStore.compress(matrix, false));
+        }
+    }
+
+    ColumnCompressedStore(final int numberOfRows, final int numberOfColumns, final Arrays3 arrays) {
+        super(numberOfRows, numberOfColumns, arrays);
+    }
+
+    public double doubleValue(final long row, final long col) {
+        return this.doubleValue((int) col, (int) row);
+    }
+
+    public int firstInColumn(final int col) {
+        return this.firstInMajor(col, this.getRowDim());
+    }
+
+    public int firstInRow(final int row) {
+        return 0;
+    }
+
+    @Override
+    public int limitOfColumn(final int col) {
+        return this.limitOfMajor(col);
+    }
+
+    @Override
+    public void multiply(final Access1D<Double> right, final TransformableRegion<Double> target) {
+
+        final int numberOfRows = this.getRowDim();
+        final int complexity = this.getColDim();
+        final int numberOfColumns = Math.toIntExact(right.count() / complexity);
+
+        final int[] pointers = myArrays.pointers;
+        final int[] indices = myArrays.indices;
+        final double[] values = myArrays.values;
+
+        if (target instanceof Primitive64Store) {
+
+            final double[] product = ((Primitive64Store) target).data;
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    for (int j = first; j < limit; j++) {
+                        final long offsetRight = (long) j * complexity;
+                        final int offsetProduct = j * numberOfRows;
+                        Arrays.fill(product, offsetProduct, offsetProduct + numberOfRows, PrimitiveMath.ZERO);
+                        for (int c = 0; c < complexity; c++) {
+                            final double factor = right.doubleValue(offsetRight + c);
+                            if (factor != PrimitiveMath.ZERO) {
+                                for (int k = pointers[c], lim = pointers[c + 1]; k < lim; k++) {
+                                    product[offsetProduct + indices[k]] += values[k] * factor;
+                                }
+                            }
+                        }
+                    }
+                }
+            };
+
+            conquerer.invoke(0, numberOfColumns, CompressedStore.threshold(numberOfColumns, (long) values.length * numberOfColumns));
+
+        } else {
+
+            target.reset();
+
+            for (int j = 0; j < numberOfColumns; j++) {
+                final long offsetRight = (long) j * complexity;
+                for (int c = 0; c < complexity; c++) {
+                    final double factor = right.doubleValue(offsetRight + c);
+                    if (factor != PrimitiveMath.ZERO) {
+                        for (int k = pointers[c], lim = pointers[c + 1]; k < lim; k++) {
+                            target.add(indices[k], j, values[k] * factor);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public MatrixStore<Double> multiply(final MatrixStore<Double> right) {
+
+        if (right instanceof CompressedStore) {
+
+            final ColumnCompressedStore other = ColumnCompressedStore.copy(right);
+
+            final int numberOfRows = this.getRowDim();
+            final int numberOfColumns = other.getColDim();
+
+            // [this][right] in CSC is [right]^T[this]^T in CSR
+            return new ColumnCompressedStore(numberOfRows, numberOfColumns,
+                    CompressedStore.multiply(other.myArrays, myArrays, numberOfColumns, numberOfRows));
+
+        } else {
+
+            return super.multiply(right);
+        }
+    }
+
+    @Override
+    public ElementsSupplier<Double> premultiply(final Access1D<Double> left) {
+
+        final int complexity = this.getRowDim();
+        final int numberOfColumns = this.getColDim();
+        final int numberOfRows = Math.toIntExact(left.count() / complexity);
+
+        if (left instanceof CompressedStore) {
+            return ((CompressedStore) left).multiply(this);
+        }
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+        final double[] product = retVal.data;
+
+        final int[] pointers = myArrays.pointers;
+        final int[] indices = myArrays.indices;
+        final double[] values = myArrays.values;
+
+        final DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                for (int j = first; j < limit; j++) {
+                    final int offsetProduct = j * numberOfRows;
+                    for (int k = pointers[j], lim = pointers[j + 1]; k < lim; k++) {
+                        final long offsetLeft = (long) indices[k] * numberOfRows;
+                        final double value = values[k];
+                        for (int r = 0; r < numberOfRows; r++) {
+                            product[offsetProduct + r] += left.doubleValue(offsetLeft + r) * value;
+                        }
+                    }
+                }
+            }
+        };
+
+        conquerer.invoke(0, numberOfColumns, CompressedStore.threshold(numberOfColumns, (long) values.length * numberOfRows));
+
+        return retVal;
+    }
+
+    @Override
+    public void supplyTo(final TransformableRegion<Double> receiver) {
+
+        receiver.reset();
+
+        for (int j = 0, numberOfColumns = this.getColDim(); j < numberOfColumns; j++) {
+            for (int k = myArrays.pointers[j], lim = myArrays.pointers[j + 1]; k < lim; k++) {
+                receiver.set(myArrays.indices[k], j, myArrays.values[k]);
+            }
+        }
+    }
+
+    /**
+     * @return The same matrix in CSR format
+     */
+    public RowCompressedStore toRowCompressed() {
+        return new RowCompressedStore(this.getRowDim(), this.getColDim(), CompressedStore.transpose(myArrays, this.getRowDim()));
+    }
+
+    /**
+     * @return A {@link RowCompressedStore} sharing this instance's arrays
+     */
+    @Override
+    public RowCompressedStore transpose() {
+        return new RowCompressedStore(this.getColDim(), this.getRowDim(), myArrays);
+    }
+
+    @Override
+    ColumnCompressedStore newInstance(final Arrays3 arrays) {
+        return new ColumnCompressedStore(this.getRowDim(), this.getColDim(), arrays);
+    }
+
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Arrays;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.ElementView2D;
+
+/**
+ * Common base for {@link RowCompressedStore} (CSR) and {@link ColumnCompressedStore} (CSC). The nonzero
+ * elements are stored in 3 arrays: for each "major" (row for CSR, column for CSC) the pointers array holds
+ * the range, in the other two arrays, of that major's elements. The indices array holds the "minor" index
+ * (column for CSR, row for CSC) of each element, sorted in increasing order within each major, and the
+ * values array the element values. A CSR and a CSC store with the same arrays are each others' transpose.
+ * Instances are immutable.
+ *
+ * @author apete
+ */
+abstract class CompressedStore extends FactoryStore<Double> {
+
+    /**
+     * The arrays of a compressed sparse matrix
+     */
+    static final class Arrays3 {
+
+        final int[] indices;
+        final int[] pointers;
+        final double[] values;
+
+        Arrays3(final int[] pointers, final int[] indices, final double[] values) {
+            super();
+            this.pointers = pointers;
+            this.indices = indices;
+            this.values = values;
+        }
+
+    }
+
+    /**
+     * Aim for at least this many nonzeros per parallel task
+     */
+    static final int NONZEROS_PER_TASK = 16_384;
+
+    /**
+     * Builds the arrays from elements given as (major, minor, value) triplets. For each major the triplets
+     * must come in increasing minor index order, how triplets of different majors are interleaved does not
+     * matter. Zeros are skipped. Stable counting sort - O(nnz + majors).
+     */
+    static Arrays3 compress(final int numberOfMajors, final int count, final int[] majors, final int[] minors, final double[] values) {
+
+        int nnz = 0;
+        final int[] pointers = new int[numberOfMajors + 1];
+        for (int k = 0; k < count; k++) {
+            if (values[k] != PrimitiveMath.ZERO) {
+                pointers[majors[k] + 1]++;
+                nnz++;
+            }
+        }
+        for (int m = 0; m < numberOfMajors; m++) {
+            pointers[m + 1] += pointers[m];
+        }
+
+        final int[] retIndices = new int[nnz];
+        final double[] retValues = new double[nnz];
+
+        final int[] next = Arrays.copyOf(pointers, numberOfMajors);
+        for (int k = 0; k < count; k++) {
+            if (values[k] != PrimitiveMath.ZERO) {
+                final int position = next[majors[k]]++;
+                retIndices[position] = minors[k];
+                retValues[position] = values[k];
+            }
+        }
+
+        return new Arrays3(pointers, retIndices, retValues);
+    }
+
+    /**
+     * Extracts the nonzero elements as triplets, in column-major order, and compresses them.
+     *
+     * @param byRow true for CSR, false for CSC
+     */
+    static Arrays3 compress(final Access2D<?> matrix, final boolean byRow) {
+
+        final int numberOfRows = Math.toIntExact(matrix.countRows());
+        final int numberOfColumns = Math.toIntExact(matrix.countColumns());
+
+        int capacity = Math.max(16, Math.max(numberOfRows, numberOfColumns));
+        int[] rows = new int[capacity];
+        int[] columns = new int[capacity];
+        double[] values = new double[capacity];
+        int count = 0;
+
+        if (matrix instanceof SparseStore<?>) {
+
+            final SparseStore<?> sparse = (SparseStore<?>) matrix;
+
+            for (final ElementView2D<?, ?> element : sparse.nonzeros()) {
+                if (count == capacity) {
+                    capacity += capacity / 2;
+                    rows = Arrays.copyOf(rows, capacity);
+                    columns = Arrays.copyOf(columns, capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+                rows[count] = (int) element.row();
+                columns[count] = (int) element.column();
+                values[count] = element.doubleValue();
+                count++;
+            }
+
+        } else {
+
+            final MatrixStore<?> store = matrix instanceof MatrixStore<?> ? (MatrixStore<?>) matrix : null;
+
+            for (int j = 0; j < numberOfColumns; j++) {
+                final int first = store != null ? store.firstInColumn(j) : 0;
+                final int limit = store != null ? store.limitOfColumn(j) : numberOfRows;
+                for (int i = first; i < limit; i++) {
+                    final double value = matrix.doubleValue(i, j);
+                    if (value != PrimitiveMath.ZERO) {
+                        if (count == capacity) {
+                            capacity += capacity / 2;
+                            rows = Arrays.copyOf(rows, capacity);
+                            columns = Arrays.copyOf(columns, capacity);
+                            values = Arrays.copyOf(values, capacity);
+                        }
+                        rows[count] = i;
+                        columns[count] = j;
+                        values[count] = value;
+                        count++;
+                    }
+                }
+            }
+        }
+
+        if (byRow) {
+            return CompressedStore.compress(numberOfRows, count, rows, columns, values);
+        } else {
+            return CompressedStore.compress(numberOfColumns, count, columns, rows, values);
+        }
+    }
+
+    /**
+     * Gustavson's algorithm: [left][right] where both are in CSR format (or, equivalently,
+     * [right]<sup>T</sup>[left]<sup>T</sup> in CSC format). Rows of the product are computed in parallel, each
+     * task using a dense accumulator of length numberOfColumns.
+     */
+    static Arrays3 multiply(final Arrays3 left, final Arrays3 right, final int numberOfRows, final int numberOfColumns) {
+
+        final int[][] rowIndices = new int[numberOfRows][];
+        final double[][] rowValues = new double[numberOfRows][];
+
+        final DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+
+                final double[] accumulator = new double[numberOfColumns];
+                final int[] marker = new int[numberOfColumns];
+                Arrays.fill(marker, -1);
+                int[] touched = new int[16];
+
+                for (int i = first; i < limit; i++) {
+
+                    int nnz = 0;
+
+                    for (int kl = left.pointers[i], limL = left.pointers[i + 1]; kl < limL; kl++) {
+                        final int c = left.indices[kl];
+                        final double a = left.values[kl];
+                        for (int kr = right.pointers[c], limR = right.pointers[c + 1]; kr < limR; kr++) {
+                            final int j = right.indices[kr];
+                            if (marker[j] != i) {
+                                marker[j] = i;
+                                accumulator[j] = a * right.values[kr];
+                                if (nnz == touched.length) {
+                                    touched = Arrays.copyOf(touched, nnz * 2);
+                                }
+                                touched[nnz++] = j;
+                            } else {
+                                accumulator[j] += a * right.values[kr];
+                            }
+                        }
+                    }
+
+                    Arrays.sort(touched, 0, nnz);
+
+                    final int[] indices = new int[nnz];
+                    final double[] values = new double[nnz];
+                    int count = 0;
+                    for (int k = 0; k < nnz; k++) {
+                        final int j = touched[k];
+                        final double value = accumulator[j];
+                        if (value != PrimitiveMath.ZERO) {
+                            indices[count] = j;
+                            values[count] = value;
+                            count++;
+                        }
+                    }
+
+                    rowIndices[i] = count == nnz ? indices : Arrays.copyOf(indices, count);
+                    rowValues[i] = count == nnz ? values : Arrays.copyOf(values, count);
+                }
+            }
+        };
+
+        conquerer.invoke(0, numberOfRows, CompressedStore.threshold(numberOfRows, left.values.length + right.values.length));
+
+        final int[] pointers = new int[numberOfRows + 1];
+        for (int i = 0; i < numberOfRows; i++) {
+            pointers[i + 1] = pointers[i] + rowIndices[i].length;
+        }
+
+        final int[] indices = new int[pointers[numberOfRows]];
+        final double[] values = new double[pointers[numberOfRows]];
+        for (int i = 0; i < numberOfRows; i++) {
+            System.arraycopy(rowIndices[i], 0, indices, pointers[i], rowIndices[i].length);
+            System.arraycopy(rowValues[i], 0, values, pointers[i], rowValues[i].length);
+        }
+
+        return new Arrays3(pointers, indices, values);
+    }
+
+    /**
+     * @return The number of majors per parallel task
+     */
+    static int threshold(final int numberOfMajors, final long nonzeros) {
+        if (nonzeros <= NONZEROS_PER_TASK) {
+            return numberOfMajors;
+        } else {
+            return (int) Math.max(1L, (NONZEROS_PER_TASK * (long) numberOfMajors) / nonzeros);
+        }
+    }
+
+    /**
+     * Switches between CSR and CSC, of the same matrix, in O(nnz + majors + minors).
+     */
+    static Arrays3 transpose(final Arrays3 arrays, final int numberOfMinors) {
+
+        final int numberOfMajors = arrays.pointers.length - 1;
+        final int nnz = arrays.values.length;
+
+        final int[] pointers = new int[numberOfMinors + 1];
+        for (int k = 0; k < nnz; k++) {
+            pointers[arrays.indices[k] + 1]++;
+        }
+        for (int m = 0; m < numberOfMinors; m++) {
+            pointers[m + 1] += pointers[m];
+        }
+
+        final int[] indices = new int[nnz];
+        final double[] values = new double[nnz];
+
+        final int[] next = Arrays.copyOf(pointers, numberOfMinors);
+        for (int m = 0; m < numberOfMajors; m++) {
+            for (int k = arrays.pointers[m], limit = arrays.pointers[m + 1]; k < limit; k++) {
+                final int position = next[arrays.indices[k]]++;
+                indices[position] = m;
+                values[position] = arrays.values[k];
+            }
+        }
+
+        return new Arrays3(pointers, indices, values);
+    }
+
+    final Arrays3 myArrays;
+
+    CompressedStore(final int numberOfRows, final int numberOfColumns, final Arrays3 arrays) {
+        super(Primitive64Store.FACTORY, numberOfRows, numberOfColumns);
+        myArrays = arrays;
+    }
+
+    /**
+     * @return The number of stored (nonzero) elements
+     */
+    public int countNonzeros() {
+        return myArrays.values.length;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!super.equals(obj)) {
+            return false;
+        }
+        if (!(obj instanceof CompressedStore)) {
+            return false;
+        }
+        final CompressedStore other = (CompressedStore) obj;
+        return Arrays.equals(myArrays.pointers, other.myArrays.pointers) && Arrays.equals(myArrays.indices, other.myArrays.indices)
+                && Arrays.equals(myArrays.values, other.myArrays.values);
+    }
+
+    public final Double get(final long row, final long col) {
+        return Double.valueOf(this.doubleValue(row, col));
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = super.hashCode();
+        result = (prime * result) + Arrays.hashCode(myArrays.pointers);
+        result = (prime * result) + Arrays.hashCode(myArrays.indices);
+        result = (prime * result) + Arrays.hashCode(myArrays.values);
+        return result;
+    }
+
+    @Override
+    public MatrixStore<Double> multiply(final double scalar) {
+
+        final double[] values = myArrays.values.clone();
+        for (int k = 0; k < values.length; k++) {
+            values[k] *= scalar;
+        }
+
+        return this.newInstance(new Arrays3(myArrays.pointers, myArrays.indices, values));
+    }
+
+    @Override
+    public MatrixStore<Double> multiply(final Double scalar) {
+        return this.multiply(scalar.doubleValue());
+    }
+
+    final double doubleValue(final int major, final int minor) {
+        final int first = myArrays.pointers[major];
+        final int limit = myArrays.pointers[major + 1];
+        final int position = Arrays.binarySearch(myArrays.indices, first, limit, minor);
+        return position >= 0 ? myArrays.values[position] : PrimitiveMath.ZERO;
+    }
+
+    final int firstInMajor(final int major, final int defaultValue) {
+        final int first = myArrays.pointers[major];
+        return first < myArrays.pointers[major + 1] ? myArrays.indices[first] : defaultValue;
+    }
+
+    final int limitOfMajor(final int major) {
+        final int limit = myArrays.pointers[major + 1];
+        return myArrays.pointers[major] < limit ? myArrays.indices[limit - 1] + 1 : 0;
+    }
+
+    abstract CompressedStore newInstance(Arrays3 arrays);
+
+}
@@ -0,0 +1,779 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.BufferArray;
+import org.ojalgo.array.DenseArray;
+import org.ojalgo.array.operation.MultiplyBoth;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.NullaryFunction;
+import org.ojalgo.function.UnaryFunction;
+import org.ojalgo.function.VoidFunction;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.transformation.Householder;
+import org.ojalgo.matrix.transformation.Rotation;
+import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+import org.ojalgo.type.NumberDefinition;
+
+/**
+ * A double valued {@link PhysicalStore} with its elements stored outside the Java heap - either in direct
+ * buffers or in a memory-mapped file - using {@link BufferArray}. It is meant for matrices that are too large
+ * to fit on the heap. The total number of elements may exceed 2^31 (the underlying array is then segmented),
+ * but the number of rows and columns must each fit in an int.
+ * <p>
+ * The elements are stored in tiles of (at most) {@value #TILE} x {@value #TILE} elements. The tiles, and the
+ * elements within each tile, are ordered column-major. Edge tiles are packed - no padding. A tile is 32kB
+ * that is read/written as one contiguous block regardless of whether the matrix is traversed by row or by
+ * column, and matrix multiplication is done tile by tile.
+ * <p>
+ * The layout only depends on the matrix dimensions. A file created with {@link #map(File, long, long)} can
+ * be mapped again, with the same dimensions, to access its contents.
+ * <p>
+ * Decompositions and other algorithms, that require one of the heap based implementations, will copy the
+ * matrix as usual.
+ *
+ * @author apete
+ */
+public final class OffHeapStore implements PhysicalStore<Double> {
+
+    static abstract class Factory extends PrimitiveFactory<OffHeapStore> {
+
+        @Override
+        public DenseArray.Factory<Double> array() {
+            return BufferArray.DIRECT64;
+        }
+
+        public OffHeapStore columns(final Access1D<?>... source) {
+            final OffHeapStore retVal = this.make(source[0].count(), source.length);
+            for (int j = 0; j < source.length; j++) {
+                final Access1D<?> column = source[j];
+                for (long i = 0L, limit = column.count(); i < limit; i++) {
+                    retVal.set(i, j, column.doubleValue(i));
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore columns(final Comparable<?>[]... source) {
+            final OffHeapStore retVal = this.make(source[0].length, source.length);
+            for (int j = 0; j < source.length; j++) {
+                final Comparable<?>[] column = source[j];
+                for (int i = 0; i < column.length; i++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(column[i]));
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore columns(final double[]... source) {
+            final OffHeapStore retVal = this.make(source[0].length, source.length);
+            for (int j = 0; j < source.length; j++) {
+                final double[] column = source[j];
+                for (int i = 0; i < column.length; i++) {
+                    retVal.set(i, j, column[i]);
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore columns(final List<? extends Comparable<?>>... source) {
+            final OffHeapStore retVal = this.make(source[0].size(), source.length);
+            for (int j = 0; j < source.length; j++) {
+                final List<? extends Comparable<?>> column = source[j];
+                for (int i = 0; i < column.size(); i++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(column.get(i)));
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore copy(final Access2D<?> source) {
+            final OffHeapStore retVal = this.make(source.countRows(), source.countColumns());
+            retVal.fillMatching(source);
+            return retVal;
+        }
+
+        public OffHeapStore make(final long rows, final long columns) {
+            return new OffHeapStore(this, rows, columns, this.allocate(Structure2D.count(rows, columns)));
+        }
+
+        public OffHeapStore makeEye(final long rows, final long columns) {
+            final OffHeapStore retVal = this.make(rows, columns);
+            retVal.fillDiagonal(0L, 0L, ONE);
+            return retVal;
+        }
+
+        public OffHeapStore rows(final Access1D<?>... source) {
+            final OffHeapStore retVal = this.make(source.length, source[0].count());
+            for (int i = 0; i < source.length; i++) {
+                final Access1D<?> row = source[i];
+                for (long j = 0L, limit = row.count(); j < limit; j++) {
+                    retVal.set(i, j, row.doubleValue(j));
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore rows(final Comparable<?>[]... source) {
+            final OffHeapStore retVal = this.make(source.length, source[0].length);
+            for (int i = 0; i < source.length; i++) {
+                final Comparable<?>[] row = source[i];
+                for (int j = 0; j < row.length; j++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(row[j]));
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore rows(final double[]... source) {
+            final OffHeapStore retVal = this.make(source.length, source[0].length);
+            for (int i = 0; i < source.length; i++) {
+                final double[] row = source[i];
+                for (int j = 0; j < row.length; j++) {
+                    retVal.set(i, j, row[j]);
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore rows(final List<? extends Comparable<?>>... source) {
+            final OffHeapStore retVal = this.make(source.length, source[0].size());
+            for (int i = 0; i < source.length; i++) {
+                final List<? extends Comparable<?>> row = source[i];
+                for (int j = 0; j < row.size(); j++) {
+                    retVal.set(i, j, NumberDefinition.doubleValue(row.get(j)));
+                }
+            }
+            return retVal;
+        }
+
+        public OffHeapStore transpose(final Access2D<?> source) {
+            final OffHeapStore retVal = this.make(source.countColumns(), source.countRows());
+            retVal.fillMatching(source.countRows() == 1L || source.countColumns() == 1L ? source : new TransposedStore<>(retVal.cast(source)));
+            return retVal;
+        }
+
+        abstract Array1D<Double> allocate(long count);
+
+    }
+
+    /**
+     * Creates stores in direct (off-heap) buffers
+     */
+    public static final PhysicalStore.Factory<Double, OffHeapStore> DIRECT = new Factory() {
+
+        @Override
+        Array1D<Double> allocate(final long count) {
+            return Array1D.DIRECT64.makeDense(count);
+        }
+
+    };
+
+    /**
+     * The number of rows/columns of a tile
+     */
+    public static final int TILE = 64;
+
+    private static final int BITS = 6;
+    private static final int MASK = TILE - 1;
+
+    /**
+     * Creates stores in memory-mapped temporary files, in the specified directory. The files are deleted when
+     * the JVM exits.
+     */
+    public static PhysicalStore.Factory<Double, OffHeapStore> files(final File directory) {
+        return new Factory() {
+
+            @Override
+            Array1D<Double> allocate(final long count) {
+                try {
+                    final File file = File.createTempFile("ojAlgo", ".mtrx", directory);
+                    file.deleteOnExit();
+                    return BufferArray.make(file, count);
+                } catch (final IOException cause) {
+                    throw new RuntimeException(cause);
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Maps the file (created if it doesn't exist) to a store. Any changes are written to the file, and the
+     * contents of an existing file are the initial elements of the store.
+     */
+    public static OffHeapStore map(final File file, final long rows, final long columns) {
+        return new OffHeapStore(DIRECT, rows, columns, BufferArray.make(file, Structure2D.count(rows, columns)));
+    }
+
+    private final Array1D<Double> myElements;
+    private final PhysicalStore.Factory<Double, OffHeapStore> myFactory;
+    private final int myColDim;
+    private final int myRowDim;
+
+    OffHeapStore(final PhysicalStore.Factory<Double, OffHeapStore> factory, final long rows, final long columns, final Array1D<Double> elements) {
+
+        super();
+
+        myFactory = factory;
+        myRowDim = Math.toIntExact(rows);
+        myColDim = Math.toIntExact(columns);
+        myElements = elements;
+    }
+
+    public void add(final long row, final long col, final Comparable<?> addend) {
+        this.add(row, col, NumberDefinition.doubleValue(addend));
+    }
+
+    public void add(final long row, final long col, final double addend) {
+        final long offset = this.offset((int) row, (int) col);
+        myElements.set(offset, myElements.doubleValue(offset) + addend);
+    }
+
+    public List<Double> asList() {
+        return new AbstractList<Double>() {
+
+            @Override
+            public Double get(final int index) {
+                return OffHeapStore.this.get(index);
+            }
+
+            @Override
+            public Double set(final int index, final Double value) {
+                final Double retVal = OffHeapStore.this.get(index);
+                OffHeapStore.this.set(index, value);
+                return retVal;
+            }
+
+            @Override
+            public int size() {
+                return Math.toIntExact(OffHeapStore.this.count());
+            }
+        };
+    }
+
+    public long countColumns() {
+        return myColDim;
+    }
+
+    public long countRows() {
+        return myRowDim;
+    }
+
+    public double doubleValue(final long index) {
+        return myElements.doubleValue(this.offset(Structure2D.row(index, myRowDim), Structure2D.column(index, myRowDim)));
+    }
+
+    public double doubleValue(final long row, final long col) {
+        return myElements.doubleValue(this.offset((int) row, (int) col));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OffHeapStore)) {
+            return false;
+        }
+        final OffHeapStore other = (OffHeapStore) obj;
+        if ((myRowDim != other.myRowDim) || (myColDim != other.myColDim)) {
+            return false;
+        }
+        for (long index = 0L, limit = this.count(); index < limit; index++) {
+            if (Double.doubleToLongBits(this.doubleValue(index)) != Double.doubleToLongBits(other.doubleValue(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void exchangeColumns(final long colA, final long colB) {
+        double tmpVal;
+        for (int i = 0; i < myRowDim; i++) {
+            tmpVal = this.doubleValue(i, colA);
+            this.set(i, colA, this.doubleValue(i, colB));
+            this.set(i, colB, tmpVal);
+        }
+    }
+
+    public void exchangeRows(final long rowA, final long rowB) {
+        double tmpVal;
+        for (int j = 0; j < myColDim; j++) {
+            tmpVal = this.doubleValue(rowA, j);
+            this.set(rowA, j, this.doubleValue(rowB, j));
+            this.set(rowB, j, tmpVal);
+        }
+    }
+
+    public void fillAll(final Double value) {
+        myElements.fillAll(value);
+    }
+
+    public void fillAll(final NullaryFunction<?> supplier) {
+        myElements.fillAll(supplier);
+    }
+
+    /**
+     * Each tile of this store is calculated separately - in parallel.
+     */
+    public void fillByMultiplying(final Access1D<Double> left, final Access1D<Double> right) {
+
+        final int numbRows = myRowDim;
+        final int numbCols = myColDim;
+        final int complexity = Math.toIntExact(left.count() / numbRows);
+
+        final int tileRows = (numbRows + MASK) >> BITS;
+        final int tileCols = (numbCols + MASK) >> BITS;
+
+        final DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+
+                final double[] leftBlock = new double[TILE * TILE];
+                final double[] rightBlock = new double[TILE * TILE];
+                final double[] product = new double[TILE * TILE];
+
+                for (int t = first; t < limit; t++) {
+                    OffHeapStore.this.multiplyTile(t % tileRows, t / tileRows, left, right, complexity, leftBlock, rightBlock, product);
+                }
+            }
+
+        };
+
+        conquerer.invoke(0, tileRows * tileCols, Math.max(1, 1_000_000 / (TILE * TILE * Math.max(1, complexity))));
+    }
+
+    public void fillOne(final long row, final long col, final Access1D<?> values, final long valueIndex) {
+        this.set(row, col, values.doubleValue(valueIndex));
+    }
+
+    public void fillOne(final long row, final long col, final Double value) {
+        this.set(row, col, NumberDefinition.doubleValue(value));
+    }
+
+    public void fillOne(final long row, final long col, final NullaryFunction<?> supplier) {
+        this.set(row, col, supplier.doubleValue());
+    }
+
+    public Double get(final long index) {
+        return this.doubleValue(index);
+    }
+
+    public Double get(final long row, final long col) {
+        return this.doubleValue(row, col);
+    }
+
+    public int getColDim() {
+        return myColDim;
+    }
+
+    public int getRowDim() {
+        return myRowDim;
+    }
+
+    @Override
+    public int hashCode() {
+        return Access1D.hashCode(this);
+    }
+
+    public long indexOfLargest() {
+        return this.indexOfLargestInRange(0L, this.count());
+    }
+
+    public long indexOfLargestInColumn(final long row, final long col) {
+        long retVal = row;
+        double largest = NEG;
+        for (long i = row; i < myRowDim; i++) {
+            final double value = Math.abs(this.doubleValue(i, col));
+            if (value > largest) {
+                largest = value;
+                retVal = i;
+            }
+        }
+        return retVal;
+    }
+
+    public long indexOfLargestInRange(final long first, final long limit) {
+        long retVal = first;
+        double largest = NEG;
+        for (long index = first; index < limit; index++) {
+            final double value = Math.abs(this.doubleValue(index));
+            if (value > largest) {
+                largest = value;
+                retVal = index;
+            }
+        }
+        return retVal;
+    }
+
+    public long indexOfLargestInRow(final long row, final long col) {
+        long retVal = col;
+        double largest = NEG;
+        for (long j = col; j < myColDim; j++) {
+            final double value = Math.abs(this.doubleValue(row, j));
+            if (value > largest) {
+                largest = value;
+                retVal = j;
+            }
+        }
+        return retVal;
+    }
+
+    public long indexOfLargestOnDiagonal(final long first) {
+        long retVal = first;
+        double largest = NEG;
+        for (long ij = first, limit = Math.min(myRowDim, myColDim); ij < limit; ij++) {
+            final double value = Math.abs(this.doubleValue(ij, ij));
+            if (value > largest) {
+                largest = value;
+                retVal = ij;
+            }
+        }
+        return retVal;
+    }
+
+    public boolean isAbsolute(final long index) {
+        return PrimitiveScalar.isAbsolute(this.doubleValue(index));
+    }
+
+    public boolean isSmall(final long index, final double comparedTo) {
+        return PrimitiveScalar.isSmall(comparedTo, this.doubleValue(index));
+    }
+
+    public void modifyAll(final UnaryFunction<Double> modifier) {
+        myElements.modifyAll(modifier);
+    }
+
+    public void modifyOne(final long row, final long col, final UnaryFunction<Double> modifier) {
+        final long offset = this.offset((int) row, (int) col);
+        myElements.set(offset, modifier.invoke(myElements.doubleValue(offset)));
+    }
+
+    public PhysicalStore.Factory<Double, OffHeapStore> physical() {
+        return myFactory;
+    }
+
+    public TransformableRegion<Double> regionByColumns(final int... columns) {
+        return new TransformableRegion.ColumnsRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), columns);
+    }
+
+    public TransformableRegion<Double> regionByLimits(final int rowLimit, final int columnLimit) {
+        return new TransformableRegion.LimitRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), rowLimit, columnLimit);
+    }
+
+    public TransformableRegion<Double> regionByOffsets(final int rowOffset, final int columnOffset) {
+        return new TransformableRegion.OffsetRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), rowOffset, columnOffset);
+    }
+
+    public TransformableRegion<Double> regionByRows(final int... rows) {
+        return new TransformableRegion.RowsRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim), rows);
+    }
+
+    public TransformableRegion<Double> regionByTransposing() {
+        return new TransformableRegion.TransposedRegion<>(this, MultiplyBoth.newPrimitive64(myRowDim, myColDim));
+    }
+
+    public void set(final long index, final Comparable<?> value) {
+        this.set(index, NumberDefinition.doubleValue(value));
+    }
+
+    public void set(final long index, final double value) {
+        myElements.set(this.offset(Structure2D.row(index, myRowDim), Structure2D.column(index, myRowDim)), value);
+    }
+
+    public void set(final long row, final long col, final Comparable<?> value) {
+        this.set(row, col, NumberDefinition.doubleValue(value));
+    }
+
+    public void set(final long row, final long col, final double value) {
+        myElements.set(this.offset((int) row, (int) col), value);
+    }
+
+    public void substituteBackwards(final Access2D<Double> body, final boolean unitDiagonal, final boolean conjugated, final boolean hermitian) {
+
+        final int diagDim = Math.toIntExact(Math.min(body.countRows(), body.countColumns()));
+        final double[] column = new double[myRowDim];
+
+        for (int s = 0; s < myColDim; s++) {
+
+            this.column(s, column);
+
+            for (int i = diagDim - 1, firstRow = hermitian ? s : 0; i >= firstRow; i--) {
+                double tmpVal = ZERO;
+                for (int j = i + 1; j < diagDim; j++) {
+                    tmpVal += (conjugated ? body.doubleValue(j, i) : body.doubleValue(i, j)) * column[j];
+                }
+                tmpVal = column[i] - tmpVal;
+                if (!unitDiagonal) {
+                    tmpVal /= body.doubleValue(i, i);
+                }
+                column[i] = tmpVal;
+            }
+
+            for (int i = hermitian ? s : 0; i < diagDim; i++) {
+                this.set(i, s, column[i]);
+            }
+        }
+    }
+
+    public void substituteForwards(final Access2D<Double> body, final boolean unitDiagonal, final boolean conjugated, final boolean identity) {
+
+        final int diagDim = Math.toIntExact(Math.min(body.countRows(), body.countColumns()));
+        final double[] column = new double[myRowDim];
+
+        for (int s = 0; s < myColDim; s++) {
+
+            this.column(s, column);
+
+            for (int i = 0; i < diagDim; i++) {
+                double tmpVal = ZERO;
+                for (int j = identity ? s : 0; j < i; j++) {
+                    tmpVal += (conjugated ? body.doubleValue(j, i) : body.doubleValue(i, j)) * column[j];
+                }
+                if (identity) {
+                    tmpVal = i == s ? ONE - tmpVal : -tmpVal;
+                } else {
+                    tmpVal = column[i] - tmpVal;
+                }
+                if (!unitDiagonal) {
+                    tmpVal /= body.doubleValue(i, i);
+                }
+                column[i] = tmpVal;
+            }
+
+            for (int i = 0; i < diagDim; i++) {
+                this.set(i, s, column[i]);
+            }
+        }
+    }
+
+    public PrimitiveScalar toScalar(final long row, final long column) {
+        return PrimitiveScalar.of(this.doubleValue(row, column));
+    }
+
+    @Override
+    public String toString() {
+        return Access2D.toString(this);
+    }
+
+    public void transformLeft(final Householder<Double> transformation, final int firstColumn) {
+
+        final Householder.Primitive64 tmpTransf = Primitive64Store.cast(transformation);
+        final double[] vector = tmpTransf.vector;
+        final int first = tmpTransf.first;
+        final double beta = tmpTransf.beta;
+
+        final double[] column = new double[myRowDim];
+
+        for (int j = firstColumn; j < myColDim; j++) {
+            this.column(j, column);
+            double scale = ZERO;
+            for (int i = first; i < myRowDim; i++) {
+                scale += vector[i] * column[i];
+            }
+            scale *= beta;
+            for (int i = first; i < myRowDim; i++) {
+                this.set(i, j, column[i] - (scale * vector[i]));
+            }
+        }
+    }
+
+    public void transformLeft(final Rotation<Double> transformation) {
+
+        final Rotation.Primitive tmpTransf = Primitive64Store.cast(transformation);
+
+        final int tmpLow = tmpTransf.low;
+        final int tmpHigh = tmpTransf.high;
+
+        if (tmpLow != tmpHigh) {
+            if (!Double.isNaN(tmpTransf.cos) && !Double.isNaN(tmpTransf.sin)) {
+                for (int j = 0; j < myColDim; j++) {
+                    final double tmpOldLow = this.doubleValue(tmpLow, j);
+                    final double tmpOldHigh = this.doubleValue(tmpHigh, j);
+                    this.set(tmpLow, j, (tmpTransf.cos * tmpOldLow) + (tmpTransf.sin * tmpOldHigh));
+                    this.set(tmpHigh, j, (tmpTransf.cos * tmpOldHigh) - (tmpTransf.sin * tmpOldLow));
+                }
+            } else {
+                this.exchangeRows(tmpLow, tmpHigh);
+            }
+        } else {
+            if (!Double.isNaN(tmpTransf.cos)) {
+                this.modifyRow(tmpLow, 0, PrimitiveMath.MULTIPLY.second(tmpTransf.cos));
+            } else if (!Double.isNaN(tmpTransf.sin)) {
+                this.modifyRow(tmpLow, 0, PrimitiveMath.DIVIDE.second(tmpTransf.sin));
+            } else {
+                this.modifyRow(tmpLow, 0, PrimitiveMath.NEGATE);
+            }
+        }
+    }
+
+    public void transformRight(final Householder<Double> transformation, final int firstRow) {
+
+        final Householder.Primitive64 tmpTransf = Primitive64Store.cast(transformation);
+        final double[] vector = tmpTransf.vector;
+        final int first = tmpTransf.first;
+        final double beta = tmpTransf.beta;
+
+        final double[] row = new double[myColDim];
+
+        for (int i = firstRow; i < myRowDim; i++) {
+            double scale = ZERO;
+            for (int j = first; j < myColDim; j++) {
+                row[j] = this.doubleValue(i, j);
+                scale += vector[j] * row[j];
+            }
+            scale *= beta;
+            for (int j = first; j < myColDim; j++) {
+                this.set(i, j, row[j] - (scale * vector[j]));
+            }
+        }
+    }
+
+    public void transformRight(final Rotation<Double> transformation) {
+
+        final Rotation.Primitive tmpTransf = Primitive64Store.cast(transformation);
+
+        final int tmpLow = tmpTransf.low;
+        final int tmpHigh = tmpTransf.high;
+
+        if (tmpLow != tmpHigh) {
+            if (!Double.isNaN(tmpTransf.cos) && !Double.isNaN(tmpTransf.sin)) {
+                for (int i = 0; i < myRowDim; i++) {
+                    final double tmpOldLow = this.doubleValue(i, tmpLow);
+                    final double tmpOldHigh = this.doubleValue(i, tmpHigh);
+                    this.set(i, tmpLow, (tmpTransf.cos * tmpOldLow) - (tmpTransf.sin * tmpOldHigh));
+                    this.set(i, tmpHigh, (tmpTransf.cos * tmpOldHigh) + (tmpTransf.sin * tmpOldLow));
+                }
+            } else {
+                this.exchangeColumns(tmpLow, tmpHigh);
+            }
+        } else {
+            if (!Double.isNaN(tmpTransf.cos)) {
+                this.modifyColumn(0, tmpHigh, PrimitiveMath.MULTIPLY.second(tmpTransf.cos));
+            } else if (!Double.isNaN(tmpTransf.sin)) {
+                this.modifyColumn(0, tmpHigh, PrimitiveMath.DIVIDE.second(tmpTransf.sin));
+            } else {
+                this.modifyColumn(0, tmpHigh, PrimitiveMath.NEGATE);
+            }
+        }
+    }
+
+    public void visitAll(final VoidFunction<Double> visitor) {
+        myElements.visitAll(visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    MatrixStore<Double> cast(final Access2D<?> matrix) {
+        if (matrix instanceof MatrixStore<?>) {
+            return (MatrixStore<Double>) matrix;
+        } else {
+            return Primitive64Store.FACTORY.copy(matrix);
+        }
+    }
+
+    void column(final int col, final double[] destination) {
+        for (int i = 0; i < myRowDim; i++) {
+            destination[i] = this.doubleValue(i, col);
+        }
+    }
+
+    /**
+     * Calculates one tile of the product [left][right] and writes it to this store. The blocks of left and
+     * right are copied to the heap (column-major) before they're multiplied.
+     */
+    void multiplyTile(final int tileRow, final int tileCol, final Access1D<Double> left, final Access1D<Double> right, final int complexity,
+            final double[] leftBlock, final double[] rightBlock, final double[] product) {
+
+        final int firstRow = tileRow << BITS;
+        final int firstCol = tileCol << BITS;
+        final int height = Math.min(TILE, myRowDim - firstRow);
+        final int width = Math.min(TILE, myColDim - firstCol);
+
+        final long leftStructure = myRowDim;
+        final long rightStructure = complexity;
+
+        Arrays.fill(product, 0, height * width, ZERO);
+
+        for (int firstK = 0; firstK < complexity; firstK += TILE) {
+            final int depth = Math.min(TILE, complexity - firstK);
+
+            for (int k = 0; k < depth; k++) {
+                for (int i = 0; i < height; i++) {
+                    leftBlock[i + (k * height)] = left.doubleValue(Structure2D.index(leftStructure, firstRow + i, firstK + k));
+                }
+            }
+            for (int j = 0; j < width; j++) {
+                for (int k = 0; k < depth; k++) {
+                    rightBlock[k + (j * depth)] = right.doubleValue(Structure2D.index(rightStructure, firstK + k, firstCol + j));
+                }
+            }
+
+            for (int j = 0; j < width; j++) {
+                final int productBase = j * height;
+                for (int k = 0; k < depth; k++) {
+                    final double factor = rightBlock[k + (j * depth)];
+                    if (factor != ZERO) {
+                        final int leftBase = k * height;
+                        for (int i = 0; i < height; i++) {
+                            product[productBase + i] += leftBlock[leftBase + i] * factor;
+                        }
+                    }
+                }
+            }
+        }
+
+        // The tile is contiguous in the underlying array, with the same (column-major) order as product
+        final long offset = this.offset(firstRow, firstCol);
+        for (int ij = 0, limit = height * width; ij < limit; ij++) {
+            myElements.set(offset + ij, product[ij]);
+        }
+    }
+
+    /**
+     * The position, in the underlying array, of the element at (row, col)
+     */
+    long offset(final int row, final int col) {
+
+        final int firstRow = row & ~MASK;
+        final int firstCol = col & ~MASK;
+
+        final int height = Math.min(TILE, myRowDim - firstRow);
+        final int width = Math.min(TILE, myColDim - firstCol);
+
+        return ((long) firstCol * myRowDim) + ((long) firstRow * width) + (row & MASK) + ((long) (col & MASK) * height);
+    }
+
+}
@@ -422,7 +422,11 @@ public final class Primitive32Store extends Primitive32Array implements Physical
 
     @Override
     public double dot(final Access1D<?> vector) {
-        return myUtility.dot(vector);
+        if (vector instanceof Primitive32Array) {
+            return super.dot(vector);
+        } else {
+            return myUtility.dot(vector);
+        }
     }
 
     public double doubleValue(final long row, final long col) {
@@ -38,6 +38,7 @@ import org.ojalgo.function.BinaryFunction;
 import org.ojalgo.function.NullaryFunction;
 import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.VoidFunction;
+import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.function.special.MissingMath;
 import org.ojalgo.machine.JavaType;
@@ -443,6 +444,15 @@ public final class Primitive64Store extends Primitive64Array implements Physical
         myUtility.add(row, col, addend);
     }
 
+    @Override
+    public Double aggregateAll(final Aggregator aggregator) {
+        if (aggregator == Aggregator.NORM2) {
+            return NRM2.invoke(data, 0, data.length, 1);
+        } else {
+            return DecompositionStore.super.aggregateAll(aggregator);
+        }
+    }
+
     public void applyCholesky(final int iterationPoint, final BasicArray<Double> multipliers) {
 
         final double[] tmpData = data;
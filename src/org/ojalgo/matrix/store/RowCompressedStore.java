@@ -0,0 +1,216 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Access2D;
+
+/**
+ * Compressed Sparse Row (CSR) format, immutable, double valued, sparse matrix. Compared to
+ * {@link SparseStore} all elements of a row are stored consecutively and there is no index arithmetic (or
+ * searching) involved when traversing a row. Multiplication with a dense matrix or vector is done in
+ * parallel, partitioned by rows, and sparse-sparse multiplication uses Gustavson's algorithm.
+ * <p>
+ * Create instances using {@link #copy(Access2D)} - typically from a {@link SparseStore} that was used to
+ * build the matrix. The transpose of a {@link RowCompressedStore} is a {@link ColumnCompressedStore} sharing
+ * the same arrays (and vice versa).
+ *
+ * @author apete
+ */
+public final class RowCompressedStore extends CompressedStore {
+
+    public static RowCompressedStore copy(final Access2D<?> matrix) {
+        if (matrix instanceof RowCompressedStore) {
+            // Immutable - no need to copy
+            return (RowCompressedStore) matrix;
+        } else if (matrix instanceof ColumnCompressedStore) {
+            return ((ColumnCompressedStore) matrix).toRowCompressed();
+        } else {
+            return new RowCompressedStore((int) matrix.countRows(), (int) matrix.countColumns(), CompressedStore.compress(matrix, true));
+        }
+    }
+
+    RowCompressedStore(final int numberOfRows, final int numberOfColumns, final Arrays3 arrays) {
+        super(numberOfRows, numberOfColumns, arrays);
+    }
+
+    public double doubleValue(final long row, final long col) {
+        return this.doubleValue((int) row, (int) col);
+    }
+
+    public int firstInColumn(final int col) {
+        return 0;
+    }
+
+    public int firstInRow(final int row) {
+        return this.firstInMajor(row, this.getColDim());
+    }
+
+    @Override
+    public int limitOfRow(final int row) {
+        return this.limitOfMajor(row);
+    }
+
+    @Override
+    public void multiply(final Access1D<Double> right, final TransformableRegion<Double> target) {
+
+        final int numberOfRows = this.getRowDim();
+        final int complexity = this.getColDim();
+        final int numberOfColumns = Math.toIntExact(right.count() / complexity);
+
+        final int[] pointers = myArrays.pointers;
+        final int[] indices = myArrays.indices;
+        final double[] values = myArrays.values;
+
+        if (target instanceof Primitive64Store) {
+
+            final double[] product = ((Primitive64Store) target).data;
+            final double[] dense = right instanceof Primitive64Store ? ((Primitive64Store) right).data : right.toRawCopy1D();
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    for (int j = 0; j < numberOfColumns; j++) {
+                        final int offsetRight = j * complexity;
+                        final int offsetProduct = j * numberOfRows;
+                        for (int i = first; i < limit; i++) {
+                            double sum = PrimitiveMath.ZERO;
+                            for (int k = pointers[i], lim = pointers[i + 1]; k < lim; k++) {
+                                sum += values[k] * dense[offsetRight + indices[k]];
+                            }
+                            product[offsetProduct + i] = sum;
+                        }
+                    }
+                }
+            };
+
+            conquerer.invoke(0, numberOfRows, CompressedStore.threshold(numberOfRows, (long) values.length * numberOfColumns));
+
+        } else {
+
+            for (int j = 0; j < numberOfColumns; j++) {
+                final long offsetRight = (long) j * complexity;
+                for (int i = 0; i < numberOfRows; i++) {
+                    double sum = PrimitiveMath.ZERO;
+                    for (int k = pointers[i], lim = pointers[i + 1]; k < lim; k++) {
+                        sum += values[k] * right.doubleValue(offsetRight + indices[k]);
+                    }
+                    target.set(i, j, sum);
+                }
+            }
+        }
+    }
+
+    @Override
+    public MatrixStore<Double> multiply(final MatrixStore<Double> right) {
+
+        if (right instanceof CompressedStore) {
+
+            final RowCompressedStore other = RowCompressedStore.copy(right);
+
+            final int numberOfRows = this.getRowDim();
+            final int numberOfColumns = other.getColDim();
+
+            return new RowCompressedStore(numberOfRows, numberOfColumns, CompressedStore.multiply(myArrays, other.myArrays, numberOfRows, numberOfColumns));
+
+        } else {
+
+            return super.multiply(right);
+        }
+    }
+
+    @Override
+    public ElementsSupplier<Double> premultiply(final Access1D<Double> left) {
+
+        final int complexity = this.getRowDim();
+        final int numberOfColumns = this.getColDim();
+        final int numberOfRows = Math.toIntExact(left.count() / complexity);
+
+        if (left instanceof CompressedStore) {
+            return ((CompressedStore) left).multiply(this);
+        }
+
+        final Primitive64Store retVal = Primitive64Store.FACTORY.make(numberOfRows, numberOfColumns);
+        final double[] product = retVal.data;
+
+        final int[] pointers = myArrays.pointers;
+        final int[] indices = myArrays.indices;
+        final double[] values = myArrays.values;
+
+        final DivideAndConquer conquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                for (int c = 0; c < complexity; c++) {
+                    for (int r = first; r < limit; r++) {
+                        final double factor = left.doubleValue(r + ((long) c * numberOfRows));
+                        if (factor != PrimitiveMath.ZERO) {
+                            for (int k = pointers[c], lim = pointers[c + 1]; k < lim; k++) {
+                                product[r + (indices[k] * numberOfRows)] += factor * values[k];
+                            }
+                        }
+                    }
+                }
+            }
+        };
+
+        conquerer.invoke(0, numberOfRows, CompressedStore.threshold(numberOfRows, (long) values.length * numberOfRows));
+
+        return retVal;
+    }
+
+    @Override
+    public void supplyTo(final TransformableRegion<Double> receiver) {
+
+        receiver.reset();
+
+        for (int i = 0, numberOfRows = this.getRowDim(); i < numberOfRows; i++) {
+            for (int k = myArrays.pointers[i], lim = myArrays.pointers[i + 1]; k < lim; k++) {
+                receiver.set(i, myArrays.indices[k], myArrays.values[k]);
+            }
+        }
+    }
+
+    /**
+     * @return The same matrix in CSC format
+     */
+    public ColumnCompressedStore toColumnCompressed() {
+        return new ColumnCompressedStore(this.getRowDim(), this.getColDim(), CompressedStore.transpose(myArrays, this.getColDim()));
+    }
+
+    /**
+     * @return A {@link ColumnCompressedStore} sharing this instance's arrays
+     */
+    @Override
+    public ColumnCompressedStore transpose() {
+        return new ColumnCompressedStore(this.getColDim(), this.getRowDim(), myArrays);
+    }
+
+    @Override
+    RowCompressedStore newInstance(final Arrays3 arrays) {
+        return new RowCompressedStore(this.getRowDim(), this.getColDim(), arrays);
+    }
+
+}
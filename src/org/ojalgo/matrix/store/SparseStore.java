@@ -23,12 +23,16 @@ package org.ojalgo.matrix.store;
 
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
 
 import org.ojalgo.ProgrammingError;
 import org.ojalgo.array.SparseArray;
 import org.ojalgo.array.SparseArray.NonzeroView;
 import org.ojalgo.array.operation.MultiplyBoth;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.function.BinaryFunction;
 import org.ojalgo.function.NullaryFunction;
 import org.ojalgo.function.UnaryFunction;
@@ -48,6 +52,198 @@ import org.ojalgo.type.context.NumberContext;
 
 public final class SparseStore<N extends Comparable<N>> extends FactoryStore<N> implements TransformableRegion<N> {
 
+    /**
+     * Accumulates elements as (row, column, value) triplets - coordinate (COO) format - and builds the
+     * {@link SparseStore} in one step when {@link #get()} is called. Adding elements is O(1), regardless of
+     * order, whereas setting them directly on a {@link SparseStore} shifts the already stored elements on
+     * every out of order insert.
+     * <p>
+     * Any number of threads may add elements concurrently - each thread accumulates to its own buffer. Adding
+     * the same (row, column) several times sums the values. {@link #get()} must not be called while elements
+     * are still being added. It sorts (in parallel) and merges the buffers, but does not clear them - calling
+     * it again, possibly after adding more elements, builds a new instance with all elements added so far.
+     */
+    public static final class Builder<N extends Comparable<N>> implements Supplier<SparseStore<N>> {
+
+        static final class Buffer {
+
+            long[] indices = new long[16];
+            int size = 0;
+            double[] values = new double[16];
+
+            void add(final long index, final double value) {
+                if (size == indices.length) {
+                    final int capacity = size + Math.max(16, size / 2);
+                    indices = Arrays.copyOf(indices, capacity);
+                    values = Arrays.copyOf(values, capacity);
+                }
+                indices[size] = index;
+                values[size] = value;
+                size++;
+            }
+
+        }
+
+        private final List<Buffer> myBuffers = new ArrayList<>();
+        private final SparseStore.Factory<N> myFactory;
+        private final ThreadLocal<Buffer> myLocalBuffer = ThreadLocal.withInitial(this::newBuffer);
+        private final int myNumberOfColumns;
+        private final int myNumberOfRows;
+
+        Builder(final SparseStore.Factory<N> factory, final long numberOfRows, final long numberOfColumns) {
+            super();
+            myFactory = factory;
+            myNumberOfRows = Math.toIntExact(numberOfRows);
+            myNumberOfColumns = Math.toIntExact(numberOfColumns);
+        }
+
+        public Builder<N> add(final long row, final long col, final double value) {
+            myLocalBuffer.get().add(Structure2D.index(myNumberOfRows, row, col), value);
+            return this;
+        }
+
+        public SparseStore<N> get() {
+
+            final SparseStore<N> retVal = myFactory.make(myNumberOfRows, myNumberOfColumns);
+
+            int total = 0;
+            synchronized (myBuffers) {
+                for (final Buffer buffer : myBuffers) {
+                    total += buffer.size;
+                }
+            }
+
+            final long structure = myNumberOfRows;
+            final int numberOfColumns = myNumberOfColumns;
+
+            // Counting sort by column, then each column is sorted by row and merged separately
+
+            final int[] pointers = new int[numberOfColumns + 1];
+            synchronized (myBuffers) {
+                for (final Buffer buffer : myBuffers) {
+                    for (int k = 0; k < buffer.size; k++) {
+                        pointers[(int) (buffer.indices[k] / structure) + 1]++;
+                    }
+                }
+            }
+            for (int j = 0; j < numberOfColumns; j++) {
+                pointers[j + 1] += pointers[j];
+            }
+
+            final long[] indices = new long[total];
+            final double[] values = new double[total];
+            final int[] next = Arrays.copyOf(pointers, numberOfColumns);
+            synchronized (myBuffers) {
+                for (final Buffer buffer : myBuffers) {
+                    for (int k = 0; k < buffer.size; k++) {
+                        final int position = next[(int) (buffer.indices[k] / structure)]++;
+                        indices[position] = buffer.indices[k];
+                        values[position] = buffer.values[k];
+                    }
+                }
+            }
+
+            final int[] counts = new int[numberOfColumns];
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    for (int j = first; j < limit; j++) {
+                        counts[j] = Builder.sortAndMerge(structure, indices, values, pointers[j], pointers[j + 1]);
+                    }
+                }
+
+            };
+
+            conquerer.invoke(0, numberOfColumns, total > 0 ? Math.max(1, (int) ((16_384L * numberOfColumns) / total)) : numberOfColumns);
+
+            int length = 0;
+            for (int j = 0; j < numberOfColumns; j++) {
+                final int first = pointers[j];
+                final int count = counts[j];
+                if (first != length) {
+                    System.arraycopy(indices, first, indices, length, count);
+                    System.arraycopy(values, first, values, length, count);
+                }
+                length += count;
+            }
+
+            retVal.myElements.reset(indices, values, length);
+            for (int k = 0; k < length; k++) {
+                retVal.updateNonZeros((int) (indices[k] % structure), (int) (indices[k] / structure));
+            }
+
+            return retVal;
+        }
+
+        private Buffer newBuffer() {
+            final Buffer retVal = new Buffer();
+            synchronized (myBuffers) {
+                myBuffers.add(retVal);
+            }
+            return retVal;
+        }
+
+        /**
+         * Sorts the range by index, sums the values of equal indices and drops zeros. The result is moved to
+         * the beginning of the range.
+         *
+         * @return The number of remaining elements
+         */
+        static int sortAndMerge(final long structure, final long[] indices, final double[] values, final int first, final int limit) {
+
+            final int length = limit - first;
+
+            if (length == 0) {
+                return 0;
+            }
+
+            boolean sorted = true;
+            for (int k = first + 1; sorted && (k < limit); k++) {
+                sorted = indices[k - 1] < indices[k];
+            }
+
+            if (!sorted) {
+                // All indices are in the same column - sort (row, position) pairs packed in a long
+                final long[] keys = new long[length];
+                for (int k = 0; k < length; k++) {
+                    keys[k] = ((indices[first + k] % structure) << 32) | k;
+                }
+                Arrays.sort(keys);
+                final long[] sortedIndices = new long[length];
+                final double[] sortedValues = new double[length];
+                for (int k = 0; k < length; k++) {
+                    final int position = first + (int) (keys[k] & 0xFFFFFFFFL);
+                    sortedIndices[k] = indices[position];
+                    sortedValues[k] = values[position];
+                }
+                System.arraycopy(sortedIndices, 0, indices, first, length);
+                System.arraycopy(sortedValues, 0, values, first, length);
+            }
+
+            int count = 0;
+            for (int k = first; k < limit; k++) {
+                if ((count > 0) && (indices[first + count - 1] == indices[k])) {
+                    values[first + count - 1] += values[k];
+                } else {
+                    if ((count > 0) && (values[first + count - 1] == ZERO)) {
+                        count--;
+                    }
+                    indices[first + count] = indices[k];
+                    values[first + count] = values[k];
+                    count++;
+                }
+            }
+            if ((count > 0) && (values[first + count - 1] == ZERO)) {
+                count--;
+            }
+
+            return count;
+        }
+
+    }
+
     public interface Factory<N extends Comparable<N>> {
 
         SparseStore<N> make(long rowsCount, long columnsCount);
@@ -70,6 +266,14 @@ public final class SparseStore<N extends Comparable<N>> extends FactoryStore<N>
     public static final SparseStore.Factory<RationalNumber> RATIONAL = (rowsCount, columnsCount) -> SparseStore.makeRational((int) rowsCount,
             (int) columnsCount);
 
+    /**
+     * @see Builder
+     */
+    public static <N extends Comparable<N>> SparseStore.Builder<N> builder(final SparseStore.Factory<N> factory, final long numberOfRows,
+            final long numberOfColumns) {
+        return new SparseStore.Builder<>(factory, numberOfRows, numberOfColumns);
+    }
+
     public static SparseStore<ComplexNumber> makeComplex(final int rowsCount, final int columnsCount) {
         return SparseStore.makeSparse(GenericStore.COMPLEX, rowsCount, columnsCount);
     }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.matrix.decomposition.DecompositionCache;
+import org.ojalgo.matrix.decomposition.MatrixDecomposition;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * A {@link SolverTask} that keeps the decompositions of the bodies (the [A] in [A][X]=[B]) it has solved
+ * with, in a {@link DecompositionCache}, so that solving again with the same body, and a new right hand side,
+ * only does the (cheap) back substitution.
+ * <p>
+ * Which decomposition to use, for each body, is decided by the {@link SolverTask.Factory} once - when the
+ * body is not yet in the cache. All systems are solved using (cached) decompositions, also the small ones the
+ * factory would otherwise solve with special case code. Factories that don't produce decompositions can't be
+ * cached.
+ *
+ * @author apete
+ */
+public final class CachingSolverTask<N extends Comparable<N>> implements SolverTask<N> {
+
+    private final DecompositionCache<N, MatrixDecomposition.Solver<N>> myCache;
+    private final SolverTask.Factory<N> myFactory;
+    private final boolean myPositiveDefinite;
+    private final boolean mySymmetric;
+
+    CachingSolverTask(final SolverTask.Factory<N> factory, final long capacity, final boolean symmetric, final boolean positiveDefinite) {
+
+        super();
+
+        myFactory = factory;
+        mySymmetric = symmetric;
+        myPositiveDefinite = positiveDefinite;
+
+        myCache = new DecompositionCache<>(typical -> {
+
+            // A matrix (not vector) RHS so that the factory returns a decomposition, rather than a small special case solver
+            final Structure2D templateRHS = new Structure2D() {
+
+                public long countColumns() {
+                    return 2L;
+                }
+
+                public long countRows() {
+                    return typical.countRows();
+                }
+            };
+
+            final SolverTask<N> task = factory.make(typical, templateRHS, symmetric, positiveDefinite);
+
+            if (task instanceof MatrixDecomposition.Solver<?>) {
+                return (MatrixDecomposition.Solver<N>) task;
+            } else {
+                throw new ProgrammingError("Can't cache " + task.getClass().getSimpleName() + " - it is not a decomposition!");
+            }
+        }, capacity);
+    }
+
+    /**
+     * @return The cache, with its hit/miss metrics
+     */
+    public DecompositionCache<N, MatrixDecomposition.Solver<N>> getCache() {
+        return myCache;
+    }
+
+    public PhysicalStore<N> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return myFactory.make(templateBody, templateRHS, mySymmetric, myPositiveDefinite).preallocate(templateBody, templateRHS);
+    }
+
+    public MatrixStore<N> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<N> preallocated) throws RecoverableCondition {
+
+        final MatrixStore.Factory<N> builder = preallocated.physical().builder();
+
+        final MatrixDecomposition.Solver<N> solver = myCache.decompose(builder.makeWrapper(body).get());
+
+        if (solver.isSolvable()) {
+            return solver.getSolution(builder.makeWrapper(rhs), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+}
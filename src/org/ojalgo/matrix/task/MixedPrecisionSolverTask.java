@@ -0,0 +1,423 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.array.operation.AMAX;
+import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.array.operation.Exchange;
+import org.ojalgo.array.operation.MultiplyBlocked;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.matrix.decomposition.ConditionEstimator;
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive32Store;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.Structure2D;
+
+/**
+ * Solves square equation systems using mixed precision iterative refinement. The body is LU decomposed
+ * (blocked, with partial pivoting) in single precision, in a {@link Primitive32Store}, and the solution is
+ * then refined using residuals calculated in double precision from the original body. For well conditioned
+ * systems this gives double precision accuracy while the O(n<sup>3</sup>) factorisation only has to move
+ * half as much memory.
+ * <p>
+ * If the body is too ill conditioned - the condition number is estimated, using a {@link ConditionEstimator}
+ * on the single precision factors - or the refinement does not converge within {@value #ITERATIONS}
+ * iterations, the system is solved using an ordinary double precision LU decomposition instead.
+ * <p>
+ * The instance keeps, and re-uses, its work storage - create one per thread.
+ *
+ * @author apete
+ */
+public final class MixedPrecisionSolverTask implements SolverTask<Double> {
+
+    /**
+     * The maximum number of refinement iterations
+     */
+    public static final int ITERATIONS = 30;
+
+    /**
+     * If the (estimated, 1-norm) condition number of the body is larger than this, the refinement is not even
+     * attempted.
+     */
+    public static final double MAX_CONDITION = 1E6;
+
+    static final int BLOCK = 64;
+
+    private static boolean factorise(final float[] data, final int dim, final int[] order) {
+
+        for (int i = 0; i < dim; i++) {
+            order[i] = i;
+        }
+
+        for (int first = 0; first < dim; first += BLOCK) {
+            final int limit = Math.min(first + BLOCK, dim);
+
+            // The panel - column by column, but only updating the panel itself
+
+            for (int ij = first; ij < limit; ij++) {
+
+                final int pivotRow = AMAX.invoke(data, ij + (ij * dim), (ij + 1) * dim, 1) - (ij * dim);
+                if (pivotRow != ij) {
+                    Exchange.exchange(data, pivotRow, ij, dim, dim);
+                    final int tmpOrder = order[pivotRow];
+                    order[pivotRow] = order[ij];
+                    order[ij] = tmpOrder;
+                }
+
+                final int diagonal = ij + (ij * dim);
+                final float pivotValue = data[diagonal];
+
+                if (pivotValue == 0F) {
+                    return false;
+                }
+
+                for (int i = diagonal + 1, columnLimit = (ij + 1) * dim; i < columnLimit; i++) {
+                    data[i] /= pivotValue;
+                }
+
+                for (int j = ij + 1; j < limit; j++) {
+                    AXPY.invoke(data, j * dim, -data[ij + (j * dim)], data, ij * dim, ij + 1, dim);
+                }
+            }
+
+            if (limit < dim) {
+
+                final int panelFirst = first;
+                final int panelLimit = limit;
+
+                // The block row of U - forward substitution with the unit lower triangular panel diagonal block
+
+                new DivideAndConquer() {
+
+                    @Override
+                    protected void conquer(final int firstColumn, final int columnLimit) {
+                        for (int j = firstColumn; j < columnLimit; j++) {
+                            for (int i = panelFirst; i < panelLimit; i++) {
+                                AXPY.invoke(data, j * dim, -data[i + (j * dim)], data, i * dim, i + 1, panelLimit);
+                            }
+                        }
+                    }
+
+                }.invoke(limit, dim, BLOCK);
+
+                // The trailing sub-matrix
+
+                new DivideAndConquer() {
+
+                    @Override
+                    protected void conquer(final int firstColumn, final int columnLimit) {
+                        MultiplyBlocked.subtract(data, dim, panelLimit, dim, firstColumn, columnLimit, panelFirst, panelLimit, false);
+                    }
+
+                }.invoke(limit, dim, BLOCK);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Solves [A][x]=[b], in place, in double precision but using the single precision factors.
+     */
+    private static void solve(final float[] factors, final int dim, final int[] order, final double[] vector, final double[] work) {
+
+        for (int i = 0; i < dim; i++) {
+            work[i] = vector[order[i]];
+        }
+
+        for (int j = 0; j < dim; j++) {
+            final double value = work[j];
+            for (int i = j + 1, base = j * dim; i < dim; i++) {
+                work[i] -= factors[base + i] * value;
+            }
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            final double value = work[j] /= factors[j + (j * dim)];
+            for (int i = 0, base = j * dim; i < j; i++) {
+                work[i] -= factors[base + i] * value;
+            }
+        }
+
+        System.arraycopy(work, 0, vector, 0, dim);
+    }
+
+    /**
+     * Solves [A]<sup>T</sup>[x]=[b], in place, in double precision but using the single precision factors.
+     */
+    private static void solveTransposed(final float[] factors, final int dim, final int[] order, final double[] vector, final double[] work) {
+
+        for (int j = 0; j < dim; j++) {
+            double value = vector[j];
+            for (int i = 0, base = j * dim; i < j; i++) {
+                value -= factors[base + i] * vector[i];
+            }
+            vector[j] = value / factors[j + (j * dim)];
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            double value = vector[j];
+            for (int i = j + 1, base = j * dim; i < dim; i++) {
+                value -= factors[base + i] * vector[i];
+            }
+            vector[j] = value;
+        }
+
+        for (int i = 0; i < dim; i++) {
+            work[order[i]] = vector[i];
+        }
+
+        System.arraycopy(work, 0, vector, 0, dim);
+    }
+
+    /**
+     * Solves [LU][x]=[P][b] in single precision, overwriting x (which must hold b on entry).
+     */
+    private static void substitute(final float[] factors, final int dim, final int[] order, final double[] b, final float[] x) {
+
+        for (int i = 0; i < dim; i++) {
+            x[i] = (float) b[order[i]];
+        }
+
+        for (int j = 0; j < dim; j++) {
+            AXPY.invoke(x, 0, -x[j], factors, j * dim, j + 1, dim);
+        }
+
+        for (int j = dim - 1; j >= 0; j--) {
+            x[j] /= factors[j + (j * dim)];
+            AXPY.invoke(x, 0, -x[j], factors, j * dim, 0, j);
+        }
+    }
+
+    private double[] myBody = null;
+    private final ConditionEstimator myEstimator = new ConditionEstimator();
+    private LU<Double> myFallback = null;
+    private boolean myFallenBack = false;
+    private Primitive32Store myFactors = null;
+    private int myIterations = 0;
+    private int[] myOrder = null;
+    private double[] myResidual = null;
+    private double[] myRHS = null;
+    private double[] mySolution = null;
+    private float[] myCorrection = null;
+
+    MixedPrecisionSolverTask() {
+        super();
+    }
+
+    /**
+     * @return The (largest) number of refinement iterations needed for the most recent solve, or 0 if it was
+     *         solved in double precision.
+     */
+    public int countIterations() {
+        return myIterations;
+    }
+
+    /**
+     * @return true if the most recent solve fell back to a double precision LU decomposition
+     */
+    public boolean isFallback() {
+        return myFallenBack;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return Primitive64Store.FACTORY.make(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        if (!body.isSquare() || (body.countRows() != rhs.countRows())) {
+            throw new ProgrammingError("The body must be square, and have as many rows as the RHS!");
+        }
+
+        final int dim = Math.toIntExact(body.countRows());
+        final int nbCols = Math.toIntExact(rhs.countColumns());
+
+        final double[] original = this.prepare(body, dim);
+        final float[] factors = myFactors.data;
+
+        myIterations = 0;
+        myFallenBack = !MixedPrecisionSolverTask.factorise(factors, dim, myOrder);
+
+        if (!myFallenBack) {
+
+            // The 1-norm (largest column sum) for the condition estimate,
+            // and the infinity-norm (largest row sum) for the refinement stopping criterion
+
+            final double[] rowSums = myResidual;
+            Arrays.fill(rowSums, 0, dim, ZERO);
+            double norm1 = ZERO;
+            for (int j = 0; j < dim; j++) {
+                double columnSum = ZERO;
+                for (int i = 0, base = j * dim; i < dim; i++) {
+                    final double value = Math.abs(original[base + i]);
+                    columnSum += value;
+                    rowSums[i] += value;
+                }
+                norm1 = Math.max(norm1, columnSum);
+            }
+            double normInf = ZERO;
+            for (int i = 0; i < dim; i++) {
+                normInf = Math.max(normInf, rowSums[i]);
+            }
+
+            final int[] order = myOrder;
+            final double inverse = myEstimator.estimate(dim, (vector, work) -> MixedPrecisionSolverTask.solve(factors, dim, order, vector, work),
+                    (vector, work) -> MixedPrecisionSolverTask.solveTransposed(factors, dim, order, vector, work));
+            myFallenBack = !((norm1 * inverse) <= MAX_CONDITION);
+
+            final double tolerance = normInf * MACHINE_EPSILON * Math.sqrt(dim);
+
+            for (int j = 0; (j < nbCols) && !myFallenBack; j++) {
+
+                for (int i = 0; i < dim; i++) {
+                    myRHS[i] = rhs.doubleValue(i, j);
+                }
+
+                if (this.refine(original, dim, tolerance)) {
+                    for (int i = 0; i < dim; i++) {
+                        preallocated.set(i, j, mySolution[i]);
+                    }
+                } else {
+                    myFallenBack = true;
+                }
+            }
+        }
+
+        if (myFallenBack) {
+
+            myIterations = 0;
+
+            if (myFallback == null) {
+                myFallback = LU.PRIMITIVE.make(body);
+            }
+
+            return myFallback.solve(body, rhs, preallocated);
+        }
+
+        return preallocated;
+    }
+
+    /**
+     * Copies the body to the single precision factors, and (unless it already is) to a double precision
+     * array, making sure all work arrays are large enough.
+     *
+     * @return The original body as a column major double[]
+     */
+    private double[] prepare(final Access2D<?> body, final int dim) {
+
+        if ((myFactors == null) || (myFactors.countRows() != dim)) {
+            myFactors = Primitive32Store.FACTORY.make(dim, dim);
+            myOrder = new int[dim];
+            myResidual = new double[dim];
+            myRHS = new double[dim];
+            mySolution = new double[dim];
+            myCorrection = new float[dim];
+            myBody = null;
+        }
+
+        final float[] factors = myFactors.data;
+
+        if (body instanceof Primitive64Store) {
+
+            final double[] original = ((Primitive64Store) body).data;
+            for (int ij = 0; ij < factors.length; ij++) {
+                factors[ij] = (float) original[ij];
+            }
+            return original;
+
+        } else {
+
+            if (myBody == null) {
+                myBody = new double[dim * dim];
+            }
+            final double[] original = myBody;
+            for (int j = 0; j < dim; j++) {
+                for (int i = 0; i < dim; i++) {
+                    final int ij = i + (j * dim);
+                    original[ij] = body.doubleValue(i, j);
+                    factors[ij] = (float) original[ij];
+                }
+            }
+            return original;
+        }
+    }
+
+    /**
+     * Solves for the current RHS, and refines that solution until the (double precision) residual is small
+     * enough.
+     *
+     * @return true if it converged
+     */
+    private boolean refine(final double[] original, final int dim, final double tolerance) {
+
+        final float[] factors = myFactors.data;
+        final double[] solution = mySolution;
+        final double[] residual = myResidual;
+        final float[] correction = myCorrection;
+
+        MixedPrecisionSolverTask.substitute(factors, dim, myOrder, myRHS, correction);
+        for (int i = 0; i < dim; i++) {
+            solution[i] = correction[i];
+        }
+
+        for (int iteration = 1; iteration <= ITERATIONS; iteration++) {
+
+            System.arraycopy(myRHS, 0, residual, 0, dim);
+            double normX = ZERO;
+            for (int j = 0; j < dim; j++) {
+                AXPY.invoke(residual, 0, -solution[j], original, j * dim, 0, dim);
+                normX = Math.max(normX, Math.abs(solution[j]));
+            }
+
+            double normR = ZERO;
+            for (int i = 0; i < dim; i++) {
+                normR = Math.max(normR, Math.abs(residual[i]));
+            }
+
+            if (Double.isNaN(normR) || Double.isNaN(normX)) {
+                return false;
+            }
+            if (normR <= (tolerance * normX)) {
+                myIterations = Math.max(myIterations, iteration - 1);
+                return true;
+            }
+
+            MixedPrecisionSolverTask.substitute(factors, dim, myOrder, residual, correction);
+            for (int i = 0; i < dim; i++) {
+                solution[i] += correction[i];
+            }
+        }
+
+        return false;
+    }
+
+}
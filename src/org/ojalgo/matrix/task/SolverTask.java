@@ -21,6 +21,7 @@
  */
 package org.ojalgo.matrix.task;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.matrix.MatrixUtils;
 import org.ojalgo.matrix.decomposition.Cholesky;
@@ -39,6 +40,26 @@ public interface SolverTask<N extends Comparable<N>> extends MatrixTask<N> {
 
     public static abstract class Factory<N extends Comparable<N>> {
 
+        /**
+         * Same as {@link #cached(long, boolean, boolean)} with symmetric and positiveDefinite both false.
+         */
+        public CachingSolverTask<N> cached(final long capacity) {
+            return this.cached(capacity, false, false);
+        }
+
+        /**
+         * @param capacity The (estimated) maximum number of bytes used to cache decompositions
+         * @param symmetric Passed on to {@link #make(Structure2D, Structure2D, boolean, boolean)} when selecting
+         *        the decomposition
+         * @param positiveDefinite Passed on to {@link #make(Structure2D, Structure2D, boolean, boolean)} when
+         *        selecting the decomposition
+         * @return A solver task that caches the decompositions of the bodies it solves with, and reuses them
+         *         when solving with an equal body again.
+         */
+        public CachingSolverTask<N> cached(final long capacity, final boolean symmetric, final boolean positiveDefinite) {
+            return new CachingSolverTask<>(this, capacity, symmetric, positiveDefinite);
+        }
+
         public SolverTask<N> make(final int numberOfEquations, final int numberOfVariables, final int numberOfSolutions, final boolean symmetric,
                 final boolean positiveDefinite) {
 
@@ -102,6 +123,32 @@ public interface SolverTask<N extends Comparable<N>> extends MatrixTask<N> {
 
     };
 
+    /**
+     * Square systems, with at least {@value MixedPrecisionSolverTask#BLOCK} equations, are solved using
+     * {@link MixedPrecisionSolverTask} - single precision factorisation with double precision iterative
+     * refinement. Everything else is delegated to {@link #PRIMITIVE}.
+     * <p>
+     * Can't be {@link Factory#cached(long)} - the mixed precision factorisation is internal to the task.
+     */
+    Factory<Double> MIXED = new Factory<Double>() {
+
+        @Override
+        public CachingSolverTask<Double> cached(final long capacity, final boolean symmetric, final boolean positiveDefinite) {
+            ProgrammingError.throwForUnsupportedOptionalOperation();
+            return null;
+        }
+
+        @Override
+        public SolverTask<Double> make(final Structure2D templateBody, final Structure2D templateRHS, final boolean symmetric, final boolean positiveDefinite) {
+            if (templateBody.isSquare() && (templateBody.countRows() >= MixedPrecisionSolverTask.BLOCK)) {
+                return new MixedPrecisionSolverTask();
+            } else {
+                return PRIMITIVE.make(templateBody, templateRHS, symmetric, positiveDefinite);
+            }
+        }
+
+    };
+
     Factory<Double> PRIMITIVE = new Factory<Double>() {
 
         @Override
@@ -154,6 +201,8 @@ public interface SolverTask<N extends Comparable<N>> extends MatrixTask<N> {
 
                 if (tmpVectorRHS && (tmpColDim <= 5)) {
                     return AbstractSolver.LEAST_SQUARES;
+                } else if ((8192L <= templateBody.countRows()) && ((16L * tmpColDim) <= templateBody.countRows())) {
+                    return QR.TALL_SKINNY.make(templateBody);
                 } else {
                     return QR.PRIMITIVE.make(templateBody);
                 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Biconjugate gradient stabilised method (van der Vorst) for general (nonsymmetric) square systems. It's right
+ * preconditioned - the residual that is checked for convergence is the actual residual. Each iteration does
+ * two matrix-vector multiplications and two preconditioner solves, and needs a fixed amount of memory. It may
+ * break down (divide by zero), in which case it stops and the returned error is not small.
+ *
+ * @author apete
+ */
+public final class BiCGSTABSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
+
+    private int myIterations = 0;
+    private transient Primitive64Store myP = null;
+    private transient Primitive64Store myPreconditionedP = null;
+    private transient Primitive64Store myPreconditionedS = null;
+    private transient Primitive64Store myResidual = null;
+    private transient Primitive64Store myShadow = null;
+    private transient Primitive64Store myT = null;
+    private transient Primitive64Store myV = null;
+
+    public BiCGSTABSolver() {
+        super();
+    }
+
+    /**
+     * @return The number of iterations performed by the most recent solve/resolve
+     */
+    public int countIterations() {
+        return myIterations;
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final Preconditioner preconditioner = this.getPreconditioner();
+        preconditioner.prepare(equations, (int) solution.count());
+
+        final Primitive64Store r = myResidual = KrylovSubspaceSolver.vector(myResidual, solution);
+        final Primitive64Store shadow = myShadow = KrylovSubspaceSolver.vector(myShadow, solution);
+        final Primitive64Store p = myP = KrylovSubspaceSolver.vector(myP, solution);
+        final Primitive64Store v = myV = KrylovSubspaceSolver.vector(myV, solution);
+        final Primitive64Store t = myT = KrylovSubspaceSolver.vector(myT, solution);
+        final Primitive64Store pHat = myPreconditionedP = KrylovSubspaceSolver.vector(myPreconditionedP, solution);
+        final Primitive64Store sHat = myPreconditionedS = KrylovSubspaceSolver.vector(myPreconditionedS, solution);
+
+        final double normRHS = KrylovSubspaceSolver.rhs(equations);
+        double normErr = KrylovSubspaceSolver.residual(equations, solution, r);
+
+        shadow.fillMatching(r);
+
+        double rho = ONE;
+        double alpha = ONE;
+        double omega = ONE;
+
+        int iterations = 0;
+        final int limit = this.getIterationsLimit();
+        final NumberContext accuracy = this.getAccuracyContext();
+
+        while ((iterations < limit) && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr)) {
+
+            final double rhoNext = shadow.dot(r);
+            if (rhoNext == ZERO) {
+                break;
+            }
+
+            // p = r + beta (p - omega v)
+            final double beta = (rhoNext / rho) * (alpha / omega);
+            v.axpy(-omega, p);
+            p.modifyAll(MULTIPLY.second(beta));
+            p.modifyMatching(ADD, r);
+
+            preconditioner.apply(p, pHat);
+            KrylovSubspaceSolver.multiply(equations, pHat, v);
+
+            alpha = rhoNext / shadow.dot(v);
+
+            // s = r - alpha v (stored in r)
+            v.axpy(-alpha, r);
+            pHat.axpy(alpha, solution);
+
+            iterations++;
+
+            normErr = r.aggregateAll(Aggregator.NORM2);
+            if (accuracy.isSmall(normRHS, normErr)) {
+                break;
+            }
+
+            preconditioner.apply(r, sHat);
+            KrylovSubspaceSolver.multiply(equations, sHat, t);
+
+            final double tt = t.dot(t);
+            omega = tt != ZERO ? t.dot(r) / tt : ZERO;
+
+            sHat.axpy(omega, solution);
+            t.axpy(-omega, r);
+
+            normErr = r.aggregateAll(Aggregator.NORM2);
+
+            rho = rhoNext;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(iterations, normErr / normRHS, solution);
+            }
+
+            if (omega == ZERO) {
+                break;
+            }
+        }
+
+        myIterations = iterations;
+
+        return normRHS != ZERO ? normErr / normRHS : normErr;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final List<Equation> rows = IterativeSolverTask.toListOfRows(body, rhs);
+
+        this.resolve(rows, preallocated);
+
+        return preallocated;
+    }
+
+}
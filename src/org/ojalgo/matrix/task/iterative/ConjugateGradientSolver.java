@@ -35,13 +35,16 @@ import org.ojalgo.structure.Structure1D;
 import org.ojalgo.type.context.NumberContext;
 
 /**
- * A (Jacobi) preconditioned conjugate gradient solver.
+ * A preconditioned conjugate gradient solver. The body must be symmetric positive definite. By default it's
+ * Jacobi (diagonal) preconditioned - other {@link Preconditioner}s can be set using the
+ * {@link IterativeSolverTask.Configurator}.
  *
  * @author apete
  */
 public final class ConjugateGradientSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
 
     private transient Primitive64Store myDirection = null;
+    private int myIterations = 0;
     private transient Primitive64Store myPreconditioned = null;
     private transient Primitive64Store myResidual = null;
     private transient Primitive64Store myVector = null;
@@ -50,10 +53,20 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         super();
     }
 
+    /**
+     * @return The number of iterations performed by the most recent solve/resolve
+     */
+    public int countIterations() {
+        return myIterations;
+    }
+
     public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
 
         final int tmpCountRows = equations.size();
 
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+        tmpPreconditioner.prepare(equations, (int) solution.count());
+
         double tmpNormErr = POSITIVE_INFINITY;
         double tmpNormRHS = ONE;
 
@@ -75,9 +88,10 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
             tmpNormRHS = HYPOT.invoke(tmpNormRHS, tmpVal);
             tmpVal -= tmpRow.dot(solution);
             tmpResidual.set(tmpRow.index, tmpVal);
-            tmpPreconditioned.set(tmpRow.index, tmpVal / tmpRow.getPivot()); // precondition
         }
 
+        tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
+
         tmpDirection.fillMatching(tmpPreconditioned); // tmpPreconditioned.supplyNonZerosTo(tmpDirection);
 
         int tmpIterations = 0;
@@ -91,11 +105,7 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
 
             zr0 = zr1;
 
-            for (int i = 0; i < tmpCountRows; i++) {
-                final Equation tmpRow = equations.get(i);
-                final double tmpVal = tmpRow.dot(tmpDirection);
-                tmpVector.set(tmpRow.index, tmpVal);
-            }
+            KrylovSubspaceSolver.multiply(equations, tmpDirection, tmpVector);
 
             // pAp0 = tmpVector.multiplyLeft(tmpDirection.transpose()).get().doubleValue(0L);
             pAp0 = tmpDirection.dot(tmpVector);
@@ -117,9 +127,10 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
                 final Equation tmpRow = equations.get(r);
                 final double tmpValue = tmpResidual.doubleValue(tmpRow.index);
                 tmpNormErr = HYPOT.invoke(tmpNormErr, tmpValue);
-                tmpPreconditioned.set(tmpRow.index, tmpValue / tmpRow.getPivot());
             }
 
+            tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
+
             zr1 = tmpPreconditioned.dot(tmpResidual);
             tmpGradientCorrectionFactor = zr1 / zr0;
 
@@ -136,6 +147,8 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
 
         // BasicLogger.debug("Done in {} iterations on problem size {}", tmpIterations, current.count());
 
+        myIterations = tmpIterations;
+
         return tmpNormErr / tmpNormRHS;
     }
 
@@ -0,0 +1,208 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Restarted generalised minimal residual method, GMRES(m), for general (nonsymmetric) square systems. Right
+ * preconditioned. Builds an orthonormal (modified Gram-Schmidt) basis of up to m Krylov vectors, and
+ * minimises the residual over that subspace (Givens rotations on the Hessenberg matrix). The residual norm
+ * never increases, but memory use is m vectors.
+ *
+ * @author apete
+ */
+public final class GMRESSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
+
+    /**
+     * The default restart parameter, m
+     */
+    public static final int RESTART = 30;
+
+    private transient Primitive64Store[] myBasis = null;
+    private final double[] myCosines;
+    private final double[][] myHessenberg;
+    private int myIterations = 0;
+    private transient Primitive64Store myPreconditioned = null;
+    private final int myRestart;
+    private final double[] myRotated;
+    private final double[] mySines;
+    private transient Primitive64Store myVector = null;
+
+    public GMRESSolver() {
+        this(RESTART);
+    }
+
+    /**
+     * @param restart The max number of Krylov vectors (iterations) before restarting
+     */
+    public GMRESSolver(final int restart) {
+
+        super();
+
+        if (restart < 1) {
+            throw new IllegalArgumentException("The restart parameter must be at least 1!");
+        }
+
+        myRestart = restart;
+
+        myHessenberg = new double[restart + 1][restart];
+        myCosines = new double[restart];
+        mySines = new double[restart];
+        myRotated = new double[restart + 1];
+    }
+
+    /**
+     * @return The number of iterations (inner iterations, in total) performed by the most recent solve/resolve
+     */
+    public int countIterations() {
+        return myIterations;
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final Preconditioner preconditioner = this.getPreconditioner();
+        preconditioner.prepare(equations, (int) solution.count());
+
+        final int restart = myRestart;
+        final double[][] hessenberg = myHessenberg;
+        final double[] cosines = myCosines;
+        final double[] sines = mySines;
+        final double[] rotated = myRotated;
+
+        if ((myBasis == null) || (myBasis[0].count() != solution.count())) {
+            myBasis = new Primitive64Store[restart + 1];
+        }
+        final Primitive64Store[] basis = myBasis;
+        for (int j = 0; j <= restart; j++) {
+            basis[j] = KrylovSubspaceSolver.vector(basis[j], solution);
+        }
+        final Primitive64Store vector = myVector = KrylovSubspaceSolver.vector(myVector, solution);
+        final Primitive64Store preconditioned = myPreconditioned = KrylovSubspaceSolver.vector(myPreconditioned, solution);
+
+        final double normRHS = KrylovSubspaceSolver.rhs(equations);
+        double normErr = KrylovSubspaceSolver.residual(equations, solution, basis[0]);
+
+        int iterations = 0;
+        final int limit = this.getIterationsLimit();
+        final NumberContext accuracy = this.getAccuracyContext();
+
+        while ((iterations < limit) && !Double.isNaN(normErr) && !accuracy.isSmall(normRHS, normErr)) {
+
+            basis[0].modifyAll(DIVIDE.second(normErr));
+            rotated[0] = normErr;
+
+            int k = 0;
+            while ((k < restart) && (iterations < limit)) {
+
+                preconditioner.apply(basis[k], preconditioned);
+                vector.fillAll(ZERO);
+                KrylovSubspaceSolver.multiply(equations, preconditioned, vector);
+
+                for (int i = 0; i <= k; i++) {
+                    final double h = vector.dot(basis[i]);
+                    hessenberg[i][k] = h;
+                    basis[i].axpy(-h, vector);
+                }
+                final double norm = vector.aggregateAll(Aggregator.NORM2);
+                hessenberg[k + 1][k] = norm;
+
+                // Previous rotations applied to the new column
+                for (int i = 0; i < k; i++) {
+                    final double upper = hessenberg[i][k];
+                    final double lower = hessenberg[i + 1][k];
+                    hessenberg[i][k] = (cosines[i] * upper) + (sines[i] * lower);
+                    hessenberg[i + 1][k] = (cosines[i] * lower) - (sines[i] * upper);
+                }
+
+                // New rotation to eliminate the subdiagonal element
+                final double diagonal = hessenberg[k][k];
+                final double hypot = HYPOT.invoke(diagonal, norm);
+                cosines[k] = hypot != ZERO ? diagonal / hypot : ONE;
+                sines[k] = hypot != ZERO ? norm / hypot : ZERO;
+                hessenberg[k][k] = hypot;
+                hessenberg[k + 1][k] = ZERO;
+                rotated[k + 1] = -sines[k] * rotated[k];
+                rotated[k] = cosines[k] * rotated[k];
+
+                k++;
+                iterations++;
+
+                normErr = Math.abs(rotated[k]);
+
+                if (this.isDebugPrinterSet()) {
+                    this.debug(iterations, normErr / normRHS, solution);
+                }
+
+                if ((norm == ZERO) || accuracy.isSmall(normRHS, normErr)) {
+                    break;
+                }
+
+                vector.modifyAll(DIVIDE.second(norm));
+                basis[k].fillMatching(vector);
+            }
+
+            // Solve the (rotated, upper triangular) Hessenberg system, and update the solution
+            for (int i = k - 1; i >= 0; i--) {
+                double value = rotated[i];
+                for (int j = i + 1; j < k; j++) {
+                    value -= hessenberg[i][j] * rotated[j];
+                }
+                rotated[i] = hessenberg[i][i] != ZERO ? value / hessenberg[i][i] : ZERO;
+            }
+            vector.fillAll(ZERO);
+            for (int i = 0; i < k; i++) {
+                basis[i].axpy(rotated[i], vector);
+            }
+            preconditioner.apply(vector, preconditioned);
+            solution.modifyMatching(ADD, preconditioned);
+
+            // The true residual, to restart from
+            normErr = KrylovSubspaceSolver.residual(equations, solution, basis[0]);
+        }
+
+        myIterations = iterations;
+
+        return normRHS != ZERO ? normErr / normRHS : normErr;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final List<Equation> rows = IterativeSolverTask.toListOfRows(body, rhs);
+
+        this.resolve(rows, preallocated);
+
+        return preallocated;
+    }
+
+}
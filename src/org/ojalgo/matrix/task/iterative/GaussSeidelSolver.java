@@ -26,12 +26,21 @@ import static org.ojalgo.function.constant.PrimitiveMath.*;
 import java.util.List;
 
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.equation.Equation;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.structure.Access2D;
 import org.ojalgo.type.context.NumberContext;
 
+/**
+ * Gauss-Seidel, or with a relaxation factor other than 1.0 successive over-relaxation (SOR). With more than a
+ * few hundred equations the rows are coloured, so that rows of the same colour don't depend on each other,
+ * and each colour class is then updated in parallel - a multicolour (red-black for 5-point grids) ordering.
+ * With fewer equations the rows are updated sequentially in the order they're given.
+ *
+ * @author apete
+ */
 public final class GaussSeidelSolver extends StationaryIterativeSolver implements IterativeSolverTask.SparseDelegate {
 
     public GaussSeidelSolver() {
@@ -53,12 +62,41 @@ public final class GaussSeidelSolver extends StationaryIterativeSolver implement
         final NumberContext tmpCntxt = this.getAccuracyContext();
         final double tmpRelaxationFactor = this.getRelaxationFactor();
 
+        final RowColouring tmpColouring = tmpCountRows > THRESHOLD ? RowColouring.of(equations, (int) solution.count()) : null;
+        final double[] tmpErrors = tmpColouring != null ? new double[tmpCountRows] : null;
+
         do {
 
             tmpNormErr = ZERO;
 
-            for (int r = 0; r < tmpCountRows; r++) {
-                tmpNormErr = HYPOT.invoke(tmpNormErr, equations.get(r).adjust(solution, tmpRelaxationFactor));
+            if (tmpColouring != null) {
+
+                for (int c = 0, tmpColours = tmpColouring.countColours(); c < tmpColours; c++) {
+
+                    final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                        @Override
+                        protected void conquer(final int first, final int limit) {
+                            for (int p = first; p < limit; p++) {
+                                final int r = tmpColouring.row(p);
+                                tmpErrors[r] = equations.get(r).adjust(solution, tmpRelaxationFactor);
+                            }
+                        }
+
+                    };
+
+                    tmpConquerer.invoke(tmpColouring.first(c), tmpColouring.limit(c), THRESHOLD);
+                }
+
+                for (int r = 0; r < tmpCountRows; r++) {
+                    tmpNormErr = HYPOT.invoke(tmpNormErr, tmpErrors[r]);
+                }
+
+            } else {
+
+                for (int r = 0; r < tmpCountRows; r++) {
+                    tmpNormErr = HYPOT.invoke(tmpNormErr, equations.get(r).adjust(solution, tmpRelaxationFactor));
+                }
             }
 
             tmpIterations++;
@@ -0,0 +1,177 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * IC(0) - [L][D][L]<sup>T</sup> with [L] having the pattern of the lower triangular part of [A] (the upper
+ * part is ignored). Calculated row by row. If a pivot is not positive the factorisation is restarted with the
+ * diagonal of [A] scaled by (1 + shift), and the shift is increased until it succeeds (Manteuffel).
+ *
+ * @author apete
+ */
+final class IncompleteCholesky extends SparsePreconditioner {
+
+    private static final int MAX_ATTEMPTS = 32;
+
+    private double[] myFactors = new double[0];
+    private double[] myPivots = null;
+    private int[] myPositions = null;
+    private double myShift = ZERO;
+    private double[] myWork = null;
+
+    IncompleteCholesky() {
+        super();
+    }
+
+    public void apply(final Access1D<?> residual, final PhysicalStore<Double> preconditioned) {
+
+        final int size = mySize;
+        final int[] pointers = myPointers;
+        final int[] split = mySplit;
+        final int[] columns = myColumns;
+        final double[] factors = myFactors;
+        final double[] pivots = myPivots;
+        final double[] work = myWork;
+
+        for (int i = 0; i < size; i++) {
+            double value = residual.doubleValue(i);
+            for (int p = pointers[i]; p < split[i]; p++) {
+                value -= factors[p] * work[columns[p]];
+            }
+            work[i] = value;
+        }
+
+        for (int i = 0; i < size; i++) {
+            work[i] /= pivots[i];
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            final double value = work[i];
+            for (int p = pointers[i]; p < split[i]; p++) {
+                work[columns[p]] -= factors[p] * value;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            preconditioned.set(i, work[i]);
+        }
+    }
+
+    /**
+     * @return The diagonal shift that was needed to complete the (last) factorisation
+     */
+    double getShift() {
+        return myShift;
+    }
+
+    @Override
+    void factorise() {
+
+        final int size = mySize;
+
+        if ((myWork == null) || (myWork.length != size)) {
+            myWork = new double[size];
+            myPivots = new double[size];
+            myPositions = new int[size];
+        }
+        if (myFactors.length < myValues.length) {
+            myFactors = new double[myValues.length];
+        }
+        Arrays.fill(myPositions, -1);
+
+        double shift = ZERO;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (this.factorise(shift)) {
+                myShift = shift;
+                return;
+            }
+            shift = shift == ZERO ? THOUSANDTH : TWO * shift;
+        }
+
+        // Not positive definite - fall back to the diagonal
+        final double[] pivots = myPivots;
+        for (int i = 0; i < size; i++) {
+            final double value = Math.abs(myDiagonal[i]);
+            pivots[i] = value > ZERO ? value : ONE;
+        }
+        Arrays.fill(myFactors, ZERO);
+        myShift = POSITIVE_INFINITY;
+    }
+
+    private boolean factorise(final double shift) {
+
+        final int size = mySize;
+        final int[] pointers = myPointers;
+        final int[] split = mySplit;
+        final int[] columns = myColumns;
+        final double[] values = myValues;
+        final double[] diagonal = myDiagonal;
+        final double[] factors = myFactors;
+        final double[] pivots = myPivots;
+        final int[] positions = myPositions;
+
+        for (int i = 0; i < size; i++) {
+
+            for (int p = pointers[i]; p < split[i]; p++) {
+                positions[columns[p]] = p;
+            }
+
+            double pivot = diagonal[i] * (ONE + shift);
+
+            for (int p = pointers[i]; p < split[i]; p++) {
+
+                final int k = columns[p];
+
+                double value = values[p];
+                for (int q = pointers[k]; q < split[k]; q++) {
+                    final int position = positions[columns[q]];
+                    if (position >= 0) {
+                        value -= factors[q] * pivots[columns[q]] * factors[position];
+                    }
+                }
+
+                final double factor = value / pivots[k];
+                factors[p] = factor;
+                pivot -= factor * factor * pivots[k];
+            }
+
+            for (int p = pointers[i]; p < split[i]; p++) {
+                positions[columns[p]] = -1;
+            }
+
+            if (!(pivot > (MACHINE_EPSILON * Math.abs(diagonal[i])))) {
+                return false;
+            }
+            pivots[i] = pivot;
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * ILU(0) - [L] (unit diagonal) and [U] are stored in place of [A]. Row by row (IKJ variant), dropping all
+ * fill-in outside the pattern of [A].
+ *
+ * @author apete
+ */
+final class IncompleteLU extends SparsePreconditioner {
+
+    private int[] myPositions = null;
+    private double[] myWork = null;
+
+    IncompleteLU() {
+        super();
+    }
+
+    public void apply(final Access1D<?> residual, final PhysicalStore<Double> preconditioned) {
+
+        final int size = mySize;
+        final int[] pointers = myPointers;
+        final int[] split = mySplit;
+        final int[] columns = myColumns;
+        final double[] values = myValues;
+        final double[] diagonal = myDiagonal;
+        final double[] work = myWork;
+
+        for (int i = 0; i < size; i++) {
+            double value = residual.doubleValue(i);
+            for (int p = pointers[i]; p < split[i]; p++) {
+                value -= values[p] * work[columns[p]];
+            }
+            work[i] = value;
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            double value = work[i];
+            for (int p = split[i]; p < pointers[i + 1]; p++) {
+                value -= values[p] * work[columns[p]];
+            }
+            work[i] = value / diagonal[i];
+        }
+
+        for (int i = 0; i < size; i++) {
+            preconditioned.set(i, work[i]);
+        }
+    }
+
+    @Override
+    void factorise() {
+
+        final int size = mySize;
+        final int[] pointers = myPointers;
+        final int[] split = mySplit;
+        final int[] columns = myColumns;
+        final double[] values = myValues;
+        final double[] diagonal = myDiagonal;
+
+        if ((myWork == null) || (myWork.length != size)) {
+            myWork = new double[size];
+            myPositions = new int[size];
+        }
+        final int[] positions = myPositions;
+        Arrays.fill(positions, -1);
+
+        for (int i = 0; i < size; i++) {
+
+            double largest = Math.abs(diagonal[i]);
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                positions[columns[p]] = p;
+                largest = Math.max(largest, Math.abs(values[p]));
+            }
+
+            for (int p = pointers[i]; p < split[i]; p++) {
+
+                final int k = columns[p];
+                final double factor = values[p] / diagonal[k];
+                values[p] = factor;
+
+                for (int q = split[k]; q < pointers[k + 1]; q++) {
+                    final int j = columns[q];
+                    if (j == i) {
+                        diagonal[i] -= factor * values[q];
+                    } else if (positions[j] >= 0) {
+                        values[positions[j]] -= factor * values[q];
+                    }
+                }
+            }
+
+            if (Math.abs(diagonal[i]) <= (MACHINE_EPSILON * largest)) {
+                // Zero pivot - replace it to be able to continue
+                diagonal[i] = RELATIVELY_SMALL * (largest > ZERO ? largest : ONE);
+            }
+
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                positions[columns[p]] = -1;
+            }
+        }
+    }
+
+}
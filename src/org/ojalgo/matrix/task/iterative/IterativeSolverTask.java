@@ -34,11 +34,13 @@ import org.ojalgo.equation.Equation;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.matrix.task.SolverTask;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.scalar.PrimitiveScalar;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D;
+import org.ojalgo.structure.ElementView2D;
 import org.ojalgo.structure.Structure2D;
 import org.ojalgo.type.context.NumberContext;
 
@@ -78,6 +80,19 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
             return this;
         }
 
+        /**
+         * The preconditioner to use (with the solvers that use one). Each solver needs its own instance.
+         * <code>null</code> resets to the default, {@link Preconditioner#newJacobi()}.
+         */
+        public Configurator preconditioner(final Preconditioner preconditioner) {
+            if (preconditioner != null) {
+                mySolver.setPreconditioner(preconditioner);
+            } else {
+                mySolver.setPreconditioner(Preconditioner.newJacobi());
+            }
+            return this;
+        }
+
         /**
          * Max number of iterations
          */
@@ -95,6 +110,10 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
     }
 
     static final NumberContext DEFAULT = NumberContext.getMath(MathContext.DECIMAL128);
+    /**
+     * The number of equations/rows that are processed in one task (in parallel)
+     */
+    static final int THRESHOLD = 256;
 
     static List<Equation> toListOfRows(final Access2D<?> body, final Access2D<?> rhs) {
 
@@ -103,6 +122,23 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
 
         final List<Equation> retVal = new ArrayList<>(numbEquations);
 
+        if (body instanceof SparseStore<?>) {
+
+            for (int i = 0; i < numbEquations; i++) {
+                retVal.add(new Equation(i, numbVariables, rhs.doubleValue(i)));
+            }
+
+            // Only the nonzero elements are visited
+            for (final ElementView2D<?, ?> element : ((SparseStore<?>) body).nonzeros()) {
+                final double tmpVal = element.doubleValue();
+                if (!PrimitiveScalar.isSmall(ONE, tmpVal)) {
+                    retVal.get((int) element.row()).set(element.column(), tmpVal);
+                }
+            }
+
+            return retVal;
+        }
+
         for (int i = 0; i < numbEquations; i++) {
             final Equation tmpRow = new Equation(i, numbVariables, rhs.doubleValue(i));
             for (int j = 0; j < numbVariables; j++) {
@@ -121,6 +157,7 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
 
     private int myIterationsLimit = Integer.MAX_VALUE;
     private NumberContext myAccuracyContext = DEFAULT;
+    private Preconditioner myPreconditioner = Preconditioner.newJacobi();
 
     IterativeSolverTask() {
         super();
@@ -159,6 +196,10 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
         return myIterationsLimit;
     }
 
+    protected final Preconditioner getPreconditioner() {
+        return myPreconditioner;
+    }
+
     protected final boolean isDebugPrinterSet() {
         return myDebugPrinter != null;
     }
@@ -175,4 +216,8 @@ public abstract class IterativeSolverTask implements SolverTask<Double> {
         myIterationsLimit = iterationsLimit;
     }
 
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+        myPreconditioner = preconditioner;
+    }
+
 }
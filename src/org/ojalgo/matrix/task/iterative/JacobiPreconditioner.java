@@ -0,0 +1,70 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * Scales by the absolute values of the diagonal elements, so that [M] is always positive definite.
+ *
+ * @author apete
+ */
+final class JacobiPreconditioner implements Preconditioner {
+
+    private double[] myDiagonal = null;
+
+    JacobiPreconditioner() {
+        super();
+    }
+
+    public void apply(final Access1D<?> residual, final PhysicalStore<Double> preconditioned) {
+        final double[] diagonal = myDiagonal;
+        for (int i = 0; i < diagonal.length; i++) {
+            preconditioned.set(i, residual.doubleValue(i) / diagonal[i]);
+        }
+    }
+
+    public void prepare(final List<Equation> equations, final int size) {
+
+        if ((myDiagonal == null) || (myDiagonal.length != size)) {
+            myDiagonal = new double[size];
+        }
+
+        final double[] diagonal = myDiagonal;
+        Arrays.fill(diagonal, ONE);
+
+        for (final Equation equation : equations) {
+            final double pivot = Math.abs(equation.getPivot());
+            if (pivot != ZERO) {
+                diagonal[equation.index] = pivot;
+            }
+        }
+    }
+
+}
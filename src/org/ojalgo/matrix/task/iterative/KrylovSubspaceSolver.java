@@ -21,8 +21,98 @@
  */
 package org.ojalgo.matrix.task.iterative;
 
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.structure.Structure1D;
+
 abstract class KrylovSubspaceSolver extends IterativeSolverTask {
 
+    /**
+     * [product] = [A][vector] where [A] is given by the equations. The rows are multiplied in parallel. Only
+     * the elements of [product] that correspond to equations are set.
+     */
+    static void multiply(final List<Equation> equations, final Access1D<?> vector, final PhysicalStore<Double> product) {
+
+        final int numberOfEquations = equations.size();
+
+        if (numberOfEquations > THRESHOLD) {
+
+            final DivideAndConquer conquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    KrylovSubspaceSolver.multiply(equations, first, limit, vector, product);
+                }
+
+            };
+
+            conquerer.invoke(0, numberOfEquations, THRESHOLD);
+
+        } else {
+
+            KrylovSubspaceSolver.multiply(equations, 0, numberOfEquations, vector, product);
+        }
+    }
+
+    /**
+     * [residual] = [b] - [A][solution]
+     *
+     * @return The norm of the residual
+     */
+    static double residual(final List<Equation> equations, final Access1D<?> solution, final PhysicalStore<Double> residual) {
+
+        residual.fillAll(ZERO);
+        KrylovSubspaceSolver.multiply(equations, solution, residual);
+
+        double retVal = ZERO;
+        for (int r = 0, limit = equations.size(); r < limit; r++) {
+            final Equation row = equations.get(r);
+            final double value = row.getRHS() - residual.doubleValue(row.index);
+            residual.set(row.index, value);
+            retVal = HYPOT.invoke(retVal, value);
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The norm of [b]
+     */
+    static double rhs(final List<Equation> equations) {
+        double retVal = ZERO;
+        for (int r = 0, limit = equations.size(); r < limit; r++) {
+            retVal = HYPOT.invoke(retVal, equations.get(r).getRHS());
+        }
+        return retVal;
+    }
+
+    /**
+     * Re-uses the vector if it has the right size, otherwise allocates a new one. Either way it's filled with
+     * zeros.
+     */
+    static Primitive64Store vector(final Primitive64Store previous, final Structure1D structure) {
+        if ((previous == null) || (previous.count() != structure.count())) {
+            return Primitive64Store.FACTORY.makeZero(structure.count(), 1L);
+        } else {
+            previous.fillAll(ZERO);
+            return previous;
+        }
+    }
+
+    private static void multiply(final List<Equation> equations, final int first, final int limit, final Access1D<?> vector,
+            final PhysicalStore<Double> product) {
+        for (int r = first; r < limit; r++) {
+            final Equation row = equations.get(r);
+            product.set(row.index, row.dot(vector));
+        }
+    }
+
     protected KrylovSubspaceSolver() {
         super();
     }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.structure.Access2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Minimal residual method (Paige &amp; Saunders) for symmetric, possibly indefinite, systems - such as KKT
+ * systems. Uses a three-term (Lanczos) recurrence so memory use is fixed, and minimises the residual norm.
+ * The preconditioner must be symmetric positive definite (the default Jacobi preconditioner scales by the
+ * absolute values of the diagonal, and is). If it's not, the iterations stop.
+ *
+ * @author apete
+ */
+public final class MINRESSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
+
+    private int myIterations = 0;
+    private transient Primitive64Store myR1 = null;
+    private transient Primitive64Store myR2 = null;
+    private transient Primitive64Store myV = null;
+    private transient Primitive64Store myW = null;
+    private transient Primitive64Store myW1 = null;
+    private transient Primitive64Store myW2 = null;
+    private transient Primitive64Store myY = null;
+
+    public MINRESSolver() {
+        super();
+    }
+
+    /**
+     * @return The number of iterations performed by the most recent solve/resolve
+     */
+    public int countIterations() {
+        return myIterations;
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final Preconditioner preconditioner = this.getPreconditioner();
+        preconditioner.prepare(equations, (int) solution.count());
+
+        Primitive64Store r1 = myR1 = KrylovSubspaceSolver.vector(myR1, solution);
+        Primitive64Store r2 = myR2 = KrylovSubspaceSolver.vector(myR2, solution);
+        final Primitive64Store v = myV = KrylovSubspaceSolver.vector(myV, solution);
+        final Primitive64Store y = myY = KrylovSubspaceSolver.vector(myY, solution);
+        Primitive64Store w = myW = KrylovSubspaceSolver.vector(myW, solution);
+        Primitive64Store w1 = myW1 = KrylovSubspaceSolver.vector(myW1, solution);
+        Primitive64Store w2 = myW2 = KrylovSubspaceSolver.vector(myW2, solution);
+
+        final double normRHS = KrylovSubspaceSolver.rhs(equations);
+        double normErr = KrylovSubspaceSolver.residual(equations, solution, r1);
+
+        int iterations = 0;
+        final int limit = this.getIterationsLimit();
+        final NumberContext accuracy = this.getAccuracyContext();
+
+        if (accuracy.isSmall(normRHS, normErr)) {
+            myIterations = iterations;
+            return normRHS != ZERO ? normErr / normRHS : normErr;
+        }
+
+        r2.fillMatching(r1);
+        preconditioner.apply(r1, y);
+
+        double beta = r1.dot(y);
+        if (!(beta > ZERO)) {
+            myIterations = iterations;
+            return normRHS != ZERO ? normErr / normRHS : normErr;
+        }
+        beta = SQRT.invoke(beta);
+
+        // phiBar is the (preconditioned) residual norm - scaled to approximate the ordinary norm
+        final double beta1 = beta;
+        final double scale = normErr / beta1;
+        double phiBar = beta;
+
+        double previousBeta = ZERO;
+        double dBar = ZERO;
+        double epsilon = ZERO;
+        double cs = -ONE;
+        double sn = ZERO;
+
+        while ((iterations < limit) && !accuracy.isSmall(normRHS, scale * phiBar)) {
+
+            // v = y / beta
+            v.fillMatching(y);
+            v.modifyAll(DIVIDE.second(beta));
+
+            y.fillAll(ZERO);
+            KrylovSubspaceSolver.multiply(equations, v, y);
+            if (iterations > 0) {
+                r1.axpy(-beta / previousBeta, y);
+            }
+
+            final double alpha = v.dot(y);
+            r2.axpy(-alpha / beta, y);
+
+            // r1 = r2, r2 = y
+            final Primitive64Store tmpR = r1;
+            r1 = r2;
+            r2 = tmpR;
+            r2.fillMatching(y);
+
+            preconditioner.apply(r2, y);
+
+            previousBeta = beta;
+            beta = r2.dot(y);
+            if (beta < ZERO) {
+                // The preconditioner is not positive definite
+                break;
+            }
+            beta = SQRT.invoke(beta);
+
+            final double previousEpsilon = epsilon;
+            final double delta = (cs * dBar) + (sn * alpha);
+            final double gBar = (sn * dBar) - (cs * alpha);
+            epsilon = sn * beta;
+            dBar = -cs * beta;
+
+            final double gamma = Math.max(HYPOT.invoke(gBar, beta), MACHINE_EPSILON);
+            cs = gBar / gamma;
+            sn = beta / gamma;
+            final double phi = cs * phiBar;
+            phiBar = sn * phiBar;
+
+            // w = (v - epsilon w1 - delta w2) / gamma, rotating w -> w2 -> w1
+            final Primitive64Store tmpW = w1;
+            w1 = w2;
+            w2 = w;
+            w = tmpW;
+            w.fillMatching(v);
+            w1.axpy(-previousEpsilon, w);
+            w2.axpy(-delta, w);
+            w.modifyAll(DIVIDE.second(gamma));
+
+            w.axpy(phi, solution);
+
+            iterations++;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(iterations, (scale * phiBar) / normRHS, solution);
+            }
+
+            if (beta == ZERO) {
+                break;
+            }
+        }
+
+        myR1 = r1;
+        myR2 = r2;
+        myW = w;
+        myW1 = w1;
+        myW2 = w2;
+
+        myIterations = iterations;
+
+        // The true residual
+        normErr = KrylovSubspaceSolver.residual(equations, solution, r1);
+
+        return normRHS != ZERO ? normErr / normRHS : normErr;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        final List<Equation> rows = IterativeSolverTask.toListOfRows(body, rhs);
+
+        this.resolve(rows, preallocated);
+
+        return preallocated;
+    }
+
+}
@@ -117,4 +117,10 @@ public abstract class MutableSolver<D extends IterativeSolverTask & IterativeSol
         myDelegate.setIterationsLimit(iterationsLimit);
     }
 
+    @Override
+    protected void setPreconditioner(final Preconditioner preconditioner) {
+        super.setPreconditioner(preconditioner);
+        myDelegate.setPreconditioner(preconditioner);
+    }
+
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import java.util.List;
+
+import org.ojalgo.equation.Equation;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * A preconditioner [M] approximates the body [A] of the equation system, and is cheap to solve with. The
+ * iterative (Krylov subspace) solvers then work with [M]<sup>-1</sup>[A] that has a more favourable spectrum
+ * than [A] itself - fewer iterations are needed.
+ * <p>
+ * A preconditioner instance has state (the factors it calculates from [A]). Each solver needs its own
+ * instance.
+ *
+ * @author apete
+ */
+public interface Preconditioner {
+
+    /**
+     * Incomplete Cholesky, IC(0), factorisation [L][D][L]<sup>T</sup> with the same sparsity pattern as the
+     * lower triangular part of [A]. Only for symmetric positive definite [A]. Should the factorisation break
+     * down (a non-positive pivot) the diagonal of [A] is shifted (increased) and it's tried again.
+     */
+    static Preconditioner newIncompleteCholesky() {
+        return new IncompleteCholesky();
+    }
+
+    /**
+     * Incomplete LU, ILU(0), factorisation with the same sparsity pattern as [A]. Also for nonsymmetric [A].
+     */
+    static Preconditioner newIncompleteLU() {
+        return new IncompleteLU();
+    }
+
+    /**
+     * Diagonal scaling (by the absolute values) - the default
+     */
+    static Preconditioner newJacobi() {
+        return new JacobiPreconditioner();
+    }
+
+    /**
+     * Symmetric successive over-relaxation. No factorisation is needed, [M] is built directly from the
+     * (triangular) parts of [A].
+     *
+     * @param relaxation Should be in the range (0.0, 2.0). 1.0 corresponds to symmetric Gauss-Seidel.
+     */
+    static Preconditioner newSSOR(final double relaxation) {
+        return new SSORPreconditioner(relaxation);
+    }
+
+    /**
+     * Solves [M][z] = [r]
+     *
+     * @param residual [r]
+     * @param preconditioned [z]
+     */
+    void apply(Access1D<?> residual, PhysicalStore<Double> preconditioned);
+
+    /**
+     * Calculates [M] from the body, [A], of the equation system. Called by the solver before iterating.
+     *
+     * @param equations The rows of [A] - {@link Equation#index} is the row index
+     * @param size The number of rows/columns of [A]
+     */
+    void prepare(List<Equation> equations, int size);
+
+}
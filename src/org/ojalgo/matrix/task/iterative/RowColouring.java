@@ -0,0 +1,163 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.equation.Equation;
+
+/**
+ * Partitions the equations/rows into colour classes such that no two rows of the same class reference each
+ * other's variable - [A]<sub>ij</sub> and [A]<sub>ji</sub> are both zero for any pair of rows i and j in the
+ * same class. All rows of a class can then be Gauss-Seidel updated in parallel. Greedy colouring, in the
+ * order of the list. A 5-point grid (in natural order) gets 2 colours - red-black.
+ *
+ * @author apete
+ */
+final class RowColouring {
+
+    /**
+     * @param equations The rows
+     * @param size The number of variables/columns
+     */
+    static RowColouring of(final List<Equation> equations, final int size) {
+
+        final int numberOfEquations = equations.size();
+
+        // The (symmetrised) adjacency graph of the variables, in compressed format
+
+        final int[] pointers = new int[size + 1];
+        for (final Equation equation : equations) {
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final int col = (int) element.index();
+                if ((col != equation.index) && (element.doubleValue() != 0.0)) {
+                    pointers[equation.index + 1]++;
+                    pointers[col + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            pointers[i + 1] += pointers[i];
+        }
+
+        final int[] adjacent = new int[pointers[size]];
+        final int[] next = Arrays.copyOf(pointers, size);
+        for (final Equation equation : equations) {
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final int col = (int) element.index();
+                if ((col != equation.index) && (element.doubleValue() != 0.0)) {
+                    adjacent[next[equation.index]++] = col;
+                    adjacent[next[col]++] = equation.index;
+                }
+            }
+        }
+
+        // Greedy colouring - the smallest colour not used by any neighbour
+
+        final int[] colours = new int[size];
+        Arrays.fill(colours, -1);
+        int[] forbidden = new int[8];
+        Arrays.fill(forbidden, -1);
+        int numberOfColours = 0;
+
+        final int[] rowColours = new int[numberOfEquations];
+
+        for (int r = 0; r < numberOfEquations; r++) {
+
+            final int i = equations.get(r).index;
+
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                final int colour = colours[adjacent[p]];
+                if (colour >= 0) {
+                    forbidden[colour] = i;
+                }
+            }
+
+            int colour = 0;
+            while ((colour < numberOfColours) && (forbidden[colour] == i)) {
+                colour++;
+            }
+            if (colour == numberOfColours) {
+                numberOfColours++;
+                if (numberOfColours > forbidden.length) {
+                    forbidden = Arrays.copyOf(forbidden, 2 * forbidden.length);
+                    Arrays.fill(forbidden, numberOfColours - 1, forbidden.length, -1);
+                }
+            }
+
+            colours[i] = colour;
+            rowColours[r] = colour;
+        }
+
+        // Group the rows by colour, keeping their relative order
+
+        final int[] classes = new int[numberOfColours + 1];
+        for (int r = 0; r < numberOfEquations; r++) {
+            classes[rowColours[r] + 1]++;
+        }
+        for (int c = 0; c < numberOfColours; c++) {
+            classes[c + 1] += classes[c];
+        }
+
+        final int[] rows = new int[numberOfEquations];
+        final int[] position = Arrays.copyOf(classes, numberOfColours);
+        for (int r = 0; r < numberOfEquations; r++) {
+            rows[position[rowColours[r]]++] = r;
+        }
+
+        return new RowColouring(classes, rows);
+    }
+
+    /**
+     * Colour c is rows [classes[c], classes[c+1])
+     */
+    private final int[] myClasses;
+    /**
+     * Positions in the list of equations, grouped by colour
+     */
+    private final int[] myRows;
+
+    private RowColouring(final int[] classes, final int[] rows) {
+        super();
+        myClasses = classes;
+        myRows = rows;
+    }
+
+    int countColours() {
+        return myClasses.length - 1;
+    }
+
+    int first(final int colour) {
+        return myClasses[colour];
+    }
+
+    int limit(final int colour) {
+        return myClasses[colour + 1];
+    }
+
+    int row(final int position) {
+        return myRows[position];
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.structure.Access1D;
+
+/**
+ * [M] = w/(2-w) ([D]/w + [L]) ([D]/w)<sup>-1</sup> ([D]/w + [U]) where [A] = [L] + [D] + [U]
+ *
+ * @author apete
+ */
+final class SSORPreconditioner extends SparsePreconditioner {
+
+    private final double myRelaxation;
+    private double[] myWork = null;
+
+    SSORPreconditioner(final double relaxation) {
+
+        super();
+
+        if ((relaxation <= ZERO) || (relaxation >= TWO)) {
+            throw new IllegalArgumentException("The relaxation factor must be in the range (0.0, 2.0)!");
+        }
+
+        myRelaxation = relaxation;
+    }
+
+    public void apply(final Access1D<?> residual, final PhysicalStore<Double> preconditioned) {
+
+        final int size = mySize;
+        final int[] pointers = myPointers;
+        final int[] split = mySplit;
+        final int[] columns = myColumns;
+        final double[] values = myValues;
+        final double[] diagonal = myDiagonal;
+        final double relaxation = myRelaxation;
+        final double[] work = myWork;
+
+        // ([D]/w + [L]) [y] = [r]
+        for (int i = 0; i < size; i++) {
+            double value = residual.doubleValue(i);
+            for (int p = pointers[i]; p < split[i]; p++) {
+                value -= values[p] * work[columns[p]];
+            }
+            work[i] = (relaxation * value) / diagonal[i];
+        }
+
+        // ([D]/w + [U]) [z] = [D]/w [y] (2-w)/w
+        final double scale = (TWO - relaxation) / relaxation;
+        for (int i = size - 1; i >= 0; i--) {
+            double value = scale * (diagonal[i] / relaxation) * work[i];
+            for (int p = split[i]; p < pointers[i + 1]; p++) {
+                value -= values[p] * work[columns[p]];
+            }
+            work[i] = (relaxation * value) / diagonal[i];
+        }
+
+        for (int i = 0; i < size; i++) {
+            preconditioned.set(i, work[i]);
+        }
+    }
+
+    @Override
+    void factorise() {
+        if ((myWork == null) || (myWork.length != mySize)) {
+            myWork = new double[mySize];
+        }
+    }
+
+}
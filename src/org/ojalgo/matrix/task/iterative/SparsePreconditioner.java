@@ -0,0 +1,128 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.function.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.equation.Equation;
+
+/**
+ * Keeps a copy of [A] in compressed row format - the diagonal separately, and the off-diagonal elements of
+ * each row with the ones left of the diagonal first. Subclasses then factorise (in place).
+ *
+ * @author apete
+ */
+abstract class SparsePreconditioner implements Preconditioner {
+
+    /**
+     * Column indices, in increasing order, per row
+     */
+    int[] myColumns = new int[0];
+    double[] myDiagonal = new double[0];
+    /**
+     * Row i is [myPointers[i], myPointers[i+1]) of myColumns/myValues
+     */
+    int[] myPointers = new int[1];
+    int mySize = 0;
+    /**
+     * Row i is split in a lower part [myPointers[i], mySplit[i]) and an upper part [mySplit[i],
+     * myPointers[i+1])
+     */
+    int[] mySplit = new int[0];
+    double[] myValues = new double[0];
+
+    SparsePreconditioner() {
+        super();
+    }
+
+    public final void prepare(final List<Equation> equations, final int size) {
+
+        if (mySize != size) {
+            mySize = size;
+            myDiagonal = new double[size];
+            myPointers = new int[size + 1];
+            mySplit = new int[size];
+        }
+
+        final int[] pointers = myPointers;
+        Arrays.fill(pointers, 0);
+
+        for (final Equation equation : equations) {
+            int count = 0;
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                if ((element.index() != equation.index) && (element.doubleValue() != ZERO)) {
+                    count++;
+                }
+            }
+            pointers[equation.index + 1] = count;
+        }
+        for (int i = 0; i < size; i++) {
+            pointers[i + 1] += pointers[i];
+        }
+
+        if (myColumns.length < pointers[size]) {
+            myColumns = new int[pointers[size]];
+            myValues = new double[pointers[size]];
+        }
+
+        final int[] columns = myColumns;
+        final double[] values = myValues;
+        final double[] diagonal = myDiagonal;
+
+        // Rows not in the list are treated as rows of the identity matrix
+        Arrays.fill(diagonal, ONE);
+        for (int i = 0; i < size; i++) {
+            mySplit[i] = pointers[i];
+        }
+
+        for (final Equation equation : equations) {
+            final int row = equation.index;
+            int p = pointers[row];
+            for (final NonzeroView<Double> element : equation.nonzeros()) {
+                final int col = (int) element.index();
+                final double value = element.doubleValue();
+                if (col == row) {
+                    diagonal[row] = value != ZERO ? value : ONE;
+                } else if (value != ZERO) {
+                    columns[p] = col;
+                    values[p] = value;
+                    p++;
+                    if (col < row) {
+                        mySplit[row] = p;
+                    }
+                }
+            }
+        }
+
+        this.factorise();
+    }
+
+    /**
+     * Called when [A] has been copied, to calculate [M] from it.
+     */
+    abstract void factorise();
+
+}
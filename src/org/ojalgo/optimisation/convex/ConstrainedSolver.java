@@ -45,7 +45,7 @@ abstract class ConstrainedSolver extends ConvexSolver {
     protected final Collectable<Double, ? super PhysicalStore<Double>> getIterationKKT() {
         final MatrixStore<Double> iterQ = this.getIterationQ();
         final MatrixStore<Double> iterA = this.getIterationA();
-        return iterQ.logical().right(iterA.transpose()).below(iterA);
+        return iterQ.logical().right(iterA.transpose()).below(iterA).get();
     }
 
     @Override
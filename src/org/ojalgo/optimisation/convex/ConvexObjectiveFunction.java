@@ -28,6 +28,8 @@ import org.ojalgo.function.multiary.MultiaryFunction;
 import org.ojalgo.function.multiary.PureQuadraticFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.structure.Access1D;
 
 /**
@@ -38,13 +40,15 @@ import org.ojalgo.structure.Access1D;
 public final class ConvexObjectiveFunction implements MultiaryFunction.TwiceDifferentiable<Double>, MultiaryFunction.Quadratic<Double> {
 
     private final LinearFunction<Double> myLinear;
-    private final PureQuadraticFunction<Double> myPureQuadratic;
+    private PureQuadraticFunction<Double> myPureQuadratic;
+    private final SparseStore<Double> mySparseQuadratic;
 
     ConvexObjectiveFunction(final PhysicalStore<Double> quadratic, final PhysicalStore<Double> linear) {
 
         super();
 
         myPureQuadratic = PureQuadraticFunction.wrap(quadratic);
+        mySparseQuadratic = null;
         myLinear = LinearFunction.wrap(linear);
 
         if (myPureQuadratic.arity() != myLinear.arity()) {
@@ -52,20 +56,36 @@ public final class ConvexObjectiveFunction implements MultiaryFunction.TwiceDiff
         }
     }
 
+    /**
+     * The sparse [Q] is kept as is. A dense copy is only created if/when something asks for it.
+     */
+    ConvexObjectiveFunction(final SparseStore<Double> quadratic, final PhysicalStore<Double> linear) {
+
+        super();
+
+        myPureQuadratic = null;
+        mySparseQuadratic = quadratic;
+        myLinear = LinearFunction.wrap(linear);
+
+        if (!quadratic.isSquare() || (quadratic.countRows() != myLinear.arity())) {
+            throw new IllegalArgumentException("Must have the same arity!");
+        }
+    }
+
     public int arity() {
         return myLinear.arity();
     }
 
     public Double getConstant() {
-        return myPureQuadratic.getConstant();
+        return this.getPureQuadratic().getConstant();
     }
 
     public MatrixStore<Double> getGradient(final Access1D<Double> point) {
-        return myPureQuadratic.getGradient(point).operateOnMatching(SUBTRACT, myLinear.getGradient(point)).get();
+        return this.getPureQuadratic().getGradient(point).operateOnMatching(SUBTRACT, myLinear.getGradient(point)).get();
     }
 
     public MatrixStore<Double> getHessian(final Access1D<Double> point) {
-        return myPureQuadratic.getHessian(point);
+        return this.getPureQuadratic().getHessian(point);
     }
 
     public MatrixStore<Double> getLinearFactors() {
@@ -74,7 +94,7 @@ public final class ConvexObjectiveFunction implements MultiaryFunction.TwiceDiff
 
     @Override
     public Double invoke(final Access1D<Double> arg) {
-        double quadratic = myPureQuadratic.invoke(arg);
+        double quadratic = this.getPureQuadratic().invoke(arg);
         double linear = myLinear.invoke(arg);
         return quadratic - linear;
     }
@@ -84,11 +104,25 @@ public final class ConvexObjectiveFunction implements MultiaryFunction.TwiceDiff
     }
 
     public PhysicalStore<Double> quadratic() {
-        return myPureQuadratic.quadratic();
+        return this.getPureQuadratic().quadratic();
     }
 
     public void setConstant(final Comparable<?> constant) {
-        myPureQuadratic.setConstant(constant);
+        this.getPureQuadratic().setConstant(constant);
+    }
+
+    private PureQuadraticFunction<Double> getPureQuadratic() {
+        if (myPureQuadratic == null) {
+            myPureQuadratic = PureQuadraticFunction.wrap(Primitive64Store.FACTORY.copy(mySparseQuadratic));
+        }
+        return myPureQuadratic;
+    }
+
+    /**
+     * @return [Q] if it was supplied as a {@link SparseStore}, otherwise null
+     */
+    SparseStore<Double> sparse() {
+        return mySparseQuadratic;
     }
 
 }
@@ -36,6 +36,7 @@ import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.Primitive64Matrix;
 import org.ojalgo.matrix.decomposition.Cholesky;
 import org.ojalgo.matrix.decomposition.Eigenvalue;
+import org.ojalgo.matrix.decomposition.LDL;
 import org.ojalgo.matrix.decomposition.LU;
 import org.ojalgo.matrix.decomposition.MatrixDecomposition;
 import org.ojalgo.matrix.store.MatrixStore;
@@ -51,9 +52,13 @@ import org.ojalgo.optimisation.UpdatableSolver;
 import org.ojalgo.optimisation.Variable;
 import org.ojalgo.optimisation.linear.LinearSolver;
 import org.ojalgo.scalar.ComplexNumber;
+import org.ojalgo.scalar.PrimitiveScalar;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.structure.Access2D.Collectable;
+import org.ojalgo.structure.ElementView1D;
+import org.ojalgo.structure.ElementView2D;
 import org.ojalgo.structure.Structure1D.IntIndex;
+import org.ojalgo.structure.Structure2D;
 import org.ojalgo.structure.Structure2D.IntRowColumn;
 
 /**
@@ -119,7 +124,9 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
             }
 
             if (matrices.hasObjective()) {
-                if (matrices.getQ() != null) {
+                if (matrices.getSparseQ() != null) {
+                    this.objective(matrices.getSparseQ(), matrices.getC());
+                } else if (matrices.getQ() != null) {
                     this.objective(matrices.getQ(), matrices.getC());
                 } else {
                     this.objective(matrices.getC());
@@ -174,12 +181,43 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
             return this.setObjective(mtrxQ, mtrxC);
         }
 
+        /**
+         * A sparse [Q] is kept as is, and is used directly when the KKT systems are solved using a sparse
+         * decomposition. A dense copy is only created if a dense alternative needs it.
+         */
+        public Builder objective(final SparseStore<Double> mtrxQ, final MatrixStore<Double> mtrxC) {
+
+            ProgrammingError.throwIfNull(mtrxQ);
+
+            PhysicalStore<Double> tmpC = null;
+
+            if (mtrxC == null) {
+                tmpC = Primitive64Store.FACTORY.make(mtrxQ.countRows(), 1L);
+            } else if (mtrxC instanceof PhysicalStore) {
+                tmpC = (PhysicalStore<Double>) mtrxC;
+            } else {
+                tmpC = mtrxC.copy();
+            }
+
+            myObjective = new ConvexObjectiveFunction(mtrxQ, tmpC);
+            super.setObjective(myObjective);
+
+            return this;
+        }
+
         @Override
         public void reset() {
             super.reset();
             myObjective = null;
         }
 
+        /**
+         * @return [Q] if it was supplied as a {@link SparseStore}, otherwise null
+         */
+        SparseStore<Double> getSparseQ() {
+            return myObjective != null ? myObjective.sparse() : null;
+        }
+
         @Override
         public String toString() {
 
@@ -210,6 +248,10 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
                 ProgrammingError.throwWithMessage("Both parameters can't be null!");
             }
 
+            if (mtrxQ instanceof SparseStore) {
+                return this.objective((SparseStore<Double>) mtrxQ, mtrxC);
+            }
+
             PhysicalStore<Double> tmpQ = null;
             PhysicalStore<Double> tmpC = null;
 
@@ -279,6 +321,20 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
     private static final String Q_NOT_POSITIVE_SEMIDEFINITE = "Q not positive semidefinite!";
     private static final String Q_NOT_SYMMETRIC = "Q not symmetric!";
 
+    /**
+     * Unless {@link Optimisation.Options#sparse} is FALSE, KKT systems of at least this size are solved using
+     * a sparse decomposition - provided [Q] is sparse. Smaller systems are always solved dense.
+     */
+    static final int SPARSE_KKT_DIMENSION = 1000;
+    /**
+     * The maximum fraction of nonzero elements in [Q] for it to be considered sparse
+     */
+    static final double SPARSE_KKT_DENSITY = 0.1;
+    /**
+     * Max number of iterative refinement steps when solving the regularised KKT system
+     */
+    private static final int SPARSE_KKT_REFINEMENTS = 10;
+
     public static void copy(final ExpressionsBasedModel sourceModel, final ConvexSolver.Builder destinationBuilder) {
 
         destinationBuilder.reset();
@@ -437,10 +493,28 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
         return ConvexSolver.getBuilder().objective(Q, C);
     }
 
+    /**
+     * Only looks at the nonzero elements, and their transposed counterparts
+     */
+    private static boolean isSymmetric(final SparseStore<Double> matrix) {
+        if (!matrix.isSquare()) {
+            return false;
+        }
+        for (final ElementView2D<Double, ?> element : matrix.nonzeros()) {
+            if (!PrimitiveScalar.isSmall(ONE, element.doubleValue() - matrix.doubleValue(element.column(), element.row()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private final ConvexSolver.Builder myMatrices;
     private final Primitive64Store mySolutionX;
     private final MatrixDecomposition.Solver<Double> mySolverGeneral;
+    private LDL<Double> mySolverKKT = null;
     private final Cholesky<Double> mySolverQ;
+    private Boolean mySparseQ = null;
+    private SparseStore<Double> mySparseMatrixQ = null;
 
     @SuppressWarnings("unused")
     private ConvexSolver(final Options solverOptions) {
@@ -455,8 +529,8 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
 
         mySolutionX = Primitive64Store.FACTORY.make(this.countVariables(), 1L);
 
-        mySolverQ = Cholesky.PRIMITIVE.make(this.getMatrixQ());
-        mySolverGeneral = LU.PRIMITIVE.make(this.getMatrixQ());
+        mySolverQ = Cholesky.PRIMITIVE.make(this.getObjectiveQ());
+        mySolverGeneral = LU.PRIMITIVE.make(this.getObjectiveQ());
     }
 
     public void dispose() {
@@ -503,12 +577,19 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
         return myMatrices.countVariables();
     }
 
+    /**
+     * The number of rows in {@link #getIterationA()} - 0 unless there are constraints
+     */
+    int countIterationConstraints() {
+        return 0;
+    }
+
     @Override
     protected double evaluateFunction(final Access1D<?> solution) {
 
         final MatrixStore<Double> tmpX = this.getSolutionX();
 
-        return tmpX.transpose().multiply(this.getMatrixQ().multiply(tmpX)).multiply(0.5).subtract(tmpX.transpose().multiply(this.getMatrixC())).doubleValue(0L);
+        return tmpX.transpose().multiply(this.getObjectiveQ().multiply(tmpX)).multiply(0.5).subtract(tmpX.transpose().multiply(this.getMatrixC())).doubleValue(0L);
     }
 
     @Override
@@ -518,6 +599,13 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
 
     }
 
+    /**
+     * The constraints body of the current iteration's KKT system, or null if there are no constraints
+     */
+    MatrixStore<Double> getIterationA() {
+        return null;
+    }
+
     protected abstract Collectable<Double, ? super PhysicalStore<Double>> getIterationKKT();
 
     protected abstract Collectable<Double, ? super PhysicalStore<Double>> getIterationRHS();
@@ -558,10 +646,22 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
         return myMatrices.getC();
     }
 
+    /**
+     * Dense [Q] - if [Q] was supplied as a {@link SparseStore} this creates a dense copy (once)
+     */
     protected PhysicalStore<Double> getMatrixQ() {
         return myMatrices.getQ();
     }
 
+    /**
+     * [Q] as supplied - sparse or dense. Unlike {@link #getMatrixQ()} this never creates a dense copy of a
+     * sparse [Q].
+     */
+    MatrixStore<Double> getObjectiveQ() {
+        final SparseStore<Double> sparseQ = myMatrices.getSparseQ();
+        return sparseQ != null ? sparseQ : this.getMatrixQ();
+    }
+
     protected int getRankGeneral() {
         if (mySolverGeneral instanceof MatrixDecomposition.RankRevealing) {
             return ((MatrixDecomposition.RankRevealing) mySolverGeneral).getRank();
@@ -612,13 +712,16 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
      */
     protected boolean initialise(final Result kickStarter) {
 
-        PhysicalStore<Double> matrixQ = this.getMatrixQ();
+        // When every iteration is solved using the sparse KKT system, Q is never decomposed on its own
+        final boolean sparse = this.isSparseKKTOnly();
+
+        final MatrixStore<Double> matrixQ = sparse ? this.getSparseMatrixQ() : this.getMatrixQ();
         this.setState(State.VALID);
 
         boolean symmetric = true;
         if (options.validate) {
 
-            if (!matrixQ.isHermitian()) {
+            if (!(sparse ? ConvexSolver.isSymmetric(this.getSparseMatrixQ()) : matrixQ.isHermitian())) {
 
                 symmetric = false;
                 this.setState(State.INVALID);
@@ -631,13 +734,25 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
             }
         }
 
-        if (!mySolverQ.compute(matrixQ)) {
-            matrixQ.modifyDiagonal(ADD.by(RELATIVELY_SMALL * matrixQ.aggregateAll(Aggregator.LARGEST)));
-            mySolverQ.compute(matrixQ);
+        if (!sparse) {
+
+            final PhysicalStore<Double> denseQ = this.getMatrixQ();
+
+            if (!mySolverQ.compute(denseQ)) {
+                if (this.isLogDebug()) {
+                    this.log("Q not solvable (estimated condition {}) - regularising the diagonal", mySolverQ.estimateCondition());
+                }
+                denseQ.modifyDiagonal(ADD.by(RELATIVELY_SMALL * denseQ.aggregateAll(Aggregator.LARGEST)));
+                mySolverQ.compute(denseQ);
+            }
+
+            if (this.isLogDebug()) {
+                this.log("Q estimated condition: {}", mySolverQ.estimateCondition());
+            }
         }
 
         boolean semidefinite = true;
-        if (options.validate && !mySolverQ.isSPD()) {
+        if (options.validate && !(sparse ? this.isSPDSparseQ() : mySolverQ.isSPD())) {
             // Not symmetric positive definite. Check if at least positive semidefinite.
 
             Eigenvalue<Double> decompEvD = Eigenvalue.PRIMITIVE.make(matrixQ, true);
@@ -668,6 +783,74 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
         return mySolverGeneral.isSolvable();
     }
 
+    /**
+     * Should the full KKT system, of the given size, be solved using a sparse decomposition?
+     */
+    protected boolean isSparseKKT(final long dimension) {
+
+        if (Boolean.FALSE.equals(options.sparse) || (dimension < SPARSE_KKT_DIMENSION)) {
+            return false;
+        }
+
+        return this.getSparseMatrixQ() != null;
+    }
+
+    /**
+     * @return true if every iteration is solved using the sparse KKT system, and [Q] is never decomposed on
+     *         its own
+     */
+    boolean isSparseKKTOnly() {
+        return false;
+    }
+
+    /**
+     * [Q] as a sparse matrix, or null if it is not sparse enough (unless sparse is explicitly requested). If
+     * [Q] was supplied as a {@link SparseStore} that is used as is. Otherwise [Q] is stored dense, and this
+     * means going through all of its elements - once, the result is kept.
+     */
+    private SparseStore<Double> getSparseMatrixQ() {
+
+        if (mySparseQ == null) {
+
+            final SparseStore<Double> suppliedQ = myMatrices.getSparseQ();
+            if (suppliedQ != null) {
+                mySparseQ = Boolean.TRUE;
+                mySparseMatrixQ = suppliedQ;
+                return mySparseMatrixQ;
+            }
+
+            final PhysicalStore<Double> matrixQ = this.getMatrixQ();
+            final int dim = (int) matrixQ.countRows();
+            final long limit = Boolean.TRUE.equals(options.sparse) ? Long.MAX_VALUE : (long) (SPARSE_KKT_DENSITY * matrixQ.count());
+
+            final SparseStore.Builder<Double> builder = SparseStore.builder(SparseStore.PRIMITIVE64, dim, dim);
+            long nonzeros = 0L;
+            for (int j = 0; (j < dim) && (nonzeros <= limit); j++) {
+                for (int i = 0; i < dim; i++) {
+                    final double value = matrixQ.doubleValue(i, j);
+                    if (value != ZERO) {
+                        builder.add(i, j, value);
+                        nonzeros++;
+                    }
+                }
+            }
+
+            mySparseQ = Boolean.valueOf(nonzeros <= limit);
+            mySparseMatrixQ = mySparseQ.booleanValue() ? builder.get() : null;
+        }
+
+        return mySparseMatrixQ;
+    }
+
+    /**
+     * Positive definite if the sparse LDL decomposition of [Q] has only positive elements in [D]
+     */
+    private boolean isSPDSparseQ() {
+        final SparseStore<Double> sparseQ = this.getSparseMatrixQ();
+        final LDL<Double> decomposition = LDL.SPARSE.make(sparseQ);
+        return decomposition.decompose(sparseQ) && (decomposition.getD().aggregateDiagonal(Aggregator.MINIMUM).doubleValue() > ZERO);
+    }
+
     protected boolean isSolvableQ() {
         //        double max = Math.max(RELATIVELY_SMALL, mySolverQ.getRankThreshold());
         //        int countVariables = this.countVariables();
@@ -681,12 +864,14 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
     abstract protected void performIteration();
 
     protected boolean solveFullKKT(final PhysicalStore<Double> preallocated) {
-        if (this.computeGeneral(this.getIterationKKT())) {
+        if (this.isSparseKKT(this.countVariables() + this.countIterationConstraints())) {
+            return this.solveSparseKKT(this.getIterationA(), preallocated);
+        } else if (this.computeGeneral(this.getIterationKKT())) {
             this.getSolutionGeneral(this.getIterationRHS(), preallocated);
             return true;
         } else {
             if (this.isLogDebug()) {
-                options.logger_appender.println("KKT system unsolvable!");
+                options.logger_appender.println("KKT system unsolvable! Estimated condition: " + mySolverGeneral.estimateCondition());
                 //                options.logger_appender.printmtrx("KKT", this.getIterationKKT().collect(FACTORY));
                 //                options.logger_appender.printmtrx("RHS", this.getIterationRHS().collect(FACTORY));
             }
@@ -694,6 +879,98 @@ public abstract class ConvexSolver extends GenericSolver implements UpdatableSol
         }
     }
 
+    /**
+     * The KKT system [Q, A<sup>T</sup>; A, 0] is regularised to [Q + dI, A<sup>T</sup>; A, -dI], that is
+     * quasi-definite and can be LDL<sup>T</sup> decomposed with any (fill reducing) ordering. The solution is
+     * then iteratively refined against the original system. The system is assembled from the nonzeros of the
+     * (kept) sparse [Q] and of [A].
+     *
+     * @param iterationA The constraints body, or null if there are no constraints
+     */
+    protected boolean solveSparseKKT(final MatrixStore<Double> iterationA, final PhysicalStore<Double> preallocated) {
+
+        final int numberOfVariables = this.countVariables();
+        final int numberOfConstraints = iterationA != null ? (int) iterationA.countRows() : 0;
+        final int dim = numberOfVariables + numberOfConstraints;
+
+        double largest = ZERO;
+        final SparseStore.Builder<Double> builder = SparseStore.builder(SparseStore.PRIMITIVE64, dim, dim);
+        for (final ElementView2D<Double, ?> element : this.getSparseMatrixQ().nonzeros()) {
+            final double value = element.doubleValue();
+            builder.add(element.row(), element.column(), value);
+            largest = Math.max(largest, Math.abs(value));
+        }
+        if (numberOfConstraints > 0) {
+            for (final ElementView1D<Double, ?> element : iterationA.nonzeros()) {
+                final double value = element.doubleValue();
+                if (value != ZERO) {
+                    final long row = numberOfVariables + Structure2D.row(element.index(), numberOfConstraints);
+                    final long column = Structure2D.column(element.index(), numberOfConstraints);
+                    builder.add(row, column, value);
+                    builder.add(column, row, value);
+                    largest = Math.max(largest, Math.abs(value));
+                }
+            }
+        }
+
+        final double regularisation = RELATIVELY_SMALL * Math.max(ONE, largest);
+        for (int ij = 0; ij < dim; ij++) {
+            builder.add(ij, ij, ij < numberOfVariables ? regularisation : -regularisation);
+        }
+        final SparseStore<Double> regularisedKKT = builder.get();
+
+        if (mySolverKKT == null) {
+            mySolverKKT = LDL.SPARSE.make(regularisedKKT);
+        }
+
+        if (!mySolverKKT.compute(regularisedKKT)) {
+            if (this.isLogDebug()) {
+                this.log("Sparse KKT system unsolvable! Estimated condition: {}", mySolverKKT.estimateCondition());
+            }
+            return false;
+        }
+
+        final Primitive64Store rhs = Primitive64Store.FACTORY.make(dim, 1L);
+        this.getIterationRHS().supplyTo(rhs);
+        final double normRHS = rhs.aggregateAll(Aggregator.LARGEST);
+
+        mySolverKKT.getSolution(rhs, preallocated);
+
+        final Primitive64Store residual = Primitive64Store.FACTORY.make(dim, 1L);
+        final Primitive64Store correction = Primitive64Store.FACTORY.make(dim, 1L);
+
+        for (int r = 0; r <= SPARSE_KKT_REFINEMENTS; r++) {
+
+            // residual = rhs - [KKT][x] = rhs - [regularised][x] + [dI, 0; 0, -dI][x]
+            regularisedKKT.multiply(preallocated, residual);
+            double normResidual = ZERO;
+            for (int i = 0; i < dim; i++) {
+                final double value = preallocated.doubleValue(i);
+                final double difference = (rhs.doubleValue(i) - residual.doubleValue(i)) + (i < numberOfVariables ? regularisation * value : -regularisation * value);
+                residual.set(i, difference);
+                normResidual = Math.max(normResidual, Math.abs(difference));
+            }
+
+            final double scale = normRHS + (largest * preallocated.aggregateAll(Aggregator.LARGEST));
+
+            if (normResidual <= (dim * MACHINE_EPSILON * scale)) {
+                return true;
+            } else if (r == SPARSE_KKT_REFINEMENTS) {
+                if (normResidual <= (RELATIVELY_SMALL * scale)) {
+                    return true;
+                }
+            } else {
+                mySolverKKT.getSolution(residual, correction);
+                preallocated.modifyMatching(ADD, correction);
+            }
+        }
+
+        if (this.isLogDebug()) {
+            this.log("Sparse KKT system, iterative refinement did not converge! Estimated condition: {}", mySolverKKT.estimateCondition());
+        }
+        return false;
+    }
+
     protected Optimisation.Result solveLP() {
         return LinearSolver.solve(myMatrices, options);
     }
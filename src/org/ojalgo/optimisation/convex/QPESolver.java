@@ -106,7 +106,9 @@ final class QPESolver extends ConstrainedSolver {
         final Primitive64Store tmpIterX = myIterationX;
         final Primitive64Store tmpIterL = Primitive64Store.FACTORY.makeZero(tmpIterA.countRows(), 1L);
 
-        if ((tmpIterA.countRows() < tmpIterA.countColumns()) && (solved = this.isSolvableQ())) {
+        final boolean sparse = this.isSparseKKT(tmpIterA.countColumns() + tmpIterA.countRows());
+
+        if (!sparse && (tmpIterA.countRows() < tmpIterA.countColumns()) && (solved = this.isSolvableQ())) {
             // Q is SPD
             // Actual/normal optimisation problem
 
@@ -188,7 +190,7 @@ final class QPESolver extends ConstrainedSolver {
     @Override
     MatrixStore<Double> getIterationC() {
         if (myFeasible) {
-            final MatrixStore<Double> mtrxQ = this.getMatrixQ();
+            final MatrixStore<Double> mtrxQ = this.getObjectiveQ();
             final MatrixStore<Double> mtrxC = this.getMatrixC();
             final PhysicalStore<Double> solX = this.getSolutionX();
             return mtrxC.subtract(mtrxQ.multiply(solX));
@@ -197,4 +199,12 @@ final class QPESolver extends ConstrainedSolver {
         }
     }
 
+    /**
+     * The KKT system size is the same in every iteration - if it is solved sparse, it always is.
+     */
+    @Override
+    boolean isSparseKKTOnly() {
+        return this.isSparseKKT(this.countVariables() + this.countEqualityConstraints());
+    }
+
 }
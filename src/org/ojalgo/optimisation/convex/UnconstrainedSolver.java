@@ -79,4 +79,12 @@ final class UnconstrainedSolver extends ConvexSolver {
         this.incrementIterationsCount();
     }
 
+    /**
+     * The KKT system is just [Q] - if it is solved sparse, [Q] is never decomposed dense.
+     */
+    @Override
+    boolean isSparseKKTOnly() {
+        return this.isSparseKKT(this.countVariables());
+    }
+
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.array.operation.AXPY;
+import org.ojalgo.random.Uniform;
+
+public class Primitive32ArrayTest {
+
+    /**
+     * The float[] specific path should give exactly the same results as the generic one - products in double
+     * precision, rounded to float when added.
+     */
+    @Test
+    public void testAxpy() {
+
+        Primitive32Array x = Primitive32Array.make(BasicArrayTest.COUNT);
+        x.fillAll(new Uniform());
+
+        Primitive32Array expected = Primitive32Array.make(BasicArrayTest.COUNT);
+        expected.fillAll(new Uniform());
+        Primitive32Array actual = Primitive32Array.make(BasicArrayTest.COUNT);
+        actual.fillMatching(expected);
+
+        double a = 0.1;
+
+        AXPY.invoke(expected, a, x.data);
+        x.axpy(a, actual);
+
+        for (int i = 0; i < BasicArrayTest.COUNT; i++) {
+            Assertions.assertEquals(expected.floatValue(i), actual.floatValue(i));
+        }
+    }
+
+    @Test
+    public void testAxpyMismatch() {
+
+        Primitive32Array x = Primitive32Array.make(BasicArrayTest.COUNT);
+        Primitive32Array y = Primitive32Array.make(BasicArrayTest.COUNT - 1);
+
+        Assertions.assertThrows(ProgrammingError.class, () -> x.axpy(1.0, y));
+    }
+
+}
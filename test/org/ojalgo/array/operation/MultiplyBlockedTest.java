@@ -0,0 +1,117 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.Primitive32Store;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+public class MultiplyBlockedTest extends StoreOperationsTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(6, 4);
+
+    private static void doTest(final int rows, final int complexity, final int columns) {
+
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(rows, complexity, new Normal());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(complexity, columns, new Normal());
+
+        Primitive64Store expected = Primitive64Store.FACTORY.make(rows, columns);
+        MultiplyNeither.invoke(expected.data, 0, columns, left.data, complexity, right.data);
+
+        Primitive64Store actual64 = Primitive64Store.FACTORY.make(rows, columns);
+        MultiplyBlocked.invoke(actual64.data, 0, columns, left.data, complexity, right.data);
+
+        TestUtils.assertEquals(expected, actual64);
+
+        TestUtils.assertEquals(expected, left.multiply(right));
+
+        Primitive32Store left32 = Primitive32Store.FACTORY.copy(left);
+        Primitive32Store right32 = Primitive32Store.FACTORY.copy(right);
+
+        Primitive32Store actual32 = Primitive32Store.FACTORY.make(rows, columns);
+        MultiplyBlocked.invoke(actual32.data, 0, columns, left32.data, complexity, right32.data);
+
+        TestUtils.assertEquals(expected, actual32, ACCURACY);
+
+        TestUtils.assertEquals(expected, left32.multiply(right32), ACCURACY);
+    }
+
+    /**
+     * Only the columns in the specified range should be calculated - that's how the work is split between
+     * threads.
+     */
+    @Test
+    public void testColumnRange() {
+
+        int rows = MultiplyBlocked.MR * 2 + 1;
+        int complexity = MultiplyBlocked.KC + 1;
+        int columns = MultiplyBlocked.NR * 4 + 3;
+
+        int first = 3;
+        int limit = columns - 2;
+
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(rows, complexity, new Normal());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(complexity, columns, new Normal());
+
+        Primitive64Store expected = Primitive64Store.FACTORY.make(rows, columns);
+        MultiplyNeither.invoke(expected.data, first, limit, left.data, complexity, right.data);
+
+        Primitive64Store actual = Primitive64Store.FACTORY.make(rows, columns);
+        MultiplyBlocked.invoke(actual.data, first, limit, left.data, complexity, right.data);
+
+        TestUtils.assertEquals(expected, actual);
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < first; j++) {
+                TestUtils.assertEquals(0.0, actual.doubleValue(i, j));
+            }
+            for (int j = limit; j < columns; j++) {
+                TestUtils.assertEquals(0.0, actual.doubleValue(i, j));
+            }
+        }
+    }
+
+    /**
+     * Dimensions smaller than, and not multiples of, the {@value MultiplyBlocked#MR}x{@value MultiplyBlocked#NR}
+     * register tile - the edge tiles are zero padded when packed.
+     */
+    @Test
+    public void testEdgeSizes() {
+        MultiplyBlockedTest.doTest(1, 1, 1);
+        MultiplyBlockedTest.doTest(MultiplyBlocked.MR - 1, 2, MultiplyBlocked.NR + 1);
+        MultiplyBlockedTest.doTest(5, 3, 7);
+        MultiplyBlockedTest.doTest(17, 9, 13);
+    }
+
+    /**
+     * Dimensions that are not multiples of the MC, KC and NR block sizes - partial blocks in every direction.
+     */
+    @Test
+    public void testSpanningSeveralBlocks() {
+        MultiplyBlockedTest.doTest(MultiplyBlocked.MC + 3, MultiplyBlocked.KC + 5, MultiplyBlocked.NR * 3 + 1);
+        MultiplyBlockedTest.doTest(MultiplyBlocked.MC * 2 + 1, MultiplyBlocked.KC * 2 + 3, MultiplyBlocked.THRESHOLD + 3);
+    }
+
+}
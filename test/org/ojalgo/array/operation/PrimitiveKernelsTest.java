@@ -0,0 +1,130 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Normal;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Compares whichever kernels were selected at class init with the scalar (fallback) implementations. On a JVM
+ * without the Vector API the two are the same.
+ */
+public class PrimitiveKernelsTest extends StoreOperationsTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(12, 14);
+    private static final PrimitiveKernels FALLBACK = new PrimitiveKernels();
+    private static final int[] LENGTHS = { 0, 1, 3, 7, 8, 9, 17, 64, 101, 1000 };
+
+    private static double[] random(final int length) {
+        Normal distribution = new Normal();
+        double[] retVal = new double[length];
+        for (int i = 0; i < length; i++) {
+            retVal[i] = distribution.doubleValue();
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testAmaxAndAsum() {
+        for (int length : LENGTHS) {
+            double[] data = PrimitiveKernelsTest.random(length + 3);
+            for (int step = 1; step <= 3; step++) {
+                TestUtils.assertEquals(FALLBACK.amax(data, 3, data.length, step), AMAX.invoke(data, 3, data.length, step));
+                TestUtils.assertEquals(FALLBACK.asum(data, 3, data.length, step), ASUM.invoke(data, 3, data.length, step), ACCURACY);
+                TestUtils.assertEquals(FALLBACK.nrm2(data, 3, data.length, step), NRM2.invoke(data, 3, data.length, step), ACCURACY);
+            }
+        }
+        double[] zeros = new double[20];
+        TestUtils.assertEquals(5, AMAX.invoke(zeros, 5, zeros.length, 1));
+    }
+
+    @Test
+    public void testAxpyAndScal() {
+        for (int length : LENGTHS) {
+
+            double[] x = PrimitiveKernelsTest.random(length + 2);
+            double[] expected = PrimitiveKernelsTest.random(length + 5);
+            double[] actual = Arrays.copyOf(expected, expected.length);
+
+            FALLBACK.axpy(expected, 5, 1.5, x, 2, 0, length);
+            AXPY.invoke(actual, 5, 1.5, x, 2, 0, length);
+            TestUtils.assertEquals(expected, Access1D.wrap(actual), ACCURACY);
+
+            FALLBACK.scal(expected, 1, expected.length, 1, -0.5);
+            SCAL.invoke(actual, 1, actual.length, 1, -0.5);
+            TestUtils.assertEquals(expected, Access1D.wrap(actual), ACCURACY);
+        }
+    }
+
+    /**
+     * {@link Primitive64Store#modifyAll(org.ojalgo.function.UnaryFunction)} with a fixed multiplier scales in
+     * place using {@link SCAL}, and {@link Primitive64Store#aggregateAll(Aggregator)} with
+     * {@link Aggregator#NORM2} uses {@link NRM2}.
+     */
+    @Test
+    public void testCallers() {
+        for (int length : LENGTHS) {
+
+            double[] data = PrimitiveKernelsTest.random(length);
+            Primitive64Store store = Primitive64Store.FACTORY.columns(data);
+
+            TestUtils.assertEquals(FALLBACK.nrm2(data, 0, length, 1), store.aggregateAll(Aggregator.NORM2).doubleValue(), ACCURACY);
+
+            FALLBACK.scal(data, 0, length, 1, -0.5);
+            store.modifyAll(PrimitiveMath.MULTIPLY.second(-0.5));
+            TestUtils.assertEquals(Access1D.wrap(data), store, ACCURACY);
+
+            FALLBACK.scal(data, 0, length, 1, 3.0);
+            store.modifyAll(PrimitiveMath.MULTIPLY.first(3.0));
+            TestUtils.assertEquals(Access1D.wrap(data), store, ACCURACY);
+        }
+    }
+
+    @Test
+    public void testDot() {
+        for (int length : LENGTHS) {
+            double[] array1 = PrimitiveKernelsTest.random(length + 1);
+            double[] array2 = PrimitiveKernelsTest.random(length + 4);
+            TestUtils.assertEquals(FALLBACK.dot(array1, 1, array2, 4, 0, length), DOT.invoke(array1, 1, array2, 4, 0, length), ACCURACY);
+        }
+    }
+
+    /**
+     * When vectorisation is explicitly asked for, as it is by the second test execution of the jdk17 profile,
+     * the Vector API kernels must actually have been selected.
+     */
+    @Test
+    public void testSelection() {
+        if (Boolean.getBoolean(PrimitiveKernels.PROPERTY)) {
+            TestUtils.assertTrue(PrimitiveKernels.INSTANCE.isVectorised());
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.TestUtils;
+import org.ojalgo.machine.BasicMachine;
+import org.ojalgo.machine.Hardware;
+
+public class ThresholdProfileTest {
+
+    @Test
+    public void testCalibrate() {
+
+        ThresholdProfile before = ThresholdProfile.current();
+
+        ThresholdProfile calibrated = ThresholdProfile.calibrate();
+
+        TestUtils.assertEquals(before.getThresholds(), ThresholdProfile.current().getThresholds());
+        TestUtils.assertEquals(before.getThresholds().keySet(), calibrated.getThresholds().keySet());
+        for (Integer value : calibrated.getThresholds().values()) {
+            TestUtils.assertTrue(value.intValue() >= ThresholdProfile.MIN_THRESHOLD);
+        }
+    }
+
+    @Test
+    public void testEstimate() {
+
+        ThresholdProfile current = ThresholdProfile.current();
+
+        ThresholdProfile single = ThresholdProfile.estimate(OjAlgoUtils.ENVIRONMENT.limitBy(0.0));
+        for (Map.Entry<String, Integer> entry : single.getThresholds().entrySet()) {
+            if (!"MultiplyBlocked".equals(entry.getKey())) {
+                TestUtils.assertEquals(ThresholdProfile.MAX_THRESHOLD, entry.getValue().intValue());
+            }
+        }
+
+        ThresholdProfile estimated = ThresholdProfile.estimate(OjAlgoUtils.ENVIRONMENT);
+        TestUtils.assertEquals(current.getThresholds().keySet(), estimated.getThresholds().keySet());
+    }
+
+    @Test
+    public void testEstimateCacheAndUnits() {
+
+        long gb = 1L << 30;
+        long mb = 1L << 20;
+        long kb = 1L << 10;
+
+        Hardware large = new Hardware("x86_64", new BasicMachine[] { new BasicMachine(32L * gb, 8), new BasicMachine(16L * mb, 8),
+                new BasicMachine(256L * kb, 2), new BasicMachine(32L * kb, 2) });
+        // Differences large enough to hit the max factor 8 - the initial thresholds may have been minimised by other tests
+        Hardware small = new Hardware("x86_64", new BasicMachine[] { new BasicMachine(32L * gb, 8), new BasicMachine(64L * kb, 8),
+                new BasicMachine(32L * kb, 2), new BasicMachine(16L * kb, 2) });
+        Hardware sockets = new Hardware("x86_64", new BasicMachine[] { new BasicMachine(32L * gb, 8), new BasicMachine(2L * mb, 1),
+                new BasicMachine(256L * kb, 1), new BasicMachine(32L * kb, 1) });
+
+        ThresholdProfile estimatedLarge = ThresholdProfile.estimate(large);
+        ThresholdProfile estimatedSmall = ThresholdProfile.estimate(small);
+        ThresholdProfile estimatedSockets = ThresholdProfile.estimate(sockets);
+
+        // Less cache per thread only affects the (memory bound) element-wise operations
+        TestUtils.assertTrue(estimatedSmall.get("ModifyAll") > estimatedLarge.get("ModifyAll"));
+        TestUtils.assertTrue(estimatedSmall.get("AXPY") > estimatedLarge.get("AXPY"));
+        TestUtils.assertEquals(estimatedLarge.get("ApplyLU"), estimatedSmall.get("ApplyLU"));
+        TestUtils.assertEquals(estimatedLarge.get("MultiplyBoth"), estimatedSmall.get("MultiplyBoth"));
+
+        // More units (sockets) affect everything but blocking
+        TestUtils.assertTrue(estimatedSockets.get("ApplyLU") > estimatedLarge.get("ApplyLU"));
+        TestUtils.assertTrue(estimatedSockets.get("MultiplyBoth") > estimatedLarge.get("MultiplyBoth"));
+        TestUtils.assertEquals(estimatedLarge.get("MultiplyBlocked"), estimatedSockets.get("MultiplyBlocked"));
+    }
+
+    @Test
+    public void testLoadMalformed() throws IOException {
+
+        File file = File.createTempFile("thresholds", ".properties");
+        file.deleteOnExit();
+
+        Files.write(file.toPath(), Arrays.asList("machine.cores=four", "AMAX=123"));
+        TestUtils.assertFalse(ThresholdProfile.load(file).isPresent());
+
+        Files.write(file.toPath(), Arrays.asList("machine.cores=4", "AMAX=many"));
+        TestUtils.assertFalse(ThresholdProfile.load(file).isPresent());
+    }
+
+    @Test
+    public void testSaveLoadApply() throws IOException {
+
+        ThresholdProfile initial = ThresholdProfile.current();
+
+        File file = File.createTempFile("thresholds", ".properties");
+        file.deleteOnExit();
+
+        try {
+
+            ThresholdProfile profile = ThresholdProfile.current();
+            profile.set("MultiplyBoth", 123);
+            profile.set("ApplyLU", 456);
+
+            TestUtils.assertTrue(profile.save(file));
+
+            Optional<ThresholdProfile> loaded = ThresholdProfile.load(file);
+            TestUtils.assertTrue(loaded.isPresent());
+            TestUtils.assertTrue(loaded.get().isFor(OjAlgoUtils.ENVIRONMENT));
+            TestUtils.assertEquals(profile.getThresholds(), loaded.get().getThresholds());
+
+            loaded.get().apply();
+
+            TestUtils.assertEquals(123, MultiplyBoth.THRESHOLD);
+            TestUtils.assertEquals(456, ApplyLU.THRESHOLD);
+
+        } finally {
+            initial.apply();
+        }
+
+        TestUtils.assertEquals(initial.getThresholds(), ThresholdProfile.current().getThresholds());
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.TestUtils;
+import org.ojalgo.machine.VirtualMachine;
+
+public class DivideAndConquerTest {
+
+    static final class Ranges extends DivideAndConquer {
+
+        final List<int[]> ranges = new CopyOnWriteArrayList<>();
+        final AtomicIntegerArray visits;
+
+        Ranges(final int size) {
+            super();
+            visits = new AtomicIntegerArray(size);
+        }
+
+        void assertEachIndexOnce() {
+            for (int i = 0; i < visits.length(); i++) {
+                TestUtils.assertEquals(1, visits.get(i));
+            }
+        }
+
+        @Override
+        protected void conquer(final int first, final int limit) {
+            ranges.add(new int[] { first, limit });
+            for (int i = first; i < limit; i++) {
+                visits.incrementAndGet(i);
+            }
+        }
+
+    }
+
+    @Test
+    public void testBelowThreshold() {
+
+        Ranges ranges = new Ranges(10);
+        ExecutionContext.newDedicated(4).run(() -> ranges.invoke(0, 10, 10));
+
+        ranges.assertEachIndexOnce();
+        TestUtils.assertEquals(1, ranges.ranges.size());
+    }
+
+    @Test
+    public void testLimitCoresTo() {
+
+        VirtualMachine environment = OjAlgoUtils.ENVIRONMENT;
+
+        try {
+
+            OjAlgoUtils.limitCoresTo(1);
+
+            TestUtils.assertTrue(ExecutionContext.DEFAULT.getParallelism() <= OjAlgoUtils.ENVIRONMENT.threads);
+
+            if (OjAlgoUtils.ENVIRONMENT.threads == 1) {
+                Ranges ranges = new Ranges(1000);
+                ranges.invoke(0, 1000, 1);
+                ranges.assertEachIndexOnce();
+                TestUtils.assertEquals(1, ranges.ranges.size());
+            }
+
+        } finally {
+            OjAlgoUtils.ENVIRONMENT = environment;
+        }
+    }
+
+    @Test
+    public void testSequential() {
+
+        Ranges ranges = new Ranges(1000);
+        ExecutionContext.SEQUENTIAL.run(() -> ranges.invoke(0, 1000, 1));
+
+        ranges.assertEachIndexOnce();
+        TestUtils.assertEquals(1, ranges.ranges.size());
+    }
+
+    /**
+     * The range is split in halves, at most until there is one part per worker, and never into parts
+     * smaller than necessary to get below the threshold.
+     */
+    @Test
+    public void testSplitting() {
+
+        for (int workers : new int[] { 2, 3, 4, 8 }) {
+
+            ExecutionContext context = ExecutionContext.newDedicated(workers);
+
+            Ranges ranges = new Ranges(1000);
+            context.run(() -> ranges.invoke(0, 1000, 10));
+
+            ranges.assertEachIndexOnce();
+            TestUtils.assertTrue(ranges.ranges.size() <= workers);
+            for (int[] range : ranges.ranges) {
+                TestUtils.assertTrue(range[1] > range[0]);
+            }
+
+            Ranges small = new Ranges(20);
+            context.run(() -> small.invoke(0, 20, 10));
+
+            small.assertEachIndexOnce();
+            TestUtils.assertTrue(small.ranges.size() <= 2);
+        }
+    }
+
+}
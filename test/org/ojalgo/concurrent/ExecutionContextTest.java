@@ -0,0 +1,112 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+
+public class ExecutionContextTest {
+
+    static final class Recorder extends DivideAndConquer {
+
+        final AtomicInteger count = new AtomicInteger();
+        final Set<ExecutionContext> contexts = ConcurrentHashMap.newKeySet();
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        @Override
+        protected void conquer(final int first, final int limit) {
+            count.addAndGet(limit - first);
+            contexts.add(ExecutionContext.current());
+            threads.add(Thread.currentThread());
+        }
+
+    }
+
+    @Test
+    public void testDedicatedContextPropagates() {
+
+        ExecutionContext dedicated = ExecutionContext.newDedicated(2);
+
+        Recorder recorder = new Recorder();
+        dedicated.run(() -> recorder.invoke(0, 1000, 10));
+
+        TestUtils.assertEquals(1000, recorder.count.get());
+        TestUtils.assertEquals(1, recorder.contexts.size());
+        TestUtils.assertTrue(recorder.contexts.contains(dedicated));
+        TestUtils.assertTrue(recorder.threads.size() <= 2);
+
+        TestUtils.assertEquals(ExecutionContext.DEFAULT, ExecutionContext.current());
+    }
+
+    @Test
+    public void testNestedInvocation() {
+
+        Recorder inner = new Recorder();
+
+        DivideAndConquer outer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int i = first; i < limit; i++) {
+                    inner.invoke(0, 100, 1);
+                }
+            }
+
+        };
+
+        outer.invoke(0, 64, 1);
+
+        TestUtils.assertEquals(64 * 100, inner.count.get());
+    }
+
+    @Test
+    public void testSameResultInAllContexts() {
+
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(97, 113, new Uniform());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(113, 89, new Uniform());
+
+        MatrixStore<Double> expected = ExecutionContext.SEQUENTIAL.call(() -> left.multiply(right).copy());
+
+        TestUtils.assertEquals(expected, ExecutionContext.DEFAULT.call(() -> left.multiply(right).copy()));
+        TestUtils.assertEquals(expected, ExecutionContext.DEFAULT.limitTo(2).call(() -> left.multiply(right).copy()));
+        TestUtils.assertEquals(expected, ExecutionContext.newDedicated(3).call(() -> left.multiply(right).copy()));
+    }
+
+    @Test
+    public void testSequentialUsesCallingThread() {
+
+        Recorder recorder = new Recorder();
+        ExecutionContext.SEQUENTIAL.run(() -> recorder.invoke(0, 1000, 1));
+
+        TestUtils.assertEquals(1000, recorder.count.get());
+        TestUtils.assertEquals(1, recorder.threads.size());
+        TestUtils.assertTrue(recorder.threads.contains(Thread.currentThread()));
+    }
+
+}
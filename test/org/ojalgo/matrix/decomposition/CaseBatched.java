@@ -0,0 +1,147 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class CaseBatched extends MatrixDecompositionTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(8, 10);
+    private static final int COUNT = 300;
+
+    private static void compare(final BatchedDecomposition batch, final Primitive64Store[] bodies, final MatrixDecomposition.Solver<Double> reference) {
+
+        int rows = batch.countRows();
+        int cols = batch.countColumns();
+
+        Primitive64Store[] rhs = new Primitive64Store[COUNT];
+        for (int p = 0; p < COUNT; p++) {
+            rhs[p] = Primitive64Store.FACTORY.makeFilled(rows, 2, new Uniform());
+        }
+
+        double[] packedRHS = BatchedDecomposition.pack(rhs);
+        double[] packedSolution = new double[BatchedDecomposition.size(cols, 2, COUNT)];
+
+        batch.decompose(BatchedDecomposition.pack(bodies));
+        batch.solve(packedRHS, packedSolution);
+
+        TestUtils.assertEquals(BatchedDecomposition.pack(rhs), Primitive64Array.wrap(packedRHS), ACCURACY);
+
+        Primitive64Store[] solutions = BatchedDecomposition.unpack(packedSolution, cols, 2, COUNT);
+
+        for (int p = 0; p < COUNT; p++) {
+
+            reference.decompose(bodies[p]);
+
+            TestUtils.assertEquals(reference.isSolvable(), batch.isSolvable(p));
+
+            if (batch.isSolvable(p)) {
+                MatrixStore<Double> expected = reference.getSolution(rhs[p]);
+                TestUtils.assertEquals(expected, solutions[p], ACCURACY);
+            }
+        }
+
+        if ((rows == cols) && (batch.getClass() != BatchedDecomposition.QRBatch.class)) {
+            // In place
+            batch.solve(packedRHS, packedRHS);
+            TestUtils.assertEquals(packedSolution, Primitive64Array.wrap(packedRHS), ACCURACY);
+        }
+    }
+
+    @Override
+    @BeforeEach
+    public void minimiseAllBranchLimits() {
+        TestUtils.minimiseAllBranchLimits();
+    }
+
+    @Test
+    public void testCholesky() {
+
+        for (int dim : new int[] { 1, 4, 17, 64 }) {
+
+            Primitive64Store[] bodies = new Primitive64Store[COUNT];
+            for (int p = 0; p < COUNT; p++) {
+                bodies[p] = Primitive64Store.FACTORY.makeSPD(dim);
+            }
+            // Not positive definite
+            bodies[7] = bodies[7].copy();
+            bodies[7].set(0, 0, -1.0);
+
+            CaseBatched.compare(BatchedDecomposition.cholesky(dim, COUNT), bodies, Cholesky.PRIMITIVE.make());
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+
+        TestUtils.assertEquals(0, BatchedDecomposition.size(4, 4, 0));
+
+        for (BatchedDecomposition batch : new BatchedDecomposition[] { BatchedDecomposition.cholesky(4, 0), BatchedDecomposition.lu(4, 0),
+                BatchedDecomposition.qr(6, 4, 0) }) {
+            TestUtils.assertTrue(batch.decompose(new double[BatchedDecomposition.size(batch.countRows(), batch.countColumns(), 0)]));
+            batch.solve(new double[0], new double[0]);
+        }
+    }
+
+    @Test
+    public void testLU() {
+
+        for (int dim : new int[] { 1, 4, 17, 64 }) {
+
+            Primitive64Store[] bodies = new Primitive64Store[COUNT];
+            for (int p = 0; p < COUNT; p++) {
+                bodies[p] = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform(-1.0, 2.0));
+            }
+            // Singular
+            bodies[11].fillColumn(0, dim - 1, 0.0);
+
+            CaseBatched.compare(BatchedDecomposition.lu(dim, COUNT), bodies, LU.PRIMITIVE.make());
+        }
+    }
+
+    @Test
+    public void testQR() {
+
+        for (int[] dim : new int[][] { { 4, 4 }, { 10, 4 }, { 40, 17 }, { 64, 64 } }) {
+
+            Primitive64Store[] bodies = new Primitive64Store[COUNT];
+            for (int p = 0; p < COUNT; p++) {
+                bodies[p] = Primitive64Store.FACTORY.makeFilled(dim[0], dim[1], new Uniform(-1.0, 2.0));
+            }
+            // Rank deficient
+            bodies[13].fillColumn(0, dim[1] - 1, 0.0);
+
+            CaseBatched.compare(BatchedDecomposition.qr(dim[0], dim[1], COUNT), bodies, QR.PRIMITIVE.make());
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+
+/**
+ * @author apete
+ */
+public class CaseCondition extends MatrixDecompositionTests {
+
+    private static final int[] DIMENSIONS = { 1, 2, 5, 20, 100 };
+
+    /**
+     * The estimate must be a lower bound, and not too far off.
+     */
+    private static void assertEstimate(final double exact, final double estimate) {
+        TestUtils.assertTrue(exact + " vs " + estimate, estimate <= (exact * (1.0 + 1E-8)));
+        TestUtils.assertTrue(exact + " vs " + estimate, estimate >= (exact / 10.0));
+    }
+
+    private static double exact(final MatrixStore<Double> matrix) {
+        LU<Double> decomposition = LU.PRIMITIVE.make(matrix);
+        decomposition.decompose(matrix);
+        return ConditionEstimator.norm1(matrix) * ConditionEstimator.norm1(decomposition.getInverse());
+    }
+
+    private static Primitive64Store hilbert(final int dim) {
+        Primitive64Store retVal = Primitive64Store.FACTORY.make(dim, dim);
+        retVal.fillAll(0.0);
+        retVal.loopAll((i, j) -> retVal.set(i, j, 1.0 / (i + j + 1)));
+        return retVal;
+    }
+
+    @BeforeEach
+    public void minimiseAllBranchLimits() {
+        TestUtils.minimiseAllBranchLimits();
+    }
+
+    @Test
+    public void testCholesky() {
+        for (int dim : DIMENSIONS) {
+
+            Primitive64Store matrix = Primitive64Store.FACTORY.makeSPD(dim);
+            double exact = CaseCondition.exact(matrix);
+
+            for (Cholesky<Double> decomposition : MatrixDecompositionTests.getPrimitiveCholesky()) {
+                decomposition.decompose(matrix);
+                CaseCondition.assertEstimate(exact, decomposition.estimateCondition());
+            }
+        }
+    }
+
+    @Test
+    public void testIllConditioned() {
+
+        Primitive64Store hilbert = CaseCondition.hilbert(14);
+
+        for (LU<Double> decomposition : MatrixDecompositionTests.getPrimitiveLU()) {
+            decomposition.decompose(hilbert);
+            TestUtils.assertTrue(decomposition.estimateCondition() > ConditionEstimator.LIMIT);
+            TestUtils.assertFalse(ConditionEstimator.isAcceptable(decomposition.estimateCondition()));
+            TestUtils.assertFalse(decomposition.isSolvable());
+        }
+
+        Primitive64Store moderate = CaseCondition.hilbert(6);
+
+        for (LU<Double> decomposition : MatrixDecompositionTests.getPrimitiveLU()) {
+            decomposition.decompose(moderate);
+            CaseCondition.assertEstimate(CaseCondition.exact(moderate), decomposition.estimateCondition());
+            TestUtils.assertTrue(ConditionEstimator.isAcceptable(decomposition.estimateCondition()));
+            TestUtils.assertTrue(decomposition.isSolvable());
+        }
+    }
+
+    @Test
+    public void testLU() {
+        for (int dim : DIMENSIONS) {
+
+            Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+            double exact = CaseCondition.exact(matrix);
+
+            for (LU<Double> decomposition : MatrixDecompositionTests.getPrimitiveLU()) {
+                decomposition.decompose(matrix);
+                CaseCondition.assertEstimate(exact, decomposition.estimateCondition());
+            }
+        }
+    }
+
+    @Test
+    public void testQR() {
+        for (int dim : DIMENSIONS) {
+
+            Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(dim + 3, dim, new Uniform());
+
+            for (QR<Double> decomposition : MatrixDecompositionTests.getPrimitiveQR()) {
+                decomposition.decompose(matrix);
+                MatrixStore<Double> r = decomposition.getR().logical().limits(dim, dim).get();
+                CaseCondition.assertEstimate(CaseCondition.exact(r), decomposition.estimateCondition());
+            }
+        }
+    }
+
+    @Test
+    public void testUpdated() {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeSPD(10);
+        Primitive64Store vector = Primitive64Store.FACTORY.makeFilled(10, 1, new Uniform());
+
+        for (Cholesky<Double> decomposition : MatrixDecompositionTests.getPrimitiveCholesky()) {
+            if (decomposition instanceof MatrixDecomposition.Updatable) {
+                decomposition.decompose(matrix);
+                TestUtils.assertFalse(Double.isNaN(decomposition.estimateCondition()));
+                ((MatrixDecomposition.Updatable<Double>) decomposition).update(vector);
+                TestUtils.assertTrue(Double.isNaN(decomposition.estimateCondition()));
+                TestUtils.assertTrue(decomposition.isSolvable());
+            }
+        }
+    }
+
+}
@@ -24,6 +24,7 @@ package org.ojalgo.matrix.decomposition;
 import static org.ojalgo.function.constant.PrimitiveMath.*;
 
 import java.math.MathContext;
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +33,7 @@ import org.ojalgo.RecoverableCondition;
 import org.ojalgo.TestUtils;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.Array2D;
+import org.ojalgo.concurrent.ExecutionContext;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.function.constant.PrimitiveMath;
 import org.ojalgo.matrix.MatrixUtils;
@@ -43,8 +45,10 @@ import org.ojalgo.matrix.store.GenericStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.matrix.task.SolverTask;
 import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.random.Uniform;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.structure.Access1D;
 import org.ojalgo.type.context.NumberContext;
@@ -62,12 +66,171 @@ public class CaseEigenvalue extends MatrixDecompositionTests {
 
     }
 
+    /**
+     * A backward stable decomposition gives a residual, [A][V] - [V][D], of order machine epsilon relative to
+     * the norm of [A]. Comparing [A][V] and [V][D] element by element, with a relative tolerance, fails
+     * (randomly) for elements that are small because of cancellation - regardless of which algorithm was used.
+     */
+    private static void assertResidual(final MatrixStore<Double> matrix, final Eigenvalue<Double> decomposition) {
+
+        MatrixStore<Double> mtrxV = decomposition.getV();
+
+        double residual = matrix.multiply(mtrxV).subtract(mtrxV.multiply(decomposition.getD())).aggregateAll(Aggregator.LARGEST);
+        double bound = matrix.countRows() * MACHINE_EPSILON * matrix.aggregateAll(Aggregator.NORM2);
+
+        TestUtils.assertTrue(residual + " > " + bound, residual <= bound);
+    }
+
     @Override
     @BeforeEach
     public void minimiseAllBranchLimits() {
         TestUtils.minimiseAllBranchLimits();
     }
 
+    @Test
+    public void testDivideAndConquer() {
+
+        NumberContext accuracy = NumberContext.getGeneral(10, 12);
+
+        Primitive64Store random = Primitive64Store.FACTORY.makeFilled(200, 200, new Uniform(-1.0, 2.0));
+        Primitive64Store lowRank = Primitive64Store.FACTORY.makeFilled(150, 20, new Uniform());
+
+        int dim = 300;
+        Primitive64Store laplacian = Primitive64Store.FACTORY.make(dim, dim);
+        for (int i = 0; i < dim; i++) {
+            laplacian.set(i, i, TWO);
+            if (i > 0) {
+                laplacian.set(i, i - 1, NEG);
+                laplacian.set(i - 1, i, NEG);
+            }
+        }
+
+        // Distinct, (very) many repeated (deflation) and all equal eigenvalues
+        for (MatrixStore<Double> matrix : new MatrixStore[] { random.add(random.transpose()), lowRank.multiply(lowRank.transpose()), laplacian,
+                MatrixStore.PRIMITIVE64.makeIdentity(100).get() }) {
+
+            Eigenvalue<Double> reference = new RawEigenvalue.Symmetric();
+            TestUtils.assertTrue(reference.decompose(matrix));
+
+            Eigenvalue<Double> divided = new RawEigenvalue.Symmetric(true);
+            TestUtils.assertTrue(divided.decompose(matrix));
+
+            TestUtils.assertEquals(reference.getEigenvalues(), divided.getEigenvalues(), accuracy);
+            CaseEigenvalue.assertResidual(matrix, divided);
+
+            MatrixStore<Double> mtrxV = divided.getV();
+            TestUtils.assertEquals(MatrixStore.PRIMITIVE64.makeIdentity(mtrxV.countColumns()).get(), mtrxV.transpose().multiply(mtrxV), accuracy);
+        }
+
+        // With parallel merges
+
+        Primitive64Store other = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        MatrixStore<Double> matrix = other.add(other.transpose());
+
+        Eigenvalue<Double> sequential = new RawEigenvalue.Symmetric(true);
+        TestUtils.assertTrue(sequential.decompose(matrix));
+
+        Eigenvalue<Double> parallel = ExecutionContext.newDedicated(4).call(() -> {
+            Eigenvalue<Double> retVal = Eigenvalue.PRIMITIVE.make(matrix, true);
+            retVal.decompose(matrix);
+            return retVal;
+        });
+
+        TestUtils.assertEquals(sequential.getEigenvalues(), parallel.getEigenvalues(), accuracy);
+        CaseEigenvalue.assertResidual(matrix, parallel);
+    }
+
+    @Test
+    public void testLanczos() {
+
+        NumberContext accuracy = NumberContext.getGeneral(8, 10);
+
+        int count = 8;
+
+        Eigenvalue.Factory<Double> factory = Eigenvalue.lanczos(count);
+
+        // Dense, with both positive and negative eigenvalues
+
+        Primitive64Store random = Primitive64Store.FACTORY.makeFilled(150, 150, new Uniform(-1.0, 2.0));
+        MatrixStore<Double> dense = random.add(random.transpose());
+
+        Eigenvalue<Double> full = Eigenvalue.PRIMITIVE.make(dense, true);
+        TestUtils.assertTrue(full.decompose(dense));
+        double[] expected = full.getEigenvalues().toRawCopy1D();
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = Math.abs(expected[i]);
+        }
+        Arrays.sort(expected);
+
+        Eigenvalue<Double> lanczos = factory.make(dense);
+        TestUtils.assertTrue(lanczos instanceof LanczosEvD);
+        TestUtils.assertTrue(lanczos.decompose(dense));
+
+        TestUtils.assertEquals(count, lanczos.getV().countColumns());
+        TestUtils.assertTrue(Eigenvalue.equals(dense, lanczos, accuracy));
+
+        Array1D<ComplexNumber> values = lanczos.getEigenvalues();
+        for (int i = 0; i < count; i++) {
+            TestUtils.assertEquals(expected[expected.length - 1 - i], Math.abs(values.doubleValue(i)), accuracy);
+        }
+
+        // Sparse - the 1D Laplacian, with known eigenvalues 2 - 2cos(k&pi;/(n+1))
+
+        int dim = 400;
+        SparseStore<Double> laplacian = SparseStore.PRIMITIVE64.make(dim, dim);
+        for (int i = 0; i < dim; i++) {
+            laplacian.set(i, i, TWO);
+            if (i > 0) {
+                laplacian.set(i, i - 1, NEG);
+                laplacian.set(i - 1, i, NEG);
+            }
+        }
+
+        lanczos = factory.make(laplacian, true);
+        TestUtils.assertTrue(lanczos.decompose(laplacian));
+
+        TestUtils.assertTrue(Eigenvalue.equals(laplacian, lanczos, accuracy));
+        for (int k = 0; k < count; k++) {
+            TestUtils.assertEquals(TWO - (TWO * Math.cos(((dim - k) * PI) / (dim + 1))), lanczos.getEigenvalues().doubleValue(k), accuracy);
+        }
+
+        // An invariant subspace right away
+
+        MatrixStore<Double> identity = MatrixStore.PRIMITIVE64.makeIdentity(20).get();
+
+        lanczos = factory.make(identity, true);
+        TestUtils.assertTrue(lanczos.decompose(identity));
+        TestUtils.assertTrue(Eigenvalue.equals(identity, lanczos, accuracy));
+        TestUtils.assertEquals(ONE, lanczos.getEigenvalues().doubleValue(count - 1), accuracy);
+    }
+
+    /**
+     * Any Krylov subspace only contains one eigenvector for each distinct eigenvalue. The repeated dominant
+     * eigenvalue has to be found by restarting at the invariant subspace.
+     */
+    @Test
+    public void testLanczosRepeated() {
+
+        NumberContext accuracy = NumberContext.getGeneral(8, 10);
+
+        // diag(5,5,5,1,1,1)
+        Primitive64Store diagonal = Primitive64Store.FACTORY.makeEye(6, 6);
+        for (int ij = 0; ij < 3; ij++) {
+            diagonal.set(ij, ij, FIVE);
+        }
+
+        for (int count = 1; count <= 4; count++) {
+
+            Eigenvalue<Double> lanczos = Eigenvalue.lanczos(count).make(diagonal);
+            TestUtils.assertTrue(lanczos.decompose(diagonal));
+
+            TestUtils.assertTrue(Eigenvalue.equals(diagonal, lanczos, accuracy));
+            for (int i = 0; i < count; i++) {
+                TestUtils.assertEquals(i < 3 ? FIVE : ONE, lanczos.getEigenvalues().doubleValue(i), accuracy);
+            }
+        }
+    }
+
     @Test
     public void testP20050125Case() {
 
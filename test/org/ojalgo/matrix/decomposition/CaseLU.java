@@ -27,8 +27,10 @@ import org.ojalgo.TestUtils;
 import org.ojalgo.matrix.P20061119Case;
 import org.ojalgo.matrix.RationalMatrix;
 import org.ojalgo.matrix.store.GenericStore;
+import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.random.Uniform;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.RationalNumber;
 import org.ojalgo.type.context.NumberContext;
@@ -44,6 +46,53 @@ public class CaseLU extends MatrixDecompositionTests {
         TestUtils.minimiseAllBranchLimits();
     }
 
+    @Test
+    public void testBlocked() {
+
+        NumberContext accuracy = NumberContext.getGeneral(12, 14);
+
+        for (int[] dim : new int[][] { { 150, 150 }, { 200, 70 }, { 70, 200 }, { 64, 65 } }) {
+
+            Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(dim[0], dim[1], new Uniform());
+            // Rank deficient, and a zero pivot
+            matrix.fillColumn(0, 3, matrix.sliceColumn(0, 2));
+
+            LUDecomposition<Double> blocked = new LUDecomposition.Blocked();
+            LUDecomposition<Double> columnByColumn = new LUDecomposition.Primitive();
+
+            TestUtils.assertTrue(blocked.decompose(matrix));
+            TestUtils.assertTrue(columnByColumn.decompose(matrix));
+
+            TestUtils.assertEquals(columnByColumn.getPivotOrder(), blocked.getPivotOrder());
+            TestUtils.assertEquals(columnByColumn.getInPlace(), blocked.getInPlace(), accuracy);
+            TestUtils.assertEquals(columnByColumn.getRank(), blocked.getRank());
+        }
+    }
+
+    @Test
+    public void testBlockedZeroPivot() {
+
+        NumberContext accuracy = NumberContext.getGeneral(12, 14);
+
+        int dim = 300;
+
+        // Diagonally dominant (no need to pivot) apart from the zero first pivot
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        for (int ij = 1; ij < dim; ij++) {
+            matrix.add(ij, ij, dim);
+        }
+        matrix.set(0, 0, 0.0);
+
+        LUDecomposition<Double> blocked = new LUDecomposition.Blocked();
+        LUDecomposition<Double> columnByColumn = new LUDecomposition.Primitive();
+
+        TestUtils.assertTrue(blocked.decomposeWithoutPivoting(matrix));
+        TestUtils.assertTrue(columnByColumn.decomposeWithoutPivoting(matrix));
+
+        TestUtils.assertEquals(columnByColumn.getInPlace(), blocked.getInPlace(), accuracy);
+        TestUtils.assertEquals(columnByColumn.getRank(), blocked.getRank());
+    }
+
     @Test
     public void testP20061119Case() {
 
@@ -87,4 +136,41 @@ public class CaseLU extends MatrixDecompositionTests {
 
     }
 
+    @Test
+    public void testUpdateColumn() {
+
+        NumberContext accuracy = NumberContext.getGeneral(10, 12);
+
+        int dim = 40;
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        MatrixStore<Double> identity = MatrixStore.PRIMITIVE64.makeIdentity(dim).get();
+
+        for (LU<Double> decomp : new LU[] { new LUDecomposition.Primitive(), new LUDecomposition.Blocked(), new RawLU() }) {
+
+            MatrixDecomposition.Updatable<Double> updatable = (MatrixDecomposition.Updatable<Double>) decomp;
+
+            Primitive64Store modified = Primitive64Store.FACTORY.copy(matrix);
+
+            TestUtils.assertTrue(decomp.decompose(modified));
+
+            for (int index : new int[] { 3, 17, 0, 3, 39, 25 }) {
+
+                Primitive64Store column = Primitive64Store.FACTORY.makeFilled(dim, 1, new Uniform());
+                modified.fillColumn(0, index, column);
+
+                TestUtils.assertTrue(updatable.updateColumn(index, column));
+
+                TestUtils.assertEquals(modified.logical().row(decomp.getPivotOrder()).get(), decomp.getL().multiply(decomp.getU()), accuracy);
+                TestUtils.assertEquals(identity, modified.multiply(decomp.getSolution(identity)), accuracy);
+                TestUtils.assertEquals(identity, modified.multiply(decomp.getInverse()), accuracy);
+                TestUtils.assertEquals(new LUDecomposition.Primitive().calculateDeterminant(modified), decomp.getDeterminant(), accuracy);
+            }
+
+            // A fresh decomposition discards the updates
+            TestUtils.assertTrue(decomp.decompose(matrix));
+            TestUtils.assertEquals(matrix.logical().row(decomp.getPivotOrder()).get(), decomp.getL().multiply(decomp.getU()), accuracy);
+        }
+    }
+
 }
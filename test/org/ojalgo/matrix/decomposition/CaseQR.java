@@ -35,6 +35,7 @@ import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
 import org.ojalgo.matrix.transformation.Householder;
 import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.random.Uniform;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.RationalNumber;
 import org.ojalgo.type.context.NumberContext;
@@ -61,6 +62,35 @@ public class CaseQR extends MatrixDecompositionTests {
         TestUtils.minimiseAllBranchLimits();
     }
 
+    @Test
+    public void testBlocked() {
+
+        NumberContext accuracy = NumberContext.getGeneral(12, 14);
+
+        for (int[] dim : new int[][] { { 150, 150 }, { 300, 70 }, { 70, 200 }, { 33, 33 } }) {
+            for (boolean fullSize : new boolean[] { false, true }) {
+
+                Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(dim[0], dim[1], new Uniform());
+                Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim[0], 3, new Uniform());
+
+                QRDecomposition<Double> blocked = new QRDecomposition.Blocked(fullSize);
+                QRDecomposition<Double> columnByColumn = new QRDecomposition.Primitive(fullSize);
+
+                TestUtils.assertTrue(blocked.decompose(matrix));
+                TestUtils.assertTrue(columnByColumn.decompose(matrix));
+
+                TestUtils.assertEquals(columnByColumn.getInPlace(), blocked.getInPlace(), accuracy);
+                TestUtils.assertEquals(columnByColumn.getQ(), blocked.getQ(), accuracy);
+                TestUtils.assertEquals(matrix, blocked.reconstruct(), accuracy);
+                TestUtils.assertEquals(columnByColumn.getDeterminant(), blocked.getDeterminant(), accuracy);
+
+                if (dim[0] >= dim[1]) {
+                    TestUtils.assertEquals(columnByColumn.getSolution(rhs), blocked.getSolution(rhs), accuracy);
+                }
+            }
+        }
+    }
+
     @Test
     public void testDiagonalCase() {
 
@@ -228,4 +258,88 @@ public class CaseQR extends MatrixDecompositionTests {
         TestUtils.assertEquals(Primitive64Store.FACTORY.copy(tmpOriginal), tmpPrimitiveDecomp, new NumberContext(7, 14));
     }
 
+    @Test
+    public void testStreamed() {
+
+        NumberContext accuracy = NumberContext.getGeneral(12, 14);
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(1000, 12, new Uniform());
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(1000, 2, new Uniform());
+
+        QR.Accumulator accumulator = QR.newAccumulator(12, 2);
+
+        for (int first = 0; first < 1000; first += 7 * (1 + (first % 50))) {
+            int limit = Math.min(first + (7 * (1 + (first % 50))), 1000);
+            accumulator.add(matrix.logical().offsets(first, 0).limits(limit - first, 12).get(),
+                    rhs.logical().offsets(first, 0).limits(limit - first, 2).get());
+        }
+
+        TestUtils.assertEquals(1000L, accumulator.countRows());
+
+        QR<Double> reference = new QRDecomposition.Primitive();
+        reference.decompose(matrix);
+
+        TestUtils.assertEquals(reference.getSolution(rhs), accumulator.getSolution(), accuracy);
+
+        MatrixStore<Double> mtrxR = accumulator.getR();
+        TestUtils.assertEquals(matrix.transpose().multiply(matrix), mtrxR.transpose().multiply(mtrxR), accuracy);
+    }
+
+    /**
+     * A first block with no more rows than columns (incl. rhs) must be reduced to a triangle too.
+     */
+    @Test
+    public void testStreamedShortBlocks() {
+
+        QR.Accumulator square = QR.newAccumulator(2, 1);
+        square.add(Primitive64Store.FACTORY.rows(new double[][] { { 1, 2 }, { 3, 4 } }), Primitive64Store.FACTORY.columns(new double[] { 5, 6 }));
+
+        TestUtils.assertEquals(Primitive64Store.FACTORY.columns(new double[] { -4, 4.5 }), square.getSolution());
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.rows(new double[][] { { 1, 2 }, { 3, 4 }, { 5, 7 }, { -1, 1 }, { 2, 0 } });
+        Primitive64Store rhs = Primitive64Store.FACTORY.columns(new double[] { 5, 6, 1, 2, 3 });
+
+        QR.Accumulator tall = QR.newAccumulator(2, 1);
+        for (int first = 0; first < 5; first += 2) {
+            int limit = Math.min(first + 2, 5);
+            tall.add(matrix.logical().offsets(first, 0).limits(limit - first, 2).get(), rhs.logical().offsets(first, 0).limits(limit - first, 1).get());
+        }
+
+        QR<Double> reference = new QRDecomposition.Primitive();
+        reference.decompose(matrix);
+
+        TestUtils.assertEquals(reference.getSolution(rhs), tall.getSolution(), NumberContext.getGeneral(12, 14));
+    }
+
+    @Test
+    public void testTallSkinny() {
+
+        NumberContext accuracy = NumberContext.getGeneral(12, 14);
+
+        for (int[] dim : new int[][] { { 2000, 20 }, { 1500, 70 }, { 300, 30 } }) {
+            for (int leaves : new int[] { 1, 2, 3, 5 }) {
+
+                Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(dim[0], dim[1], new Uniform());
+                Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim[0], 3, new Uniform());
+
+                QR<Double> tallSkinny = new TallSkinnyQR(leaves);
+                QR<Double> reference = new QRDecomposition.Primitive();
+
+                TestUtils.assertTrue(tallSkinny.decompose(matrix));
+                TestUtils.assertTrue(reference.decompose(matrix));
+
+                MatrixStore<Double> mtrxQ = tallSkinny.getQ();
+                MatrixStore<Double> mtrxR = tallSkinny.getR();
+
+                TestUtils.assertEquals(dim[1], mtrxQ.countColumns());
+                TestUtils.assertEquals(Primitive64Store.FACTORY.makeEye(dim[1], dim[1]), mtrxQ.transpose().multiply(mtrxQ), accuracy);
+                TestUtils.assertEquals(matrix, mtrxQ.multiply(mtrxR), accuracy);
+
+                TestUtils.assertTrue(tallSkinny.isSolvable());
+                TestUtils.assertEquals(dim[1], tallSkinny.getRank());
+                TestUtils.assertEquals(reference.getSolution(rhs), tallSkinny.getSolution(rhs), accuracy);
+            }
+        }
+    }
+
 }
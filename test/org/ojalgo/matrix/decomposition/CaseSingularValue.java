@@ -25,6 +25,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.ojalgo.TestUtils;
 import org.ojalgo.array.Array1D;
+import org.ojalgo.data.DataProcessors;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.function.UnaryFunction;
 import org.ojalgo.function.constant.ComplexMath;
@@ -41,6 +42,7 @@ import org.ojalgo.matrix.store.GenericStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.random.Normal;
 import org.ojalgo.scalar.ComplexNumber;
@@ -263,6 +265,54 @@ public class CaseSingularValue extends MatrixDecompositionTests {
         }
     }
 
+    @Test
+    public void testRandomised() {
+
+        NumberContext accuracy = NumberContext.getGeneral(8, 10);
+
+        int rank = 12;
+
+        // Exactly rank 15 plus a little noise
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(300, 15, new Normal());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(15, 200, new Normal());
+        Primitive64Store noise = Primitive64Store.FACTORY.makeFilled(300, 200, new Normal(0.0, 1E-9));
+        MatrixStore<Double> matrix = left.multiply(right).add(noise);
+
+        SingularValue<Double> full = SingularValue.PRIMITIVE.make(matrix);
+        TestUtils.assertTrue(full.decompose(matrix));
+
+        SingularValue<Double> randomised = SingularValue.randomised(rank).make(matrix);
+        TestUtils.assertTrue(randomised.decompose(matrix));
+
+        TestUtils.assertEquals(rank, randomised.getSingularValues().count());
+        TestUtils.assertEquals(full.getSingularValues().sliceRange(0, rank), randomised.getSingularValues(), accuracy);
+        TestUtils.assertEquals(300, randomised.getU().countRows());
+        TestUtils.assertEquals(rank, randomised.getU().countColumns());
+        TestUtils.assertEquals(200, randomised.getV().countRows());
+        TestUtils.assertEquals(rank, randomised.getV().countColumns());
+
+        // [A][V] == [U][D]
+        TestUtils.assertEquals(randomised.getU().multiply(randomised.getD()), matrix.multiply(randomised.getV()), accuracy);
+
+        // Same result with a sparse matrix
+        SparseStore<Double> sparse = SparseStore.PRIMITIVE64.make(300, 200);
+        sparse.fillMatching(matrix);
+
+        TestUtils.assertTrue(randomised.decompose(sparse));
+        TestUtils.assertEquals(full.getSingularValues().sliceRange(0, rank), randomised.getSingularValues(), accuracy);
+
+        // Covariances, using the same number of singular values
+        Primitive64Store centered = Primitive64Store.FACTORY.copy(matrix);
+        centered.modifyAll(PrimitiveMath.MULTIPLY.by(0.01));
+        DataProcessors.CENTER.transform(centered);
+
+        full.decompose(centered);
+        Primitive64Store expected = DataProcessors.covariances(Primitive64Store.FACTORY, full, rank);
+        Primitive64Store actual = DataProcessors.covariances(Primitive64Store.FACTORY, centered, rank);
+
+        TestUtils.assertEquals(expected, actual, accuracy);
+    }
+
     @Test
     public void testRandomActuallyComplexCase() {
 
@@ -0,0 +1,217 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.ElementView2D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * @author apete
+ */
+public class CaseSparseLDL extends MatrixDecompositionTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(8, 10);
+
+    private static int countNonzeros(final MatrixStore<Double> matrix) {
+        int retVal = 0;
+        for (ElementView2D<Double, ?> element : ((SparseStore<Double>) matrix).nonzeros()) {
+            if (element.doubleValue() != 0.0) {
+                retVal++;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * 5-point finite difference Laplacian on a size x size grid
+     */
+    private static SparseStore<Double> laplacian(final int size) {
+
+        int dim = size * size;
+
+        SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int ij = x * size + y;
+                retVal.set(ij, ij, 4.0);
+                if (x > 0) {
+                    retVal.set(ij, ij - size, -1.0);
+                }
+                if (x < size - 1) {
+                    retVal.set(ij, ij + size, -1.0);
+                }
+                if (y > 0) {
+                    retVal.set(ij, ij - 1, -1.0);
+                }
+                if (y < size - 1) {
+                    retVal.set(ij, ij + 1, -1.0);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * [Q + dI, A<sup>T</sup>; A, -dI] with a sparse random A and a tridiagonal (semidefinite) Q
+     */
+    private static SparseStore<Double> quasiDefinite(final int numberOfVariables, final int numberOfConstraints) {
+
+        int dim = numberOfVariables + numberOfConstraints;
+
+        SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int i = 0; i < numberOfVariables; i++) {
+            retVal.set(i, i, 2.0 + 1E-6);
+            if (i > 0) {
+                retVal.set(i, i - 1, -1.0);
+                retVal.set(i - 1, i, -1.0);
+            }
+        }
+
+        for (int c = 0; c < numberOfConstraints; c++) {
+            int row = numberOfVariables + c;
+            for (int k = 0; k < 3; k++) {
+                int col = Uniform.randomInteger(numberOfVariables);
+                double value = 1.0 + Uniform.randomInteger(5);
+                retVal.set(row, col, value);
+                retVal.set(col, row, value);
+            }
+            retVal.set(row, row, -1E-6);
+        }
+
+        return retVal;
+    }
+
+    @BeforeEach
+    public void minimiseAllBranchLimits() {
+        TestUtils.minimiseAllBranchLimits();
+    }
+
+    @Test
+    public void testDenseInput() {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeSPD(50);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(50, 2, new Uniform());
+
+        LDL<Double> decomposition = LDL.SPARSE.make(matrix);
+        TestUtils.assertTrue(decomposition.decompose(matrix));
+        TestUtils.assertTrue(decomposition.isSolvable());
+
+        TestUtils.assertEquals(matrix, decomposition.reconstruct(), ACCURACY);
+
+        Cholesky<Double> reference = Cholesky.PRIMITIVE.make(matrix);
+        reference.decompose(matrix);
+
+        TestUtils.assertEquals(reference.getSolution(rhs), decomposition.getSolution(rhs), ACCURACY);
+        TestUtils.assertEquals(reference.getDeterminant(), decomposition.getDeterminant(), ACCURACY);
+    }
+
+    @Test
+    public void testFillReducingOrdering() {
+
+        SparseStore<Double> matrix = CaseSparseLDL.laplacian(20);
+
+        LDL<Double> natural = LDL.SPARSE.make(matrix);
+        TestUtils.assertTrue(natural.decomposeWithoutPivoting(matrix));
+        TestUtils.assertFalse(natural.isPivoted());
+
+        LDL<Double> ordered = LDL.SPARSE.make(matrix);
+        TestUtils.assertTrue(ordered.decompose(matrix));
+        TestUtils.assertTrue(ordered.isPivoted());
+
+        int fillNatural = CaseSparseLDL.countNonzeros(natural.getL());
+        int fillOrdered = CaseSparseLDL.countNonzeros(ordered.getL());
+
+        // Natural (banded) ordering gives about 20*400 nonzeros
+        TestUtils.assertTrue(fillNatural + " vs " + fillOrdered, fillOrdered < ((2 * fillNatural) / 3));
+
+        TestUtils.assertEquals(matrix, ordered.reconstruct(), ACCURACY);
+        TestUtils.assertEquals(matrix, natural.reconstruct(), ACCURACY);
+    }
+
+    @Test
+    public void testQuasiDefinite() {
+
+        SparseStore<Double> matrix = CaseSparseLDL.quasiDefinite(300, 100);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(400, 1, new Uniform());
+
+        LDL<Double> decomposition = LDL.SPARSE.make(matrix);
+        TestUtils.assertTrue(decomposition.decompose(matrix));
+        TestUtils.assertTrue(decomposition.isSolvable());
+
+        MatrixStore<Double> solution = decomposition.getSolution(rhs);
+
+        TestUtils.assertEquals(rhs, matrix.multiply(solution), ACCURACY);
+
+        LU<Double> reference = LU.PRIMITIVE.make(matrix);
+        reference.decompose(matrix);
+        TestUtils.assertEquals(reference.getSolution(rhs), solution, ACCURACY);
+    }
+
+    @Test
+    public void testRepeatedNumericFactorisation() {
+
+        SparseStore<Double> matrix = CaseSparseLDL.laplacian(10);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(100, 1, new Uniform());
+
+        LDL<Double> decomposition = LDL.SPARSE.make(matrix);
+        decomposition.decompose(matrix);
+        int[] order = decomposition.getPivotOrder();
+
+        // Same pattern, different values
+        matrix.modifyDiagonal(PrimitiveMath.ADD.by(1.0));
+        decomposition.decompose(matrix);
+
+        TestUtils.assertTrue(order == decomposition.getPivotOrder());
+        TestUtils.assertEquals(rhs, matrix.multiply(decomposition.getSolution(rhs)), ACCURACY);
+
+        // Different pattern
+        matrix.set(0, 99, -0.5);
+        matrix.set(99, 0, -0.5);
+        decomposition.decompose(matrix);
+
+        TestUtils.assertFalse(order == decomposition.getPivotOrder());
+        TestUtils.assertEquals(rhs, matrix.multiply(decomposition.getSolution(rhs)), ACCURACY);
+    }
+
+    @Test
+    public void testZeroPivot() {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.rows(new double[][] { { 0.0, 1.0 }, { 1.0, 0.0 } });
+
+        LDL<Double> decomposition = LDL.SPARSE.make(matrix);
+
+        TestUtils.assertFalse(decomposition.decompose(matrix));
+        TestUtils.assertFalse(decomposition.isSolvable());
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.GenericStore;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.scalar.RationalNumber;
+
+public class DecompositionCacheTest extends MatrixDecompositionTests {
+
+    /**
+     * A decomposition is only returned if the cached matrix is exactly the same - the fingerprint alone is not
+     * enough.
+     */
+    @Test
+    public void testIsSame() {
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(7, 5, new Uniform());
+        Primitive64Store copy = matrix.copy();
+
+        TestUtils.assertTrue(DecompositionCache.isSame(matrix, copy));
+        TestUtils.assertFalse(DecompositionCache.isSame(matrix, matrix.transpose()));
+
+        copy.set(3, 2, Math.nextUp(matrix.doubleValue(3, 2)));
+        TestUtils.assertFalse(DecompositionCache.isSame(matrix, copy));
+
+        Primitive64Store zero = Primitive64Store.FACTORY.make(2, 2);
+        Primitive64Store negativeZero = Primitive64Store.FACTORY.make(2, 2);
+        negativeZero.set(1, 1, -0.0);
+        TestUtils.assertFalse(DecompositionCache.isSame(zero, negativeZero));
+
+        GenericStore<RationalNumber> rational = GenericStore.RATIONAL.copy(matrix);
+        TestUtils.assertTrue(DecompositionCache.isSame(rational, GenericStore.RATIONAL.copy(matrix)));
+        rational.set(0, 0, RationalNumber.ONE.add(rational.get(0, 0)));
+        TestUtils.assertFalse(DecompositionCache.isSame(rational, GenericStore.RATIONAL.copy(matrix)));
+    }
+
+    /**
+     * The cache keeps its own copy of the matrix - modifying the decomposed matrix afterwards does not affect
+     * what's cached.
+     */
+    @Test
+    public void testModifiedAfterCaching() {
+
+        DecompositionCache<Double, LU<Double>> cache = new DecompositionCache<>(LU.PRIMITIVE, Long.MAX_VALUE);
+
+        Primitive64Store matrix = Primitive64Store.FACTORY.makeFilled(9, 9, new Uniform());
+        Primitive64Store original = matrix.copy();
+
+        LU<Double> decomposition = cache.decompose(matrix);
+        matrix.add(4, 4, 1.0);
+
+        TestUtils.assertTrue(cache.decompose(original) == decomposition);
+        TestUtils.assertFalse(cache.decompose(matrix) == decomposition);
+        TestUtils.assertEquals(1L, cache.countHits());
+        TestUtils.assertEquals(2L, cache.countMisses());
+    }
+
+}
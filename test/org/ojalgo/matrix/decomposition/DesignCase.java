@@ -53,6 +53,32 @@ public class DesignCase extends MatrixDecompositionTests {
         TestUtils.minimiseAllBranchLimits();
     }
 
+    @Test
+    public void testBlockedCholesky() {
+
+        NumberContext accuracy = NumberContext.getGeneral(12, 14);
+
+        Primitive64Store random = Primitive64Store.FACTORY.makeFilled(150, 150, new Uniform());
+        MatrixStore<Double> spd = random.multiply(random.transpose()).add(MatrixStore.PRIMITIVE64.makeIdentity(150).get());
+
+        CholeskyDecomposition<Double> blocked = new CholeskyDecomposition.Blocked();
+        CholeskyDecomposition<Double> columnByColumn = new CholeskyDecomposition.Primitive();
+
+        TestUtils.assertTrue(blocked.decompose(spd));
+        TestUtils.assertTrue(columnByColumn.decompose(spd));
+
+        TestUtils.assertTrue(blocked.isSPD());
+        TestUtils.assertEquals(columnByColumn.getL(), blocked.getL(), accuracy);
+        TestUtils.assertEquals(spd, blocked.reconstruct(), accuracy);
+
+        // Not positive definite, detected in the trailing part
+        Primitive64Store indefinite = Primitive64Store.FACTORY.copy(spd);
+        indefinite.set(100, 100, -indefinite.doubleValue(100, 100));
+
+        TestUtils.assertFalse(blocked.decompose(indefinite));
+        TestUtils.assertFalse(blocked.isSPD());
+    }
+
     @Test
     public void testCholeskySolveInverse() {
 
@@ -65,6 +91,49 @@ public class DesignCase extends MatrixDecompositionTests {
         }
     }
 
+    @Test
+    public void testCholeskyUpdate() {
+
+        NumberContext accuracy = NumberContext.getGeneral(10, 12);
+
+        int dim = 30;
+
+        Primitive64Store random = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        MatrixStore<Double> spd = random.multiply(random.transpose()).add(MatrixStore.PRIMITIVE64.makeIdentity(dim).get());
+        Primitive64Store vectors = Primitive64Store.FACTORY.makeFilled(dim, 2, new Uniform());
+
+        MatrixStore<Double> updated = spd.add(vectors.multiply(vectors.transpose()));
+
+        Primitive64Store replaced = Primitive64Store.FACTORY.copy(spd);
+        Primitive64Store column = Primitive64Store.FACTORY.makeFilled(dim, 1, new Uniform());
+        column.add(7, 0, dim);
+        replaced.fillColumn(0, 7, column);
+        replaced.fillRow(7, 0, column.transpose());
+
+        for (Cholesky<Double> decomp : MatrixDecompositionTests.getPrimitiveCholesky()) {
+
+            MatrixDecomposition.Updatable<Double> updatable = (MatrixDecomposition.Updatable<Double>) decomp;
+
+            TestUtils.assertTrue(decomp.decompose(spd));
+
+            TestUtils.assertTrue(updatable.update(vectors));
+            TestUtils.assertEquals(updated, decomp.reconstruct(), accuracy);
+            TestUtils.assertTrue(decomp.isSolvable());
+
+            TestUtils.assertTrue(updatable.downdate(vectors));
+            TestUtils.assertEquals(spd, decomp.reconstruct(), accuracy);
+
+            TestUtils.assertTrue(updatable.updateColumn(7, column));
+            TestUtils.assertEquals(replaced, decomp.reconstruct(), accuracy);
+            TestUtils.assertEquals(MatrixStore.PRIMITIVE64.makeIdentity(dim).get(), replaced.multiply(decomp.getSolution(MatrixStore.PRIMITIVE64.makeIdentity(dim).get())), accuracy);
+
+            // Downdating by too much makes it indefinite
+            TestUtils.assertFalse(updatable.downdate(column.multiply(PrimitiveMath.TEN)));
+            TestUtils.assertFalse(decomp.isSPD());
+            TestUtils.assertFalse(decomp.isSolvable());
+        }
+    }
+
     @Test
     public void testFullSize() {
 
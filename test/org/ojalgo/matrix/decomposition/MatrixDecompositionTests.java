@@ -64,7 +64,7 @@ public abstract class MatrixDecompositionTests {
 
     public static Cholesky<?>[] getAnyCholesky() {
         return new Cholesky<?>[] { new CholeskyDecomposition.Complex(), new CholeskyDecomposition.Primitive(), new CholeskyDecomposition.Quat(),
-                new CholeskyDecomposition.Rational(), new RawCholesky() };
+                new CholeskyDecomposition.Rational(), new RawCholesky(), new CholeskyDecomposition.Blocked() };
     }
 
     public static List<Eigenvalue<?>> getAnyEigenvalue() {
@@ -102,7 +102,7 @@ public abstract class MatrixDecompositionTests {
 
     public static LU<?>[] getAnyLU() {
         return new LU<?>[] { new LUDecomposition.Complex(), new LUDecomposition.Primitive(), new LUDecomposition.Quat(), new LUDecomposition.Rational(),
-                new RawLU() };
+                new RawLU(), new LUDecomposition.Blocked() };
     }
 
     public static List<MatrixDecomposition.RankRevealing<?>> getAnyMatrixDecompositionRankRevealing() {
@@ -133,7 +133,7 @@ public abstract class MatrixDecompositionTests {
 
     public static QR<?>[] getAnyQR() {
         return new QR<?>[] { new QRDecomposition.Complex(), new QRDecomposition.Primitive(), new QRDecomposition.Quat(), new QRDecomposition.Rational(),
-                new RawQR() };
+                new RawQR(), new QRDecomposition.Blocked() };
     }
 
     public static SingularValue<?>[] getAnySingularValue() {
@@ -174,7 +174,7 @@ public abstract class MatrixDecompositionTests {
 
     @SuppressWarnings("unchecked")
     public static Cholesky<Double>[] getPrimitiveCholesky() {
-        return (Cholesky<Double>[]) new Cholesky<?>[] { new CholeskyDecomposition.Primitive(), new RawCholesky() };
+        return (Cholesky<Double>[]) new Cholesky<?>[] { new CholeskyDecomposition.Primitive(), new RawCholesky(), new CholeskyDecomposition.Blocked() };
     }
 
     public static List<Eigenvalue<Double>> getPrimitiveEigenvalue() {
@@ -200,7 +200,7 @@ public abstract class MatrixDecompositionTests {
 
     @SuppressWarnings("unchecked")
     public static Eigenvalue<Double>[] getPrimitiveEigenvalueSymmetric() {
-        return (Eigenvalue<Double>[]) new Eigenvalue<?>[] { new HermitianEvD.Primitive(), new RawEigenvalue.Symmetric() };
+        return (Eigenvalue<Double>[]) new Eigenvalue<?>[] { new HermitianEvD.Primitive(), new RawEigenvalue.Symmetric(true), new RawEigenvalue.Symmetric() };
     }
 
     @SuppressWarnings("unchecked")
@@ -215,7 +215,7 @@ public abstract class MatrixDecompositionTests {
 
     @SuppressWarnings("unchecked")
     public static LU<Double>[] getPrimitiveLU() {
-        return (LU<Double>[]) new LU<?>[] { new LUDecomposition.Primitive(), new RawLU() };
+        return (LU<Double>[]) new LU<?>[] { new LUDecomposition.Primitive(), new RawLU(), new LUDecomposition.Blocked() };
     }
 
     public static List<MatrixDecomposition.RankRevealing<Double>> getPrimitiveMatrixDecompositionRankRevealing() {
@@ -246,7 +246,7 @@ public abstract class MatrixDecompositionTests {
 
     @SuppressWarnings("unchecked")
     public static QR<Double>[] getPrimitiveQR() {
-        return (QR<Double>[]) new QR<?>[] { new QRDecomposition.Primitive(), new RawQR() };
+        return (QR<Double>[]) new QR<?>[] { new QRDecomposition.Primitive(), new RawQR(), new QRDecomposition.Blocked() };
     }
 
     @SuppressWarnings("unchecked")
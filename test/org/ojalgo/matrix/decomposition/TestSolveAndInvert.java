@@ -21,14 +21,29 @@
  */
 package org.ojalgo.matrix.decomposition;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.ojalgo.RecoverableCondition;
 import org.ojalgo.TestUtils;
+import org.ojalgo.array.operation.ArrayOperation;
+import org.ojalgo.array.operation.ThresholdProfile;
 import org.ojalgo.matrix.SimpleEquationCase;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.task.InverterTask;
+import org.ojalgo.matrix.task.SolverTask;
 import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.random.Uniform;
 import org.ojalgo.type.context.NumberContext;
 
 /**
@@ -41,12 +56,153 @@ public class TestSolveAndInvert extends MatrixDecompositionTests {
                 SingularValue.PRIMITIVE.make(), new RawSingularValue()/* , new SVDold30.Primitive() */ };
     }
 
+    /**
+     * @return The number of bytes allocated by the current thread, or -1 if that's not supported
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ((bean instanceof com.sun.management.ThreadMXBean) && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            return -1L;
+        }
+    }
+
     @Override
     @BeforeEach
     public void minimiseAllBranchLimits() {
         TestUtils.minimiseAllBranchLimits();
     }
 
+    /**
+     * Repeatedly solving (and inverting) same sized problems, with the same task instances and preallocated
+     * results, should not allocate anything proportional to the problem size - the decompositions keep, and
+     * reuse, their internal work storage. Measured with everything sequential, as forking parallel tasks
+     * allocates.
+     */
+    @Test
+    public void testAllocationFree() throws RecoverableCondition {
+
+        if (TestSolveAndInvert.allocatedBytes() < 0L) {
+            return;
+        }
+
+        ThresholdProfile thresholds = ThresholdProfile.current();
+        ArrayOperation.setAllOperationThresholds(ThresholdProfile.MAX_THRESHOLD);
+
+        try {
+            TestSolveAndInvert.doTestAllocationFree(200, 20);
+        } finally {
+            thresholds.apply();
+        }
+    }
+
+    private static void doTestAllocationFree(final int dim, final int repetitions) throws RecoverableCondition {
+
+        Primitive64Store square = Primitive64Store.FACTORY.makeSPD(dim);
+        Primitive64Store tall = Primitive64Store.FACTORY.makeFilled(dim + 50, dim, new Uniform());
+        Primitive64Store rhsSquare = Primitive64Store.FACTORY.makeFilled(dim, 1, new Uniform());
+        Primitive64Store rhsTall = Primitive64Store.FACTORY.makeFilled(dim + 50, 1, new Uniform());
+
+        SolverTask<Double>[] solvers = (SolverTask<Double>[]) new SolverTask<?>[] { LU.PRIMITIVE.make(square), new RawLU(), Cholesky.PRIMITIVE.make(square),
+                new RawCholesky(), QR.PRIMITIVE.make(tall), new RawQR(), SolverTask.PRIMITIVE.make(square, rhsSquare) };
+
+        for (SolverTask<Double> solver : solvers) {
+
+            boolean least = solver instanceof QR<?>;
+            Primitive64Store body = least ? tall : square;
+            Primitive64Store rhs = least ? rhsTall : rhsSquare;
+
+            PhysicalStore<Double> preallocated = solver.preallocate(body, rhs);
+            MatrixStore<Double> expected = solver.solve(body, rhs, preallocated).copy();
+
+            for (int r = 0; r < repetitions; r++) {
+                solver.solve(body, rhs, preallocated);
+            }
+
+            long before = TestSolveAndInvert.allocatedBytes();
+            for (int r = 0; r < repetitions; r++) {
+                solver.solve(body, rhs, preallocated);
+            }
+            long perSolve = (TestSolveAndInvert.allocatedBytes() - before) / repetitions;
+
+            if (MatrixDecompositionTests.DEBUG) {
+                BasicLogger.debug("{} allocated {} bytes/solve", solver.getClass().getSimpleName(), perSolve);
+            }
+            // Less than one RHS/solution column
+            TestUtils.assertTrue(solver.getClass().getSimpleName(), perSolve < (8L * dim));
+            TestUtils.assertEquals(expected, solver.solve(body, rhs, preallocated));
+        }
+
+        InverterTask<Double>[] inverters = (InverterTask<Double>[]) new InverterTask<?>[] { LU.PRIMITIVE.make(square), Cholesky.PRIMITIVE.make(square) };
+
+        for (InverterTask<Double> inverter : inverters) {
+
+            PhysicalStore<Double> preallocated = inverter.preallocate(square);
+
+            for (int r = 0; r < repetitions; r++) {
+                inverter.invert(square, preallocated);
+            }
+
+            long before = TestSolveAndInvert.allocatedBytes();
+            for (int r = 0; r < repetitions; r++) {
+                inverter.invert(square, preallocated);
+            }
+            long perInversion = (TestSolveAndInvert.allocatedBytes() - before) / repetitions;
+
+            if (MatrixDecompositionTests.DEBUG) {
+                BasicLogger.debug("{} allocated {} bytes/inversion", inverter.getClass().getSimpleName(), perInversion);
+            }
+            // The substitutions cache a body row - nothing of the size of the matrix
+            TestUtils.assertTrue(inverter.getClass().getSimpleName(), perInversion < (8L * dim * 8));
+        }
+    }
+
+    /**
+     * Several threads solving with the same (already decomposed) instance - solving must not modify any
+     * instance state. With a few right hand side columns, and with many.
+     */
+    @Test
+    public void testConcurrentSolve() throws InterruptedException, ExecutionException {
+
+        int dim = 100;
+
+        Primitive64Store square = Primitive64Store.FACTORY.makeSPD(dim);
+        Primitive64Store tall = Primitive64Store.FACTORY.makeFilled(dim + 50, dim, new Uniform());
+
+        MatrixDecomposition.Solver<Double>[] solvers = (MatrixDecomposition.Solver<Double>[]) new MatrixDecomposition.Solver<?>[] { LU.PRIMITIVE.make(square),
+                Cholesky.PRIMITIVE.make(square), QR.PRIMITIVE.make(tall) };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+
+            for (MatrixDecomposition.Solver<Double> solver : solvers) {
+
+                Primitive64Store body = solver instanceof QR<?> ? tall : square;
+                solver.decompose(body);
+
+                for (int columns : new int[] { 1, 40 }) {
+
+                    Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), columns, new Uniform());
+                    MatrixStore<Double> expected = solver.getSolution(rhs).copy();
+
+                    List<Future<MatrixStore<Double>>> solutions = new ArrayList<>();
+                    for (int t = 0; t < 16; t++) {
+                        solutions.add(executor.submit(() -> solver.getSolution(rhs).copy()));
+                    }
+
+                    for (Future<MatrixStore<Double>> solution : solutions) {
+                        TestUtils.assertEquals(solver.getClass().getSimpleName(), expected, solution.get());
+                    }
+                }
+            }
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testInverseOfRandomCase() {
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+public class CompressedCase extends MatrixStoreTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(12, 14);
+
+    /**
+     * Every non-zero element must be within the first/limit range reported for its row and its column, and
+     * for the compressed (major) dimension that range must be exact - an empty row/column gets an empty
+     * range.
+     */
+    private static void assertStructure(final MatrixStore<Double> expected, final CompressedStore actual) {
+
+        boolean rowMajor = actual instanceof RowCompressedStore;
+
+        for (int i = 0; i < Math.toIntExact(expected.countRows()); i++) {
+            for (int j = 0; j < Math.toIntExact(expected.countColumns()); j++) {
+                if (expected.doubleValue(i, j) != 0.0) {
+                    TestUtils.assertTrue(actual.firstInRow(i) <= j && j < actual.limitOfRow(i));
+                    TestUtils.assertTrue(actual.firstInColumn(j) <= i && i < actual.limitOfColumn(j));
+                }
+            }
+        }
+
+        int majors = rowMajor ? Math.toIntExact(expected.countRows()) : Math.toIntExact(expected.countColumns());
+        int minors = rowMajor ? Math.toIntExact(expected.countColumns()) : Math.toIntExact(expected.countRows());
+
+        for (int major = 0; major < majors; major++) {
+
+            int first = minors;
+            int limit = 0;
+            for (int minor = 0; minor < minors; minor++) {
+                double value = rowMajor ? expected.doubleValue(major, minor) : expected.doubleValue(minor, major);
+                if (value != 0.0) {
+                    first = Math.min(first, minor);
+                    limit = minor + 1;
+                }
+            }
+
+            int actualFirst = rowMajor ? actual.firstInRow(major) : actual.firstInColumn(major);
+            int actualLimit = rowMajor ? actual.limitOfRow(major) : actual.limitOfColumn(major);
+
+            if (limit > 0) {
+                TestUtils.assertEquals(first, actualFirst);
+                TestUtils.assertEquals(limit, actualLimit);
+            } else {
+                TestUtils.assertTrue(actualFirst >= actualLimit);
+            }
+        }
+    }
+
+    private static SparseStore<Double> random(final Random random, final int numberOfRows, final int numberOfColumns, final int nonzeros) {
+        SparseStore<Double> retVal = SparseStore.makePrimitive(numberOfRows, numberOfColumns);
+        for (int k = 0; k < nonzeros; k++) {
+            retVal.set(random.nextInt(numberOfRows), random.nextInt(numberOfColumns), 1 + random.nextInt(9));
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testConversion() {
+
+        SparseStore<Double> sparse = CompressedCase.random(new Random(7L), 9, 7, 20);
+
+        RowCompressedStore csr = RowCompressedStore.copy(sparse);
+        ColumnCompressedStore csc = ColumnCompressedStore.copy(sparse);
+
+        TestUtils.assertEquals(sparse, csr);
+        TestUtils.assertEquals(sparse, csc);
+        TestUtils.assertEquals(sparse.transpose(), csr.transpose());
+        TestUtils.assertEquals(sparse.transpose(), csc.transpose());
+
+        TestUtils.assertEquals(csr, csc.toRowCompressed());
+        TestUtils.assertEquals(csc, csr.toColumnCompressed());
+        TestUtils.assertEquals(csr, RowCompressedStore.copy(sparse.copy()));
+
+        TestUtils.assertEquals(csr.countNonzeros(), csc.countNonzeros());
+
+        CompressedCase.assertStructure(sparse, csr);
+        CompressedCase.assertStructure(sparse, csc);
+
+        // Explicitly empty rows and columns, first, last and in between
+        SparseStore<Double> gaps = SparseStore.makePrimitive(6, 5);
+        gaps.set(1, 1, 1.0);
+        gaps.set(1, 3, 2.0);
+        gaps.set(4, 1, 3.0);
+        CompressedCase.assertStructure(gaps, RowCompressedStore.copy(gaps));
+        CompressedCase.assertStructure(gaps, ColumnCompressedStore.copy(gaps));
+
+        Primitive64Store receiver = Primitive64Store.FACTORY.make(9, 7);
+        csr.supplyTo(receiver);
+        TestUtils.assertEquals(sparse, receiver);
+        csc.supplyTo(receiver);
+        TestUtils.assertEquals(sparse, receiver);
+    }
+
+    @Test
+    public void testMultiplyDense() {
+
+        SparseStore<Double> sparse = CompressedCase.random(new Random(300L), 300, 200, 3000);
+        Uniform uniform = new Uniform();
+        uniform.setSeed(300L);
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(200, 20, uniform);
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(20, 300, uniform);
+        Primitive64Store vector = Primitive64Store.FACTORY.makeFilled(200, 1, uniform);
+
+        PhysicalStore<Double> dense = sparse.copy();
+
+        MatrixStore<Double> expectedRight = dense.multiply(right);
+        MatrixStore<Double> expectedLeft = dense.premultiply(left).get();
+        MatrixStore<Double> expectedVector = dense.multiply(vector);
+
+        for (MatrixStore<Double> compressed : new CompressedStore[] { RowCompressedStore.copy(sparse), ColumnCompressedStore.copy(sparse) }) {
+
+            TestUtils.assertEquals(expectedRight, compressed.multiply(right), ACCURACY);
+            TestUtils.assertEquals(expectedLeft, compressed.premultiply(left).get(), ACCURACY);
+            TestUtils.assertEquals(expectedVector, compressed.multiply(vector), ACCURACY);
+            TestUtils.assertEquals(expectedRight, compressed.multiply(right.logical().get()), ACCURACY);
+
+            SparseStore<Double> target = SparseStore.makePrimitive(300, 20);
+            compressed.multiply(right, target);
+            TestUtils.assertEquals(expectedRight, target, ACCURACY);
+        }
+    }
+
+    @Test
+    public void testMultiplySparse() {
+
+        Random random = new Random(150L);
+        SparseStore<Double> sparseA = CompressedCase.random(random, 150, 100, 1000);
+        SparseStore<Double> sparseB = CompressedCase.random(random, 100, 120, 1000);
+
+        MatrixStore<Double> expected = sparseA.copy().multiply(sparseB.copy());
+
+        RowCompressedStore csrA = RowCompressedStore.copy(sparseA);
+        RowCompressedStore csrB = RowCompressedStore.copy(sparseB);
+        ColumnCompressedStore cscA = ColumnCompressedStore.copy(sparseA);
+        ColumnCompressedStore cscB = ColumnCompressedStore.copy(sparseB);
+
+        MatrixStore<Double> product = csrA.multiply(csrB);
+        TestUtils.assertTrue(product instanceof RowCompressedStore);
+        TestUtils.assertEquals(expected, product, ACCURACY);
+
+        product = cscA.multiply(cscB);
+        TestUtils.assertTrue(product instanceof ColumnCompressedStore);
+        TestUtils.assertEquals(expected, product, ACCURACY);
+
+        TestUtils.assertEquals(expected, csrA.multiply(cscB), ACCURACY);
+        TestUtils.assertEquals(expected, cscA.multiply(csrB), ACCURACY);
+        TestUtils.assertEquals(expected, csrB.premultiply(cscA).get(), ACCURACY);
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.decomposition.QR;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.Structure2D;
+import org.ojalgo.type.context.NumberContext;
+
+public class OffHeapCase extends MatrixStoreTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(12, 14);
+
+    @Test
+    public void testDecompose() {
+
+        Primitive64Store dense = Primitive64Store.FACTORY.makeFilled(90, 70, new Uniform());
+        OffHeapStore offHeap = OffHeapStore.DIRECT.copy(dense);
+
+        QR<Double> decomposition = QR.PRIMITIVE.make(offHeap);
+        TestUtils.assertTrue(decomposition.decompose(offHeap));
+        TestUtils.assertEquals(dense, decomposition.reconstruct(), ACCURACY);
+    }
+
+    /**
+     * equals(Object) is exact, and consistent with hashCode()
+     */
+    @Test
+    public void testEqualsAndHashCode() {
+
+        Primitive64Store dense = Primitive64Store.FACTORY.makeFilled(70, 90, new Uniform());
+
+        OffHeapStore store = OffHeapStore.DIRECT.copy(dense);
+        OffHeapStore copy = OffHeapStore.DIRECT.copy(dense);
+
+        TestUtils.assertEquals(store, copy);
+        TestUtils.assertEquals(store.hashCode(), copy.hashCode());
+
+        copy.add(37L, 53L, PrimitiveMath.MACHINE_EPSILON);
+        TestUtils.assertFalse(store.equals(copy));
+
+        TestUtils.assertFalse(store.equals(OffHeapStore.DIRECT.copy(dense.transpose())));
+    }
+
+    @Test
+    public void testIndexOfLargest() {
+
+        OffHeapStore store = OffHeapStore.DIRECT.makeFilled(70, 90, new Uniform());
+        store.set(37L, 53L, -2.0);
+
+        TestUtils.assertEquals(Structure2D.index(70, 37L, 53L), store.indexOfLargest());
+    }
+
+    @Test
+    public void testLayout() {
+
+        // Every element should have its own, unique, position in the underlying array
+
+        int rows = 130;
+        int cols = 67;
+
+        OffHeapStore store = OffHeapStore.DIRECT.make(rows, cols);
+
+        Set<Long> offsets = new HashSet<>();
+        for (int j = 0; j < cols; j++) {
+            for (int i = 0; i < rows; i++) {
+                long offset = store.offset(i, j);
+                TestUtils.assertTrue(offset >= 0L && offset < store.count());
+                TestUtils.assertTrue(offsets.add(offset));
+            }
+        }
+
+        // Elements in a tile are contiguous
+
+        TestUtils.assertEquals(store.offset(64, 0) + 1L, store.offset(65, 0));
+        TestUtils.assertEquals(store.offset(64, 0) + (rows - 128), store.offset(64, 1) - (64 - 2));
+        TestUtils.assertEquals(64L * 64L, store.offset(64, 0));
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+
+        File file = File.createTempFile("OffHeapCase", ".mtrx");
+        file.deleteOnExit();
+
+        Primitive64Store dense = Primitive64Store.FACTORY.makeFilled(100, 80, new Uniform());
+
+        OffHeapStore mapped = OffHeapStore.map(file, 100, 80);
+        mapped.fillMatching(dense);
+        TestUtils.assertEquals(dense, mapped);
+
+        OffHeapStore reopened = OffHeapStore.map(file, 100, 80);
+        TestUtils.assertEquals(dense, reopened);
+
+        MatrixStore<Double> product = OffHeapStore.files(file.getParentFile()).copy(dense).multiply(dense.transpose());
+        TestUtils.assertEquals(dense.multiply(dense.transpose()), product, ACCURACY);
+    }
+
+    @Test
+    public void testMultiplyAndModify() {
+
+        Primitive64Store left = Primitive64Store.FACTORY.makeFilled(150, 70, new Uniform());
+        Primitive64Store right = Primitive64Store.FACTORY.makeFilled(70, 90, new Uniform());
+
+        OffHeapStore offLeft = OffHeapStore.DIRECT.copy(left);
+        OffHeapStore offRight = OffHeapStore.DIRECT.copy(right);
+
+        TestUtils.assertEquals(left, offLeft);
+        TestUtils.assertEquals(right.transpose(), OffHeapStore.DIRECT.transpose(right));
+
+        TestUtils.assertEquals(left.multiply(right), offLeft.multiply(offRight), ACCURACY);
+        TestUtils.assertEquals(left.multiply(right), offLeft.multiply(right), ACCURACY);
+        TestUtils.assertEquals(left.premultiply(right.transpose()).get(), offLeft.premultiply(offRight.transpose()).get(), ACCURACY);
+
+        left.modifyAll(PrimitiveMath.SQRT);
+        offLeft.modifyAll(PrimitiveMath.SQRT);
+        TestUtils.assertEquals(left, offLeft);
+
+        left.exchangeRows(3, 77);
+        offLeft.exchangeRows(3, 77);
+        left.exchangeColumns(1, 68);
+        offLeft.exchangeColumns(1, 68);
+        TestUtils.assertEquals(left, offLeft);
+
+        TestUtils.assertEquals(left.aggregateAll(Aggregator.SUM), offLeft.aggregateAll(Aggregator.SUM),
+                ACCURACY);
+    }
+
+}
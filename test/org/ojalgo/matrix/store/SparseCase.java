@@ -49,6 +49,57 @@ public class SparseCase extends NonPhysicalTest {
         numberOfColumns = dim;
     }
 
+    @Test
+    public void testBuilder() {
+
+        int rows = 50;
+        int cols = 40;
+
+        SparseStore<Double> expected = SparseStore.PRIMITIVE64.make(rows, cols);
+        SparseStore.Builder<Double> builder = SparseStore.builder(SparseStore.PRIMITIVE64, rows, cols);
+
+        Thread[] threads = new Thread[3];
+        double[][] triplets = new double[threads.length * 200][];
+        for (int t = 0; t < triplets.length; t++) {
+            triplets[t] = new double[] { Uniform.randomInteger(rows), Uniform.randomInteger(cols), Uniform.randomInteger(1, 10) };
+            expected.add((long) triplets[t][0], (long) triplets[t][1], triplets[t][2]);
+        }
+
+        for (int t = 0; t < threads.length; t++) {
+            int first = t * 200;
+            threads[t] = new Thread(() -> {
+                for (int k = first; k < first + 200; k++) {
+                    builder.add((long) triplets[k][0], (long) triplets[k][1], triplets[k][2]);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException cause) {
+                throw new RuntimeException(cause);
+            }
+        }
+
+        SparseStore<Double> actual = builder.get();
+
+        TestUtils.assertEquals(expected, actual);
+        for (int j = 0; j < cols; j++) {
+            TestUtils.assertEquals(expected.firstInColumn(j), actual.firstInColumn(j));
+            TestUtils.assertEquals(expected.limitOfColumn(j), actual.limitOfColumn(j));
+        }
+
+        // Elements that sum to zero are not stored
+
+        SparseStore<Double> cancelled = SparseStore.builder(SparseStore.PRIMITIVE64, 3, 3).add(2, 1, 1.0).add(0, 1, 2.0).add(2, 1, -1.0).get();
+
+        TestUtils.assertEquals(2.0, cancelled.doubleValue(0, 1));
+        TestUtils.assertEquals(0.0, cancelled.doubleValue(2, 1));
+        TestUtils.assertEquals(0, cancelled.limitOfColumn(1) - 1);
+        TestUtils.assertEquals(1, cancelled.nonzeros().estimateSize());
+    }
+
     @Test
     public void testMultiplySparseDense() {
 
@@ -21,23 +21,199 @@
  */
 package org.ojalgo.matrix.task;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.TestUtils;
+import org.ojalgo.equation.Equation;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.decomposition.DecompositionCache;
 import org.ojalgo.matrix.decomposition.MatrixDecomposition.Solver;
 import org.ojalgo.matrix.decomposition.MatrixDecompositionTests;
 import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.BiCGSTABSolver;
 import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.GMRESSolver;
 import org.ojalgo.matrix.task.iterative.GaussSeidelSolver;
 import org.ojalgo.matrix.task.iterative.JacobiSolver;
+import org.ojalgo.matrix.task.iterative.MINRESSolver;
+import org.ojalgo.matrix.task.iterative.Preconditioner;
 import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
 
 public class SolverTest extends MatrixTaskTests {
 
+    /**
+     * Upwind finite difference discretisation of -laplace(u) + c du/dx on a size x size grid. Nonsymmetric.
+     */
+    private static SparseStore<Double> convectionDiffusion(final int size, final double convection) {
+
+        int dim = size * size;
+
+        SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int ij = (x * size) + y;
+                retVal.set(ij, ij, 4.0 + convection);
+                if (x > 0) {
+                    retVal.set(ij, ij - size, -1.0 - convection);
+                }
+                if (x < (size - 1)) {
+                    retVal.set(ij, ij + size, -1.0);
+                }
+                if (y > 0) {
+                    retVal.set(ij, ij - 1, -1.0);
+                }
+                if (y < (size - 1)) {
+                    retVal.set(ij, ij + 1, -1.0);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * 5-point finite difference discretisation of -div(k grad u) on a size x size grid, where the coefficient
+     * k jumps between 1 and 10<sup>4</sup> in blocks of 5x5 cells. Symmetric positive definite and ill
+     * conditioned.
+     */
+    private static SparseStore<Double> diffusion(final int size) {
+
+        int dim = size * size;
+
+        SparseStore<Double> retVal = SparseStore.PRIMITIVE64.make(dim, dim);
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+
+                int ij = (x * size) + y;
+                double k = ((((x / 5) + (y / 5)) % 2) == 0) ? 1.0 : 1E4;
+
+                retVal.add(ij, ij, 4.0 * k);
+                if (x > 0) {
+                    retVal.add(ij, ij - size, -k);
+                    retVal.add(ij - size, ij, -k);
+                    retVal.add(ij - size, ij - size, k);
+                    retVal.add(ij, ij, -k);
+                }
+                if (y > 0) {
+                    retVal.add(ij, ij - 1, -k);
+                    retVal.add(ij - 1, ij, -k);
+                    retVal.add(ij - 1, ij - 1, k);
+                    retVal.add(ij, ij, -k);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    @Test
+    public void testCached() throws RecoverableCondition {
+
+        int dim = 50;
+
+        Primitive64Store body = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 3, new Uniform());
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.solve(body, rhs);
+
+        // Room for 2 decompositions (each estimated as 2 copies of the matrix)
+        CachingSolverTask<Double> cached = SolverTask.PRIMITIVE.cached(4L * 8L * dim * dim + 2000L);
+        DecompositionCache<Double, Solver<Double>> cache = cached.getCache();
+
+        TestUtils.assertEquals(expected, cached.solve(body, rhs));
+        TestUtils.assertEquals(1L, cache.countMisses());
+
+        // Same content, different instance
+        TestUtils.assertEquals(expected, cached.solve(body.copy(), rhs));
+        TestUtils.assertEquals(1L, cache.countHits());
+
+        // New right hand side
+        Primitive64Store other = Primitive64Store.FACTORY.makeFilled(dim, 1, new Uniform());
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(body, other), cached.solve(body, other));
+        TestUtils.assertEquals(2L, cache.countHits());
+
+        // Modified body
+        Primitive64Store modified = body.copy();
+        modified.add(7, 11, 1.0);
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(modified, rhs), cached.solve(modified, rhs));
+        TestUtils.assertEquals(2L, cache.countMisses());
+        TestUtils.assertEquals(2, cache.countEntries());
+
+        // A third body evicts the least recently used
+        TestUtils.assertEquals(expected, cached.solve(body, rhs));
+        Primitive64Store third = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        cached.solve(third, rhs);
+        TestUtils.assertEquals(1L, cache.countEvictions());
+        TestUtils.assertEquals(2, cache.countEntries());
+        cached.solve(body, rhs);
+        TestUtils.assertEquals(4L, cache.countHits());
+        cached.solve(modified, rhs);
+        TestUtils.assertEquals(4L, cache.countMisses());
+
+        // Also small systems, that the factory otherwise solves with special case code, are decomposed and cached
+        Primitive64Store small = Primitive64Store.FACTORY.makeFilled(3, 3, new Uniform());
+        Primitive64Store smallRHS = Primitive64Store.FACTORY.makeFilled(3, 1, new Uniform());
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(small, smallRHS), cached.solve(small, smallRHS));
+        TestUtils.assertEquals(5L, cache.countMisses());
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(small, smallRHS), cached.solve(small, smallRHS));
+        TestUtils.assertEquals(5L, cache.countHits());
+
+        // Singular
+        Primitive64Store singular = body.copy();
+        singular.fillRow(0, 0, 0.0);
+        try {
+            cached.solve(singular, rhs);
+            TestUtils.fail();
+        } catch (RecoverableCondition expectedCondition) {
+            // Expected
+        }
+        try {
+            cached.solve(singular, rhs);
+            TestUtils.fail();
+        } catch (RecoverableCondition expectedCondition) {
+            TestUtils.assertEquals(6L, cache.countHits());
+            TestUtils.assertEquals(6L, cache.countMisses());
+        }
+    }
+
+    @Test
+    public void testCachedSymmetric() throws RecoverableCondition {
+
+        int dim = 20;
+
+        Primitive64Store random = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        MatrixStore<Double> body = random.transpose().multiply(random).add(MatrixStore.PRIMITIVE64.makeIdentity(dim).get());
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 1, new Uniform());
+
+        CachingSolverTask<Double> cached = SolverTask.PRIMITIVE.cached(100_000L, true, true);
+
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(body, rhs), cached.solve(body, rhs));
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(body, rhs), cached.solve(body, rhs));
+        TestUtils.assertEquals(1L, cached.getCache().countHits());
+
+        // The symmetry hint selects Cholesky
+        TestUtils.assertTrue(cached.getCache().decompose(body) instanceof Cholesky<?>);
+
+        // Mixed precision factorisations are internal to the task
+        try {
+            SolverTask.MIXED.cached(100_000L);
+            TestUtils.fail();
+        } catch (UnsupportedOperationException expected) {
+            // Expected
+        }
+    }
+
     @Test
     public void testExampleWikipediA() {
 
@@ -76,6 +252,26 @@ public class SolverTest extends MatrixTaskTests {
         this.doCompare(AbstractSolver.FULL_5X5, 5);
     }
 
+    @Test
+    public void testGaussSeidelMulticolour() throws RecoverableCondition {
+
+        // Large enough to be coloured and updated in parallel
+        SparseStore<Double> body = SolverTest.convectionDiffusion(40, 0.5);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, new Uniform());
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.solve(body, rhs);
+        NumberContext accuracy = NumberContext.getGeneral(6, 8);
+
+        GaussSeidelSolver solver = new GaussSeidelSolver();
+        solver.configurator().accuracy(NumberContext.getGeneral(10, 12)).iterations(20_000);
+
+        TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), accuracy);
+
+        // SOR
+        solver.setRelaxationFactor(1.8);
+        TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), accuracy);
+    }
+
     @Test
     public void testLinAlg34PDF() {
 
@@ -92,6 +288,55 @@ public class SolverTest extends MatrixTaskTests {
 
     }
 
+    @Test
+    public void testMixedPrecision() throws RecoverableCondition {
+
+        int dim = 200;
+        NumberContext accuracy = NumberContext.getGeneral(10, 14);
+
+        Primitive64Store body = Primitive64Store.FACTORY.makeFilled(dim, dim, new Uniform());
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 3, new Uniform());
+
+        SolverTask<Double> task = SolverTask.MIXED.make(body, rhs);
+        TestUtils.assertTrue(task instanceof MixedPrecisionSolverTask);
+        MixedPrecisionSolverTask mixed = (MixedPrecisionSolverTask) task;
+
+        // Well conditioned - refined to double precision accuracy
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.solve(body, rhs);
+        TestUtils.assertEquals(expected, mixed.solve(body, rhs), accuracy);
+        TestUtils.assertFalse(mixed.isFallback());
+        TestUtils.assertTrue(mixed.countIterations() > 0);
+
+        // Not a Primitive64Store body
+
+        MatrixStore<Double> transposed = body.transpose();
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(transposed, rhs), mixed.solve(transposed, rhs), accuracy);
+        TestUtils.assertFalse(mixed.isFallback());
+
+        // Ill conditioned - solved in double precision instead
+
+        Primitive64Store scaled = body.copy();
+        scaled.modifyColumn(0, 0, PrimitiveMath.MULTIPLY.second(1E-9));
+        TestUtils.assertEquals(SolverTask.PRIMITIVE.solve(scaled, rhs), mixed.solve(scaled, rhs), accuracy);
+        TestUtils.assertTrue(mixed.isFallback());
+
+        // Singular
+
+        Primitive64Store singular = body.copy();
+        singular.fillRow(0, 0, 0.0);
+        try {
+            mixed.solve(singular, rhs);
+            TestUtils.fail();
+        } catch (RecoverableCondition expectedCondition) {
+            TestUtils.assertTrue(mixed.isFallback());
+        }
+
+        // Small systems are delegated
+
+        TestUtils.assertFalse(SolverTask.MIXED.make(5, 5, 1, false, false) instanceof MixedPrecisionSolverTask);
+    }
+
     @Test
     public void testSymmetric1X1() {
         this.doCompare(AbstractSolver.FULL_1X1, 1);
@@ -107,6 +352,111 @@ public class SolverTest extends MatrixTaskTests {
         this.doCompare(AbstractSolver.SYMMETRIC_3X3, 3);
     }
 
+    @Test
+    public void testNonsymmetric() throws RecoverableCondition {
+
+        SparseStore<Double> body = SolverTest.convectionDiffusion(20, 10.0);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, new Uniform());
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.solve(body, rhs);
+        NumberContext accuracy = NumberContext.getGeneral(8, 10);
+
+        BiCGSTABSolver bicgstab = new BiCGSTABSolver();
+        bicgstab.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(1000);
+        TestUtils.assertEquals(expected, bicgstab.solve(body, rhs).get(), accuracy);
+
+        GMRESSolver gmres = new GMRESSolver(20);
+        gmres.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(1000);
+        TestUtils.assertEquals(expected, gmres.solve(body, rhs).get(), accuracy);
+        int jacobi = gmres.countIterations();
+
+        gmres.configurator().preconditioner(Preconditioner.newIncompleteLU());
+        TestUtils.assertEquals(expected, gmres.solve(body, rhs).get(), accuracy);
+        TestUtils.assertTrue(gmres.countIterations() < jacobi);
+
+        bicgstab.configurator().preconditioner(Preconditioner.newIncompleteLU());
+        TestUtils.assertEquals(expected, bicgstab.solve(body, rhs).get(), accuracy);
+    }
+
+    @Test
+    public void testPreconditioners() throws RecoverableCondition {
+
+        SparseStore<Double> body = SolverTest.diffusion(30);
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(body.countRows(), 1L, new Uniform());
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.solve(body, rhs);
+        NumberContext accuracy = NumberContext.getGeneral(6, 8);
+
+        ConjugateGradientSolver solver = new ConjugateGradientSolver();
+        solver.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(5000);
+
+        TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), accuracy);
+        int jacobi = solver.countIterations();
+
+        for (Preconditioner preconditioner : new Preconditioner[] { Preconditioner.newIncompleteCholesky(), Preconditioner.newIncompleteLU(),
+                Preconditioner.newSSOR(1.5) }) {
+
+            solver.configurator().preconditioner(preconditioner);
+
+            TestUtils.assertEquals(expected, solver.solve(body, rhs).get(), accuracy);
+            int iterations = solver.countIterations();
+            TestUtils.assertTrue(preconditioner.getClass().getSimpleName() + " " + iterations + " vs " + jacobi, iterations < jacobi);
+        }
+    }
+
+    @Test
+    public void testSymmetricIndefinite() throws RecoverableCondition {
+
+        int numberOfVariables = 100;
+        int numberOfConstraints = 30;
+        int dim = numberOfVariables + numberOfConstraints;
+
+        // KKT system [Q, A^T; A, 0]
+        SparseStore<Double> body = SparseStore.PRIMITIVE64.make(dim, dim);
+        for (int i = 0; i < numberOfVariables; i++) {
+            body.set(i, i, 2.0);
+            if (i > 0) {
+                body.set(i, i - 1, -1.0);
+                body.set(i - 1, i, -1.0);
+            }
+        }
+        for (int c = 0; c < numberOfConstraints; c++) {
+            int row = numberOfVariables + c;
+            for (int j = c * 3; j < ((c * 3) + 3); j++) {
+                body.set(row, j, 1.0);
+                body.set(j, row, 1.0);
+            }
+        }
+        Primitive64Store rhs = Primitive64Store.FACTORY.makeFilled(dim, 1L, new Uniform());
+
+        MatrixStore<Double> expected = SolverTask.PRIMITIVE.solve(body, rhs);
+        NumberContext accuracy = NumberContext.getGeneral(8, 10);
+
+        MINRESSolver minres = new MINRESSolver();
+        minres.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(2000);
+        TestUtils.assertEquals(expected, minres.solve(body, rhs).get(), accuracy);
+
+        // The same equation system, as a list of rows, with a warm start
+        List<Equation> rows = new ArrayList<>();
+        for (int i = 0; i < dim; i++) {
+            Equation row = new Equation(i, dim, rhs.doubleValue(i));
+            for (int j = 0; j < dim; j++) {
+                if (body.doubleValue(i, j) != 0.0) {
+                    row.set(j, body.doubleValue(i, j));
+                }
+            }
+            rows.add(row);
+        }
+        PhysicalStore<Double> solution = expected.copy();
+        solution.modifyAll(PrimitiveMath.MULTIPLY.second(0.9));
+        TestUtils.assertTrue(minres.resolve(rows, solution) < 1E-10);
+        TestUtils.assertEquals(expected, solution, accuracy);
+
+        GMRESSolver gmres = new GMRESSolver();
+        gmres.configurator().accuracy(NumberContext.getGeneral(12, 14)).iterations(2000);
+        TestUtils.assertEquals(expected, gmres.solve(body, rhs).get(), accuracy);
+    }
+
     @Test
     public void testSymmetric4X4() {
         this.doCompare(AbstractSolver.SYMMETRIC_4X4, 4);
@@ -0,0 +1,213 @@
+/*
+ * Copyright 1997-2020 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.structure.Access1D;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Equality constrained problems where the full KKT system is solved using the sparse LDL decomposition.
+ *
+ * @author apete
+ */
+public class SparseKKTCase extends OptimisationConvexTests {
+
+    private static final NumberContext ACCURACY = NumberContext.getGeneral(6, 8);
+
+    /**
+     * Tridiagonal Q with some of the variables not part of the quadratic term at all (Q singular), and a
+     * sparse random A that includes each of those variables in a separate constraint.
+     */
+    private static ConvexSolver.Builder builder(final int numberOfVariables, final int numberOfConstraints) {
+
+        int step = numberOfVariables / numberOfConstraints;
+
+        Primitive64Store mtrxQ = Primitive64Store.FACTORY.make(numberOfVariables, numberOfVariables);
+        Primitive64Store mtrxC = Primitive64Store.FACTORY.makeFilled(numberOfVariables, 1, new Uniform(-1.0, 2.0));
+
+        for (int i = 0; i < numberOfVariables; i++) {
+            if ((i % (2 * step)) != 0) {
+                mtrxQ.set(i, i, 2.0);
+                if ((i > 0) && (((i - 1) % (2 * step)) != 0)) {
+                    mtrxQ.set(i, i - 1, -1.0);
+                    mtrxQ.set(i - 1, i, -1.0);
+                }
+            }
+        }
+
+        Primitive64Store mtrxAE = Primitive64Store.FACTORY.make(numberOfConstraints, numberOfVariables);
+        for (int c = 0; c < numberOfConstraints; c++) {
+            for (int k = 0; k < 3; k++) {
+                mtrxAE.set(c, Uniform.randomInteger(numberOfVariables), 1.0 + Uniform.randomInteger(5));
+            }
+            mtrxAE.set(c, c * step, 10.0);
+        }
+        Primitive64Store mtrxBE = Primitive64Store.FACTORY.makeFilled(numberOfConstraints, 1, new Uniform());
+
+        return ConvexSolver.getBuilder(mtrxQ, mtrxC).equalities(mtrxAE, mtrxBE);
+    }
+
+    @Test
+    public void testDefaultSwitchesToSparse() {
+
+        ConvexSolver.Builder builder = SparseKKTCase.builder(1200, 300);
+
+        ConvexSolver solver = builder.build(new Optimisation.Options());
+        TestUtils.assertTrue(solver instanceof QPESolver);
+        TestUtils.assertTrue(solver.isSparseKKT(1500));
+        TestUtils.assertFalse(solver.isSparseKKT(ConvexSolver.SPARSE_KKT_DIMENSION - 1));
+
+        Optimisation.Result sparse = solver.solve();
+
+        Optimisation.Options options = new Optimisation.Options();
+        options.sparse = Boolean.FALSE;
+        Optimisation.Result dense = builder.build(options).solve();
+
+        TestUtils.assertStateNotLessThanOptimal(sparse);
+        TestUtils.assertStateNotLessThanOptimal(dense);
+        TestUtils.assertEquals(dense.getValue(), sparse.getValue(), ACCURACY);
+        TestUtils.assertEquals((Access1D<?>) dense, (Access1D<?>) sparse, ACCURACY);
+    }
+
+    /**
+     * Q, tridiagonal and positive definite, is only decomposed as (part of) the sparse KKT system - never dense.
+     */
+    @Test
+    public void testQNotDecomposedDense() {
+
+        int numberOfVariables = 1200;
+
+        Primitive64Store mtrxQ = Primitive64Store.FACTORY.make(numberOfVariables, numberOfVariables);
+        for (int i = 0; i < numberOfVariables; i++) {
+            mtrxQ.set(i, i, 2.0);
+            if (i > 0) {
+                mtrxQ.set(i, i - 1, -1.0);
+                mtrxQ.set(i - 1, i, -1.0);
+            }
+        }
+        Primitive64Store mtrxC = Primitive64Store.FACTORY.makeFilled(numberOfVariables, 1, new Uniform(-1.0, 2.0));
+
+        Primitive64Store mtrxAE = Primitive64Store.FACTORY.make(1, numberOfVariables);
+        mtrxAE.set(0, 0, 1.0);
+        mtrxAE.set(0, numberOfVariables - 1, 1.0);
+        Primitive64Store mtrxBE = Primitive64Store.FACTORY.makeFilled(1, 1, new Uniform());
+
+        ConvexSolver.Builder[] builders = { ConvexSolver.getBuilder(mtrxQ, mtrxC), ConvexSolver.getBuilder(mtrxQ, mtrxC).equalities(mtrxAE, mtrxBE) };
+
+        for (ConvexSolver.Builder builder : builders) {
+
+            Optimisation.Options options = new Optimisation.Options();
+            options.validate = true;
+
+            ConvexSolver solver = builder.build(options);
+            TestUtils.assertTrue(solver.isSparseKKTOnly());
+
+            Optimisation.Result sparse = solver.solve();
+            TestUtils.assertFalse(solver.isSolvableQ());
+
+            options.sparse = Boolean.FALSE;
+            Optimisation.Result dense = builder.build(options).solve();
+
+            TestUtils.assertStateNotLessThanOptimal(sparse);
+            TestUtils.assertStateNotLessThanOptimal(dense);
+            TestUtils.assertEquals(dense.getValue(), sparse.getValue(), ACCURACY);
+            TestUtils.assertEquals((Access1D<?>) dense, (Access1D<?>) sparse, ACCURACY);
+        }
+    }
+
+    /**
+     * Q supplied as a SparseStore is kept, and used as is, by the sparse KKT path.
+     */
+    @Test
+    public void testSparseQ() {
+
+        int numberOfVariables = 1200;
+
+        SparseStore<Double> mtrxQ = SparseStore.PRIMITIVE64.make(numberOfVariables, numberOfVariables);
+        for (int i = 0; i < numberOfVariables; i++) {
+            mtrxQ.set(i, i, 2.0);
+            if (i > 0) {
+                mtrxQ.set(i, i - 1, -1.0);
+                mtrxQ.set(i - 1, i, -1.0);
+            }
+        }
+        Primitive64Store mtrxC = Primitive64Store.FACTORY.makeFilled(numberOfVariables, 1, new Uniform(-1.0, 2.0));
+
+        Primitive64Store mtrxAE = Primitive64Store.FACTORY.make(1, numberOfVariables);
+        mtrxAE.set(0, 0, 1.0);
+        mtrxAE.set(0, numberOfVariables - 1, 1.0);
+        Primitive64Store mtrxBE = Primitive64Store.FACTORY.makeFilled(1, 1, new Uniform());
+
+        ConvexSolver.Builder builder = ConvexSolver.getBuilder().objective(mtrxQ, mtrxC).equalities(mtrxAE, mtrxBE);
+        TestUtils.assertTrue(builder.getSparseQ() == mtrxQ);
+
+        Optimisation.Options options = new Optimisation.Options();
+        options.validate = true;
+
+        ConvexSolver solver = builder.build(options);
+        TestUtils.assertTrue(solver.isSparseKKTOnly());
+        Optimisation.Result sparse = solver.solve();
+
+        ConvexSolver.Builder denseBuilder = ConvexSolver.getBuilder(Primitive64Store.FACTORY.copy(mtrxQ), mtrxC).equalities(mtrxAE, mtrxBE);
+        TestUtils.assertTrue(denseBuilder.getSparseQ() == null);
+
+        options.sparse = Boolean.FALSE;
+        Optimisation.Result dense = denseBuilder.build(options).solve();
+
+        TestUtils.assertStateNotLessThanOptimal(sparse);
+        TestUtils.assertStateNotLessThanOptimal(dense);
+        TestUtils.assertEquals(dense.getValue(), sparse.getValue(), ACCURACY);
+        TestUtils.assertEquals((Access1D<?>) dense, (Access1D<?>) sparse, ACCURACY);
+    }
+
+    /**
+     * Options.sparse TRUE does not change the size threshold - small KKT systems are still solved dense.
+     */
+    @Test
+    public void testSparseSameAsDense() {
+
+        ConvexSolver.Builder builder = SparseKKTCase.builder(1200, 300);
+
+        Optimisation.Options options = new Optimisation.Options();
+
+        options.sparse = Boolean.TRUE;
+        ConvexSolver solver = builder.build(options);
+        TestUtils.assertTrue(solver.isSparseKKT(1500));
+        TestUtils.assertFalse(solver.isSparseKKT(60));
+        Optimisation.Result sparse = solver.solve();
+
+        options.sparse = Boolean.FALSE;
+        Optimisation.Result dense = builder.build(options).solve();
+
+        TestUtils.assertStateNotLessThanOptimal(sparse);
+        TestUtils.assertStateNotLessThanOptimal(dense);
+        TestUtils.assertEquals(dense.getValue(), sparse.getValue(), ACCURACY);
+        TestUtils.assertEquals((Access1D<?>) dense, (Access1D<?>) sparse, ACCURACY);
+    }
+
+}